@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.builder;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import uk.co.real_logic.artio.fields.DecimalFloat;
+import uk.co.real_logic.artio.fields.ReadOnlyDecimalFloat;
+import uk.co.real_logic.artio.util.AsciiBuffer;
+
+import java.nio.ByteOrder;
+
+/**
+ * Describes the fixed layout binary form of a FIX message, which lets consumers read fields at known offsets
+ * rather than re-parsing the tag=value text. Every message starts with a header:
+ *
+ * <pre>
+ *  0: messageType      - long, the packed FIX MsgType
+ *  8: blockLength      - int, length of the header, presence bits and fixed slots
+ * 12: length           - int, total length including the variable length data
+ * 16: presence bits    - one bit per field in the message's layout, rounded up to whole longs
+ * </pre>
+ *
+ * Followed by one fixed size slot per field: 4 bytes for int types, 8 bytes for longs, 9 bytes for decimals
+ * (an 8 byte value then a 1 byte scale), 1 byte for chars and booleans. String, temporal and other text based
+ * fields have an 8 byte slot holding the offset, relative to the start of the message, and length of their
+ * value within the variable length data section that follows the block. All values are little endian.
+ *
+ * Class provides common implementation methods used by the generated binary codecs, external systems shouldn't
+ * assume API stability.
+ */
+public final class BinaryLayout
+{
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int MESSAGE_TYPE_OFFSET = 0;
+    public static final int BLOCK_LENGTH_OFFSET = 8;
+    public static final int LENGTH_OFFSET = 12;
+    public static final int PRESENCE_OFFSET = 16;
+
+    public static final int INT_SLOT_LENGTH = 4;
+    public static final int LONG_SLOT_LENGTH = 8;
+    public static final int DECIMAL_SLOT_LENGTH = 9;
+    public static final int BYTE_SLOT_LENGTH = 1;
+    public static final int VAR_DATA_SLOT_LENGTH = 8;
+
+    private BinaryLayout()
+    {
+    }
+
+    public static int presenceLength(final int fieldCount)
+    {
+        return ((fieldCount + 63) >>> 6) << 3;
+    }
+
+    public static long messageType(final DirectBuffer buffer, final int offset)
+    {
+        return buffer.getLong(offset + MESSAGE_TYPE_OFFSET, BYTE_ORDER);
+    }
+
+    public static int blockLength(final DirectBuffer buffer, final int offset)
+    {
+        return buffer.getInt(offset + BLOCK_LENGTH_OFFSET, BYTE_ORDER);
+    }
+
+    public static int length(final DirectBuffer buffer, final int offset)
+    {
+        return buffer.getInt(offset + LENGTH_OFFSET, BYTE_ORDER);
+    }
+
+    public static void putHeader(
+        final MutableDirectBuffer buffer,
+        final int offset,
+        final long messageType,
+        final int blockLength,
+        final int length)
+    {
+        buffer.putLong(offset + MESSAGE_TYPE_OFFSET, messageType, BYTE_ORDER);
+        buffer.putInt(offset + BLOCK_LENGTH_OFFSET, blockLength, BYTE_ORDER);
+        buffer.putInt(offset + LENGTH_OFFSET, length, BYTE_ORDER);
+    }
+
+    public static boolean isPresent(final DirectBuffer buffer, final int offset, final int fieldOrdinal)
+    {
+        final int index = offset + PRESENCE_OFFSET + ((fieldOrdinal >>> 6) << 3);
+        return (buffer.getLong(index, BYTE_ORDER) & (1L << fieldOrdinal)) != 0;
+    }
+
+    /**
+     * Marks the field with the given ordinal as present.
+     *
+     * @param buffer the buffer containing the binary form.
+     * @param offset the offset of the message within the buffer.
+     * @param fieldOrdinal the ordinal of the field within the message's layout.
+     * @return true if the field wasn't already present, false if it is a repeat of the field.
+     */
+    public static boolean markPresent(final MutableDirectBuffer buffer, final int offset, final int fieldOrdinal)
+    {
+        final int index = offset + PRESENCE_OFFSET + ((fieldOrdinal >>> 6) << 3);
+        final long bits = buffer.getLong(index, BYTE_ORDER);
+        final long bit = 1L << fieldOrdinal;
+        if ((bits & bit) != 0)
+        {
+            return false;
+        }
+
+        buffer.putLong(index, bits | bit, BYTE_ORDER);
+        return true;
+    }
+
+    /**
+     * Copies a text value into the variable length data section and records its position in the field's slot.
+     *
+     * @param input the buffer containing the FIX message.
+     * @param valueOffset the offset of the value within the input.
+     * @param valueLength the length of the value.
+     * @param output the buffer containing the binary form.
+     * @param offset the offset of the message within the output.
+     * @param slotOffset the offset of the field's slot relative to the start of the message.
+     * @param varDataOffset the end of the variable length data so far, relative to the start of the message.
+     * @return the new end of the variable length data, relative to the start of the message.
+     */
+    public static int putVarData(
+        final AsciiBuffer input,
+        final int valueOffset,
+        final int valueLength,
+        final MutableDirectBuffer output,
+        final int offset,
+        final int slotOffset,
+        final int varDataOffset)
+    {
+        output.putBytes(offset + varDataOffset, input, valueOffset, valueLength);
+        output.putInt(offset + slotOffset, varDataOffset, BYTE_ORDER);
+        output.putInt(offset + slotOffset + INT_SLOT_LENGTH, valueLength, BYTE_ORDER);
+        return varDataOffset + valueLength;
+    }
+
+    public static int varDataOffset(final DirectBuffer buffer, final int offset, final int slotOffset)
+    {
+        return offset + buffer.getInt(offset + slotOffset, BYTE_ORDER);
+    }
+
+    public static int varDataLength(final DirectBuffer buffer, final int offset, final int slotOffset)
+    {
+        return buffer.getInt(offset + slotOffset + INT_SLOT_LENGTH, BYTE_ORDER);
+    }
+
+    public static void putDecimal(final MutableDirectBuffer buffer, final int index, final ReadOnlyDecimalFloat value)
+    {
+        buffer.putLong(index, value.value(), BYTE_ORDER);
+        buffer.putByte(index + LONG_SLOT_LENGTH, (byte)value.scale());
+    }
+
+    public static DecimalFloat getDecimal(final DirectBuffer buffer, final int index, final DecimalFloat value)
+    {
+        return value.set(buffer.getLong(index, BYTE_ORDER), buffer.getByte(index + LONG_SLOT_LENGTH));
+    }
+
+    public static void putBoolean(final MutableDirectBuffer buffer, final int index, final boolean value)
+    {
+        buffer.putByte(index, (byte)(value ? 1 : 0));
+    }
+
+    public static boolean getBoolean(final DirectBuffer buffer, final int index)
+    {
+        return buffer.getByte(index) != 0;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.builder;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import uk.co.real_logic.artio.util.AsciiBuffer;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+/**
+ * Converts messages between the FIX tag=value encoding and the fixed layout binary form described by
+ * {@link BinaryLayout}. Implementations are generated from a dictionary when binary codecs are enabled.
+ *
+ * Implementations reuse their internal codecs so aren't thread safe.
+ */
+public interface BinaryTranscoder
+{
+    int UNKNOWN_MESSAGE_TYPE = -1;
+
+    /**
+     * Transcode a FIX message into its binary form.
+     *
+     * @param input the buffer containing the FIX message.
+     * @param offset the offset in the buffer where the message starts.
+     * @param length the length of the message within the buffer.
+     * @param messageType the FIX msgType field, encoded as a long.
+     * @param output the buffer to write the binary form into.
+     * @param outputOffset the offset in the output buffer to write at.
+     * @return the length of the binary form or {@link #UNKNOWN_MESSAGE_TYPE} if the message type isn't part of
+     *         the dictionary.
+     */
+    int fixToBinary(
+        AsciiBuffer input,
+        int offset,
+        int length,
+        long messageType,
+        MutableDirectBuffer output,
+        int outputOffset);
+
+    /**
+     * Transcode the binary form of a message back into FIX using the dictionary's encoders.
+     *
+     * @param input the buffer containing the binary form.
+     * @param offset the offset in the buffer where the binary form starts.
+     * @param output the buffer to write the FIX message into.
+     * @param outputOffset the offset in the output buffer to write at.
+     * @return the result of {@link Encoder#encode(MutableAsciiBuffer, int)}.
+     */
+    long binaryToFix(DirectBuffer input, int offset, MutableAsciiBuffer output, int outputOffset);
+}
@@ -15,6 +15,8 @@
  */
 package uk.co.real_logic.artio.builder;
 
+import uk.co.real_logic.artio.util.AsciiAppender;
+
 public interface CharAppender
 {
     /**
@@ -25,4 +27,13 @@ public interface CharAppender
      * @return the builder for fluent usage
      */
     StringBuilder appendTo(StringBuilder builder);
+
+    /**
+     * Append the same human readable representation as {@link #appendTo(StringBuilder)} as ASCII bytes into the
+     * buffer wrapped by an {@link AsciiAppender}, without allocating.
+     *
+     * @param builder the appender to append to
+     * @return the appender for fluent usage
+     */
+    AsciiAppender appendTo(AsciiAppender builder);
 }
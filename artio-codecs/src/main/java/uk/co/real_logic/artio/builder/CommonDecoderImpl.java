@@ -27,6 +27,7 @@ import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.MISSING_LON
 public abstract class CommonDecoderImpl
 {
     public static final int INCORRECT_DATA_FORMAT_FOR_VALUE = 6;
+    public static final int NO_FIELD_ORDINAL = -1;
 
     protected int invalidTagId = Decoder.NO_ERROR;
     protected int rejectReason = Decoder.NO_ERROR;
@@ -187,4 +188,58 @@ public abstract class CommonDecoderImpl
             }
         }
     }
+
+    /**
+     * Marks the field with the given per-message ordinal as seen.
+     *
+     * @param fieldBits the bitset to update.
+     * @param fieldOrdinal the ordinal of the field within its message.
+     * @return true if the field hadn't been seen before, false if it is a duplicate.
+     */
+    public static boolean markFieldSeen(final long[] fieldBits, final int fieldOrdinal)
+    {
+        final int index = fieldOrdinal >>> 6;
+        final long mask = 1L << fieldOrdinal;
+        final long bits = fieldBits[index];
+        fieldBits[index] = bits | mask;
+        return (bits & mask) == 0;
+    }
+
+    public static void clearField(final long[] fieldBits, final int fieldOrdinal)
+    {
+        fieldBits[fieldOrdinal >>> 6] &= ~(1L << fieldOrdinal);
+    }
+
+    public static void clearFields(final long[] fieldBits)
+    {
+        for (int i = 0; i < fieldBits.length; i++)
+        {
+            fieldBits[i] = 0;
+        }
+    }
+
+    public static void copyFields(final long[] sourceBits, final long[] destinationBits)
+    {
+        System.arraycopy(sourceBits, 0, destinationBits, 0, sourceBits.length);
+    }
+
+    /**
+     * Find the lowest field ordinal set within a bitset.
+     *
+     * @param fieldBits the bitset to search.
+     * @return the lowest set ordinal or {@link #NO_FIELD_ORDINAL} if no bits are set.
+     */
+    public static int firstField(final long[] fieldBits)
+    {
+        for (int i = 0; i < fieldBits.length; i++)
+        {
+            final long bits = fieldBits[i];
+            if (bits != 0)
+            {
+                return (i << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+
+        return NO_FIELD_ORDINAL;
+    }
 }
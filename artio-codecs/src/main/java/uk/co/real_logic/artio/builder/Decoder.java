@@ -16,6 +16,7 @@
 package uk.co.real_logic.artio.builder;
 
 import uk.co.real_logic.artio.decoder.SessionHeaderDecoder;
+import uk.co.real_logic.artio.util.AsciiAppender;
 import uk.co.real_logic.artio.util.AsciiBuffer;
 
 /**
@@ -76,6 +77,17 @@ public interface Decoder extends CharAppender
      */
     StringBuilder appendTo(StringBuilder builder, int level);
 
+    /**
+     * Append the same JSON representation as {@link #appendTo(StringBuilder, int)} as ASCII bytes to the buffer
+     * wrapped by an {@link AsciiAppender}. This doesn't go through a {@link StringBuilder} at all so can be used to
+     * log or print messages without allocating.
+     *
+     * @param builder the appender to append a JSON string representation to.
+     * @param level the whitespace indentation level to use.
+     * @return the appender passed as an argument
+     */
+    AsciiAppender appendTo(AsciiAppender builder, int level);
+
     /**
      * Copies the field values on the Encoder to be the same as this Decoder. This also sets all child components and
      * repeating group values to be the same.
@@ -15,6 +15,7 @@
  */
 package uk.co.real_logic.artio.builder;
 
+import org.agrona.AsciiEncoding;
 import uk.co.real_logic.artio.EncodingException;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
@@ -22,6 +23,18 @@ public interface Encoder extends CharAppender
 {
     int BITS_IN_INT = 32;
 
+    /**
+     * Number of bytes, in addition to the BeginString value, that a message encoder reserves at the start of the
+     * message for the BeginString and BodyLength fields. These are encoded backwards once the body length is known.
+     */
+    int START_MESSAGE_RESERVED_LENGTH = 16;
+
+    // 8= + SOH + 9= + SOH
+    int BEGIN_STRING_AND_BODY_LENGTH_FRAMING = 6;
+
+    // 10=XXX + SOH
+    int CHECKSUM_FIELD_LENGTH = 7;
+
     static int length(final long result)
     {
         return (int)result;
@@ -37,6 +50,32 @@ public interface Encoder extends CharAppender
         return length | ((long)offset) << BITS_IN_INT;
     }
 
+    /**
+     * Calculates the offset to pass to {@link #encode(MutableAsciiBuffer, int)} so that a message whose encoded
+     * length is already known starts exactly at <code>messageStart</code>. The bytes between the returned offset
+     * and <code>messageStart</code> are not written to by the encoder.
+     *
+     * @param messageStart the offset within the buffer that the message should start at.
+     * @param messageLength the total encoded length of the message, from BeginString to CheckSum inclusive.
+     * @param beginStringLength the length of the BeginString value, for example 7 for FIX.4.4.
+     * @return the offset to encode at, or -1 if there's no body length consistent with the message length.
+     */
+    static int encodeOffset(final int messageStart, final int messageLength, final int beginStringLength)
+    {
+        final int framingLength = beginStringLength + BEGIN_STRING_AND_BODY_LENGTH_FRAMING + CHECKSUM_FIELD_LENGTH;
+        for (int bodyLengthDigits = 1; bodyLengthDigits <= 10; bodyLengthDigits++)
+        {
+            final int bodyLength = messageLength - framingLength - bodyLengthDigits;
+            if (bodyLength > 0 && AsciiEncoding.digitCount(bodyLength) == bodyLengthDigits)
+            {
+                return messageStart -
+                    (START_MESSAGE_RESERVED_LENGTH - BEGIN_STRING_AND_BODY_LENGTH_FRAMING - bodyLengthDigits);
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * Encode the message onto a buffer in FIX tag=value\001 format.
      *
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.builder;
+
+import uk.co.real_logic.artio.util.AsciiSwar;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Holds the pre-encoded bytes of the session constant fields of a header encoder, eg: the CompIDs, SubIDs and
+ * LocationIDs. The header's fields are split into runs of constant fields separated by fields that change on every
+ * send, such as MsgSeqNum or SendingTime. Once captured each run can be copied into later messages rather than
+ * being re-encoded, and its contribution to the checksum is known up front.
+ *
+ * Class provides common implementation methods used by encoders, external systems shouldn't assume API stability.
+ */
+public final class HeaderTemplate
+{
+    private static final int INITIAL_CAPACITY = 128;
+
+    private final int[] runOffsets;
+    private final int[] runLengths;
+    private final int[] runPositions;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+    private int byteSum;
+    private boolean enabled;
+    private boolean cached;
+    private boolean copiedIntoLastMessage;
+
+    public HeaderTemplate(final int runCount)
+    {
+        runOffsets = new int[runCount];
+        runLengths = new int[runCount];
+        runPositions = new int[runCount];
+    }
+
+    public void enabled(final boolean enabled)
+    {
+        if (this.enabled != enabled)
+        {
+            this.enabled = enabled;
+            cached = false;
+        }
+    }
+
+    public boolean enabled()
+    {
+        return enabled;
+    }
+
+    public void invalidate()
+    {
+        cached = false;
+    }
+
+    /**
+     * Start encoding a header, called before any of the runs are copied or captured.
+     *
+     * @return true if the runs can be copied from the template, false if they need to be encoded.
+     */
+    public boolean startEncode()
+    {
+        final boolean cached = this.cached;
+        copiedIntoLastMessage = cached;
+        if (!cached)
+        {
+            length = 0;
+            byteSum = 0;
+        }
+        return cached;
+    }
+
+    public int copyRun(final MutableAsciiBuffer buffer, final int position, final int run)
+    {
+        final int runLength = runLengths[run];
+        buffer.putBytes(position, bytes, runOffsets[run], runLength);
+        runPositions[run] = position;
+        return position + runLength;
+    }
+
+    public void captureRun(final MutableAsciiBuffer buffer, final int start, final int end, final int run)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+
+        final int runLength = end - start;
+        final int offset = length;
+        final int requiredCapacity = offset + runLength;
+        if (requiredCapacity > bytes.length)
+        {
+            bytes = Arrays.copyOf(bytes, Math.max(requiredCapacity, bytes.length << 1));
+        }
+
+        buffer.getBytes(start, bytes, offset, runLength);
+        byteSum += AsciiSwar.sum(buffer, start, end);
+        runOffsets[run] = offset;
+        runLengths[run] = runLength;
+        length = requiredCapacity;
+    }
+
+    public void completeEncode()
+    {
+        cached = enabled;
+    }
+
+    /**
+     * Computes the FIX checksum of a message whose header was encoded by the last call to
+     * {@link #startEncode()}. If the runs were copied from the template then their bytes aren't summed again.
+     *
+     * @param buffer the buffer the message is encoded into.
+     * @param messageStart the offset of the start of the message.
+     * @param end the offset of the end of the message body, excluding the checksum field.
+     * @return the checksum, identical to {@link MutableAsciiBuffer#computeChecksum(int, int)} over the message.
+     */
+    public int checksum(final MutableAsciiBuffer buffer, final int messageStart, final int end)
+    {
+        if (!copiedIntoLastMessage)
+        {
+            return buffer.computeChecksum(messageStart, end);
+        }
+
+        final int[] runPositions = this.runPositions;
+        final int[] runLengths = this.runLengths;
+        int total = byteSum;
+        int position = messageStart;
+        for (int run = 0; run < runPositions.length; run++)
+        {
+            final int runPosition = runPositions[run];
+            total += AsciiSwar.sum(buffer, position, runPosition);
+            position = runPosition + runLengths[run];
+        }
+        total += AsciiSwar.sum(buffer, position, end);
+
+        return total % 256;
+    }
+}
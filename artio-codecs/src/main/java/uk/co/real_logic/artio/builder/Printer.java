@@ -15,10 +15,30 @@
  */
 package uk.co.real_logic.artio.builder;
 
+import uk.co.real_logic.artio.util.AsciiAppender;
 import uk.co.real_logic.artio.util.AsciiBuffer;
 
 @FunctionalInterface
 public interface Printer
 {
     String toString(AsciiBuffer input, int offset, int length, long messageType);
+
+    /**
+     * Append the same representation as {@link #toString(AsciiBuffer, int, int, long)} to an {@link AsciiAppender}.
+     * Generated printers override this in order to decode and append the message without allocating, the default
+     * implementation is provided for other printers and allocates a String.
+     *
+     * @param input the buffer containing the message.
+     * @param offset the offset within the buffer that the message starts at.
+     * @param length the length of the message.
+     * @param messageType the packed message type of the message.
+     * @param appender the appender to write the representation to.
+     * @return the appender passed as an argument.
+     */
+    default AsciiAppender appendTo(
+        final AsciiBuffer input, final int offset, final int length, final long messageType,
+        final AsciiAppender appender)
+    {
+        return appender.append(toString(input, offset, length, messageType));
+    }
 }
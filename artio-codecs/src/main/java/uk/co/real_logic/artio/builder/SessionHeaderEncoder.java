@@ -171,6 +171,18 @@ public interface SessionHeaderEncoder
 
     long startMessage(MutableAsciiBuffer buffer, int offset);
 
+    /**
+     * Enables caching the encoded form of the session constant string fields of this header, eg: the CompIDs, SubIDs
+     * and LocationIDs, so that subsequent messages copy them rather than re-encoding them. The cache is invalidated
+     * when any of those fields are set or reset. Changes made by mutating a buffer that a field wraps, rather than
+     * copies, aren't detected so shouldn't be used with this option.
+     *
+     * @param enabled true to cache the header template, false to encode every field on every message.
+     */
+    default void headerTemplateEnabled(final boolean enabled)
+    {
+    }
+
     SessionHeaderEncoder msgType(CharSequence value);
 
     SessionHeaderEncoder msgType(DirectBuffer value);
@@ -0,0 +1,600 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.dictionary.generation;
+
+import org.agrona.AsciiSequenceView;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.generation.OutputManager;
+import uk.co.real_logic.artio.builder.BinaryLayout;
+import uk.co.real_logic.artio.builder.BinaryTranscoder;
+import uk.co.real_logic.artio.dictionary.Generated;
+import uk.co.real_logic.artio.dictionary.ir.Aggregate;
+import uk.co.real_logic.artio.dictionary.ir.Dictionary;
+import uk.co.real_logic.artio.dictionary.ir.Entry;
+import uk.co.real_logic.artio.dictionary.ir.Field;
+import uk.co.real_logic.artio.dictionary.ir.Field.Type;
+import uk.co.real_logic.artio.dictionary.ir.Message;
+import uk.co.real_logic.artio.fields.DecimalFloat;
+import uk.co.real_logic.artio.util.AsciiBuffer;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.joining;
+import static uk.co.real_logic.artio.builder.BinaryLayout.BYTE_SLOT_LENGTH;
+import static uk.co.real_logic.artio.builder.BinaryLayout.DECIMAL_SLOT_LENGTH;
+import static uk.co.real_logic.artio.builder.BinaryLayout.INT_SLOT_LENGTH;
+import static uk.co.real_logic.artio.builder.BinaryLayout.LONG_SLOT_LENGTH;
+import static uk.co.real_logic.artio.builder.BinaryLayout.PRESENCE_OFFSET;
+import static uk.co.real_logic.artio.builder.BinaryLayout.VAR_DATA_SLOT_LENGTH;
+import static uk.co.real_logic.artio.builder.BinaryLayout.presenceLength;
+import static uk.co.real_logic.artio.dictionary.generation.EncoderGenerator.encoderClassName;
+import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.GENERATED_ANNOTATION;
+import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.constantName;
+import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.fileHeader;
+import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.importFor;
+import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.importStaticFor;
+import static uk.co.real_logic.sbe.generation.java.JavaUtil.formatClassName;
+import static uk.co.real_logic.sbe.generation.java.JavaUtil.formatPropertyName;
+
+/**
+ * Generates a fixed layout binary codec per message, see {@link BinaryLayout}, and a {@link BinaryTranscoder}
+ * that converts between it and FIX.
+ *
+ * The layout covers the header fields and the message's fields, including those of nested components. Repeating
+ * groups and DATA fields aren't represented, the body length, message type and checksum are implied by the binary
+ * form itself.
+ */
+class BinaryCodecGenerator
+{
+    private static final String TRANSCODER_CLASS_NAME = "BinaryTranscoderImpl";
+    private static final String HEADER_ACCESSOR = "header()";
+    private static final Set<String> IMPLIED_FIELDS = new HashSet<>();
+
+    static
+    {
+        IMPLIED_FIELDS.add("BodyLength");
+        IMPLIED_FIELDS.add("MsgType");
+        IMPLIED_FIELDS.add("CheckSum");
+    }
+
+    private final Dictionary dictionary;
+    private final String binaryPackage;
+    private final String encoderPackage;
+    private final OutputManager outputManager;
+
+    BinaryCodecGenerator(
+        final Dictionary dictionary,
+        final String binaryPackage,
+        final String encoderPackage,
+        final OutputManager outputManager)
+    {
+        this.dictionary = dictionary;
+        this.binaryPackage = binaryPackage;
+        this.encoderPackage = encoderPackage;
+        this.outputManager = outputManager;
+    }
+
+    public void generate()
+    {
+        if (dictionary.shared())
+        {
+            return;
+        }
+
+        for (final Message message : dictionary.messages())
+        {
+            generateMessage(message);
+        }
+
+        generateTranscoder();
+    }
+
+    private static String binaryClassName(final Aggregate aggregate)
+    {
+        return formatClassName(aggregate.name() + "Binary");
+    }
+
+    private void generateMessage(final Message message)
+    {
+        final String className = binaryClassName(message);
+        final List<BinaryField> fields = layout(message);
+        final int blockLength = fields.isEmpty() ?
+            PRESENCE_OFFSET : fields.get(fields.size() - 1).slotOffset + slotLength(fields.get(fields.size() - 1));
+
+        outputManager.withOutput(className,
+            (out) ->
+            {
+                out.append(fileHeader(binaryPackage));
+                out.append(
+                    importFor(AsciiSequenceView.class) +
+                    importFor(DirectBuffer.class) +
+                    importFor(MutableDirectBuffer.class) +
+                    importFor(Generated.class) +
+                    importFor(DecimalFloat.class) +
+                    importFor(AsciiBuffer.class) +
+                    importFor(encoderPackage + "." + encoderClassName(message.name())) +
+                    "\n" +
+                    importStaticFor(BinaryLayout.class) +
+                    "\n" +
+                    GENERATED_ANNOTATION +
+                    "public class " + className + "\n" +
+                    "{\n");
+
+                out.append(String.format(
+                    "    public static final long MESSAGE_TYPE = %dL;\n" +
+                    "    public static final int FIELD_COUNT = %d;\n" +
+                    "%s" +
+                    "    public static final int BLOCK_LENGTH = %d;\n\n" +
+                    "    private final DecimalFloat decimal = new DecimalFloat();\n" +
+                    "    private DirectBuffer buffer;\n" +
+                    "    private int offset;\n\n" +
+                    "    public %s wrap(final DirectBuffer buffer, final int offset)\n" +
+                    "    {\n" +
+                    "        this.buffer = buffer;\n" +
+                    "        this.offset = offset;\n" +
+                    "        return this;\n" +
+                    "    }\n\n" +
+                    "    public int encodedLength()\n" +
+                    "    {\n" +
+                    "        return length(buffer, offset);\n" +
+                    "    }\n\n",
+                    message.packedType(),
+                    fields.size(),
+                    fields.stream()
+                        .map((field) -> String.format(
+                            "    public static final int %s = %d;\n", offsetConstant(field), field.slotOffset))
+                        .collect(joining()),
+                    blockLength,
+                    className));
+
+                out.append(fixToBinary(fields));
+
+                for (final BinaryField field : fields)
+                {
+                    out.append(getters(field));
+                }
+
+                out.append(toEncoder(message, fields));
+                out.append("}\n");
+            });
+    }
+
+    private List<BinaryField> layout(final Message message)
+    {
+        final List<BinaryField> fields = new ArrayList<>();
+        final Set<Integer> seenTags = new HashSet<>();
+        final Set<String> dataLengthFields = new HashSet<>();
+        message.allFieldsIncludingComponents()
+            .map((entry) -> (Field)entry.element())
+            .filter((field) -> field.type().isDataBased() && field.associatedLengthField() != null)
+            .forEach((field) -> dataLengthFields.add(field.associatedLengthField().name()));
+
+        int slotOffset = PRESENCE_OFFSET + presenceLength(countFields(message, dataLengthFields));
+        slotOffset = addFields(dictionary.header(), HEADER_ACCESSOR, fields, seenTags, dataLengthFields, slotOffset);
+        addFields(message, "", fields, seenTags, dataLengthFields, slotOffset);
+
+        return fields;
+    }
+
+    private int countFields(final Message message, final Set<String> dataLengthFields)
+    {
+        final List<BinaryField> fields = new ArrayList<>();
+        final Set<Integer> seenTags = new HashSet<>();
+        addFields(dictionary.header(), HEADER_ACCESSOR, fields, seenTags, dataLengthFields, 0);
+        addFields(message, "", fields, seenTags, dataLengthFields, 0);
+        return fields.size();
+    }
+
+    private int addFields(
+        final Aggregate aggregate,
+        final String encoderPath,
+        final List<BinaryField> fields,
+        final Set<Integer> seenTags,
+        final Set<String> dataLengthFields,
+        final int initialSlotOffset)
+    {
+        int slotOffset = initialSlotOffset;
+        for (final Entry entry : aggregate.entries())
+        {
+            if (entry.isField())
+            {
+                final Field field = (Field)entry.element();
+                if (isRepresented(field, dataLengthFields) && seenTags.add(field.number()))
+                {
+                    final BinaryField binaryField = new BinaryField(field, fields.size(), slotOffset, encoderPath);
+                    fields.add(binaryField);
+                    slotOffset += slotLength(binaryField);
+                }
+            }
+            else if (entry.isComponent())
+            {
+                final Aggregate component = (Aggregate)entry.element();
+                final String componentPath = encoderPath + (encoderPath.isEmpty() ? "" : ".") +
+                    formatPropertyName(component.name()) + "()";
+                slotOffset = addFields(component, componentPath, fields, seenTags, dataLengthFields, slotOffset);
+            }
+        }
+
+        return slotOffset;
+    }
+
+    private static boolean isRepresented(final Field field, final Set<String> dataLengthFields)
+    {
+        final Type type = field.type();
+        return !IMPLIED_FIELDS.contains(field.name()) &&
+            !dataLengthFields.contains(field.name()) &&
+            !type.isDataBased() &&
+            type != Type.NUMINGROUP;
+    }
+
+    private static int slotLength(final BinaryField field)
+    {
+        switch (field.field.type())
+        {
+            case INT:
+            case LENGTH:
+            case SEQNUM:
+            case DAYOFMONTH:
+                return INT_SLOT_LENGTH;
+
+            case LONG:
+                return LONG_SLOT_LENGTH;
+
+            case FLOAT:
+            case PRICE:
+            case PRICEOFFSET:
+            case QTY:
+            case QUANTITY:
+            case PERCENTAGE:
+            case AMT:
+                return DECIMAL_SLOT_LENGTH;
+
+            case CHAR:
+            case BOOLEAN:
+                return BYTE_SLOT_LENGTH;
+
+            default:
+                return VAR_DATA_SLOT_LENGTH;
+        }
+    }
+
+    private String fixToBinary(final List<BinaryField> fields)
+    {
+        final String cases = fields.stream()
+            .map((field) -> String.format(
+                "                case %d:\n" +
+                "                    if (markPresent(output, outputOffset, %d))\n" +
+                "                    {\n" +
+                "                        %s\n" +
+                "                    }\n" +
+                "                    break;\n\n",
+                field.field.number(),
+                field.ordinal,
+                putValue(field)))
+            .collect(joining());
+
+        return
+            "    public int fixToBinary(\n" +
+            "        final AsciiBuffer input,\n" +
+            "        final int inputOffset,\n" +
+            "        final int inputLength,\n" +
+            "        final MutableDirectBuffer output,\n" +
+            "        final int outputOffset)\n" +
+            "    {\n" +
+            "        output.setMemory(outputOffset, BLOCK_LENGTH, (byte)0);\n" +
+            "        final int end = inputOffset + inputLength;\n" +
+            "        int varDataOffset = BLOCK_LENGTH;\n" +
+            "        int position = inputOffset;\n\n" +
+            "        while (position < end)\n" +
+            "        {\n" +
+            "            final int equalsPosition = input.scan(position, end, '=');\n" +
+            "            if (equalsPosition == AsciiBuffer.UNKNOWN_INDEX)\n" +
+            "            {\n" +
+            "                break;\n" +
+            "            }\n" +
+            "            final int valueOffset = equalsPosition + 1;\n" +
+            "            final int endOfField = input.scan(valueOffset, end, AsciiBuffer.SEPARATOR);\n" +
+            "            if (endOfField == AsciiBuffer.UNKNOWN_INDEX)\n" +
+            "            {\n" +
+            "                break;\n" +
+            "            }\n" +
+            "            final int valueLength = endOfField - valueOffset;\n\n" +
+            "            switch (input.getInt(position, equalsPosition))\n" +
+            "            {\n" +
+            cases +
+            "                default:\n" +
+            "                    break;\n" +
+            "            }\n\n" +
+            "            position = endOfField + 1;\n" +
+            "        }\n\n" +
+            "        putHeader(output, outputOffset, MESSAGE_TYPE, BLOCK_LENGTH, varDataOffset);\n" +
+            "        return varDataOffset;\n" +
+            "    }\n\n";
+    }
+
+    private static String putValue(final BinaryField field)
+    {
+        final String index = "outputOffset + " + offsetConstant(field);
+        switch (field.field.type())
+        {
+            case INT:
+            case LENGTH:
+            case SEQNUM:
+            case DAYOFMONTH:
+                return "output.putInt(" + index + ", input.getInt(valueOffset, endOfField), BYTE_ORDER);";
+
+            case LONG:
+                return "output.putLong(" + index + ", input.parseLongAscii(valueOffset, valueLength), BYTE_ORDER);";
+
+            case FLOAT:
+            case PRICE:
+            case PRICEOFFSET:
+            case QTY:
+            case QUANTITY:
+            case PERCENTAGE:
+            case AMT:
+                return "putDecimal(output, " + index + ", input.getFloat(decimal, valueOffset, valueLength));";
+
+            case CHAR:
+                return "output.putByte(" + index + ", input.getByte(valueOffset));";
+
+            case BOOLEAN:
+                return "putBoolean(output, " + index + ", input.getBoolean(valueOffset));";
+
+            default:
+                return "varDataOffset = putVarData(\n" +
+                    "                            input, valueOffset, valueLength, output, outputOffset, " +
+                    offsetConstant(field) + ", varDataOffset);";
+        }
+    }
+
+    private static String getters(final BinaryField field)
+    {
+        final String name = field.field.name();
+        final String fieldName = formatPropertyName(name);
+        final String offsetConstant = offsetConstant(field);
+        final String hasGetter = String.format(
+            "    public boolean has%s()\n" +
+            "    {\n" +
+            "        return isPresent(buffer, offset, %d);\n" +
+            "    }\n\n",
+            name,
+            field.ordinal);
+
+        final String valueGetter;
+        switch (field.field.type())
+        {
+            case INT:
+            case LENGTH:
+            case SEQNUM:
+            case DAYOFMONTH:
+                valueGetter = getter("int", fieldName, "buffer.getInt(offset + " + offsetConstant + ", BYTE_ORDER)");
+                break;
+
+            case LONG:
+                valueGetter = getter("long", fieldName, "buffer.getLong(offset + " + offsetConstant + ", BYTE_ORDER)");
+                break;
+
+            case FLOAT:
+            case PRICE:
+            case PRICEOFFSET:
+            case QTY:
+            case QUANTITY:
+            case PERCENTAGE:
+            case AMT:
+                valueGetter = String.format(
+                    "    public DecimalFloat %1$s(final DecimalFloat value)\n" +
+                    "    {\n" +
+                    "        return getDecimal(buffer, offset + %2$s, value);\n" +
+                    "    }\n\n",
+                    fieldName,
+                    offsetConstant);
+                break;
+
+            case CHAR:
+                valueGetter = getter("char", fieldName, "(char)buffer.getByte(offset + " + offsetConstant + ")");
+                break;
+
+            case BOOLEAN:
+                valueGetter = getter("boolean", fieldName, "getBoolean(buffer, offset + " + offsetConstant + ")");
+                break;
+
+            default:
+                valueGetter = String.format(
+                    "    public int %1$sOffset()\n" +
+                    "    {\n" +
+                    "        return varDataOffset(buffer, offset, %2$s);\n" +
+                    "    }\n\n" +
+                    "    public int %1$sLength()\n" +
+                    "    {\n" +
+                    "        return varDataLength(buffer, offset, %2$s);\n" +
+                    "    }\n\n" +
+                    "    public AsciiSequenceView %1$s(final AsciiSequenceView view)\n" +
+                    "    {\n" +
+                    "        return view.wrap(buffer, %1$sOffset(), %1$sLength());\n" +
+                    "    }\n\n",
+                    fieldName,
+                    offsetConstant);
+                break;
+        }
+
+        return hasGetter + valueGetter;
+    }
+
+    private static String getter(final String javaType, final String fieldName, final String expression)
+    {
+        return String.format(
+            "    public %s %s()\n" +
+            "    {\n" +
+            "        return %s;\n" +
+            "    }\n\n",
+            javaType,
+            fieldName,
+            expression);
+    }
+
+    private String toEncoder(final Message message, final List<BinaryField> fields)
+    {
+        final String body = fields.stream()
+            .map((field) -> String.format(
+                "        if (has%s())\n" +
+                "        {\n" +
+                "            encoder%s.%s;\n" +
+                "        }\n",
+                field.field.name(),
+                field.encoderPath.isEmpty() ? "" : "." + field.encoderPath,
+                setValue(field)))
+            .collect(joining());
+
+        return String.format(
+            "    public void toEncoder(final %s encoder)\n" +
+            "    {\n" +
+            "%s" +
+            "    }\n",
+            encoderClassName(message.name()),
+            body);
+    }
+
+    private static String setValue(final BinaryField field)
+    {
+        final String fieldName = formatPropertyName(field.field.name());
+        switch (field.field.type())
+        {
+            case FLOAT:
+            case PRICE:
+            case PRICEOFFSET:
+            case QTY:
+            case QUANTITY:
+            case PERCENTAGE:
+            case AMT:
+                return String.format("%1$s(%1$s(decimal))", fieldName);
+
+            case INT:
+            case LENGTH:
+            case SEQNUM:
+            case DAYOFMONTH:
+            case LONG:
+            case CHAR:
+            case BOOLEAN:
+                return String.format("%1$s(%1$s())", fieldName);
+
+            default:
+                return String.format("%1$s(buffer, %1$sOffset(), %1$sLength())", fieldName);
+        }
+    }
+
+    private static String offsetConstant(final BinaryField field)
+    {
+        return constantName(field.field.name()) + "_OFFSET";
+    }
+
+    private void generateTranscoder()
+    {
+        outputManager.withOutput(TRANSCODER_CLASS_NAME,
+            (out) ->
+            {
+                out.append(fileHeader(binaryPackage));
+                out.append(
+                    importFor(DirectBuffer.class) +
+                    importFor(MutableDirectBuffer.class) +
+                    importFor(BinaryLayout.class) +
+                    importFor(BinaryTranscoder.class) +
+                    importFor(Generated.class) +
+                    importFor(AsciiBuffer.class) +
+                    importFor(MutableAsciiBuffer.class) +
+                    dictionary.messages().stream()
+                        .map((message) -> importFor(encoderPackage + "." + encoderClassName(message.name())))
+                        .collect(joining()) +
+                    "\n" +
+                    GENERATED_ANNOTATION +
+                    "public class " + TRANSCODER_CLASS_NAME + " implements BinaryTranscoder\n" +
+                    "{\n");
+
+                for (final Message message : dictionary.messages())
+                {
+                    out.append(String.format(
+                        "    private final %1$s %2$sBinary = new %1$s();\n" +
+                        "    private final %3$s %2$sEncoder = new %3$s();\n",
+                        binaryClassName(message),
+                        formatPropertyName(message.name()),
+                        encoderClassName(message.name())));
+                }
+
+                out.append(
+                    "\n" +
+                    "    public int fixToBinary(\n" +
+                    "        final AsciiBuffer input,\n" +
+                    "        final int offset,\n" +
+                    "        final int length,\n" +
+                    "        final long messageType,\n" +
+                    "        final MutableDirectBuffer output,\n" +
+                    "        final int outputOffset)\n" +
+                    "    {\n" +
+                    dictionary.messages().stream()
+                        .map((message) -> String.format(
+                            "        if (messageType == %2$sL)\n" +
+                            "        {\n" +
+                            "            return %1$sBinary.fixToBinary(\n" +
+                            "                input, offset, length, output, outputOffset);\n" +
+                            "        }\n\n",
+                            formatPropertyName(message.name()),
+                            message.packedType()))
+                        .collect(joining()) +
+                    "        return UNKNOWN_MESSAGE_TYPE;\n" +
+                    "    }\n\n" +
+                    "    public long binaryToFix(\n" +
+                    "        final DirectBuffer input, final int offset, final MutableAsciiBuffer output, " +
+                    "final int outputOffset)\n" +
+                    "    {\n" +
+                    "        final long messageType = BinaryLayout.messageType(input, offset);\n" +
+                    dictionary.messages().stream()
+                        .map((message) -> String.format(
+                            "        if (messageType == %2$sL)\n" +
+                            "        {\n" +
+                            "            %1$sEncoder.reset();\n" +
+                            "            %1$sBinary.wrap(input, offset).toEncoder(%1$sEncoder);\n" +
+                            "            return %1$sEncoder.encode(output, outputOffset);\n" +
+                            "        }\n\n",
+                            formatPropertyName(message.name()),
+                            message.packedType()))
+                        .collect(joining()) +
+                    "        throw new IllegalArgumentException(\"Unknown Message Type: \" + messageType);\n" +
+                    "    }\n" +
+                    "}\n");
+            });
+    }
+
+    private static final class BinaryField
+    {
+        private final Field field;
+        private final int ordinal;
+        private final int slotOffset;
+        private final String encoderPath;
+
+        private BinaryField(final Field field, final int ordinal, final int slotOffset, final String encoderPath)
+        {
+            this.field = field;
+            this.ordinal = ordinal;
+            this.slotOffset = slotOffset;
+            this.encoderPath = encoderPath;
+        }
+    }
+}
@@ -54,6 +54,8 @@ public final class CodecConfiguration
     public static final String WRAP_EMPTY_BUFFER = "fix.codecs.wrap_empty_buffer";
     public static final String PARENT_PACKAGE_PROPERTY = "fix.codecs.parent_package";
     public static final String FLYWEIGHTS_ENABLED_PROPERTY = "fix.codecs.flyweight";
+    public static final String LAZY_DECODERS_ENABLED_PROPERTY = "fix.codecs.lazy_decoders";
+    public static final String BINARY_CODECS_ENABLED_PROPERTY = "fix.codecs.binary";
     public static final String REJECT_UNKNOWN_ENUM_VALUE_PROPERTY = "reject.unknown.enum.value";
     public static final String FIX_TAGS_IN_JAVADOC = "fix.codecs.tags_in_javadoc";
 
@@ -62,6 +64,8 @@ public final class CodecConfiguration
 
     private String parentPackage = System.getProperty(PARENT_PACKAGE_PROPERTY, DEFAULT_PARENT_PACKAGE);
     private boolean flyweightsEnabled = Boolean.getBoolean(FLYWEIGHTS_ENABLED_PROPERTY);
+    private boolean lazyDecodersEnabled = Boolean.getBoolean(LAZY_DECODERS_ENABLED_PROPERTY);
+    private boolean binaryCodecsEnabled = Boolean.getBoolean(BINARY_CODECS_ENABLED_PROPERTY);
     private boolean wrapEmptyBuffer = Boolean.getBoolean(WRAP_EMPTY_BUFFER);
     private boolean fixTagsInJavadoc = Boolean.parseBoolean(System.getProperty(
         FIX_TAGS_IN_JAVADOC, DEFAULT_FIX_TAGS_IN_JAVADOC));
@@ -114,6 +118,40 @@ public final class CodecConfiguration
         return this;
     }
 
+    /**
+     * Generates lazy decoders. These are the flyweight decoders, so enabling this implies
+     * {@link #flyweightsEnabled(boolean)}, whose decode method only records the offset and length of each field.
+     * Each getter then parses its field's value on first access and caches it until the field is next decoded, so
+     * the cost of decoding a wide message is proportional to the fields that are actually read.
+     *
+     * Defaults to the value of {@link #LAZY_DECODERS_ENABLED_PROPERTY} system property.
+     *
+     * @param lazyDecodersEnabled true to generate lazy decoders, false otherwise.
+     * @return this
+     */
+    public CodecConfiguration lazyDecodersEnabled(final boolean lazyDecodersEnabled)
+    {
+        this.lazyDecodersEnabled = lazyDecodersEnabled;
+        return this;
+    }
+
+    /**
+     * Generates binary codecs, in a {@code binary} sub-package. These are fixed layout representations of each
+     * message, see {@link uk.co.real_logic.artio.builder.BinaryLayout}, along with a
+     * {@link uk.co.real_logic.artio.builder.BinaryTranscoder} that converts between the binary form and FIX. Whoever
+     * transcodes a message parses it once and can then hand it to any number of consumers that read fields by offset.
+     *
+     * Defaults to the value of {@link #BINARY_CODECS_ENABLED_PROPERTY} system property.
+     *
+     * @param binaryCodecsEnabled true to generate binary codecs, false otherwise.
+     * @return this
+     */
+    public CodecConfiguration binaryCodecsEnabled(final boolean binaryCodecsEnabled)
+    {
+        this.binaryCodecsEnabled = binaryCodecsEnabled;
+        return this;
+    }
+
     /**
      * Suppresses checks for the presence of optional string fields (i.e. no exception is
      * thrown when unset, instead the AsciiSequenceView wraps an empty buffer).
@@ -240,7 +278,17 @@ public final class CodecConfiguration
 
     boolean flyweightsEnabled()
     {
-        return flyweightsEnabled;
+        return flyweightsEnabled || lazyDecodersEnabled;
+    }
+
+    boolean lazyDecodersEnabled()
+    {
+        return lazyDecodersEnabled;
+    }
+
+    boolean binaryCodecsEnabled()
+    {
+        return binaryCodecsEnabled;
     }
 
     boolean wrapEmptyBuffer()
@@ -140,6 +140,7 @@ public final class CodecGenerator
         final String encoderPackage = parentPackage + ".builder";
         final String decoderPackage = parentPackage + ".decoder";
         final String decoderFlyweightPackage = parentPackage + ".decoder_flyweight";
+        final String binaryPackage = parentPackage + ".binary";
 
         final BiFunction<String, String, OutputManager> outputManagerFactory =
             configuration.outputManagerFactory();
@@ -179,6 +180,7 @@ public final class CodecGenerator
             RejectUnknownField.class,
             RejectUnknownEnumValue.class,
             false,
+            false,
             configuration.wrapEmptyBuffer(),
             codecRejectUnknownEnumValueEnabled,
             configuration.fixTagsInJavadoc()).generate();
@@ -201,9 +203,17 @@ public final class CodecGenerator
                 RejectUnknownField.class,
                 RejectUnknownEnumValue.class,
                 true,
+                configuration.lazyDecodersEnabled(),
                 configuration.wrapEmptyBuffer(),
                 codecRejectUnknownEnumValueEnabled,
                 configuration.fixTagsInJavadoc()).generate();
         }
+
+        if (configuration.binaryCodecsEnabled())
+        {
+            final OutputManager binaryOutput = outputManagerFactory.apply(outputPath, binaryPackage);
+
+            new BinaryCodecGenerator(dictionary, binaryPackage, encoderPackage, binaryOutput).generate();
+        }
     }
 }
@@ -21,8 +21,11 @@ import org.agrona.MutableDirectBuffer;
 
 
 import uk.co.real_logic.artio.fields.ReadOnlyDecimalFloat;
+import uk.co.real_logic.artio.util.AsciiAppender;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static uk.co.real_logic.artio.util.PowerOf10.HIGHEST_POWER_OF_TEN;
+import static uk.co.real_logic.artio.util.PowerOf10.POWERS_OF_TEN;
 
 public final class CodecUtil
 {
@@ -229,6 +232,28 @@ public final class CodecUtil
         }
     }
 
+    public static void indent(final AsciiAppender appender, final int level)
+    {
+        final int numberOfSpaces = 2 * level;
+        final char[] whitespace = WHITESPACE;
+        if (numberOfSpaces > whitespace.length)
+        {
+            for (int i = 0; i < level; i++)
+            {
+                appender.append(whitespace, 0, 2);
+            }
+        }
+        else
+        {
+            appender.append(whitespace, 0, numberOfSpaces);
+        }
+    }
+
+    public static void appendData(final AsciiAppender appender, final byte[] dataField, final int length)
+    {
+        appender.append(dataField, 0, length);
+    }
+
     public static void appendData(final StringBuilder builder, final byte[] dataField, final int length)
     {
         for (int i = 0; i < length; i++)
@@ -275,6 +300,12 @@ public final class CodecUtil
         }
     }
 
+    public static void appendBuffer(
+        final AsciiAppender appender, final MutableDirectBuffer buffer, final int offset, final int length)
+    {
+        appender.append(buffer, offset, length);
+    }
+
     public static void appendFloat(final StringBuilder builder, final ReadOnlyDecimalFloat price)
     {
         final long value = price.value();
@@ -330,4 +361,70 @@ public final class CodecUtil
             builder.append('0');
         }
     }
+
+    /**
+     * Appends the same rendering as {@link #appendFloat(StringBuilder, ReadOnlyDecimalFloat)} but works out where
+     * the decimal point goes up front as characters can't be inserted into the buffer.
+     *
+     * @param appender the appender to append to.
+     * @param price the value to append.
+     */
+    public static void appendFloat(final AsciiAppender appender, final ReadOnlyDecimalFloat price)
+    {
+        final long value = price.value();
+        final int scale = price.scale();
+
+        final long remainder;
+        if (value < 0)
+        {
+            appender.append('-');
+            remainder = -value;
+        }
+        else
+        {
+            remainder = value;
+        }
+
+        if (scale > 0)
+        {
+            final int digitsBeforeDot = digitCount(remainder) - scale;
+            if (digitsBeforeDot <= 0)
+            {
+                appender.append(ZERO).append(DOT);
+                putTrailingZero(appender, -digitsBeforeDot);
+                appender.append(remainder);
+            }
+            else
+            {
+                final long divisor = POWERS_OF_TEN[scale];
+                final long fraction = remainder % divisor;
+                appender.append(remainder / divisor).append(DOT);
+                putTrailingZero(appender, scale - digitCount(fraction));
+                appender.append(fraction);
+            }
+        }
+        else
+        {
+            appender.append(remainder);
+            putTrailingZero(appender, -scale);
+        }
+    }
+
+    private static int digitCount(final long value)
+    {
+        int digits = 1;
+        while (digits <= HIGHEST_POWER_OF_TEN && value >= POWERS_OF_TEN[digits])
+        {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static void putTrailingZero(final AsciiAppender appender, final int zerosCount)
+    {
+        for (int ix = 0; ix < zerosCount; ix++)
+        {
+            appender.append(ZERO);
+        }
+    }
 }
@@ -33,8 +33,10 @@ import uk.co.real_logic.artio.util.MessageTypeEncoding;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.*;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
+import static java.lang.Long.toHexString;
 import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
@@ -119,6 +121,10 @@ class DecoderGenerator extends Generator
      * Wrap empty buffer instead of throwing an exception if an optional string is unset.
      */
     private final boolean wrapEmptyBuffer;
+    /**
+     * Flyweight getters parse a field's value on first access and cache it until the field is next decoded.
+     */
+    private final boolean cacheFlyweightValues;
 
     DecoderGenerator(
         final Dictionary dictionary,
@@ -131,6 +137,7 @@ class DecoderGenerator extends Generator
         final Class<?> rejectUnknownFieldClass,
         final Class<?> rejectUnknownEnumValueClass,
         final boolean flyweightsEnabled,
+        final boolean cacheFlyweightValues,
         final boolean wrapEmptyBuffer,
         final String codecRejectUnknownEnumValueEnabled,
         final boolean fixTagsInJavadoc)
@@ -140,6 +147,7 @@ class DecoderGenerator extends Generator
         this.initialBufferSize = initialBufferSize;
         this.encoderPackage = encoderPackage;
         this.wrapEmptyBuffer = wrapEmptyBuffer;
+        this.cacheFlyweightValues = flyweightsEnabled && cacheFlyweightValues;
     }
 
     public void generate()
@@ -454,9 +462,11 @@ class DecoderGenerator extends Generator
             "    {\n" +
             lengthReset +
             "        %1$s.reset();\n" +
+            "%3$s" +
             "    }\n\n",
             formatPropertyName(name),
-            nameOfResetMethod(name));
+            nameOfResetMethod(name),
+            resetCachedValue(name));
     }
 
     protected String resetRequiredInt(final Field field)
@@ -477,10 +487,11 @@ class DecoderGenerator extends Generator
             "        {\n" +
             "            invalidTagId = Decoder.NO_ERROR;\n" +
             "            rejectReason = Decoder.NO_ERROR;\n" +
-            "            missingRequiredFields.clear();\n" +
+            "            clearFields(missingRequiredFieldBits);\n" +
             (isGroup ? "" :
                 "            unknownFields.clear();\n" +
-                "            alreadyVisitedFields.clear();\n") +
+                "            alreadyVisitedFields.clear();\n" +
+                "            clearFields(seenFieldBits);\n") +
             "        }\n";
     }
 
@@ -495,6 +506,7 @@ class DecoderGenerator extends Generator
 
         final List<Field> requiredFields = requiredFields(aggregate.entries()).collect(toList());
         out.append(generateFieldDictionary(requiredFields, REQUIRED_FIELDS, true));
+        out.append(generateFieldOrdinals(aggregate, requiredFields));
 
         if (aggregate.containsGroup())
         {
@@ -545,9 +557,8 @@ class DecoderGenerator extends Generator
 
         out.append(String.format(
             (isGroup ? generateAllGroupFields(aggregate) :
-            "    private final IntHashSet alreadyVisitedFields = new IntHashSet(%5$d);\n\n" +
+            "    private final IntHashSet alreadyVisitedFields = new IntHashSet(10);\n\n" +
             "    private final IntHashSet unknownFields = new IntHashSet(10);\n\n") +
-            "    private final IntHashSet missingRequiredFields = new IntHashSet(%1$d);\n\n" +
             "    public boolean validate()\n" +
             "    {\n" +
             // validation for some tags performed in the decode method
@@ -555,24 +566,79 @@ class DecoderGenerator extends Generator
             "        {\n" +
             "            return false;\n" +
             "        }\n" +
-            "        final IntIterator missingFieldsIterator = missingRequiredFields.iterator();\n" +
+            "        final int missingFieldOrdinal = firstField(missingRequiredFieldBits);\n" +
             (isMessage ? "        final IntIterator unknownFieldsIterator = unknownFields.iterator();\n" : "") +
-            "%2$s" +
-            "        if (missingFieldsIterator.hasNext())\n" +
+            "%1$s" +
+            "        if (missingFieldOrdinal != NO_FIELD_ORDINAL)\n" +
             "        {\n" +
-            "            invalidTagId = missingFieldsIterator.nextValue();\n" +
+            "            invalidTagId = FIELD_ORDINAL_TAGS[missingFieldOrdinal];\n" +
             "            rejectReason = " + REQUIRED_TAG_MISSING + ";\n" +
             "            return false;\n" +
             "        }\n" +
+            "%2$s" +
             "%3$s" +
-            "%4$s" +
             "        return true;\n" +
             "    }\n\n",
-            sizeHashSet(requiredFields),
             messageValidation,
             enumValidation,
-            groupValidation,
-            2 * aggregate.allFieldsIncludingComponents().count()));
+            groupValidation));
+    }
+
+    // Every tag handled by the decode switch gets a dense ordinal so that seen, duplicate and missing required
+    // fields can be tracked with long[] bitsets rather than hash set updates per field.
+    private String generateFieldOrdinals(final Aggregate aggregate, final List<Field> requiredFields)
+    {
+        final List<Field> decodedFields = decodedFields(aggregate.entries()).distinct().collect(toList());
+        final int bitsetLength = Math.max(1, (decodedFields.size() + 63) >>> 6);
+
+        final long[] requiredFieldBits = new long[bitsetLength];
+        for (final Field requiredField : requiredFields)
+        {
+            final int ordinal = decodedFields.indexOf(requiredField);
+            if (ordinal >= 0)
+            {
+                requiredFieldBits[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+
+        final StringBuilder ordinalCases = new StringBuilder();
+        for (int ordinal = 0; ordinal < decodedFields.size(); ordinal++)
+        {
+            ordinalCases.append(String.format(
+                "            case Constants.%1$s:\n" +
+                "                return %2$d;\n",
+                constantName(decodedFields.get(ordinal).name()),
+                ordinal));
+        }
+
+        return String.format(
+            "    private static final int[] FIELD_ORDINAL_TAGS = { %1$s };\n\n" +
+            "    private static final long[] REQUIRED_FIELD_BITS = { %2$s };\n\n" +
+            "    private final long[] seenFieldBits = new long[%3$d];\n\n" +
+            "    private final long[] missingRequiredFieldBits = new long[%3$d];\n\n" +
+            "    private static int fieldOrdinal(final int tag)\n" +
+            "    {\n" +
+            "        switch (tag)\n" +
+            "        {\n" +
+            "%4$s" +
+            "            default:\n" +
+            "                return NO_FIELD_ORDINAL;\n" +
+            "        }\n" +
+            "    }\n\n",
+            decodedFields.stream().map(field -> "Constants." + constantName(field.name())).collect(joining(", ")),
+            LongStream.of(requiredFieldBits).mapToObj(bits -> "0x" + toHexString(bits) + "L").collect(joining(", ")),
+            bitsetLength,
+            ordinalCases);
+    }
+
+    private Stream<Field> decodedFields(final List<Entry> entries)
+    {
+        return entries
+            .stream()
+            .flatMap(entry -> entry.match(
+                (e, field) -> Stream.of(field),
+                (e, group) -> Stream.of((Field)group.numberField().element()),
+                (e, component) -> decodedFields(component.entries())));
     }
 
     private String generateAllGroupFields(final Aggregate groupAggregate)
@@ -1370,16 +1436,47 @@ class DecoderGenerator extends Generator
             javaTypeOf(type),
             fieldName,
             fieldInitialisation(type),
-            hasField(entry),
+            cachedField(field, fieldName) + hasField(entry),
             optionalCheck,
             optionalGetter(entry),
             offsetField,
             enumDecoder,
-            flyweightsEnabled ? lazyInitialisation : "",
+            flyweightsEnabled ? cachedLazyInitialisation(field, fieldName, lazyInitialisation) : "",
             scope,
             javadoc);
     }
 
+    private boolean cachesValue(final Field field)
+    {
+        // NUMINGROUP fields are already cached, see CommonDecoderImpl.groupNoField(), and chars or booleans are
+        // decoded eagerly.
+        final Type type = field.type();
+        return cacheFlyweightValues && type != Type.NUMINGROUP && type != Type.CHAR && type != Type.BOOLEAN;
+    }
+
+    private String cachedField(final Field field, final String fieldName)
+    {
+        return cachesValue(field) ? String.format("    %2$s boolean %1$sCached;\n\n", fieldName, scope) : "";
+    }
+
+    private String cachedLazyInitialisation(
+        final Field field, final String fieldName, final String lazyInitialisation)
+    {
+        if (!cachesValue(field))
+        {
+            return lazyInitialisation;
+        }
+
+        return String.format(
+            "        if (!%1$sCached)\n" +
+            "        {\n" +
+            "%2$s" +
+            "            %1$sCached = true;\n" +
+            "        }\n",
+            fieldName,
+            NEWLINE.matcher(lazyInitialisation).replaceAll("    "));
+    }
+
     private String wrapEmptyBuffer(final Entry entry)
     {
         return entry.required() ? "" : String.format(
@@ -1712,14 +1809,18 @@ class DecoderGenerator extends Generator
             "        int seenFieldCount = 0;\n" +
             "        if (" + CODEC_VALIDATION_ENABLED + ")\n" +
             "        {\n" +
-            "            missingRequiredFields.copy(" + REQUIRED_FIELDS + ");\n" +
-            (isGroup ? "" : "            alreadyVisitedFields.clear();\n") +
+            "            copyFields(REQUIRED_FIELD_BITS, missingRequiredFieldBits);\n" +
+            (isGroup ? "" :
+            "            alreadyVisitedFields.clear();\n" +
+            "            clearFields(seenFieldBits);\n") +
             "        }\n" +
             "        this.buffer = buffer;\n" +
             "        final int end = offset + length;\n" +
             "        int position = offset;\n" +
             (hasCommonCompounds ? "        position += header.decode(buffer, position, length);\n" : "") +
-            (isGroup ? "        seenFields.clear();\n" : "") +
+            (isGroup ?
+            "        seenFields.clear();\n" +
+            "        clearFields(seenFieldBits);\n" : "") +
             "        int tag;\n\n" +
             "        while (position < end)\n" +
             "        {\n" +
@@ -1748,12 +1849,17 @@ class DecoderGenerator extends Generator
             "                }\n" +
             headerValidation(isHeader) +
             (isGroup ? "" :
-            "                if (!alreadyVisitedFields.add(tag))\n" +
+            "                final int fieldOrdinal = fieldOrdinal(tag);\n" +
+            "                if (fieldOrdinal == NO_FIELD_ORDINAL ?\n" +
+            "                    !alreadyVisitedFields.add(tag) : !markFieldSeen(seenFieldBits, fieldOrdinal))\n" +
             "                {\n" +
             "                    invalidTagId = tag;\n" +
             "                    rejectReason = " + TAG_APPEARS_MORE_THAN_ONCE + ";\n" +
             "                }\n") +
-            "                missingRequiredFields.remove(tag);\n" +
+            "                if (fieldOrdinal != NO_FIELD_ORDINAL)\n" +
+            "                {\n" +
+            "                    clearField(missingRequiredFieldBits, fieldOrdinal);\n" +
+            "                }\n" +
             "                seenFieldCount++;\n" +
             "            }\n\n" +
             "            switch (tag)\n" +
@@ -1800,7 +1906,9 @@ class DecoderGenerator extends Generator
         if (isGroup)
         {
             endGroupCheck = String.format(
-                "            if (!seenFields.add(tag))\n" +
+                "            final int fieldOrdinal = fieldOrdinal(tag);\n" +
+                "            if (fieldOrdinal == NO_FIELD_ORDINAL ?\n" +
+                "                !seenFields.add(tag) : !markFieldSeen(seenFieldBits, fieldOrdinal))\n" +
                 "            {\n" +
                 "                if (next == null)\n" +
                 "                {\n" +
@@ -1949,15 +2057,33 @@ class DecoderGenerator extends Generator
             "%s" +
             "%s" +
             "%s" +
+            "%s" +
             "                break;\n",
             constantName(name),
             optionalAssign(entry),
+            invalidateCachedValue(field, fieldName),
             fieldDecodeMethod(field, fieldName),
             storeOffsetForVariableLengthFields(field.type(), fieldName),
             storeLengthForVariableLengthFields(field.type(), fieldName),
             suffix);
     }
 
+    private String invalidateCachedValue(final Field field, final String fieldName)
+    {
+        return cachesValue(field) ? String.format("                %sCached = false;\n", fieldName) : "";
+    }
+
+    protected String resetCachedValue(final Field field)
+    {
+        return cachesValue(field) ? resetCachedValue(field.name()) : "";
+    }
+
+    // Only called for the reset of fields whose type has a cached value
+    private String resetCachedValue(final String name)
+    {
+        return cacheFlyweightValues ? String.format("        %sCached = false;\n", formatPropertyName(name)) : "";
+    }
+
     private String storeLengthForVariableLengthFields(final Type type, final String fieldName)
     {
         return type.hasLengthField(flyweightsEnabled) ?
@@ -2107,7 +2233,18 @@ class DecoderGenerator extends Generator
 
     protected String resetTemporalValue(final String name)
     {
-        return resetNothing(name);
+        if (!cacheFlyweightValues)
+        {
+            return resetNothing(name);
+        }
+
+        return String.format(
+            "    public void %1$s()\n" +
+            "    {\n" +
+            "%2$s" +
+            "    }\n\n",
+            nameOfResetMethod(name),
+            resetCachedValue(name));
     }
 
     protected String resetComponents(final List<Entry> entries, final StringBuilder methods)
@@ -2126,9 +2263,11 @@ class DecoderGenerator extends Generator
                     "    {\n" +
                     "        %2$sOffset = 0;\n" +
                     "        %2$sLength = 0;\n" +
+                    "%3$s" +
                     "    }\n\n",
             nameOfResetMethod(name),
-            formatPropertyName(name));
+            formatPropertyName(name),
+            resetCachedValue(name));
     }
 
     protected String groupEntryAppendTo(final Group group, final String name)
@@ -2364,7 +2503,20 @@ class DecoderGenerator extends Generator
 
     protected String optionalReset(final Field field, final String name)
     {
-        return resetByFlag(name);
+        if (!cachesValue(field))
+        {
+            return resetByFlag(name);
+        }
+
+        return String.format(
+            "    public void %2$s()\n" +
+            "    {\n" +
+            "        has%1$s = false;\n" +
+            "%3$s" +
+            "    }\n\n",
+            name,
+            nameOfResetMethod(name),
+            resetCachedValue(name));
     }
 
     protected boolean appendToChecksHasGetter(final Entry entry, final Field field)
@@ -21,6 +21,7 @@ import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.agrona.generation.OutputManager;
 import uk.co.real_logic.artio.builder.Encoder;
+import uk.co.real_logic.artio.builder.HeaderTemplate;
 import uk.co.real_logic.artio.builder.SessionHeaderEncoder;
 import uk.co.real_logic.artio.dictionary.Generated;
 import uk.co.real_logic.artio.dictionary.ir.*;
@@ -64,12 +65,17 @@ class EncoderGenerator extends Generator
     private static final String TRAILER_ENCODE_PREFIX =
         "    long finishMessage(final MutableAsciiBuffer buffer, final int messageStart, final int offset)\n" +
         "    {\n" +
+        "        return finishMessage(buffer, messageStart, offset, buffer.computeChecksum(messageStart, offset));\n" +
+        "    }\n" +
+        "\n" +
+        "    long finishMessage(\n" +
+        "        final MutableAsciiBuffer buffer, final int messageStart, final int offset, final int checkSum)\n" +
+        "    {\n" +
         "        int position = offset;\n" +
         "\n" +
-        "        final int checkSum = buffer.computeChecksum(messageStart, position);\n" +
         "        buffer.putBytes(position, checkSumHeader, 0, checkSumHeaderLength);\n" +
         "        position += checkSumHeaderLength;\n" +
-        "        buffer.putNaturalPaddedIntAscii(position, 3, checkSum);\n" +
+        "        buffer.putPaddedNaturalAscii(position, 3, checkSum);\n" +
         "        position += 3;\n" +
         "        buffer.putSeparator(position);\n" +
         "        position++;\n" +
@@ -112,7 +118,7 @@ class EncoderGenerator extends Generator
         "    // 35=...| + other header fields\n" +
         "    public long startMessage(final MutableAsciiBuffer buffer, final int offset)\n" +
         "    {\n" +
-        "        final int start = offset + beginStringLength + 16;\n" +
+        "        final int start = offset + beginStringLength + Encoder.START_MESSAGE_RESERVED_LENGTH;\n" +
         "        int position = start;";
 
     private static final String GROUP_ENCODE_PREFIX =
@@ -156,6 +162,9 @@ class EncoderGenerator extends Generator
 
     private final String beginString;  // e.g. "FIX.4.4"
 
+    // true whilst generating the body of a header encoder that caches its session constant fields
+    private boolean generatingHeaderTemplate;
+
     EncoderGenerator(
         final Dictionary dictionary,
         final String builderPackage,
@@ -259,6 +268,8 @@ class EncoderGenerator extends Generator
 
         final boolean isHeader = type == AggregateType.HEADER;
         final boolean isMessage = type == AggregateType.MESSAGE;
+        final boolean wasGeneratingHeaderTemplate = generatingHeaderTemplate;
+        generatingHeaderTemplate = isHeader && !isSharedParent() && !aggregate.isInParent();
         final List<String> interfaces;
         if (isMessage)
         {
@@ -305,6 +316,11 @@ class EncoderGenerator extends Generator
                 "\n\n",
                 beginString,
                 scope));
+
+            if (generatingHeaderTemplate)
+            {
+                out.append(headerTemplateField(aggregate));
+            }
         }
 
         precomputedHeaders(out, aggregate.entries());
@@ -316,6 +332,7 @@ class EncoderGenerator extends Generator
         out.append(generateCopyTo(aggregate));
         out.append("}\n");
 
+        generatingHeaderTemplate = wasGeneratingHeaderTemplate;
         pop();
     }
 
@@ -364,7 +381,8 @@ class EncoderGenerator extends Generator
                 additionalReset = RESET_NEXT_GROUP;
                 break;
             case HEADER:
-                additionalReset = "        beginStringAsCopy(DEFAULT_BEGIN_STRING, 0, DEFAULT_BEGIN_STRING.length);\n";
+                additionalReset = "        beginStringAsCopy(DEFAULT_BEGIN_STRING, 0, DEFAULT_BEGIN_STRING.length);\n" +
+                    (generatingHeaderTemplate ? "        headerTemplate.invalidate();\n" : "");
                 break;
             default:
                 additionalReset = "";
@@ -663,7 +681,7 @@ class EncoderGenerator extends Generator
             case MONTHYEAR:
             case TZTIMEONLY:
             case TZTIMESTAMP:
-                return generateBytesSetter(className, fieldName, name, javadoc);
+                return generateBytesSetter(className, fieldName, name, javadoc, "");
 
             default: throw new UnsupportedOperationException("Unknown type: " + field.type());
         }
@@ -733,7 +751,11 @@ class EncoderGenerator extends Generator
     }
 
     private String generateBytesSetter(
-        final String className, final String fieldName, final String name, final String javadoc)
+        final String className,
+        final String fieldName,
+        final String name,
+        final String javadoc,
+        final String invalidateTemplate)
     {
         return String.format(
             "    %4$s final MutableDirectBuffer %1$s = new UnsafeBuffer();\n\n" +
@@ -744,6 +766,7 @@ class EncoderGenerator extends Generator
             "        %1$s.wrap(value);\n" +
             "        %1$sOffset = offset;\n" +
             "        %1$sLength = length;\n" +
+            "%6$s" +
             "        return this;\n" +
             "    }\n\n" +
             "    %5$spublic %2$s %1$s(final DirectBuffer value, final int length)\n" +
@@ -759,6 +782,7 @@ class EncoderGenerator extends Generator
             "        %1$s.wrap(value);\n" +
             "        %1$sOffset = offset;\n" +
             "        %1$sLength = length;\n" +
+            "%6$s" +
             "        return this;\n" +
             "    }\n\n" +
             "    %5$spublic %2$s %1$sAsCopy(final byte[] value, final int offset, final int length)\n" +
@@ -766,6 +790,7 @@ class EncoderGenerator extends Generator
             "        copyInto(%1$s, value, offset, length);\n" +
             "        %1$sOffset = offset;\n" +
             "        %1$sLength = length;\n" +
+            "%6$s" +
             "        return this;\n" +
             "    }\n\n" +
             "    %5$spublic %2$s %1$s(final byte[] value, final int length)\n" +
@@ -792,7 +817,8 @@ class EncoderGenerator extends Generator
             className,
             name,
             scope,
-            javadoc);
+            javadoc,
+            invalidateTemplate);
     }
 
     private String generateStringSetter(
@@ -802,6 +828,7 @@ class EncoderGenerator extends Generator
         final String enumSetter,
         final String javadoc)
     {
+        final String invalidateTemplate = generatingHeaderTemplate ? "        headerTemplate.invalidate();\n" : "";
         return String.format(
             "%2$s" +
             "    %5$spublic %3$s %1$s(final CharSequence value)\n" +
@@ -809,6 +836,7 @@ class EncoderGenerator extends Generator
             "        toBytes(value, %1$s);\n" +
             "        %1$sOffset = 0;\n" +
             "        %1$sLength = value.length();\n" +
+            "%6$s" +
             "        return this;\n" +
             "    }\n\n" +
             "    %5$spublic %3$s %1$s(final AsciiSequenceView value)\n" +
@@ -819,6 +847,7 @@ class EncoderGenerator extends Generator
             "            %1$s.wrap(buffer);\n" +
             "            %1$sOffset = value.offset();\n" +
             "            %1$sLength = value.length();\n" +
+            "%6$s" +
             "        }\n" +
             "        return this;\n" +
             "    }\n\n" +
@@ -835,14 +864,16 @@ class EncoderGenerator extends Generator
             "        toBytes(value, %1$s, offset, length);\n" +
             "        %1$sOffset = 0;\n" +
             "        %1$sLength = length;\n" +
+            "%6$s" +
             "        return this;\n" +
             "    }\n\n" +
             "%4$s",
             fieldName,
-            generateBytesSetter(className, fieldName, name, javadoc),
+            generateBytesSetter(className, fieldName, name, javadoc, invalidateTemplate),
             className,
             enumSetter,
-            javadoc);
+            javadoc,
+            invalidateTemplate);
     }
 
     private String generateSetter(
@@ -973,7 +1004,9 @@ class EncoderGenerator extends Generator
                 break;
         }
 
-        final String body = entries.stream()
+        final String body = aggregateType == HEADER && generatingHeaderTemplate ?
+            headerTemplateEncodeBody(entries) :
+            entries.stream()
             .map(this::encodeEntry)
             .collect(joining("\n"));
 
@@ -984,14 +1017,22 @@ class EncoderGenerator extends Generator
                 "        position += trailer.startTrailer(buffer, position);\n" +
                 "\n" +
                 "        final int messageStart = header.finishHeader(buffer, bodyStart, position - bodyStart);\n" +
-                "        return trailer.finishMessage(buffer, messageStart, position);\n" +
+                "        final int checkSum = header.messageChecksum(buffer, messageStart, position);\n" +
+                "        return trailer.finishMessage(buffer, messageStart, position, checkSum);\n" +
                 "    }\n\n";
         }
         else if (aggregateType == AggregateType.HEADER)
         {
             suffix =
                 "\n" +
+                (generatingHeaderTemplate ? "        headerTemplate.completeEncode();\n" : "") +
                 "        return Encoder.result(position - start, start);\n" +
+                "    }\n\n" +
+                "    int messageChecksum(final MutableAsciiBuffer buffer, final int messageStart, final int end)\n" +
+                "    {\n" +
+                (generatingHeaderTemplate ?
+                "        return headerTemplate.checksum(buffer, messageStart, end);\n" :
+                "        return buffer.computeChecksum(messageStart, end);\n") +
                 "    }\n\n";
         }
         else if (aggregateType == AggregateType.TRAILER)
@@ -1019,6 +1060,124 @@ class EncoderGenerator extends Generator
         return prefix + body + suffix;
     }
 
+    private String headerTemplateField(final Aggregate header)
+    {
+        return String.format(
+            "    private final %1$s headerTemplate = new %1$s(%2$d);\n\n" +
+            "    public void headerTemplateEnabled(final boolean enabled)\n" +
+            "    {\n" +
+            "        headerTemplate.enabled(enabled);\n" +
+            "    }\n\n",
+            HeaderTemplate.class.getName(),
+            headerTemplateRuns(header.entries()).size());
+    }
+
+    // Session constant fields are encoded once into the template and then copied, everything else is encoded
+    // per message.
+    private String headerTemplateEncodeBody(final List<Entry> entries)
+    {
+        final List<List<Entry>> runs = headerTemplateRuns(entries);
+        final List<String> encodedEntries = new ArrayList<>();
+        encodedEntries.add("        final boolean copyHeaderTemplate = headerTemplate.startEncode();\n");
+
+        int run = 0;
+        for (final Entry entry : entries)
+        {
+            if (isHeaderTemplateField(entry))
+            {
+                final List<Entry> runEntries = runs.get(run);
+                if (runEntries.get(0) == entry)
+                {
+                    final String encodeRun = runEntries
+                        .stream()
+                        .map(this::encodeEntry)
+                        .map(code -> NEWLINE.matcher(code).replaceAll("    "))
+                        .collect(joining("\n"));
+
+                    encodedEntries.add(String.format(
+                        "        if (copyHeaderTemplate)\n" +
+                        "        {\n" +
+                        "            position = headerTemplate.copyRun(buffer, position, %1$d);\n" +
+                        "        }\n" +
+                        "        else\n" +
+                        "        {\n" +
+                        "            final int runStart = position;\n" +
+                        "%2$s" +
+                        "            headerTemplate.captureRun(buffer, runStart, position, %1$d);\n" +
+                        "        }\n",
+                        run,
+                        encodeRun));
+                }
+
+                if (runEntries.get(runEntries.size() - 1) == entry)
+                {
+                    run++;
+                }
+            }
+            else
+            {
+                encodedEntries.add(encodeEntry(entry));
+            }
+        }
+
+        return String.join("\n", encodedEntries);
+    }
+
+    private List<List<Entry>> headerTemplateRuns(final List<Entry> entries)
+    {
+        final List<List<Entry>> runs = new ArrayList<>();
+        List<Entry> currentRun = null;
+        for (final Entry entry : entries)
+        {
+            if (isHeaderTemplateField(entry))
+            {
+                if (currentRun == null)
+                {
+                    currentRun = new ArrayList<>();
+                    runs.add(currentRun);
+                }
+                currentRun.add(entry);
+            }
+            else if (!encodeEntry(entry).isEmpty())
+            {
+                currentRun = null;
+            }
+        }
+
+        return runs;
+    }
+
+    // String fields identify the session, eg: CompIDs, SubIDs and LocationIDs. The numeric, boolean and time based
+    // fields such as MsgSeqNum, PossDupFlag and SendingTime change between messages so are always encoded.
+    private boolean isHeaderTemplateField(final Entry entry)
+    {
+        if (!entry.isField() || isBeginString(entry))
+        {
+            return false;
+        }
+
+        return isHeaderTemplateType(((Field)entry.element()).type());
+    }
+
+    private static boolean isHeaderTemplateType(final Type type)
+    {
+        switch (type)
+        {
+            case STRING:
+            case MULTIPLEVALUESTRING:
+            case MULTIPLESTRINGVALUE:
+            case MULTIPLECHARVALUE:
+            case CURRENCY:
+            case EXCHANGE:
+            case COUNTRY:
+            case LANGUAGE:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
     private String encodeEntry(final Entry entry)
     {
         if (isBodyLength(entry) || isBeginString(entry) || isCheckSum(entry))
@@ -1368,7 +1527,19 @@ class EncoderGenerator extends Generator
 
     protected String resetStringBasedData(final String name)
     {
-        return resetLength(name);
+        return generatingHeaderTemplate ? resetHeaderTemplateField(name) : resetLength(name);
+    }
+
+    private String resetHeaderTemplateField(final String name)
+    {
+        return String.format(
+            "    public void %1$s()\n" +
+            "    {\n" +
+            "        %2$sLength = 0;\n" +
+            "        headerTemplate.invalidate();\n" +
+            "    }\n\n",
+            nameOfResetMethod(name),
+            formatPropertyName(name));
     }
 
     protected String groupEntryAppendTo(final Group group, final String name)
@@ -1597,6 +1768,11 @@ class EncoderGenerator extends Generator
 
     protected String optionalReset(final Field field, final String name)
     {
+        if (generatingHeaderTemplate && isHeaderTemplateType(field.type()))
+        {
+            return resetHeaderTemplateField(name);
+        }
+
         return field.type().hasLengthField(false) ? resetLength(name) : resetByFlag(name);
     }
 
@@ -30,6 +30,7 @@ import uk.co.real_logic.artio.fields.DecimalFloat;
 import uk.co.real_logic.artio.fields.LocalMktDateEncoder;
 import uk.co.real_logic.artio.fields.ReadOnlyDecimalFloat;
 import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
+import uk.co.real_logic.artio.util.AsciiAppender;
 import uk.co.real_logic.artio.util.AsciiBuffer;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
@@ -162,6 +163,7 @@ public abstract class Generator
             .append(importFor(DecimalFloat.class))
             .append(importFor(MutableAsciiBuffer.class))
             .append(importFor(AsciiBuffer.class))
+            .append(importFor(AsciiAppender.class))
             .append(importFor(LocalMktDateEncoder.class))
             .append(importFor(UtcTimestampEncoder.class))
             .append(importFor(StandardCharsets.class))
@@ -461,10 +463,17 @@ public abstract class Generator
             "    {\n" +
             lengthReset +
             "        %2$s = %3$s;\n" +
+            "%4$s" +
             "    }\n\n",
             nameOfResetMethod(name),
             formatPropertyName(name),
-            resetValue);
+            resetValue,
+            resetCachedValue(field));
+    }
+
+    protected String resetCachedValue(final Field field)
+    {
+        return "";
     }
 
     protected String generateAppendTo(final Aggregate aggregate, final boolean hasCommonCompounds)
@@ -488,16 +497,8 @@ public abstract class Generator
             prefix = "";
         }
 
-        return String.format(
-            "    public String toString()\n" +
-            "    {\n" +
-            "        return appendTo(new StringBuilder()).toString();\n" +
-            "    }\n\n" +
-            "    public StringBuilder appendTo(final StringBuilder builder)\n" +
-            "    {\n" +
-            "        return appendTo(builder, 1);\n" +
-            "    }\n\n" +
-            "    public StringBuilder appendTo(final StringBuilder builder, final int level)\n" +
+        // The same body is generated for both StringBuilder and AsciiAppender since they support the same calls
+        final String appendToBody = String.format(
             "    {\n" +
             "        builder.append(\"{\\n\");" +
             "        indent(builder, level);\n" +
@@ -511,6 +512,24 @@ public abstract class Generator
             aggregate.name(),
             prefix,
             entriesToString);
+
+        return
+            "    public String toString()\n" +
+            "    {\n" +
+            "        return appendTo(new StringBuilder()).toString();\n" +
+            "    }\n\n" +
+            "    public StringBuilder appendTo(final StringBuilder builder)\n" +
+            "    {\n" +
+            "        return appendTo(builder, 1);\n" +
+            "    }\n\n" +
+            "    public StringBuilder appendTo(final StringBuilder builder, final int level)\n" +
+            appendToBody +
+            "    public AsciiAppender appendTo(final AsciiAppender builder)\n" +
+            "    {\n" +
+            "        return appendTo(builder, 1);\n" +
+            "    }\n\n" +
+            "    public AsciiAppender appendTo(final AsciiAppender builder, final int level)\n" +
+            appendToBody;
     }
 
     protected String generateEntryAppendTo(final Entry entry)
@@ -16,6 +16,7 @@
 package uk.co.real_logic.artio.fields;
 
 import uk.co.real_logic.artio.dictionary.generation.CodecUtil;
+import uk.co.real_logic.artio.util.AsciiAppender;
 import uk.co.real_logic.artio.util.PowerOf10;
 
 import static uk.co.real_logic.artio.util.PowerOf10.HIGHEST_POWER_OF_TEN;
@@ -133,6 +134,11 @@ public class ReadOnlyDecimalFloat implements Comparable<ReadOnlyDecimalFloat>
         CodecUtil.appendFloat(builder, this);
     }
 
+    public void appendTo(final AsciiAppender appender)
+    {
+        CodecUtil.appendFloat(appender, this);
+    }
+
     public String toString()
     {
         final StringBuilder builder = new StringBuilder();
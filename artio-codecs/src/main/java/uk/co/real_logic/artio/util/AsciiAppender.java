@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.util;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * Appends ASCII text into a {@link MutableDirectBuffer}. Provides the subset of {@link StringBuilder}'s API that the
+ * generated codecs' {@code appendTo} methods use, so messages can be rendered straight into a buffer that is then
+ * written out, without allocating a {@link String} per message. Expandable buffers grow as required, other buffers
+ * must be large enough for the text that is appended. A {@link java.nio.ByteBuffer} can be used by wrapping it
+ * in an {@link org.agrona.concurrent.UnsafeBuffer}.
+ */
+public final class AsciiAppender
+{
+    private MutableDirectBuffer buffer;
+    private int offset;
+    private int position;
+
+    public AsciiAppender()
+    {
+    }
+
+    public AsciiAppender(final MutableDirectBuffer buffer)
+    {
+        wrap(buffer, 0);
+    }
+
+    public AsciiAppender wrap(final MutableDirectBuffer buffer, final int offset)
+    {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.position = offset;
+        return this;
+    }
+
+    /**
+     * Discards the text appended so far, so that the next append writes at the wrapped offset.
+     *
+     * @return this
+     */
+    public AsciiAppender clear()
+    {
+        position = offset;
+        return this;
+    }
+
+    public MutableDirectBuffer buffer()
+    {
+        return buffer;
+    }
+
+    public int offset()
+    {
+        return offset;
+    }
+
+    public int length()
+    {
+        return position - offset;
+    }
+
+    public AsciiAppender append(final String value)
+    {
+        position += buffer.putStringWithoutLengthAscii(position, value);
+        return this;
+    }
+
+    public AsciiAppender append(final char value)
+    {
+        buffer.putByte(position++, (byte)value);
+        return this;
+    }
+
+    public AsciiAppender append(final char[] value, final int offset, final int length)
+    {
+        final MutableDirectBuffer buffer = this.buffer;
+        int position = this.position;
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            buffer.putByte(position++, (byte)value[i]);
+        }
+        this.position = position;
+        return this;
+    }
+
+    public AsciiAppender append(final byte[] value, final int offset, final int length)
+    {
+        buffer.putBytes(position, value, offset, length);
+        position += length;
+        return this;
+    }
+
+    public AsciiAppender append(final DirectBuffer value, final int offset, final int length)
+    {
+        buffer.putBytes(position, value, offset, length);
+        position += length;
+        return this;
+    }
+
+    public AsciiAppender append(final int value)
+    {
+        position += buffer.putIntAscii(position, value);
+        return this;
+    }
+
+    public AsciiAppender append(final long value)
+    {
+        position += buffer.putLongAscii(position, value);
+        return this;
+    }
+
+    public AsciiAppender append(final boolean value)
+    {
+        return append(value ? "true" : "false");
+    }
+
+    /**
+     * Creates a String of the text appended so far. This allocates, so should only be used for debugging.
+     *
+     * @return a String of the text appended so far.
+     */
+    public String toString()
+    {
+        return buffer == null ? "" : buffer.getStringWithoutLengthAscii(offset, length());
+    }
+}
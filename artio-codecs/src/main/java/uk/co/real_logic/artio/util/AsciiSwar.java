@@ -0,0 +1,331 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.util;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+import static uk.co.real_logic.artio.util.PowerOf10.POWERS_OF_TEN;
+
+/**
+ * ASCII primitives that operate on 8 bytes at a time by treating a long as a vector of bytes (SWAR - SIMD within a
+ * register). Words are always read little endian so that the first byte in the buffer is the lowest byte of the word.
+ *
+ * Each method produces exactly the same result as the byte at a time equivalent. Inputs that need error reporting,
+ * eg: invalid digits or overflow, fall back to the Agrona implementation in order to throw the same exceptions.
+ */
+public final class AsciiSwar
+{
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long HIGH_NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+    private static final long ZEROS = 0x3030303030303030L;
+    private static final long SIXES = 0x0606060606060606L;
+    private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+    private static final long EVEN_SHORTS = 0x0000FFFF0000FFFFL;
+    private static final long LOW_INT = 0xFFFFFFFFL;
+
+    // 16 bit lanes of the checksum accumulator overflow after 128 words of 2 * 255
+    private static final int MAX_WORDS_PER_CHECKSUM_LANE = 128;
+
+    private static final int MAX_SWAR_INT_DIGITS = 10;
+    private static final int MAX_SWAR_LONG_DIGITS = 18;
+    private static final int MAX_SWAR_PADDED_DIGITS = 8;
+    private static final long DIGITS_PER_WORD_MULTIPLIER = 100_000_000L;
+
+    private AsciiSwar()
+    {
+    }
+
+    /**
+     * Find the first occurrence of a byte within a range of a buffer.
+     *
+     * @param buffer the buffer to search.
+     * @param startInclusive the index to start searching from.
+     * @param endExclusive the index to search up to.
+     * @param value the byte to search for.
+     * @return the index of the byte or {@link AsciiBuffer#UNKNOWN_INDEX} if it isn't present.
+     */
+    public static int indexOf(
+        final DirectBuffer buffer, final int startInclusive, final int endExclusive, final byte value)
+    {
+        final long pattern = (value & 0xFFL) * ONES;
+        int index = startInclusive;
+        while (index + SIZE_OF_LONG <= endExclusive)
+        {
+            final long word = buffer.getLong(index, LITTLE_ENDIAN) ^ pattern;
+            // the lowest set high bit marks the first zero byte, borrows only pollute the bytes above it.
+            final long found = (word - ONES) & ~word & HIGH_BITS;
+            if (found != 0)
+            {
+                return index + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+
+            index += SIZE_OF_LONG;
+        }
+
+        for (; index < endExclusive; index++)
+        {
+            if (buffer.getByte(index) == value)
+            {
+                return index;
+            }
+        }
+
+        return UNKNOWN_INDEX;
+    }
+
+    /**
+     * Computes the FIX checksum of a range of a buffer, ie: the sum of its bytes modulo 256.
+     *
+     * @param buffer the buffer containing the message.
+     * @param startInclusive the index to start summing from.
+     * @param endExclusive the index to sum up to.
+     * @return the checksum, using the same signed byte arithmetic as {@link MutableAsciiBuffer}.
+     */
+    public static int checksum(final DirectBuffer buffer, final int startInclusive, final int endExclusive)
+    {
+        return sum(buffer, startInclusive, endExclusive) % 256;
+    }
+
+    /**
+     * Sums the bytes of a range of a buffer, as signed bytes. Sums of adjacent ranges can be added up before taking
+     * the checksum modulo 256.
+     *
+     * @param buffer the buffer containing the bytes.
+     * @param startInclusive the index to start summing from.
+     * @param endExclusive the index to sum up to.
+     * @return the sum of the bytes.
+     */
+    public static int sum(final DirectBuffer buffer, final int startInclusive, final int endExclusive)
+    {
+        int total = 0;
+        int index = startInclusive;
+        long lanes = 0;
+        int wordsInLanes = 0;
+        int negativeBytes = 0;
+        while (index + SIZE_OF_LONG <= endExclusive)
+        {
+            final long word = buffer.getLong(index, LITTLE_ENDIAN);
+            lanes += (word & EVEN_BYTES) + ((word >>> 8) & EVEN_BYTES);
+            negativeBytes += Long.bitCount(word & HIGH_BITS);
+            if (++wordsInLanes == MAX_WORDS_PER_CHECKSUM_LANE)
+            {
+                total += sumLanes(lanes);
+                lanes = 0;
+                wordsInLanes = 0;
+            }
+
+            index += SIZE_OF_LONG;
+        }
+
+        // Bytes are summed unsigned above, each negative byte is 256 less when signed
+        total += sumLanes(lanes) - (negativeBytes << 8);
+        for (; index < endExclusive; index++)
+        {
+            total += buffer.getByte(index);
+        }
+
+        return total;
+    }
+
+    public static int parseNaturalInt(final DirectBuffer buffer, final int index, final int length)
+    {
+        if (length <= MAX_SWAR_INT_DIGITS)
+        {
+            final long value = parseDigits(buffer, index, length);
+            if (value >= 0 && value <= Integer.MAX_VALUE)
+            {
+                return (int)value;
+            }
+        }
+
+        return buffer.parseNaturalIntAscii(index, length);
+    }
+
+    public static long parseNaturalLong(final DirectBuffer buffer, final int index, final int length)
+    {
+        if (length <= MAX_SWAR_LONG_DIGITS)
+        {
+            final long value = parseDigits(buffer, index, length);
+            if (value >= 0)
+            {
+                return value;
+            }
+        }
+
+        return buffer.parseNaturalLongAscii(index, length);
+    }
+
+    public static int parseInt(final DirectBuffer buffer, final int index, final int length)
+    {
+        if (length > 1 && buffer.getByte(index) == '-')
+        {
+            if (length <= MAX_SWAR_INT_DIGITS + 1)
+            {
+                final long value = parseDigits(buffer, index + 1, length - 1);
+                if (value >= 0 && value <= -(long)Integer.MIN_VALUE)
+                {
+                    return (int)-value;
+                }
+            }
+        }
+        else if (length <= MAX_SWAR_INT_DIGITS)
+        {
+            final long value = parseDigits(buffer, index, length);
+            if (value >= 0 && value <= Integer.MAX_VALUE)
+            {
+                return (int)value;
+            }
+        }
+
+        return buffer.parseIntAscii(index, length);
+    }
+
+    /**
+     * Puts a natural number left padded with zeros, eg: the checksum value. All of the digits are produced by a
+     * handful of multiplications rather than a division per digit.
+     *
+     * @param buffer the buffer to write into.
+     * @param index the index to start writing at.
+     * @param length the number of digits to write.
+     * @param value the value to write.
+     */
+    public static void putNaturalPaddedInt(
+        final MutableDirectBuffer buffer, final int index, final int length, final int value)
+    {
+        if (length <= 0 || length > MAX_SWAR_PADDED_DIGITS || value < 0 || value >= POWERS_OF_TEN[length])
+        {
+            buffer.putNaturalPaddedIntAscii(index, length, value);
+            return;
+        }
+
+        final long digits = eightDigits(value);
+        if (length == MAX_SWAR_PADDED_DIGITS)
+        {
+            buffer.putLong(index, digits, LITTLE_ENDIAN);
+        }
+        else
+        {
+            // the value has leading zeros in the lowest bytes, skip past the ones that aren't wanted
+            long remainingDigits = digits >>> ((MAX_SWAR_PADDED_DIGITS - length) << 3);
+            for (int i = 0; i < length; i++)
+            {
+                buffer.putByte(index + i, (byte)remainingDigits);
+                remainingDigits >>>= 8;
+            }
+        }
+    }
+
+    // Returns -1 if the range isn't all digits, leaving the caller to report the error.
+    private static long parseDigits(final DirectBuffer buffer, final int index, final int length)
+    {
+        if (length <= 0)
+        {
+            return -1;
+        }
+
+        final int firstWordLength = length & 7;
+        int position = index;
+        long value = 0;
+        if (firstWordLength != 0)
+        {
+            value = parseWord(readWord(buffer, position, firstWordLength), firstWordLength);
+            if (value < 0)
+            {
+                return -1;
+            }
+
+            position += firstWordLength;
+        }
+
+        final int end = index + length;
+        while (position < end)
+        {
+            final long word = parseWord(readWord(buffer, position, SIZE_OF_LONG), SIZE_OF_LONG);
+            if (word < 0)
+            {
+                return -1;
+            }
+
+            value = value * DIGITS_PER_WORD_MULTIPLIER + word;
+            position += SIZE_OF_LONG;
+        }
+
+        return value;
+    }
+
+    // Reads length bytes into the lowest bytes of a word, the bytes above them are undefined.
+    private static long readWord(final DirectBuffer buffer, final int index, final int length)
+    {
+        if (index + SIZE_OF_LONG <= buffer.capacity())
+        {
+            return buffer.getLong(index, LITTLE_ENDIAN);
+        }
+
+        final int end = index + length;
+        if (end >= SIZE_OF_LONG)
+        {
+            return buffer.getLong(end - SIZE_OF_LONG, LITTLE_ENDIAN) >>> ((SIZE_OF_LONG - length) << 3);
+        }
+
+        long word = 0;
+        for (int i = length - 1; i >= 0; i--)
+        {
+            word = (word << 8) | (buffer.getByte(index + i) & 0xFF);
+        }
+        return word;
+    }
+
+    private static long parseWord(final long word, final int length)
+    {
+        final long mask = length == SIZE_OF_LONG ? -1L : (1L << (length << 3)) - 1;
+        final long digitBytes = word & mask;
+        final long zeros = ZEROS & mask;
+        if ((digitBytes & HIGH_NIBBLES) != zeros || ((digitBytes + SIXES) & HIGH_NIBBLES) != zeros)
+        {
+            return -1;
+        }
+
+        // Shift so that missing leading digits are zeros, then combine pairs of digits, pairs of pairs, etc.
+        long value = (digitBytes - zeros) << ((SIZE_OF_LONG - length) << 3);
+        value = (value * 10 + (value >>> 8)) & EVEN_BYTES;
+        value = (value * 100 + (value >>> 16)) & EVEN_SHORTS;
+        value = (value * 10_000 + (value >>> 32)) & LOW_INT;
+        return value;
+    }
+
+    // The ASCII digits of a value below 100,000,000, most significant digit in the lowest byte.
+    private static long eightDigits(final int value)
+    {
+        final long high = value / 10_000;
+        final long low = value - high * 10_000;
+        final long merged = high | (low << 32);
+        final long hundreds = ((merged * 10_486L) >>> 20) & ((0x7FL << 32) | 0x7FL);
+        final long pairs = ((merged - 100 * hundreds) << 16) + hundreds;
+        long tens = ((pairs * 103L) >>> 10) & ((0xFL << 48) | (0xFL << 32) | (0xFL << 16) | 0xFL);
+        tens += (pairs - 10 * tens) << 8;
+        return tens + ZEROS;
+    }
+
+    private static int sumLanes(final long lanes)
+    {
+        return (int)((lanes & 0xFFFF) + ((lanes >>> 16) & 0xFFFF) + ((lanes >>> 32) & 0xFFFF) + (lanes >>> 48));
+    }
+}
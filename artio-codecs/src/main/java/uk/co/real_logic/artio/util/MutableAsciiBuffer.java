@@ -78,12 +78,12 @@ public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffe
 
     public int getNatural(final int startInclusive, final int endExclusive)
     {
-        return super.parseNaturalIntAscii(startInclusive, endExclusive - startInclusive);
+        return AsciiSwar.parseNaturalInt(this, startInclusive, endExclusive - startInclusive);
     }
 
     public long getNaturalLong(final int startInclusive, final int endExclusive)
     {
-        return super.parseNaturalLongAscii(startInclusive, endExclusive - startInclusive);
+        return AsciiSwar.parseNaturalLong(this, startInclusive, endExclusive - startInclusive);
     }
 
     @SuppressWarnings("FinalParameters")
@@ -95,7 +95,7 @@ public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffe
             return MISSING_INT;
         }
 
-        return super.parseIntAscii(startInclusive, length);
+        return AsciiSwar.parseInt(this, startInclusive, length);
     }
 
     public int getDigit(final int index)
@@ -218,29 +218,17 @@ public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffe
 
     public int scan(final int startInclusive, final int endExclusive, final byte terminator)
     {
-        int indexValue = UNKNOWN_INDEX;
-        for (int i = startInclusive; i < endExclusive; i++)
-        {
-            final byte value = getByte(i);
-            if (value == terminator)
-            {
-                indexValue = i;
-                break;
-            }
-        }
-
-        return indexValue;
+        return AsciiSwar.indexOf(this, startInclusive, endExclusive, terminator);
     }
 
     public int computeChecksum(final int startInclusive, final int endExclusive)
     {
-        int total = 0;
-        for (int index = startInclusive; index < endExclusive; index++)
-        {
-            total += getByte(index);
-        }
+        return AsciiSwar.checksum(this, startInclusive, endExclusive);
+    }
 
-        return total % 256;
+    public void putPaddedNaturalAscii(final int index, final int length, final int value)
+    {
+        AsciiSwar.putNaturalPaddedInt(this, index, length, value);
     }
 
     public int putAscii(final int index, final String string)
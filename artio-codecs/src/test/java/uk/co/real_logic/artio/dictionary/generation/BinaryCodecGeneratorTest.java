@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.dictionary.generation;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.generation.StringWriterOutputManager;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import uk.co.real_logic.artio.builder.BinaryLayout;
+import uk.co.real_logic.artio.builder.BinaryTranscoder;
+import uk.co.real_logic.artio.builder.Encoder;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.Map;
+
+import static org.agrona.generation.CompilerUtil.compileInMemory;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static uk.co.real_logic.artio.dictionary.ExampleDictionary.*;
+import static uk.co.real_logic.artio.dictionary.generation.Generator.RUNTIME_REJECT_UNKNOWN_ENUM_VALUE_PROPERTY;
+
+public class BinaryCodecGeneratorTest
+{
+    private static final String BINARY_TRANSCODER = TEST_PACKAGE + ".BinaryTranscoderImpl";
+    private static final String HEARTBEAT_BINARY = TEST_PACKAGE + ".HeartbeatBinary";
+
+    private static final StringWriterOutputManager OUTPUT_MANAGER = new StringWriterOutputManager();
+    private static final ConstantGenerator CONSTANT_GENERATOR = new ConstantGenerator(
+        MESSAGE_EXAMPLE, TEST_PACKAGE, null, OUTPUT_MANAGER);
+    private static final EnumGenerator ENUM_GENERATOR = new EnumGenerator(
+        MESSAGE_EXAMPLE, TEST_PACKAGE, OUTPUT_MANAGER);
+    private static final EncoderGenerator ENCODER_GENERATOR = new EncoderGenerator(
+        MESSAGE_EXAMPLE, TEST_PACKAGE, TEST_PARENT_PACKAGE, OUTPUT_MANAGER, ValidationOn.class,
+        RejectUnknownFieldOn.class, RejectUnknownEnumValueOn.class, RUNTIME_REJECT_UNKNOWN_ENUM_VALUE_PROPERTY,
+        true);
+    private static final BinaryCodecGenerator BINARY_CODEC_GENERATOR = new BinaryCodecGenerator(
+        MESSAGE_EXAMPLE, TEST_PACKAGE, TEST_PACKAGE, OUTPUT_MANAGER);
+
+    private static Class<?> transcoderClass;
+
+    private final MutableAsciiBuffer fixBuffer = new MutableAsciiBuffer(new byte[8 * 1024]);
+    private final UnsafeBuffer binaryBuffer = new UnsafeBuffer(new byte[8 * 1024]);
+
+    @BeforeClass
+    public static void generate() throws Exception
+    {
+        CONSTANT_GENERATOR.generate();
+        ENUM_GENERATOR.generate();
+        ENCODER_GENERATOR.generate();
+        BINARY_CODEC_GENERATOR.generate();
+        final Map<String, CharSequence> sources = OUTPUT_MANAGER.getSources();
+        transcoderClass = compileInMemory(BINARY_TRANSCODER, sources);
+        if (transcoderClass == null)
+        {
+            System.out.println(sources);
+        }
+    }
+
+    @Test
+    public void shouldTranscodeFixToBinary() throws Exception
+    {
+        final int length = fixToBinary(NO_OPTIONAL_MESSAGE);
+
+        assertEquals(HEARTBEAT_TYPE, BinaryLayout.messageType(binaryBuffer, 1));
+        assertEquals(length, BinaryLayout.length(binaryBuffer, 1));
+        assertThat(length, greaterThan(BinaryLayout.blockLength(binaryBuffer, 1)));
+
+        final Object heartbeat = transcoderClass.getClassLoader().loadClass(HEARTBEAT_BINARY)
+            .getConstructor().newInstance();
+        heartbeat.getClass().getMethod("wrap", DirectBuffer.class, int.class)
+            .invoke(heartbeat, binaryBuffer, 1);
+
+        assertEquals(true, heartbeat.getClass().getMethod("hasIntField").invoke(heartbeat));
+        assertEquals(2, heartbeat.getClass().getMethod("intField").invoke(heartbeat));
+        assertEquals(false, heartbeat.getClass().getMethod("hasTestReqID").invoke(heartbeat));
+        assertEquals(3, heartbeat.getClass().getMethod("onBehalfOfCompIDLength").invoke(heartbeat));
+    }
+
+    @Test
+    public void shouldRoundTripFixThroughBinary() throws Exception
+    {
+        fixToBinary(NO_OPTIONAL_MESSAGE);
+
+        final MutableAsciiBuffer output = new MutableAsciiBuffer(new byte[8 * 1024]);
+        final long result = transcoder().binaryToFix(binaryBuffer, 1, output, 1);
+
+        assertEquals(NO_OPTIONAL_MESSAGE, output.getAscii(Encoder.offset(result), Encoder.length(result)));
+    }
+
+    @Test
+    public void shouldNotTranscodeUnknownMessageType() throws Exception
+    {
+        fixBuffer.putAscii(1, NO_OPTIONAL_MESSAGE);
+
+        final int length = transcoder().fixToBinary(
+            fixBuffer, 1, NO_OPTIONAL_MESSAGE.length(), 'Q', binaryBuffer, 1);
+
+        assertEquals(BinaryTranscoder.UNKNOWN_MESSAGE_TYPE, length);
+    }
+
+    private int fixToBinary(final String message) throws Exception
+    {
+        fixBuffer.putAscii(1, message);
+        return transcoder().fixToBinary(fixBuffer, 1, message.length(), HEARTBEAT_TYPE, binaryBuffer, 1);
+    }
+
+    private BinaryTranscoder transcoder() throws Exception
+    {
+        assertNotNull(transcoderClass);
+        return (BinaryTranscoder)transcoderClass.getConstructor().newInstance();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.dictionary.generation;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import uk.co.real_logic.artio.builder.Decoder;
+import uk.co.real_logic.artio.fields.DecimalFloat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static uk.co.real_logic.artio.dictionary.ExampleDictionary.DERIVED_FIELDS_MESSAGE;
+import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.MISSING_INT;
+import static uk.co.real_logic.artio.fields.DecimalFloat.MISSING_FLOAT;
+import static uk.co.real_logic.artio.util.Reflection.call;
+import static uk.co.real_logic.artio.util.Reflection.getField;
+
+public class DecoderGeneratorLazyTest extends AbstractDecoderGeneratorTest
+{
+    private static final String UPDATED_DERIVED_FIELDS_MESSAGE = DERIVED_FIELDS_MESSAGE
+        .replace("116=2", "116=3")
+        .replace("117=1.1", "117=1.2");
+
+    @BeforeClass
+    public static void generate() throws Exception
+    {
+        generate(true, true);
+    }
+
+    @Test
+    public void shouldCacheValuesOnFirstAccess() throws Exception
+    {
+        final Decoder decoder = decodeHeartbeat(DERIVED_FIELDS_MESSAGE);
+        assertEquals(2, getIntField(decoder));
+
+        // Overwrites the buffer that the first decoder has wrapped
+        decodeHeartbeat(UPDATED_DERIVED_FIELDS_MESSAGE);
+
+        assertEquals(2, getIntField(decoder));
+    }
+
+    @Test
+    public void shouldDecodeNewValuesAfterRedecoding() throws Exception
+    {
+        final Decoder decoder = decodeHeartbeat(DERIVED_FIELDS_MESSAGE);
+        assertEquals(2, getIntField(decoder));
+        assertEquals(new DecimalFloat(11, 1), getFloatField(decoder));
+
+        decoder.reset();
+        decode(UPDATED_DERIVED_FIELDS_MESSAGE, decoder);
+
+        assertEquals(3, getIntField(decoder));
+        assertEquals(new DecimalFloat(12, 1), getFloatField(decoder));
+    }
+
+    @Test
+    public void shouldClearCachedValuesOnReset() throws Exception
+    {
+        final Decoder decoder = decodeHeartbeat(DERIVED_FIELDS_MESSAGE);
+        assertEquals(2, getIntField(decoder));
+        assertEquals(new DecimalFloat(11, 1), getFloatField(decoder));
+
+        decoder.reset();
+
+        assertFalse((boolean)getField(decoder, "intFieldCached"));
+        assertFalse((boolean)getField(decoder, "floatFieldCached"));
+        assertEquals(MISSING_INT, getIntField(decoder));
+        assertEquals(MISSING_FLOAT, getFloatField(decoder));
+    }
+
+    @Test
+    public void shouldClearCachedValueWhenFieldIsReset() throws Exception
+    {
+        final Decoder decoder = decodeHeartbeat(DERIVED_FIELDS_MESSAGE);
+        assertEquals(2, getIntField(decoder));
+
+        call(decoder, "resetIntField");
+
+        assertFalse((boolean)getField(decoder, "intFieldCached"));
+        assertEquals(MISSING_INT, getIntField(decoder));
+    }
+}
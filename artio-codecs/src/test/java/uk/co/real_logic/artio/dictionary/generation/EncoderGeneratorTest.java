@@ -359,6 +359,46 @@ public class EncoderGeneratorTest
         assertEncodesTo(encoder, ENCODED_MESSAGE);
     }
 
+    @Test
+    public void encodesValuesWithCachedHeaderTemplate() throws Exception
+    {
+        final Encoder encoder = newHeartbeat();
+
+        setRequiredFields(encoder);
+        setupHeader(encoder);
+        setupTrailer(encoder);
+        encoder.header().headerTemplateEnabled(true);
+
+        setOptionalFields(encoder);
+        setDataFieldLength(encoder);
+        assertEncodesTo(encoder, ENCODED_MESSAGE);
+        assertEncodesTo(encoder, ENCODED_MESSAGE);
+    }
+
+    @Test
+    public void reEncodesHeaderTemplateWhenHeaderFieldUpdated() throws Exception
+    {
+        final Encoder encoder = newHeartbeat();
+        setRequiredFields(encoder);
+        setupHeader(encoder);
+        setupTrailer(encoder);
+        encoder.header().headerTemplateEnabled(true);
+        encoder.encode(buffer, 1);
+
+        encoder.header().senderCompID("sender");
+        final long result = encoder.encode(buffer, 1);
+        final String encodedMessage = buffer.getAscii(Encoder.offset(result), Encoder.length(result));
+
+        final Encoder expectedEncoder = newHeartbeat();
+        setRequiredFields(expectedEncoder);
+        setupHeader(expectedEncoder);
+        setupTrailer(expectedEncoder);
+        expectedEncoder.header().senderCompID("sender");
+
+        assertThat(encodedMessage, containsString("\00149=sender\001"));
+        assertEncodesTo(expectedEncoder, encodedMessage);
+    }
+
     @Test
     public void shouldSupportLongFields() throws Exception
     {
@@ -400,6 +440,26 @@ public class EncoderGeneratorTest
         assertEncodesTo(encoder, ENCODED_MESSAGE_FIXT11);
     }
 
+    @Test
+    public void shouldEncodeMessageOfKnownLengthAtRequestedStart() throws Exception
+    {
+        final Encoder encoder = newHeartbeat();
+
+        setRequiredFields(encoder);
+        setupHeader(encoder, "FIXT.1.1");
+        setupTrailer(encoder);
+        setOptionalFields(encoder);
+
+        final int messageLength = ENCODED_MESSAGE_FIXT11.length();
+        final int messageStart = 100;
+        final int offset = Encoder.encodeOffset(messageStart, messageLength, "FIXT.1.1".length());
+        final long result = encoder.encode(buffer, offset);
+
+        assertEquals(messageStart, Encoder.offset(result));
+        assertEquals(messageLength, Encoder.length(result));
+        assertEquals(ENCODED_MESSAGE_FIXT11, buffer.getAscii(messageStart, messageLength));
+    }
+
     @Test
     public void encodeDecimalFloatUsingRawValueAndScale() throws Exception
     {
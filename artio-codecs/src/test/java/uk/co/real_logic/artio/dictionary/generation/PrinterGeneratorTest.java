@@ -15,10 +15,12 @@
  */
 package uk.co.real_logic.artio.dictionary.generation;
 
+import org.agrona.ExpandableArrayBuffer;
 import org.agrona.generation.StringWriterOutputManager;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import uk.co.real_logic.artio.builder.Printer;
+import uk.co.real_logic.artio.util.AsciiAppender;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
 import java.lang.reflect.InvocationTargetException;
@@ -27,6 +29,7 @@ import java.util.Map;
 import static org.agrona.generation.CompilerUtil.compileInMemory;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
 import static uk.co.real_logic.artio.dictionary.ExampleDictionary.*;
 import static uk.co.real_logic.artio.dictionary.generation.Generator.RUNTIME_REJECT_UNKNOWN_ENUM_VALUE_PROPERTY;
 
@@ -41,7 +44,7 @@ public class PrinterGeneratorTest
     private static final DecoderGenerator DECODER_GENERATOR = new DecoderGenerator(
         MESSAGE_EXAMPLE, 1, TEST_PACKAGE, TEST_PARENT_PACKAGE, TEST_PACKAGE,
         OUTPUT_MANAGER, ValidationOn.class,
-        RejectUnknownFieldOff.class, RejectUnknownEnumValueOn.class, false, false,
+        RejectUnknownFieldOff.class, RejectUnknownEnumValueOn.class, false, false, false,
         Generator.RUNTIME_REJECT_UNKNOWN_ENUM_VALUE_PROPERTY, true);
     private static final EncoderGenerator ENCODER_GENERATOR = new EncoderGenerator(
         MESSAGE_EXAMPLE, TEST_PACKAGE, TEST_PARENT_PACKAGE, OUTPUT_MANAGER, ValidationOn.class,
@@ -81,6 +84,18 @@ public class PrinterGeneratorTest
         assertThat(string, containsString(STRING_ENCODED_MESSAGE_EXAMPLE));
     }
 
+    @Test
+    public void shouldAppendTheSameRepresentationAsToString() throws Exception
+    {
+        final Printer printer = printer();
+        buffer.putAscii(1, ENCODED_MESSAGE);
+        final AsciiAppender appender = new AsciiAppender(new ExpandableArrayBuffer(16));
+
+        printer.appendTo(buffer, 1, ENCODED_MESSAGE.length(), HEARTBEAT_TYPE, appender);
+
+        assertEquals(printer.toString(buffer, 1, ENCODED_MESSAGE.length(), HEARTBEAT_TYPE), appender.toString());
+    }
+
     private Printer printer()
         throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException
     {
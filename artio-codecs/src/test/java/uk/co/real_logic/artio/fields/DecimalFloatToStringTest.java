@@ -15,10 +15,12 @@
  */
 package uk.co.real_logic.artio.fields;
 
+import org.agrona.ExpandableArrayBuffer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
+import uk.co.real_logic.artio.util.AsciiAppender;
 
 import static org.junit.Assert.assertEquals;
 
@@ -49,4 +51,15 @@ public class DecimalFloatToStringTest
 
         assertEquals(Float.valueOf(input), Float.valueOf(price.toString()));
     }
+
+    @Test
+    public void shouldAppendSameRepresentationAsToString()
+    {
+        final DecimalFloat price = new DecimalFloat(value, scale);
+        final AsciiAppender appender = new AsciiAppender(new ExpandableArrayBuffer(8));
+
+        price.appendTo(appender);
+
+        assertEquals(price.toString(), appender.toString());
+    }
 }
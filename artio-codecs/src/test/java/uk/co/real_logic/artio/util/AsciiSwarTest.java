@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.util;
+
+import org.agrona.AsciiNumberFormatException;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+
+public class AsciiSwarTest
+{
+    private final Random random = new Random(42);
+    private final MutableAsciiBuffer buffer = new MutableAsciiBuffer(new byte[256]);
+
+    @Test
+    public void shouldFindSameIndexAsByteAtATimeScan()
+    {
+        for (int i = 0; i < 10_000; i++)
+        {
+            fillRandomly();
+            final int start = random.nextInt(buffer.capacity());
+            final int end = start + random.nextInt(buffer.capacity() - start + 1);
+            final byte value = (byte)random.nextInt(256);
+
+            int expected = UNKNOWN_INDEX;
+            for (int index = start; index < end; index++)
+            {
+                if (buffer.getByte(index) == value)
+                {
+                    expected = index;
+                    break;
+                }
+            }
+
+            assertEquals(expected, AsciiSwar.indexOf(buffer, start, end, value));
+        }
+    }
+
+    @Test
+    public void shouldComputeSameSumAndChecksumAsByteAtATimeSum()
+    {
+        final MutableAsciiBuffer largeBuffer = new MutableAsciiBuffer(new byte[4096]);
+        for (int i = 0; i < 1_000; i++)
+        {
+            for (int index = 0; index < largeBuffer.capacity(); index++)
+            {
+                largeBuffer.putByte(index, (byte)random.nextInt(256));
+            }
+            final int start = random.nextInt(largeBuffer.capacity());
+            final int end = start + random.nextInt(largeBuffer.capacity() - start + 1);
+
+            int total = 0;
+            for (int index = start; index < end; index++)
+            {
+                total += largeBuffer.getByte(index);
+            }
+
+            assertEquals(total, AsciiSwar.sum(largeBuffer, start, end));
+            assertEquals(total % 256, AsciiSwar.checksum(largeBuffer, start, end));
+        }
+    }
+
+    @Test
+    public void shouldParseNaturalNumbersOfEveryLength()
+    {
+        long value = 0;
+        for (int digits = 1; digits <= 18; digits++)
+        {
+            value = value * 10 + digits % 10;
+            final String text = Long.toString(value);
+            putAtEndOfBuffer(text);
+
+            assertEquals(value, AsciiSwar.parseNaturalLong(buffer, buffer.capacity() - digits, digits));
+            if (value <= Integer.MAX_VALUE)
+            {
+                assertEquals(value, AsciiSwar.parseNaturalInt(buffer, buffer.capacity() - digits, digits));
+            }
+        }
+    }
+
+    @Test
+    public void shouldParseSignedInts()
+    {
+        assertParsesInt(Integer.MIN_VALUE);
+        assertParsesInt(Integer.MAX_VALUE);
+        assertParsesInt(-1);
+        assertParsesInt(0);
+        assertParsesInt(45);
+    }
+
+    @Test(expected = AsciiNumberFormatException.class)
+    public void shouldRejectNonDigits()
+    {
+        final int length = buffer.putStringWithoutLengthAscii(0, "12a4");
+
+        AsciiSwar.parseNaturalInt(buffer, 0, length);
+    }
+
+    @Test
+    public void shouldPutPaddedNaturalInts()
+    {
+        for (int length = 1; length <= 8; length++)
+        {
+            final int value = random.nextInt((int)PowerOf10.pow10(length));
+            buffer.setMemory(0, buffer.capacity(), (byte)'X');
+
+            AsciiSwar.putNaturalPaddedInt(buffer, 0, length, value);
+
+            final String expected = String.format("%0" + length + "dX", value);
+            assertEquals(expected, buffer.getStringWithoutLengthAscii(0, length + 1));
+        }
+    }
+
+    private void assertParsesInt(final int value)
+    {
+        final int length = buffer.putStringWithoutLengthAscii(0, Integer.toString(value));
+
+        assertEquals(value, AsciiSwar.parseInt(buffer, 0, length));
+    }
+
+    private void putAtEndOfBuffer(final String text)
+    {
+        buffer.putBytes(buffer.capacity() - text.length(), text.getBytes(US_ASCII));
+    }
+
+    private void fillRandomly()
+    {
+        for (int index = 0; index < buffer.capacity(); index++)
+        {
+            buffer.putByte(index, (byte)random.nextInt(256));
+        }
+    }
+}
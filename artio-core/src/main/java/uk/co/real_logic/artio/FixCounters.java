@@ -47,7 +47,9 @@ public class FixCounters implements AutoCloseable
         CURRENT_REPLAY_COUNT_TYPE_ID(10_008),
         NEGATIVE_TIMESTAMP_TYPE_ID(10_009),
         FAILED_ADMIN_TYPE_ID(10_010),
-        FAILED_ADMIN_REPLY_TYPE_ID(10_011);
+        FAILED_ADMIN_REPLY_TYPE_ID(10_011),
+        SEQUENCE_INDEX_FLUSH_LATENCY_TYPE_ID(10_012),
+        SEQUENCE_INDEX_FLUSH_BATCH_SIZE_TYPE_ID(10_013);
 
         final int id;
 
@@ -179,6 +181,18 @@ public class FixCounters implements AutoCloseable
             FixCountersId.RECV_MSG_SEQ_NO_TYPE_ID.id(), msgSeqNoLabel("Received", connectionId, sessionId));
     }
 
+    public AtomicCounter sequenceIndexFlushLatency(final int streamId)
+    {
+        return newCounter(FixCountersId.SEQUENCE_INDEX_FLUSH_LATENCY_TYPE_ID.id(),
+                "Last Sequence Index Flush Latency in ns, streamId = " + streamId);
+    }
+
+    public AtomicCounter sequenceIndexFlushBatchSize(final int streamId)
+    {
+        return newCounter(FixCountersId.SEQUENCE_INDEX_FLUSH_BATCH_SIZE_TYPE_ID.id(),
+                "Last Sequence Index Flush Batch Size, streamId = " + streamId);
+    }
+
     private String msgSeqNoLabel(final String type, final long connectionId, final long sessionId)
     {
         final StringBuilder sb = new StringBuilder();
@@ -19,12 +19,19 @@ import org.agrona.ErrorHandler;
 import org.agrona.concurrent.AtomicBuffer;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.zip.CRC32;
 
-// TODO: optimisation: write and checksum only needed bytes
+/**
+ * Maintains the checksums of the sectors of a buffer. Writers can mark the sectors that they modify as dirty, in order
+ * to only checksum those sectors with {@link #updateDirtyChecksums(long[])} rather than the whole buffer.
+ */
 public class ChecksumFramer extends SectorFramer
 {
     private final CRC32 crc32 = new CRC32();
+    private final int sectorCount;
+    // One bit per sector
+    private final long[] dirtySectors;
     private final AtomicBuffer buffer;
     private final ChecksumConsumer saveChecksumFunc;
     private final ErrorHandler errorHandler;
@@ -42,6 +49,8 @@ public class ChecksumFramer extends SectorFramer
         final boolean indexChecksumEnabled)
     {
         super(capacity);
+        sectorCount = capacity / SECTOR_SIZE;
+        dirtySectors = new long[sectorSetLength(capacity)];
         this.buffer = buffer;
         saveChecksumFunc = buffer::putInt;
         this.errorHandler = errorHandler;
@@ -65,6 +74,83 @@ public class ChecksumFramer extends SectorFramer
         {
             withChecksums(saveChecksumFunc);
         }
+        Arrays.fill(dirtySectors, 0L);
+    }
+
+    /**
+     * Get the length of a long array that can hold a set of the sectors of a buffer, with one bit per sector.
+     *
+     * @param capacity the capacity of the buffer in bytes.
+     * @return the length of the array, with room for a partial sector at the end of the buffer.
+     */
+    public static int sectorSetLength(final int capacity)
+    {
+        return (capacity / SECTOR_SIZE) / Long.SIZE + 1;
+    }
+
+    /**
+     * Mark the sector containing an offset as modified, so that it is included in the next
+     * {@link #updateDirtyChecksums(long[])}.
+     *
+     * @param offset the offset within the buffer that has been written to.
+     */
+    public void markDirty(final int offset)
+    {
+        final int sector = offset / SECTOR_SIZE;
+        dirtySectors[sector >> 6] |= 1L << sector;
+    }
+
+    public void markAllDirty()
+    {
+        Arrays.fill(dirtySectors, -1L);
+    }
+
+    /**
+     * Update the checksums of the sectors that have been marked dirty since the last update.
+     *
+     * @param updatedSectors a set that the dirty sectors are added to, so that callers can copy just the modified
+     *                       sectors elsewhere, may be null.
+     * @return the number of sectors that were dirty.
+     */
+    public int updateDirtyChecksums(final long[] updatedSectors)
+    {
+        final long[] dirtySectors = this.dirtySectors;
+        final int sectorCount = this.sectorCount;
+        int dirtySectorCount = 0;
+        for (int i = 0; i < dirtySectors.length; i++)
+        {
+            long dirtyWord = dirtySectors[i];
+            if (dirtyWord != 0)
+            {
+                dirtySectors[i] = 0;
+                if (updatedSectors != null)
+                {
+                    updatedSectors[i] |= dirtyWord;
+                }
+
+                while (dirtyWord != 0)
+                {
+                    final int sector = (i << 6) + Long.numberOfTrailingZeros(dirtyWord);
+                    dirtyWord &= dirtyWord - 1;
+                    if (sector < sectorCount)
+                    {
+                        dirtySectorCount++;
+                        if (indexChecksumEnabled)
+                        {
+                            checksumSector((sector + 1) * SECTOR_SIZE, saveChecksumFunc);
+                        }
+                    }
+                }
+            }
+        }
+
+        final ByteBuffer inMemoryByteBuffer = buffer.byteBuffer();
+        if (inMemoryByteBuffer != null)
+        {
+            inMemoryByteBuffer.clear();
+        }
+
+        return dirtySectorCount;
     }
 
     private void validateChecksum(final int checksumOffset, final int calculatedChecksum)
@@ -77,37 +163,42 @@ public class ChecksumFramer extends SectorFramer
 
     private void withChecksums(final ChecksumConsumer consumer)
     {
-        final byte[] inMemoryBytes = buffer.byteArray();
-        final ByteBuffer inMemoryByteBuffer = buffer.byteBuffer();
-        final int wrapAdjustment = buffer.wrapAdjustment();
         final int capacity = this.capacity;
 
         for (int sectorEnd = SECTOR_SIZE; sectorEnd <= capacity; sectorEnd += SECTOR_SIZE)
         {
-            final int sectorStart = sectorEnd - SECTOR_SIZE + wrapAdjustment;
-            final int checksumOffset = sectorEnd - CHECKSUM_SIZE;
-
-            crc32.reset();
-            if (inMemoryBytes != null)
-            {
-                crc32.update(inMemoryBytes, sectorStart, SECTOR_DATA_LENGTH);
-            }
-            else
-            {
-                ByteBufferUtil.limit(inMemoryByteBuffer, sectorStart + SECTOR_DATA_LENGTH);
-                ByteBufferUtil.position(inMemoryByteBuffer, sectorStart);
-                crc32.update(inMemoryByteBuffer);
-            }
-            final int sectorChecksum = (int)crc32.getValue();
-            consumer.accept(checksumOffset, sectorChecksum);
+            checksumSector(sectorEnd, consumer);
         }
 
+        final ByteBuffer inMemoryByteBuffer = buffer.byteBuffer();
         if (inMemoryByteBuffer != null)
         {
             inMemoryByteBuffer.clear();
         }
     }
 
+    private void checksumSector(final int sectorEnd, final ChecksumConsumer consumer)
+    {
+        final byte[] inMemoryBytes = buffer.byteArray();
+        final int sectorStart = sectorEnd - SECTOR_SIZE + buffer.wrapAdjustment();
+        final int checksumOffset = sectorEnd - CHECKSUM_SIZE;
+
+        crc32.reset();
+        if (inMemoryBytes != null)
+        {
+            crc32.update(inMemoryBytes, sectorStart, SECTOR_DATA_LENGTH);
+        }
+        else
+        {
+            final ByteBuffer inMemoryByteBuffer = buffer.byteBuffer();
+            ByteBufferUtil.limit(inMemoryByteBuffer, sectorStart + SECTOR_DATA_LENGTH);
+            ByteBufferUtil.position(inMemoryByteBuffer, sectorStart);
+            crc32.update(inMemoryByteBuffer);
+        }
+        final int sectorChecksum = (int)crc32.getValue();
+        consumer.accept(checksumOffset, sectorChecksum);
+    }
+
     private interface ChecksumConsumer
     {
         void accept(int checksumOffset, int sectorChecksum);
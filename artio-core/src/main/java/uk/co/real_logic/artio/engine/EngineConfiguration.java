@@ -37,7 +37,11 @@ import uk.co.real_logic.artio.dictionary.SessionConstants;
 import uk.co.real_logic.artio.engine.framer.DefaultTcpChannelSupplier;
 import uk.co.real_logic.artio.engine.framer.TcpChannelSupplier;
 import uk.co.real_logic.artio.engine.logger.FixArchiveScanner;
+import uk.co.real_logic.artio.engine.logger.FixMessageConsumer;
 import uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor;
+import uk.co.real_logic.artio.engine.logger.ReplayIndexLayout;
+import uk.co.real_logic.artio.engine.logger.RetentionPolicy;
+import uk.co.real_logic.artio.engine.logger.SequenceNumberIndexDurability;
 import uk.co.real_logic.artio.fields.EpochFractionFormat;
 import uk.co.real_logic.artio.fixp.FixPCancelOnDisconnectTimeoutHandler;
 import uk.co.real_logic.artio.fixp.FixPProtocolFactory;
@@ -59,6 +63,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import static java.lang.Integer.getInteger;
+import static java.lang.Long.getLong;
 import static java.lang.System.getProperty;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
@@ -97,6 +102,11 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
      */
     public static final String REPLAY_INDEX_RECORD_CAPACITY_PROP = "logging.index.records";
 
+    /**
+     * Property name for the {@link ReplayIndexLayout} of replay index files, eg: CONSOLIDATED.
+     */
+    public static final String REPLAY_INDEX_LAYOUT_PROP = "logging.index.layout";
+
     /**
      * Property name for enabling or disabling checksum calculation for index files
      */
@@ -163,6 +173,46 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
      * Property name for the timeout before a connection that hasn't sent a logon is disconnected
      */
     public static final String NO_LOGON_DISCONNECT_TIMEOUT_PROP = "fix.core.no_logon_disconnect";
+    /**
+     * Property name for enabling the coalescing of outbound messages into a single write per connection per duty cycle.
+     */
+    public static final String COALESCE_OUTBOUND_WRITES_PROP = "fix.core.coalesce_outbound_writes";
+    /**
+     * Property name for the initial size in bytes of a connection's buffer of coalesced outbound messages.
+     */
+    public static final String COALESCED_WRITES_BUFFER_SIZE_PROP = "fix.core.coalesced_writes_buffer_size";
+    /**
+     * Property name for enabling catching up the inbound and outbound indices concurrently on engine startup.
+     */
+    public static final String PARALLEL_INDEX_CATCHUP_PROP = "fix.core.parallel_index_catchup";
+    /**
+     * Property name for the size in bytes of the batch that inbound messages from a single TCP read are framed into.
+     */
+    public static final String INBOUND_MESSAGE_BATCH_SIZE_PROP = "fix.core.inbound_message_batch_size";
+    /**
+     * Property name for the maximum time in milliseconds that an idle Framer blocks waiting for TCP data.
+     */
+    public static final String FRAMER_IDLE_PARK_TIMEOUT_PROP = "fix.core.framer_idle_park_timeout";
+    /**
+     * Property name for the time in milliseconds that the Framer needs to be idle for before it blocks waiting for
+     * TCP data.
+     */
+    public static final String FRAMER_IDLE_PARK_THRESHOLD_PROP = "fix.core.framer_idle_park_threshold";
+    /**
+     * Property name for the size in bytes of the per-session cache of recently sent messages used by the Replayer.
+     */
+    public static final String REPLAYER_RECENT_MESSAGE_CACHE_CAPACITY_PROP =
+        "fix.core.replayer_recent_message_cache_capacity";
+    /**
+     * Property name for the size in bytes of the per-connection buffer of recently received messages used by the
+     * Framer to catch up libraries that acquire a session.
+     */
+    public static final String FRAMER_RECENT_INBOUND_MESSAGES_CAPACITY_PROP =
+        "fix.core.framer_recent_inbound_messages_capacity";
+    /**
+     * Property name for the directory of a local Aeron Archive whose segment files replays read directly.
+     */
+    public static final String ARCHIVE_SEGMENT_DIR_PROP = "fix.core.archive_segment_dir";
 
     // ------------------------------------------------
     //          Configuration Defaults
@@ -171,6 +221,7 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     public static final String DEFAULT_LOG_FILE_DIR = "logs";
     public static final int DEFAULT_REPLAY_INDEX_RECORD_CAPACITY = 262144;
     public static final int DEFAULT_REPLAY_INDEX_SEGMENT_CAPACITY = 65536;
+    public static final ReplayIndexLayout DEFAULT_REPLAY_INDEX_LAYOUT = ReplayIndexLayout.PER_SESSION_FILES;
     public static final int DEFAULT_LOGGER_CACHE_NUM_SETS = 8;
     public static final int DEFAULT_LOGGER_CACHE_SET_SIZE = 4;
 
@@ -185,6 +236,18 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     public static final int DEFAULT_SENDER_MAX_BYTES_IN_BUFFER = 4 * 1024 * 1024;
     public static final int DEFAULT_REPLAY_POSITION_BUFFER_SIZE = 4 * 1024;
     public static final int DEFAULT_NO_LOGON_DISCONNECT_TIMEOUT_IN_MS = (int)SECONDS.toMillis(5);
+    public static final boolean DEFAULT_COALESCE_OUTBOUND_WRITES = false;
+    public static final int DEFAULT_COALESCED_WRITES_BUFFER_SIZE = 16 * 1024;
+    public static final boolean DEFAULT_PARALLEL_INDEX_CATCHUP = false;
+    public static final int NO_INBOUND_MESSAGE_BATCHING = 0;
+    public static final int DEFAULT_INBOUND_MESSAGE_BATCH_SIZE = NO_INBOUND_MESSAGE_BATCHING;
+    public static final long NO_FRAMER_IDLE_PARK = 0;
+    public static final long DEFAULT_FRAMER_IDLE_PARK_TIMEOUT_IN_MS = NO_FRAMER_IDLE_PARK;
+    public static final long DEFAULT_FRAMER_IDLE_PARK_THRESHOLD_IN_MS = 10;
+    public static final int NO_REPLAYER_RECENT_MESSAGE_CACHE = 0;
+    public static final int DEFAULT_REPLAYER_RECENT_MESSAGE_CACHE_CAPACITY = NO_REPLAYER_RECENT_MESSAGE_CACHE;
+    public static final int NO_FRAMER_RECENT_INBOUND_MESSAGES = 0;
+    public static final int DEFAULT_FRAMER_RECENT_INBOUND_MESSAGES_CAPACITY = NO_FRAMER_RECENT_INBOUND_MESSAGES;
     public static final String DEFAULT_SESSION_ID_FILE = "session_id_buffer";
     public static final String DEFAULT_FIXP_ID_FILE = "fixp_id_buffer";
     public static final String DEFAULT_SEQUENCE_NUMBERS_SENT_FILE = "sequence_numbers_sent";
@@ -212,6 +275,12 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     public static final long MAX_COD_TIMEOUT_IN_MS = 60_000L;
 
     public static final long DEFAULT_TIME_INDEX_FLUSH_INTERVAL_IN_NS = TimeUnit.SECONDS.toNanos(1);
+    public static final int DEFAULT_TAG_INDEX_INITIAL_CAPACITY = 64 * 1024;
+    public static final SequenceNumberIndexDurability DEFAULT_SEQUENCE_NUMBER_INDEX_DURABILITY =
+        SequenceNumberIndexDurability.PERIODIC_FSYNC;
+    public static final int DEFAULT_SEQUENCE_NUMBER_INDEX_GROUP_COMMIT_MAX_UPDATES = 1024;
+    public static final long DEFAULT_ARCHIVE_RETENTION_INTERVAL_IN_MS = 10_000;
+    public static final int DEFAULT_ARCHIVE_RETENTION_MAX_SEGMENTS_PER_PURGE = 4;
 
     static
     {
@@ -238,7 +307,10 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     private int replayIndexFileRecordCapacity = getInteger(
         REPLAY_INDEX_RECORD_CAPACITY_PROP, DEFAULT_REPLAY_INDEX_RECORD_CAPACITY);
     private int replayIndexSegmentRecordCapacity = DEFAULT_REPLAY_INDEX_SEGMENT_CAPACITY;
+    private ReplayIndexLayout replayIndexLayout = ReplayIndexLayout.valueOf(
+        getProperty(REPLAY_INDEX_LAYOUT_PROP, DEFAULT_REPLAY_INDEX_LAYOUT.name()));
     private String logFileDir = getProperty(LOG_FILE_DIR_PROP, DEFAULT_LOG_FILE_DIR);
+    private String archiveSegmentDir = getProperty(ARCHIVE_SEGMENT_DIR_PROP);
     private int loggerCacheNumSets = DEFAULT_LOGGER_CACHE_NUM_SETS;
     private int loggerCacheSetSize = DEFAULT_LOGGER_CACHE_SET_SIZE;
     private boolean logInboundMessages = true;
@@ -279,6 +351,21 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     private int noLogonDisconnectTimeoutInMs =
         getInteger(NO_LOGON_DISCONNECT_TIMEOUT_PROP, DEFAULT_NO_LOGON_DISCONNECT_TIMEOUT_IN_MS);
     private boolean indexChecksumEnabled = getBoolean(INDEX_CHECKSUM_ENABLED_PROP, DEFAULT_INDEX_CHECKSUM_ENABLED);
+    private boolean coalesceOutboundWrites = getBoolean(
+        COALESCE_OUTBOUND_WRITES_PROP, DEFAULT_COALESCE_OUTBOUND_WRITES);
+    private int coalescedWritesBufferSize = getInteger(
+        COALESCED_WRITES_BUFFER_SIZE_PROP, DEFAULT_COALESCED_WRITES_BUFFER_SIZE);
+    private boolean parallelIndexCatchup = getBoolean(PARALLEL_INDEX_CATCHUP_PROP, DEFAULT_PARALLEL_INDEX_CATCHUP);
+    private int inboundMessageBatchSize = getInteger(
+        INBOUND_MESSAGE_BATCH_SIZE_PROP, DEFAULT_INBOUND_MESSAGE_BATCH_SIZE);
+    private long framerIdleParkTimeoutInMs = getLong(
+        FRAMER_IDLE_PARK_TIMEOUT_PROP, DEFAULT_FRAMER_IDLE_PARK_TIMEOUT_IN_MS);
+    private long framerIdleParkThresholdInMs = getLong(
+        FRAMER_IDLE_PARK_THRESHOLD_PROP, DEFAULT_FRAMER_IDLE_PARK_THRESHOLD_IN_MS);
+    private int replayerRecentMessageCacheCapacity = getInteger(
+        REPLAYER_RECENT_MESSAGE_CACHE_CAPACITY_PROP, DEFAULT_REPLAYER_RECENT_MESSAGE_CACHE_CAPACITY);
+    private int framerRecentInboundMessagesCapacity = getInteger(
+        FRAMER_RECENT_INBOUND_MESSAGES_CAPACITY_PROP, DEFAULT_FRAMER_RECENT_INBOUND_MESSAGES_CAPACITY);
 
     private String libraryAeronChannel = null;
     private Function<EngineConfiguration, TcpChannelSupplier> channelSupplierFactory = DefaultTcpChannelSupplier::new;
@@ -319,6 +406,13 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     private int throttleWindowInMs = NO_THROTTLE_WINDOW;
     private int throttleLimitOfMessages = NO_THROTTLE_WINDOW;
     private long timeIndexReplayFlushIntervalInNs = DEFAULT_TIME_INDEX_FLUSH_INTERVAL_IN_NS;
+    private int[] tagIndexTags = new int[0];
+    private int tagIndexInitialCapacity = DEFAULT_TAG_INDEX_INITIAL_CAPACITY;
+    private SequenceNumberIndexDurability sequenceNumberIndexDurability = DEFAULT_SEQUENCE_NUMBER_INDEX_DURABILITY;
+    private int sequenceNumberIndexGroupCommitMaxUpdates = DEFAULT_SEQUENCE_NUMBER_INDEX_GROUP_COMMIT_MAX_UPDATES;
+    private List<RetentionPolicy> archiveRetentionPolicies = Collections.emptyList();
+    private long archiveRetentionIntervalInMs = DEFAULT_ARCHIVE_RETENTION_INTERVAL_IN_MS;
+    private int archiveRetentionMaxSegmentsPerPurge = DEFAULT_ARCHIVE_RETENTION_MAX_SEGMENTS_PER_PURGE;
 
     private EngineReproductionConfiguration reproductionConfiguration;
     private ReproductionMessageHandler reproductionMessageHandler = (connectionId, bytes) ->
@@ -442,6 +536,24 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets the archive directory of an Aeron Archive running on the same machine as the engine. When set, replays of
+     * messages read them directly from the archive's memory mapped segment files rather than starting a replay via
+     * the archive. Recordings whose segment files aren't within this directory fall back to archive replays.
+     *
+     * By default this isn't set and all replays are made via the archive.
+     *
+     * @param archiveSegmentDir the archive directory of the local Aeron Archive, or null to always replay via the
+     *                          archive.
+     * @return this
+     * @see EngineConfiguration#ARCHIVE_SEGMENT_DIR_PROP
+     */
+    public EngineConfiguration archiveSegmentDir(final String archiveSegmentDir)
+    {
+        this.archiveSegmentDir = archiveSegmentDir;
+        return this;
+    }
+
     /**
      * Sets the maximum size of index files. as calculated by the number of records that can be stored per FIX session.
      * In business terms this is maximum number of messages back in history that Artio can respond to resend requests
@@ -483,6 +595,23 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets how the replay index is laid out on disk. By default each session has its own header and segment files,
+     * {@link ReplayIndexLayout#CONSOLIDATED} allocates each session an extent within a small number of large files
+     * instead, which avoids creating and mapping several files per session when there are many sessions.
+     *
+     * The layout needs to be the same between restarts of the engine using the same log file directory.
+     *
+     * @param replayIndexLayout the layout of the replay index.
+     * @return this
+     * @see EngineConfiguration#REPLAY_INDEX_LAYOUT_PROP
+     */
+    public EngineConfiguration replayIndexLayout(final ReplayIndexLayout replayIndexLayout)
+    {
+        this.replayIndexLayout = replayIndexLayout;
+        return this;
+    }
+
     /**
      * Convert the number of records in a replay index file to a file size. Note: because replay index file sizes must
      * be a power of two this method can return a file size greater than the requested number of methods but never less.
@@ -636,6 +765,114 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Enables coalescing of outbound FIX messages. When enabled the Framer collects every message for a connection
+     * that it reads from libraries within one duty cycle and writes them to the TCP connection with a single write,
+     * rather than one write per message. Back-pressure, slow consumer and message timing handling still operate per
+     * message. This reduces the number of system calls when many messages are sent to the same connection in a burst,
+     * at the cost of an additional copy of each message. Ignored in reproduction mode.
+     *
+     * @param coalesceOutboundWrites true to coalesce outbound writes, false to write each message individually.
+     * @return this
+     * @see EngineConfiguration#COALESCE_OUTBOUND_WRITES_PROP
+     * @see EngineConfiguration#coalescedWritesBufferSize(int)
+     */
+    public EngineConfiguration coalesceOutboundWrites(final boolean coalesceOutboundWrites)
+    {
+        this.coalesceOutboundWrites = coalesceOutboundWrites;
+        return this;
+    }
+
+    /**
+     * Sets the initial size of the buffer that a connection coalesces its outbound messages into. The buffer is
+     * only allocated once the connection first coalesces a message and grows if a duty cycle's messages don't fit.
+     *
+     * @param coalescedWritesBufferSize the initial size of the buffer in bytes.
+     * @return this
+     * @see EngineConfiguration#COALESCED_WRITES_BUFFER_SIZE_PROP
+     */
+    public EngineConfiguration coalescedWritesBufferSize(final int coalescedWritesBufferSize)
+    {
+        this.coalescedWritesBufferSize = coalescedWritesBufferSize;
+        return this;
+    }
+
+    /**
+     * Enables catching up the inbound and outbound indices concurrently when the engine starts. Indices are caught up
+     * with any messages that were recorded after the position they had indexed up to, for example after an unclean
+     * shutdown, before the engine starts serving traffic. When enabled the inbound indices are caught up on a
+     * separate thread whilst the outbound indices are caught up on the starting thread.
+     *
+     * This should not be enabled when using FIXP sessions, as outbound FIXP messages are indexed using connection
+     * information from the inbound stream. It is ignored if the Aeron client uses a conductor agent invoker or the
+     * Aeron Archive client is configured with a {@link org.agrona.concurrent.NoOpLock}, as they can't then be
+     * used from multiple threads.
+     *
+     * @param parallelIndexCatchup true to catch up the inbound and outbound indices concurrently.
+     * @return this
+     * @see EngineConfiguration#PARALLEL_INDEX_CATCHUP_PROP
+     */
+    public EngineConfiguration parallelIndexCatchup(final boolean parallelIndexCatchup)
+    {
+        this.parallelIndexCatchup = parallelIndexCatchup;
+        return this;
+    }
+
+    /**
+     * Enables batching of inbound FIX messages. When enabled the messages framed from a single TCP read of a library
+     * owned session are written into a batch and committed to the inbound library stream as a single block, rather
+     * than claiming space on the stream for each message. Each message is still an individual fragment on the stream
+     * so libraries, indexers and archive tools are unaffected. Messages for engine managed sessions, logons,
+     * throttled messages, invalid messages and messages that are too large to fit in a single fragment are saved
+     * individually.
+     *
+     * @param inboundMessageBatchSize the size of the batch in bytes, limited to the maximum message length of the
+     *                                inbound stream, or {@link #NO_INBOUND_MESSAGE_BATCHING} to disable batching.
+     * @return this
+     * @see EngineConfiguration#INBOUND_MESSAGE_BATCH_SIZE_PROP
+     */
+    public EngineConfiguration inboundMessageBatchSize(final int inboundMessageBatchSize)
+    {
+        this.inboundMessageBatchSize = inboundMessageBatchSize;
+        return this;
+    }
+
+    /**
+     * Enables parking of an idle Framer. Once the Framer's duty cycle has done no work for
+     * {@link #framerIdleParkThresholdInMs(long)} it blocks on its selector until a TCP connection has data to read,
+     * an admin command is sent to the Framer, the replayer does some work, the Framer's next timer is due or this
+     * timeout expires. It returns to busy polling as soon as a duty cycle does some work. Libraries may be in other
+     * processes and send messages to the engine over Aeron, so they can't wake the Framer. This timeout bounds the
+     * latency of messages from libraries, new connections and session heartbeats whilst the Framer is idle.
+     *
+     * Parking is only used when the Framer isn't in reproduction mode, and is skipped whilst
+     * any connection needs polling regardless of the selector, for example whilst it is being authenticated.
+     *
+     * @param framerIdleParkTimeoutInMs the maximum time to park for, or {@link #NO_FRAMER_IDLE_PARK} to always
+     *                                  busy poll using the {@link #framerIdleStrategy()}.
+     * @return this
+     * @see EngineConfiguration#FRAMER_IDLE_PARK_TIMEOUT_PROP
+     */
+    public EngineConfiguration framerIdleParkTimeoutInMs(final long framerIdleParkTimeoutInMs)
+    {
+        this.framerIdleParkTimeoutInMs = framerIdleParkTimeoutInMs;
+        return this;
+    }
+
+    /**
+     * Sets the time that the Framer needs to have been idle for before it parks.
+     *
+     * @param framerIdleParkThresholdInMs the time that the Framer needs to have been idle for before it parks.
+     * @return this
+     * @see EngineConfiguration#FRAMER_IDLE_PARK_THRESHOLD_PROP
+     * @see #framerIdleParkTimeoutInMs(long)
+     */
+    public EngineConfiguration framerIdleParkThresholdInMs(final long framerIdleParkThresholdInMs)
+    {
+        this.framerIdleParkThresholdInMs = framerIdleParkThresholdInMs;
+        return this;
+    }
+
     public EngineConfiguration senderMaxBytesInBuffer(final int senderMaxBytesInBuffer)
     {
         this.senderMaxBytesInBuffer = senderMaxBytesInBuffer;
@@ -1053,6 +1290,50 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Enables a cache of the most recently sent messages of each session within the Replayer. Resend requests whose
+     * whole range is within the cache are replayed from it without starting a replay from the Aeron Archive, which
+     * makes resending the last few messages of a session much cheaper. Other resend requests, for example ones up to
+     * the most recent message or ones that were sent before a sequence reset, are replayed from the archive as
+     * normal.
+     *
+     * Each session that sends messages whilst the engine is running allocates an off-heap buffer of this size. This
+     * has no effect if {@link #logOutboundMessages(boolean)} is disabled.
+     *
+     * @param replayerRecentMessageCacheCapacity the size in bytes of each session's cache or
+     *                                           {@link #NO_REPLAYER_RECENT_MESSAGE_CACHE} to always replay from the
+     *                                           archive.
+     * @return this
+     * @see EngineConfiguration#REPLAYER_RECENT_MESSAGE_CACHE_CAPACITY_PROP
+     */
+    public EngineConfiguration replayerRecentMessageCacheCapacity(final int replayerRecentMessageCacheCapacity)
+    {
+        this.replayerRecentMessageCacheCapacity = replayerRecentMessageCacheCapacity;
+        return this;
+    }
+
+    /**
+     * Enables a buffer of the most recently received messages of each connection within the Framer. When a library
+     * acquires a session, or asks for its received messages to be replayed, and the whole range of messages is within
+     * the buffer then they're sent to the library from it. This avoids waiting for the messages to be indexed and
+     * replaying them from the Aeron Archive, so a session can be handed over between libraries much faster. Other
+     * ranges, for example ones that were received before a sequence reset, are replayed from the archive as normal.
+     *
+     * Each connection that receives messages allocates an off-heap buffer of this size. This has no effect if
+     * inbound messages can't be replayed, see {@link #canReplayInbound()}.
+     *
+     * @param framerRecentInboundMessagesCapacity the size in bytes of each connection's buffer or
+     *                                            {@link #NO_FRAMER_RECENT_INBOUND_MESSAGES} to always catch up
+     *                                            from the archive.
+     * @return this
+     * @see EngineConfiguration#FRAMER_RECENT_INBOUND_MESSAGES_CAPACITY_PROP
+     */
+    public EngineConfiguration framerRecentInboundMessagesCapacity(final int framerRecentInboundMessagesCapacity)
+    {
+        this.framerRecentInboundMessagesCapacity = framerRecentInboundMessagesCapacity;
+        return this;
+    }
+
     /**
      * Sets the initial sequenceIndex for the new session.
      * Doesnt affects existing session.
@@ -1175,6 +1456,131 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets the tags, for example ClOrdID (11), OrderID (37) or ExecID (17), whose values are indexed for the
+     * archived messages of each stream that is logged. The index can be queried with
+     * {@link FixArchiveScanner#scanTag(String, int, int, CharSequence, FixMessageConsumer, int)} in order to find
+     * the messages that contain a value without scanning the whole archive.
+     *
+     * No tags are indexed by default.
+     *
+     * @param tagIndexTags the tags to index.
+     * @return this
+     */
+    public EngineConfiguration tagIndexTags(final int... tagIndexTags)
+    {
+        this.tagIndexTags = tagIndexTags;
+        return this;
+    }
+
+    /**
+     * Sets the number of entries that the tag index of each stream has room for when it is created. The index grows
+     * by doubling its capacity when it becomes three quarters full, so this is only a starting point.
+     *
+     * @param tagIndexInitialCapacity the initial number of entries, a power of two.
+     * @return this
+     */
+    public EngineConfiguration tagIndexInitialCapacity(final int tagIndexInitialCapacity)
+    {
+        this.tagIndexInitialCapacity = findNextPositivePowerOfTwo(tagIndexInitialCapacity);
+        return this;
+    }
+
+    /**
+     * Sets when the sent and received sequence number indices are flushed to disk, see
+     * {@link SequenceNumberIndexDurability} for the options. Defaults to
+     * {@link SequenceNumberIndexDurability#PERIODIC_FSYNC}.
+     *
+     * @param sequenceNumberIndexDurability the durability policy of the sequence number indices.
+     * @return this
+     * @see EngineConfiguration#indexFileStateFlushTimeoutInMs(long)
+     * @see EngineConfiguration#sequenceNumberIndexGroupCommitMaxUpdates(int)
+     */
+    public EngineConfiguration sequenceNumberIndexDurability(
+        final SequenceNumberIndexDurability sequenceNumberIndexDurability)
+    {
+        Verify.notNull(sequenceNumberIndexDurability, "sequenceNumberIndexDurability");
+        this.sequenceNumberIndexDurability = sequenceNumberIndexDurability;
+        return this;
+    }
+
+    /**
+     * Sets the number of updates to a sequence number index after which it is flushed when using
+     * {@link SequenceNumberIndexDurability#GROUP_COMMIT}.
+     *
+     * @param sequenceNumberIndexGroupCommitMaxUpdates the number of updates in a group commit.
+     * @return this
+     */
+    public EngineConfiguration sequenceNumberIndexGroupCommitMaxUpdates(
+        final int sequenceNumberIndexGroupCommitMaxUpdates)
+    {
+        if (sequenceNumberIndexGroupCommitMaxUpdates <= 0)
+        {
+            throw new IllegalArgumentException(
+                "sequenceNumberIndexGroupCommitMaxUpdates must be positive: " +
+                sequenceNumberIndexGroupCommitMaxUpdates);
+        }
+        this.sequenceNumberIndexGroupCommitMaxUpdates = sequenceNumberIndexGroupCommitMaxUpdates;
+        return this;
+    }
+
+    /**
+     * Sets the policies used to continuously prune the archive in the background. Pruning runs on the replayer's
+     * thread and purges archive segments once they only contain messages that no policy keeps. By default there are
+     * no policies and the archive is only pruned when
+     * {@link FixEngine#pruneArchive(org.agrona.collections.Long2LongHashMap)} is called.
+     *
+     * @param archiveRetentionPolicies the policies for which archived messages to keep.
+     * @return this
+     * @see EngineConfiguration#archiveRetentionIntervalInMs(long)
+     * @see EngineConfiguration#archiveRetentionMaxSegmentsPerPurge(int)
+     */
+    public EngineConfiguration archiveRetentionPolicies(final RetentionPolicy... archiveRetentionPolicies)
+    {
+        this.archiveRetentionPolicies = Arrays.asList(archiveRetentionPolicies.clone());
+        return this;
+    }
+
+    /**
+     * Sets the interval between evaluations of the archive retention policies.
+     *
+     * @param archiveRetentionIntervalInMs the interval between evaluations of the archive retention policies.
+     * @return this
+     * @see EngineConfiguration#archiveRetentionPolicies(RetentionPolicy...)
+     */
+    public EngineConfiguration archiveRetentionIntervalInMs(final long archiveRetentionIntervalInMs)
+    {
+        if (archiveRetentionIntervalInMs <= 0)
+        {
+            throw new IllegalArgumentException(
+                "archiveRetentionIntervalInMs must be positive: " + archiveRetentionIntervalInMs);
+        }
+
+        this.archiveRetentionIntervalInMs = archiveRetentionIntervalInMs;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of segments of each recording that are purged in each evaluation of the archive
+     * retention policies. This rate limits the purging of a backlog of prunable data, for example when retention is
+     * first enabled, so that the disk I/O is spread over several intervals.
+     *
+     * @param archiveRetentionMaxSegmentsPerPurge the maximum number of segments of a recording to purge at a time.
+     * @return this
+     * @see EngineConfiguration#archiveRetentionPolicies(RetentionPolicy...)
+     */
+    public EngineConfiguration archiveRetentionMaxSegmentsPerPurge(final int archiveRetentionMaxSegmentsPerPurge)
+    {
+        if (archiveRetentionMaxSegmentsPerPurge <= 0)
+        {
+            throw new IllegalArgumentException(
+                "archiveRetentionMaxSegmentsPerPurge must be positive: " + archiveRetentionMaxSegmentsPerPurge);
+        }
+
+        this.archiveRetentionMaxSegmentsPerPurge = archiveRetentionMaxSegmentsPerPurge;
+        return this;
+    }
+
     /**
      * Allows disabling of the checksum calculation and validation of index files. Note: this does not affect the
      * checksum calculation for AeronArchiver - only artio itself.
@@ -1674,6 +2080,11 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return logFileDir;
     }
 
+    public String archiveSegmentDir()
+    {
+        return archiveSegmentDir;
+    }
+
     public int replayIndexFileRecordCapacity()
     {
         return replayIndexFileRecordCapacity;
@@ -1684,6 +2095,11 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return replayIndexSegmentRecordCapacity;
     }
 
+    public ReplayIndexLayout replayIndexLayout()
+    {
+        return replayIndexLayout;
+    }
+
     public int loggerCacheSetSize()
     {
         return loggerCacheSetSize;
@@ -1764,6 +2180,36 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return inboundBytesReceivedLimit;
     }
 
+    public boolean coalesceOutboundWrites()
+    {
+        return coalesceOutboundWrites;
+    }
+
+    public int coalescedWritesBufferSize()
+    {
+        return coalescedWritesBufferSize;
+    }
+
+    public boolean parallelIndexCatchup()
+    {
+        return parallelIndexCatchup;
+    }
+
+    public int inboundMessageBatchSize()
+    {
+        return inboundMessageBatchSize;
+    }
+
+    public long framerIdleParkTimeoutInMs()
+    {
+        return framerIdleParkTimeoutInMs;
+    }
+
+    public long framerIdleParkThresholdInMs()
+    {
+        return framerIdleParkThresholdInMs;
+    }
+
     public MappedFile sentSequenceNumberIndex()
     {
         return sentSequenceNumberIndex;
@@ -1893,6 +2339,16 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return maxConcurrentSessionReplays;
     }
 
+    public int replayerRecentMessageCacheCapacity()
+    {
+        return replayerRecentMessageCacheCapacity;
+    }
+
+    public int framerRecentInboundMessagesCapacity()
+    {
+        return framerRecentInboundMessagesCapacity;
+    }
+
     public int replayPositionBufferSize()
     {
         return replayPositionBufferSize;
@@ -1993,6 +2449,41 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return timeIndexReplayFlushIntervalInNs;
     }
 
+    public int[] tagIndexTags()
+    {
+        return tagIndexTags;
+    }
+
+    public int tagIndexInitialCapacity()
+    {
+        return tagIndexInitialCapacity;
+    }
+
+    public SequenceNumberIndexDurability sequenceNumberIndexDurability()
+    {
+        return sequenceNumberIndexDurability;
+    }
+
+    public int sequenceNumberIndexGroupCommitMaxUpdates()
+    {
+        return sequenceNumberIndexGroupCommitMaxUpdates;
+    }
+
+    public List<RetentionPolicy> archiveRetentionPolicies()
+    {
+        return archiveRetentionPolicies;
+    }
+
+    public long archiveRetentionIntervalInMs()
+    {
+        return archiveRetentionIntervalInMs;
+    }
+
+    public int archiveRetentionMaxSegmentsPerPurge()
+    {
+        return archiveRetentionMaxSegmentsPerPurge;
+    }
+
     public boolean indexChecksumEnabled()
     {
         return indexChecksumEnabled;
@@ -2062,6 +2553,32 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
                 sessionBufferSize()));
         }
 
+        if (framerIdleParkTimeoutInMs() < 0 || framerIdleParkThresholdInMs() < 0)
+        {
+            throw new IllegalArgumentException(String.format(
+                "framerIdleParkTimeoutInMs(%d) and framerIdleParkThresholdInMs(%d) must not be negative",
+                framerIdleParkTimeoutInMs(),
+                framerIdleParkThresholdInMs()));
+        }
+
+        if (replayerRecentMessageCacheCapacity() < 0)
+        {
+            throw new IllegalArgumentException("replayerRecentMessageCacheCapacity must not be negative, but was: " +
+                replayerRecentMessageCacheCapacity());
+        }
+
+        if (framerRecentInboundMessagesCapacity() < 0)
+        {
+            throw new IllegalArgumentException("framerRecentInboundMessagesCapacity must not be negative, but was: " +
+                framerRecentInboundMessagesCapacity());
+        }
+
+        if (inboundMessageBatchSize() < 0)
+        {
+            throw new IllegalArgumentException(
+                "inboundMessageBatchSize must not be negative, but was: " + inboundMessageBatchSize());
+        }
+
         if (acceptsFixP() && !logAllMessages())
         {
             throw new IllegalArgumentException("FIXP acceptor is not supported without logging messages");
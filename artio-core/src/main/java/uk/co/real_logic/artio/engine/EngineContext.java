@@ -22,6 +22,7 @@ import io.aeron.UnavailableImageHandler;
 import io.aeron.archive.client.AeronArchive;
 import io.aeron.logbuffer.BufferClaim;
 import org.agrona.ErrorHandler;
+import org.agrona.LangUtil;
 import org.agrona.collections.Long2LongHashMap;
 import org.agrona.concurrent.*;
 import uk.co.real_logic.artio.FixCounters;
@@ -37,9 +38,14 @@ import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.protocol.Streams;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static uk.co.real_logic.artio.dictionary.generation.Exceptions.suppressingClose;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.NO_FRAMER_IDLE_PARK;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.NO_INBOUND_MESSAGE_BATCHING;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.NO_REPLAYER_RECENT_MESSAGE_CACHE;
 import static uk.co.real_logic.artio.engine.SessionInfo.UNK_SESSION;
 
 public class EngineContext implements AutoCloseable
@@ -70,10 +76,10 @@ public class EngineContext implements AutoCloseable
     private Streams inboundLibraryStreams;
     private Streams outboundLibraryStreams;
 
-    // Indexers are owned by the indexingAgent
+    // Indexers and the replayer are owned by the scheduler once launched
     private Indexer inboundIndexer;
     private Indexer outboundIndexer;
-    private Agent indexingAgent;
+    private Agent replayer;
     private ReplayQuery pruneInboundReplayQuery;
     private ReplayQuery outboundReplayQuery;
     private FramerContext framerContext;
@@ -97,9 +103,9 @@ public class EngineContext implements AutoCloseable
         this.aeronArchive = aeronArchive;
         this.recordingCoordinator = recordingCoordinator;
 
-        inboundEvictionHandler = new ReplayEvictionHandler(errorHandler);
-        outboundEvictionHandler = new ReplayEvictionHandler(errorHandler);
         replayerCommandQueue = new ReplayerCommandQueue(configuration.framerIdleStrategy());
+        inboundEvictionHandler = new ReplayEvictionHandler(errorHandler, replayerCommandQueue);
+        outboundEvictionHandler = new ReplayEvictionHandler(errorHandler, replayerCommandQueue);
         senderSequenceNumbers = new SenderSequenceNumbers(replayerCommandQueue);
 
         try
@@ -108,6 +114,8 @@ public class EngineContext implements AutoCloseable
             final Long2LongHashMap connectionIdToFixPSessionId = new Long2LongHashMap(UNK_SESSION);
             final FixPProtocolType fixPProtocolType = configuration.supportedFixPProtocolType();
             final boolean indexChecksumEnabled = configuration.indexChecksumEnabled();
+            final SequenceNumberIndexDurability durability = configuration.sequenceNumberIndexDurability();
+            final int groupCommitMaxUpdates = configuration.sequenceNumberIndexGroupCommitMaxUpdates();
             sentSequenceNumberIndex = new SequenceNumberIndexWriter(
                 sentSequenceNumberExtractor,
                 configuration.sentSequenceNumberBuffer(),
@@ -121,7 +129,11 @@ public class EngineContext implements AutoCloseable
                 connectionIdToFixPSessionId,
                 fixPProtocolType,
                 indexChecksumEnabled,
-                configuration.logOutboundMessages());
+                configuration.logOutboundMessages(),
+                durability,
+                groupCommitMaxUpdates,
+                fixCounters.sequenceIndexFlushLatency(configuration.outboundLibraryStream()),
+                fixCounters.sequenceIndexFlushBatchSize(configuration.outboundLibraryStream()));
             receivedSequenceNumberIndex = new SequenceNumberIndexWriter(
                 recvSequenceNumberExtractor,
                 configuration.receivedSequenceNumberBuffer(),
@@ -135,7 +147,11 @@ public class EngineContext implements AutoCloseable
                 connectionIdToFixPSessionId,
                 fixPProtocolType,
                 indexChecksumEnabled,
-                configuration.logInboundMessages());
+                configuration.logInboundMessages(),
+                durability,
+                groupCommitMaxUpdates,
+                fixCounters.sequenceIndexFlushLatency(configuration.inboundLibraryStream()),
+                fixCounters.sequenceIndexFlushBatchSize(configuration.inboundLibraryStream()));
 
             newStreams();
             newArchivingAgent();
@@ -200,7 +216,31 @@ public class EngineContext implements AutoCloseable
             reader,
             configuration.timeIndexReplayFlushIntervalInNs(),
             indexChecksumEnabled,
-            evictionHandler);
+            evictionHandler,
+            configuration.replayIndexLayout());
+    }
+
+    private TagIndex newTagIndex(
+        final String logFileDir,
+        final int streamId,
+        final RecordingIdLookup recordingIdLookup,
+        final boolean indexChecksumEnabled)
+    {
+        final int[] tags = configuration.tagIndexTags();
+        if (tags.length == 0)
+        {
+            return null;
+        }
+
+        return new TagIndex(
+            logFileDir,
+            streamId,
+            tags,
+            configuration.tagIndexInitialCapacity(),
+            TagIndex.positionBuffer(logFileDir, streamId, configuration.replayPositionBufferSize()),
+            errorHandler,
+            recordingIdLookup,
+            indexChecksumEnabled);
     }
 
     private ReplayQuery newReplayQuery(final IdleStrategy idleStrategy, final int streamId)
@@ -221,13 +261,18 @@ public class EngineContext implements AutoCloseable
             errorHandler,
             archiveReplayStream,
             configuration.replayIndexFileRecordCapacity(),
-            configuration.replayIndexSegmentRecordCapacity());
+            configuration.replayIndexSegmentRecordCapacity(),
+            configuration.archiveSegmentDir(),
+            configuration.replayIndexLayout());
     }
 
     private Replayer newReplayer(
         final ExclusivePublication replayPublication, final ReplayQuery replayQuery)
     {
         final EpochFractionFormat epochFractionFormat = configuration.sessionEpochFractionFormat();
+        final Subscription recentMessagesSubscription =
+            configuration.replayerRecentMessageCacheCapacity() == NO_REPLAYER_RECENT_MESSAGE_CACHE ?
+            null : outboundLibraryStreams.subscription("replayerRecentMessages");
         return new Replayer(
             replayQuery,
             replayPublication,
@@ -236,6 +281,7 @@ public class EngineContext implements AutoCloseable
             errorHandler,
             configuration.outboundMaxClaimAttempts(),
             inboundLibraryStreams.subscription("replayer"),
+            recentMessagesSubscription,
             configuration.agentNamePrefix(),
             configuration.gapfillOnReplayMessageTypes(),
             configuration.gapfillOnRetransmitILinkTemplateIds(),
@@ -257,6 +303,8 @@ public class EngineContext implements AutoCloseable
     {
         ReplayIndex inboundReplayIndex = null;
         ReplayIndex outboundReplayIndex = null;
+        TagIndex inboundTagIndex = null;
+        TagIndex outboundTagIndex = null;
 
         try
         {
@@ -277,6 +325,16 @@ public class EngineContext implements AutoCloseable
                     indexChecksumEnabled,
                     inboundEvictionHandler);
                 inboundIndices.add(inboundReplayIndex);
+
+                inboundTagIndex = newTagIndex(
+                    logFileDir,
+                    configuration.inboundLibraryStream(),
+                    recordingCoordinator.indexerInboundRecordingIdLookup(),
+                    indexChecksumEnabled);
+                if (inboundTagIndex != null)
+                {
+                    inboundIndices.add(inboundTagIndex);
+                }
             }
             inboundIndices.add(receivedSequenceNumberIndex);
 
@@ -300,6 +358,16 @@ public class EngineContext implements AutoCloseable
                     indexChecksumEnabled,
                     outboundEvictionHandler);
                 outboundIndices.add(outboundReplayIndex);
+
+                outboundTagIndex = newTagIndex(
+                    logFileDir,
+                    configuration.outboundLibraryStream(),
+                    recordingCoordinator.indexerOutboundRecordingIdLookup(),
+                    indexChecksumEnabled);
+                if (outboundTagIndex != null)
+                {
+                    outboundIndices.add(outboundTagIndex);
+                }
             }
             outboundIndices.add(sentSequenceNumberIndex);
 
@@ -317,6 +385,8 @@ public class EngineContext implements AutoCloseable
         {
             suppressingClose(inboundReplayIndex, e);
             suppressingClose(outboundReplayIndex, e);
+            suppressingClose(inboundTagIndex, e);
+            suppressingClose(outboundTagIndex, e);
             throw e;
         }
     }
@@ -330,7 +400,6 @@ public class EngineContext implements AutoCloseable
     {
         newIndexers();
 
-        final Agent replayer;
         if (configuration.logOutboundMessages())
         {
             outboundReplayQuery = newReplayQuery(
@@ -365,16 +434,75 @@ public class EngineContext implements AutoCloseable
                 clock);
         }
 
-        final List<Agent> agents = new ArrayList<>();
-        agents.add(inboundIndexer);
-        agents.add(outboundIndexer);
-        agents.add(replayer);
+        if (configuration.framerIdleParkTimeoutInMs() != NO_FRAMER_IDLE_PARK)
+        {
+            replayer = new FramerWakingAgent(replayer, () -> framerContext.wakeUpFramer());
+        }
 
-        indexingAgent = new CompositeAgent(agents);
+        if (!configuration.archiveRetentionPolicies().isEmpty())
+        {
+            replayer = new CompositeAgent(replayer, newArchiveRetentionAgent());
+        }
+    }
+
+    private ArchiveRetentionAgent newArchiveRetentionAgent()
+    {
+        // Shares the replay queries used by the replayer thread for pruning
+        final List<ReplayQuery> replayQueries = new ArrayList<>();
+        if (outboundReplayQuery != null)
+        {
+            replayQueries.add(outboundReplayQuery);
+        }
+
+        final ReplayQuery inboundReplayQuery = pruneInboundReplayQuery();
+        if (inboundReplayQuery != null)
+        {
+            replayQueries.add(inboundReplayQuery);
+        }
+
+        final int[] timeIndexStreamIds = new int[2];
+        int timeIndexStreamCount = 0;
+        if (configuration.logInboundMessages())
+        {
+            timeIndexStreamIds[timeIndexStreamCount++] = configuration.inboundLibraryStream();
+        }
+        if (configuration.logOutboundMessages())
+        {
+            timeIndexStreamIds[timeIndexStreamCount++] = configuration.outboundLibraryStream();
+        }
+
+        return new ArchiveRetentionAgent(
+            configuration.archiveRetentionPolicies(),
+            replayQueries,
+            configuration.logFileDir(),
+            Arrays.copyOf(timeIndexStreamIds, timeIndexStreamCount),
+            aeronArchive,
+            clock,
+            errorHandler,
+            configuration.archiveRetentionIntervalInMs(),
+            configuration.archiveRetentionMaxSegmentsPerPurge(),
+            configuration.agentNamePrefix());
+    }
+
+    private ReplayQuery pruneInboundReplayQuery()
+    {
+        if (pruneInboundReplayQuery == null)
+        {
+            pruneInboundReplayQuery = inboundReplayQuery(true);
+        }
+
+        return pruneInboundReplayQuery;
     }
 
     public void catchupIndices()
     {
+        if (configuration.logInboundMessages() && configuration.logOutboundMessages() &&
+            canCatchupIndicesInParallel())
+        {
+            catchupIndicesInParallel();
+            return;
+        }
+
         // when inbound logging disabled
         if (configuration.logInboundMessages())
         {
@@ -388,6 +516,71 @@ public class EngineContext implements AutoCloseable
         }
     }
 
+    private boolean canCatchupIndicesInParallel()
+    {
+        // Both the conductor agent invoker and a NoOpLock archive client can only be used from a single thread.
+        return configuration.parallelIndexCatchup() &&
+            aeron.conductorAgentInvoker() == null &&
+            !(aeronArchive.context().lock() instanceof NoOpLock);
+    }
+
+    private void catchupIndicesInParallel()
+    {
+        final AtomicReference<Throwable> inboundError = new AtomicReference<>();
+        final Thread inboundThread = new Thread(
+            () -> inboundIndexer.catchIndexUp(aeronArchive, errorHandler),
+            configuration.agentNamePrefix() + "inbound-index-catchup");
+        inboundThread.setUncaughtExceptionHandler((thread, throwable) -> inboundError.set(throwable));
+        inboundThread.start();
+
+        Throwable error = null;
+        try
+        {
+            outboundIndexer.catchIndexUp(aeronArchive, errorHandler);
+        }
+        catch (final Throwable throwable)
+        {
+            error = throwable;
+        }
+
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                inboundThread.join();
+                break;
+            }
+            catch (final InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        final Throwable inboundThrowable = inboundError.get();
+        if (inboundThrowable != null)
+        {
+            if (error == null)
+            {
+                error = inboundThrowable;
+            }
+            else
+            {
+                error.addSuppressed(inboundThrowable);
+            }
+        }
+
+        if (error != null)
+        {
+            LangUtil.rethrowUnchecked(error);
+        }
+    }
+
     public Streams outboundLibraryStreams()
     {
         return outboundLibraryStreams;
@@ -428,8 +621,16 @@ public class EngineContext implements AutoCloseable
 
     public GatewayPublication inboundPublication()
     {
-        return inboundLibraryStreams.gatewayPublication(
+        final GatewayPublication inboundPublication = inboundLibraryStreams.gatewayPublication(
             configuration.framerIdleStrategy(), inboundLibraryStreams.dataPublication("inboundPublication"));
+
+        final int inboundMessageBatchSize = configuration.inboundMessageBatchSize();
+        if (inboundMessageBatchSize != NO_INBOUND_MESSAGE_BATCHING)
+        {
+            inboundPublication.enableMessageBatching(inboundMessageBatchSize);
+        }
+
+        return inboundPublication;
     }
 
     public CompletionPosition inboundCompletionPosition()
@@ -448,9 +649,19 @@ public class EngineContext implements AutoCloseable
         outboundLibraryCompletionPosition.completeDuringStartup();
     }
 
-    Agent indexingAgent()
+    Agent inboundIndexer()
     {
-        return indexingAgent;
+        return inboundIndexer;
+    }
+
+    Agent outboundIndexer()
+    {
+        return outboundIndexer;
+    }
+
+    Agent replayer()
+    {
+        return replayer;
     }
 
     public SenderSequenceNumbers senderSequenceNumbers()
@@ -473,16 +684,11 @@ public class EngineContext implements AutoCloseable
 
     public Reply<Long2LongHashMap> pruneArchive(final Long2LongHashMap minimumPrunePositions)
     {
-        if (pruneInboundReplayQuery == null)
-        {
-            pruneInboundReplayQuery = inboundReplayQuery(true);
-        }
-
         final PruneOperation operation = new PruneOperation(
             pruneOperationFormatters,
             minimumPrunePositions,
             outboundReplayQuery,
-            pruneInboundReplayQuery,
+            pruneInboundReplayQuery(),
             aeronArchive,
             replayerCommandQueue,
             recordingCoordinator);
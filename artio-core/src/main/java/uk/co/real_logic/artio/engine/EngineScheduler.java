@@ -19,6 +19,7 @@ import io.aeron.Aeron;
 import org.agrona.ErrorHandler;
 import org.agrona.concurrent.Agent;
 import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.CompositeAgent;
 
 /**
  * Interface for determining how an Engine's Agents are allocated to threads.
@@ -45,6 +46,43 @@ public interface EngineScheduler extends AutoCloseable
         Agent conductorAgent,
         RecordingCoordinator recordingCoordinator);
 
+    /**
+     * Invoked by the FIX Engine to start the threads, with the archiving agents supplied individually so that they
+     * can be placed on different threads. By default they are combined into a single indexing agent and passed to
+     * {@link #launch(EngineConfiguration, ErrorHandler, Agent, Agent, Agent, Agent, RecordingCoordinator)}.
+     *
+     * Should only return once they are started.
+     * @param configuration the engine's configuration object.
+     * @param errorHandler the ErrorHandler used by the engine.
+     * @param framer the framer agent to schedule.
+     * @param inboundIndexer the indexer of the inbound stream to schedule.
+     * @param outboundIndexer the indexer of the outbound stream to schedule.
+     * @param replayer the replayer, or gap filler, agent to schedule.
+     * @param monitoringAgent the monitoring agent to schedule.
+     * @param conductorAgent if aeron has useConductorInvoker enable it
+     * @param recordingCoordinator must be shut down after the Framer but before the conductorAgent.
+     */
+    default void launch(
+        final EngineConfiguration configuration,
+        final ErrorHandler errorHandler,
+        final Agent framer,
+        final Agent inboundIndexer,
+        final Agent outboundIndexer,
+        final Agent replayer,
+        final Agent monitoringAgent,
+        final Agent conductorAgent,
+        final RecordingCoordinator recordingCoordinator)
+    {
+        launch(
+            configuration,
+            errorHandler,
+            framer,
+            new CompositeAgent(inboundIndexer, outboundIndexer, replayer),
+            monitoringAgent,
+            conductorAgent,
+            recordingCoordinator);
+    }
+
     /**
      * Invoked by the FIX Engine to stop the threads. Should only return once they are completed stopped.
      */
@@ -398,7 +398,9 @@ public final class FixEngine extends GatewayProcess
             configuration,
             errorHandler,
             framerContext.framer(),
-            engineContext.indexingAgent(),
+            engineContext.inboundIndexer(),
+            engineContext.outboundIndexer(),
+            engineContext.replayer(),
             monitoringCompositeAgent,
             conductorAgent(),
             recordingCoordinator);
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.concurrent.Agent;
+
+/**
+ * Wakes up the Framer, if it's parked waiting for TCP data, whenever the delegate agent has done some work. Replayers
+ * publish the messages that the Framer sends over Aeron, which can't end a park on its own.
+ */
+final class FramerWakingAgent implements Agent
+{
+    private final Agent delegate;
+    private final Runnable wakeUpFramer;
+
+    FramerWakingAgent(final Agent delegate, final Runnable wakeUpFramer)
+    {
+        this.delegate = delegate;
+        this.wakeUpFramer = wakeUpFramer;
+    }
+
+    public void onStart()
+    {
+        delegate.onStart();
+    }
+
+    public int doWork() throws Exception
+    {
+        final int workCount = delegate.doWork();
+        if (workCount > 0)
+        {
+            wakeUpFramer.run();
+        }
+        return workCount;
+    }
+
+    public void onClose()
+    {
+        delegate.onClose();
+    }
+
+    public String roleName()
+    {
+        return delegate.roleName();
+    }
+}
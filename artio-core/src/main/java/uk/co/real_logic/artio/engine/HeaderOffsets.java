@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.DirectBuffer;
+import uk.co.real_logic.artio.dictionary.SessionConstants;
+import uk.co.real_logic.artio.util.AsciiSwar;
+
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+import static uk.co.real_logic.artio.util.MutableAsciiBuffer.SEPARATOR;
+
+/**
+ * Packs the offsets of the header fields that {@link PossDupEnabler} rewrites when a message is resent into an int,
+ * so that they can be found once when a message is indexed rather than by parsing it on every replay.
+ * <p>
+ * Offsets are relative to the start of the FIX message and point at the value of the field. The layout is:
+ * <ul>
+ *     <li>bits 0-12: the offset of SendingTime, always non-zero.</li>
+ *     <li>bits 13-17: the length of SendingTime.</li>
+ *     <li>bit 18: set if OrigSendingTime is present.</li>
+ *     <li>bits 19-31: the offset of PossDupFlag, or zero if it's not present.</li>
+ * </ul>
+ * Messages whose header fields don't fit into this are not given offsets, nor are messages indexed before offsets
+ * were recorded, they are both represented by {@link #NO_HEADER_OFFSETS}.
+ */
+public final class HeaderOffsets
+{
+    public static final int NO_HEADER_OFFSETS = 0;
+
+    private static final int OFFSET_BITS = 13;
+    private static final int MAX_OFFSET = (1 << OFFSET_BITS) - 1;
+    private static final int SENDING_TIME_LENGTH_SHIFT = OFFSET_BITS;
+    private static final int SENDING_TIME_LENGTH_BITS = 5;
+    private static final int MAX_SENDING_TIME_LENGTH = (1 << SENDING_TIME_LENGTH_BITS) - 1;
+    private static final int ORIG_SENDING_TIME_SHIFT = SENDING_TIME_LENGTH_SHIFT + SENDING_TIME_LENGTH_BITS;
+    private static final int POSS_DUP_SHIFT = ORIG_SENDING_TIME_SHIFT + 1;
+
+    private static final byte EQUALS = '=';
+    private static final int NO_OFFSET = 0;
+
+    private HeaderOffsets()
+    {
+    }
+
+    /**
+     * Scan a FIX message for the offsets of its SendingTime, PossDupFlag and OrigSendingTime fields.
+     *
+     * @param buffer the buffer containing the message.
+     * @param messageOffset the offset of the start of the message.
+     * @param messageLength the length of the message.
+     * @return the packed offsets or {@link #NO_HEADER_OFFSETS} if they couldn't be found.
+     */
+    public static int find(final DirectBuffer buffer, final int messageOffset, final int messageLength)
+    {
+        final int messageEnd = messageOffset + messageLength;
+        int sendingTimeOffset = NO_OFFSET;
+        int sendingTimeLength = 0;
+        int possDupOffset = NO_OFFSET;
+        boolean hasOrigSendingTime = false;
+
+        int fieldOffset = messageOffset;
+        while (fieldOffset < messageEnd)
+        {
+            final int equalsIndex = AsciiSwar.indexOf(buffer, fieldOffset, messageEnd, EQUALS);
+            if (equalsIndex == UNKNOWN_INDEX)
+            {
+                break;
+            }
+
+            final int valueOffset = equalsIndex + 1;
+            final int separatorIndex = AsciiSwar.indexOf(buffer, valueOffset, messageEnd, SEPARATOR);
+            if (separatorIndex == UNKNOWN_INDEX)
+            {
+                break;
+            }
+
+            switch (tag(buffer, fieldOffset, equalsIndex))
+            {
+                case SessionConstants.SENDING_TIME:
+                    if (sendingTimeOffset == NO_OFFSET)
+                    {
+                        sendingTimeOffset = valueOffset - messageOffset;
+                        sendingTimeLength = separatorIndex - valueOffset;
+                    }
+                    break;
+
+                case SessionConstants.POSS_DUP_FLAG:
+                    if (possDupOffset == NO_OFFSET)
+                    {
+                        possDupOffset = valueOffset - messageOffset;
+                    }
+                    break;
+
+                case SessionConstants.ORIG_SENDING_TIME:
+                    hasOrigSendingTime = true;
+                    break;
+            }
+
+            if (sendingTimeOffset != NO_OFFSET && possDupOffset != NO_OFFSET && hasOrigSendingTime)
+            {
+                break;
+            }
+
+            fieldOffset = separatorIndex + 1;
+        }
+
+        if (sendingTimeOffset == NO_OFFSET || sendingTimeOffset > MAX_OFFSET ||
+            sendingTimeLength == 0 || sendingTimeLength > MAX_SENDING_TIME_LENGTH || possDupOffset > MAX_OFFSET)
+        {
+            return NO_HEADER_OFFSETS;
+        }
+
+        return sendingTimeOffset |
+            (sendingTimeLength << SENDING_TIME_LENGTH_SHIFT) |
+            ((hasOrigSendingTime ? 1 : 0) << ORIG_SENDING_TIME_SHIFT) |
+            (possDupOffset << POSS_DUP_SHIFT);
+    }
+
+    static int sendingTimeOffset(final int headerOffsets)
+    {
+        return headerOffsets & MAX_OFFSET;
+    }
+
+    static int sendingTimeLength(final int headerOffsets)
+    {
+        return (headerOffsets >>> SENDING_TIME_LENGTH_SHIFT) & MAX_SENDING_TIME_LENGTH;
+    }
+
+    static boolean hasOrigSendingTime(final int headerOffsets)
+    {
+        return ((headerOffsets >>> ORIG_SENDING_TIME_SHIFT) & 1) == 1;
+    }
+
+    static boolean hasPossDup(final int headerOffsets)
+    {
+        return possDupOffset(headerOffsets) != NO_OFFSET;
+    }
+
+    static int possDupOffset(final int headerOffsets)
+    {
+        return (headerOffsets >>> POSS_DUP_SHIFT) & MAX_OFFSET;
+    }
+
+    private static int tag(final DirectBuffer buffer, final int offset, final int end)
+    {
+        int tag = 0;
+        for (int i = offset; i < end; i++)
+        {
+            final int digit = buffer.getByte(i) - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return 0;
+            }
+            tag = tag * 10 + digit;
+        }
+        return tag;
+    }
+}
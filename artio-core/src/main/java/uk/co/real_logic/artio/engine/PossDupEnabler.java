@@ -41,6 +41,7 @@ import static io.aeron.protocol.DataHeaderFlyweight.END_FLAG;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static uk.co.real_logic.artio.LogTag.FIX_MESSAGE;
+import static uk.co.real_logic.artio.engine.HeaderOffsets.NO_HEADER_OFFSETS;
 import static uk.co.real_logic.artio.engine.PossDupFinder.NO_ENTRY;
 import static uk.co.real_logic.artio.engine.framer.CatchupReplayer.FRAME_LENGTH;
 import static uk.co.real_logic.artio.util.AsciiBuffer.SEPARATOR_LENGTH;
@@ -106,9 +107,43 @@ public class PossDupEnabler
         final int metaDataAdjustment,
         final long messageType)
     {
-        parser.onMessage(srcBuffer, messageOffset, messageLength);
+        return enablePossDupFlag(
+            srcBuffer, messageOffset, messageLength, srcOffset, srcLength, metaDataAdjustment, messageType,
+            NO_HEADER_OFFSETS);
+    }
+
+    /**
+     * Enable the PossDupFlag of a message that is being resent, using the offsets of its header fields if they
+     * were recorded when it was indexed and falling back to parsing the message otherwise.
+     *
+     * @param srcBuffer the buffer containing the framed message.
+     * @param messageOffset the offset of the FIX message.
+     * @param messageLength the length of the FIX message.
+     * @param srcOffset the offset of the framed message.
+     * @param srcLength the length of the framed message.
+     * @param metaDataAdjustment the length of the meta data within the frame.
+     * @param messageType the packed message type of the message.
+     * @param headerOffsets offsets from {@link HeaderOffsets#find(DirectBuffer, int, int)} or
+     *                      {@link HeaderOffsets#NO_HEADER_OFFSETS}.
+     * @return {@link Action#ABORT} if back pressured, {@link Action#CONTINUE} otherwise.
+     */
+    public Action enablePossDupFlag(
+        final DirectBuffer srcBuffer,
+        final int messageOffset,
+        final int messageLength,
+        final int srcOffset,
+        final int srcLength,
+        final int metaDataAdjustment,
+        final long messageType,
+        final int headerOffsets)
+    {
+        if (headerOffsets == NO_HEADER_OFFSETS ||
+            !possDupFinder.onHeaderOffsets(srcBuffer, messageOffset, messageLength, headerOffsets))
+        {
+            parser.onMessage(srcBuffer, messageOffset, messageLength);
+        }
         final boolean missingPossDup = possDupFinder.possDupOffset() == NO_ENTRY;
-        final boolean missingOrigSendingTime = possDupFinder.origSendingTimeOffset() == NO_ENTRY;
+        final boolean missingOrigSendingTime = !possDupFinder.hasOrigSendingTime();
         if (missingPossDup || missingOrigSendingTime)
         {
             final int lengthOfOldBodyLength = possDupFinder.lengthOfBodyLength();
@@ -15,17 +15,30 @@
  */
 package uk.co.real_logic.artio.engine;
 
+import org.agrona.DirectBuffer;
 import uk.co.real_logic.artio.ValidationError;
 import uk.co.real_logic.artio.dictionary.SessionConstants;
 import uk.co.real_logic.artio.fields.AsciiFieldFlyweight;
 import uk.co.real_logic.artio.otf.MessageControl;
 import uk.co.real_logic.artio.otf.OtfMessageAcceptor;
 import uk.co.real_logic.artio.util.AsciiBuffer;
+import uk.co.real_logic.artio.util.AsciiSwar;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+import static uk.co.real_logic.artio.util.MutableAsciiBuffer.SEPARATOR;
 
 class PossDupFinder implements OtfMessageAcceptor
 {
     public static final int NO_ENTRY = -1;
 
+    private static final byte[] BODY_LENGTH_PREFIX = "\0019=".getBytes(US_ASCII);
+    private static final byte[] SENDING_TIME_PREFIX = "\00152=".getBytes(US_ASCII);
+    private static final byte[] POSS_DUP_PREFIX = "\00143=".getBytes(US_ASCII);
+    private static final byte[] CHECKSUM_PREFIX = "\00110=".getBytes(US_ASCII);
+    // 3 digits and a separator
+    private static final int CHECKSUM_VALUE_FIELD_LENGTH = 4;
+
     private int possDupOffset;
     private int sendingTimeOffset;
     private int sendingTimeLength;
@@ -34,6 +47,7 @@ class PossDupFinder implements OtfMessageAcceptor
     private int lengthOfBodyLength;
     private int origSendingTimeOffset;
     private int origSendingTimeLength;
+    private boolean hasOrigSendingTime;
     private int checkSumOffset;
 
     public MessageControl onNext()
@@ -43,6 +57,7 @@ class PossDupFinder implements OtfMessageAcceptor
         sendingTimeLength = NO_ENTRY;
         origSendingTimeOffset = NO_ENTRY;
         origSendingTimeLength = NO_ENTRY;
+        hasOrigSendingTime = false;
         bodyLength = NO_ENTRY;
         bodyLengthOffset = NO_ENTRY;
         lengthOfBodyLength = NO_ENTRY;
@@ -66,6 +81,7 @@ class PossDupFinder implements OtfMessageAcceptor
             case SessionConstants.ORIG_SENDING_TIME:
                 origSendingTimeOffset = offset;
                 origSendingTimeLength = length;
+                hasOrigSendingTime = true;
                 break;
 
             case SessionConstants.BODY_LENGTH:
@@ -82,6 +98,105 @@ class PossDupFinder implements OtfMessageAcceptor
         return MessageControl.CONTINUE;
     }
 
+    /**
+     * Find the fields from offsets that were recorded when the message was indexed, instead of parsing it. The
+     * fields are checked against the message and this fails if they don't match.
+     *
+     * @param buffer the buffer containing the message.
+     * @param messageOffset the offset of the start of the message.
+     * @param messageLength the length of the message.
+     * @param headerOffsets the offsets recorded by {@link HeaderOffsets#find(DirectBuffer, int, int)}.
+     * @return true if the fields were found, false if the message needs to be parsed.
+     */
+    boolean onHeaderOffsets(
+        final DirectBuffer buffer, final int messageOffset, final int messageLength, final int headerOffsets)
+    {
+        onNext();
+
+        final int messageEnd = messageOffset + messageLength;
+        final int beginStringEnd = AsciiSwar.indexOf(buffer, messageOffset, messageEnd, SEPARATOR);
+        if (beginStringEnd == UNKNOWN_INDEX)
+        {
+            return false;
+        }
+
+        final int bodyLengthOffset = beginStringEnd + BODY_LENGTH_PREFIX.length;
+        final int bodyLengthEnd = AsciiSwar.indexOf(buffer, bodyLengthOffset, messageEnd, SEPARATOR);
+        if (bodyLengthEnd == UNKNOWN_INDEX ||
+            !hasPrefix(buffer, messageOffset, bodyLengthOffset, BODY_LENGTH_PREFIX))
+        {
+            return false;
+        }
+
+        final int bodyLength = natural(buffer, bodyLengthOffset, bodyLengthEnd);
+        final int sendingTimeOffset = messageOffset + HeaderOffsets.sendingTimeOffset(headerOffsets);
+        final int sendingTimeLength = HeaderOffsets.sendingTimeLength(headerOffsets);
+        final int possDupOffset = HeaderOffsets.hasPossDup(headerOffsets) ?
+            messageOffset + HeaderOffsets.possDupOffset(headerOffsets) : NO_ENTRY;
+        final int checkSumOffset = messageEnd - CHECKSUM_VALUE_FIELD_LENGTH;
+
+        if (bodyLength == NO_ENTRY ||
+            sendingTimeOffset + sendingTimeLength >= messageEnd ||
+            !hasPrefix(buffer, messageOffset, sendingTimeOffset, SENDING_TIME_PREFIX) ||
+            buffer.getByte(sendingTimeOffset + sendingTimeLength) != SEPARATOR ||
+            (possDupOffset != NO_ENTRY &&
+            (possDupOffset >= messageEnd || !hasPrefix(buffer, messageOffset, possDupOffset, POSS_DUP_PREFIX))) ||
+            !hasPrefix(buffer, messageOffset, checkSumOffset, CHECKSUM_PREFIX) ||
+            buffer.getByte(messageEnd - 1) != SEPARATOR)
+        {
+            return false;
+        }
+
+        this.possDupOffset = possDupOffset;
+        this.sendingTimeOffset = sendingTimeOffset;
+        this.sendingTimeLength = sendingTimeLength;
+        this.hasOrigSendingTime = HeaderOffsets.hasOrigSendingTime(headerOffsets);
+        this.bodyLength = bodyLength;
+        this.bodyLengthOffset = bodyLengthOffset;
+        this.lengthOfBodyLength = bodyLengthEnd - bodyLengthOffset;
+        this.checkSumOffset = checkSumOffset;
+        return true;
+    }
+
+    private static boolean hasPrefix(
+        final DirectBuffer buffer, final int messageOffset, final int valueOffset, final byte[] prefix)
+    {
+        final int prefixOffset = valueOffset - prefix.length;
+        if (prefixOffset < messageOffset)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++)
+        {
+            if (buffer.getByte(prefixOffset + i) != prefix[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int natural(final DirectBuffer buffer, final int offset, final int end)
+    {
+        if (offset == end)
+        {
+            return NO_ENTRY;
+        }
+
+        int value = 0;
+        for (int i = offset; i < end; i++)
+        {
+            final int digit = buffer.getByte(i) - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return NO_ENTRY;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
     public MessageControl onGroupHeader(final int tag, final int numInGroup)
     {
         return MessageControl.CONTINUE;
@@ -146,6 +261,11 @@ class PossDupFinder implements OtfMessageAcceptor
         return origSendingTimeLength;
     }
 
+    boolean hasOrigSendingTime()
+    {
+        return hasOrigSendingTime;
+    }
+
     int bodyLength()
     {
         return bodyLength;
@@ -16,13 +16,14 @@
 package uk.co.real_logic.artio.engine;
 
 import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.ManyToOneConcurrentArrayQueue;
 import org.agrona.concurrent.OneToOneConcurrentArrayQueue;
 
 import java.util.function.Consumer;
 
 public class ReplayerCommandQueue
 {
-    private static final int CAPACITY = 64;
+    public static final int CAPACITY = 64;
 
     // Framer state
     private final IdleStrategy framerIdleStrategy;
@@ -30,6 +31,10 @@ public class ReplayerCommandQueue
     // Written on Framer, Read on Indexer
     private final OneToOneConcurrentArrayQueue<ReplayerCommand> queue
         = new OneToOneConcurrentArrayQueue<>(CAPACITY);
+    // Written on Indexers, Read on Replayer. An Indexer never waits on the Replayer, which may be running on the same
+    // thread, so Indexers pool their commands and never have more than the capacity outstanding.
+    private final ManyToOneConcurrentArrayQueue<ReplayerCommand> indexerQueue =
+        new ManyToOneConcurrentArrayQueue<>(CAPACITY);
     private final Consumer<ReplayerCommand> onReplayerCommand = this::onReplayerCommand;
 
     public ReplayerCommandQueue(final IdleStrategy framerIdleStrategy)
@@ -51,9 +56,14 @@ public class ReplayerCommandQueue
         return queue.offer(command);
     }
 
+    public boolean offerFromIndexer(final ReplayerCommand command)
+    {
+        return indexerQueue.offer(command);
+    }
+
     public int poll()
     {
-        return queue.drain(onReplayerCommand, CAPACITY);
+        return queue.drain(onReplayerCommand, CAPACITY) + indexerQueue.drain(onReplayerCommand, CAPACITY);
     }
 
     private void onReplayerCommand(final ReplayerCommand command)
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import io.aeron.Aeron;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.CompositeAgent;
+import org.agrona.concurrent.IdleStrategy;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory;
+
+import static org.agrona.concurrent.AgentRunner.startOnThread;
+import static uk.co.real_logic.artio.CommonConfiguration.backoffIdleStrategy;
+
+/**
+ * A scheduler that runs the framer, the inbound indexer, the outbound indexer, the replayer and the monitoring agent
+ * on their own threads. Each thread can be given its own idle strategy and optionally pinned to a CPU core through a
+ * {@link CpuAffinity} hook. This stops replay storms from delaying indexing and allows the framer's core to be
+ * isolated.
+ *
+ * By default the inbound and outbound indexers share a thread, using the {@link AgentRole#INBOUND_INDEXER} settings,
+ * as they share connection state when indexing FIXP sessions. See {@link #separateIndexerThreads(boolean)}.
+ *
+ * NB: Ensure that a new instance is created for each engine.
+ */
+public class ThreadPerAgentEngineScheduler implements EngineScheduler
+{
+    public static final int NO_CPU_AFFINITY = -1;
+
+    /**
+     * The agents that this scheduler places onto threads.
+     */
+    public enum AgentRole
+    {
+        FRAMER,
+        INBOUND_INDEXER,
+        OUTBOUND_INDEXER,
+        REPLAYER,
+        MONITORING
+    }
+
+    /**
+     * Hook used to pin an agent's thread to a CPU core, for example using a thread affinity library.
+     */
+    @FunctionalInterface
+    public interface CpuAffinity
+    {
+        /**
+         * Invoked on an agent's thread before the agent starts running.
+         *
+         * @param role the role of the agent that will run on the current thread.
+         * @param cpuCore the core that was configured for the role.
+         */
+        void pinCurrentThread(AgentRole role, int cpuCore);
+    }
+
+    private static final AgentRole[] ROLES = AgentRole.values();
+
+    private final IdleStrategy[] idleStrategies = new IdleStrategy[ROLES.length];
+    private final int[] cpuCores = new int[ROLES.length];
+    private CpuAffinity cpuAffinity;
+    private boolean separateIndexerThreads = false;
+
+    private AgentRunner framerRunner;
+    private AgentRunner inboundIndexerRunner;
+    private AgentRunner outboundIndexerRunner;
+    private AgentRunner replayerRunner;
+    private AgentRunner monitoringRunner;
+    private RecordingCoordinator recordingCoordinator;
+
+    public ThreadPerAgentEngineScheduler()
+    {
+        Arrays.fill(cpuCores, NO_CPU_AFFINITY);
+    }
+
+    /**
+     * Sets the idle strategy for an agent's thread. Idle strategies can hold state so each thread should be given
+     * its own instance.
+     *
+     * If not set then the framer uses {@link EngineConfiguration#framerIdleStrategy()}, the replayer uses
+     * {@link EngineConfiguration#archiverIdleStrategy()}, the monitoring agent uses
+     * {@link EngineConfiguration#monitoringThreadIdleStrategy()} and each indexer uses a new backoff idle strategy.
+     *
+     * @param role the agent whose thread the idle strategy is for.
+     * @param idleStrategy the idle strategy to use.
+     * @return this
+     */
+    public ThreadPerAgentEngineScheduler idleStrategy(final AgentRole role, final IdleStrategy idleStrategy)
+    {
+        idleStrategies[role.ordinal()] = idleStrategy;
+        return this;
+    }
+
+    /**
+     * Sets the CPU core that an agent's thread should be pinned to. Requires a {@link CpuAffinity} hook to be set.
+     *
+     * @param role the agent whose thread should be pinned.
+     * @param cpuCore the core to pin to, or {@link #NO_CPU_AFFINITY} to not pin the thread.
+     * @return this
+     */
+    public ThreadPerAgentEngineScheduler cpuCore(final AgentRole role, final int cpuCore)
+    {
+        cpuCores[role.ordinal()] = cpuCore;
+        return this;
+    }
+
+    /**
+     * Sets the hook that pins threads to their configured CPU cores.
+     *
+     * @param cpuAffinity the hook that pins threads to their configured CPU cores.
+     * @return this
+     */
+    public ThreadPerAgentEngineScheduler cpuAffinity(final CpuAffinity cpuAffinity)
+    {
+        this.cpuAffinity = cpuAffinity;
+        return this;
+    }
+
+    /**
+     * Runs the inbound and outbound indexers on separate threads rather than sharing one.
+     *
+     * This must not be enabled when using FIXP sessions, such as iLink3 or binary entrypoint, as the inbound and
+     * outbound indexers share a map of connections to FIXP sessions that isn't safe to access from multiple threads.
+     *
+     * @param separateIndexerThreads true to run the inbound and outbound indexers on separate threads.
+     * @return this
+     */
+    public ThreadPerAgentEngineScheduler separateIndexerThreads(final boolean separateIndexerThreads)
+    {
+        this.separateIndexerThreads = separateIndexerThreads;
+        return this;
+    }
+
+    public void launch(
+        final EngineConfiguration configuration,
+        final ErrorHandler errorHandler,
+        final Agent framer,
+        final Agent indexingAgent,
+        final Agent monitoringAgent,
+        final Agent conductorAgent,
+        final RecordingCoordinator recordingCoordinator)
+    {
+        // The archiving agents have already been combined, so run them all on the replayer's thread.
+        launch(
+            configuration,
+            errorHandler,
+            framer,
+            null,
+            null,
+            indexingAgent,
+            monitoringAgent,
+            conductorAgent,
+            recordingCoordinator);
+    }
+
+    public void launch(
+        final EngineConfiguration configuration,
+        final ErrorHandler errorHandler,
+        final Agent framer,
+        final Agent inboundIndexer,
+        final Agent outboundIndexer,
+        final Agent replayer,
+        final Agent monitoringAgent,
+        final Agent conductorAgent,
+        final RecordingCoordinator recordingCoordinator)
+    {
+        this.recordingCoordinator = recordingCoordinator;
+        if (framerRunner != null)
+        {
+            EngineScheduler.fail();
+        }
+
+        validateCpuAffinity();
+
+        framerRunner = newRunner(
+            AgentRole.FRAMER, configuration.framerIdleStrategy(), errorHandler, framer);
+        replayerRunner = newRunner(
+            AgentRole.REPLAYER, configuration.archiverIdleStrategy(), errorHandler, replayer);
+
+        if (inboundIndexer != null && outboundIndexer != null && !separateIndexerThreads)
+        {
+            inboundIndexerRunner = newRunner(
+                AgentRole.INBOUND_INDEXER,
+                backoffIdleStrategy(),
+                errorHandler,
+                new CompositeAgent(inboundIndexer, outboundIndexer));
+        }
+        else
+        {
+            inboundIndexerRunner = newRunner(
+                AgentRole.INBOUND_INDEXER, backoffIdleStrategy(), errorHandler, inboundIndexer);
+            outboundIndexerRunner = newRunner(
+                AgentRole.OUTBOUND_INDEXER, backoffIdleStrategy(), errorHandler, outboundIndexer);
+        }
+
+        monitoringRunner = newRunner(
+            AgentRole.MONITORING, configuration.monitoringThreadIdleStrategy(), errorHandler, monitoringAgent);
+
+        final ThreadFactory threadFactory = configuration.threadFactory();
+        start(AgentRole.FRAMER, framerRunner, threadFactory, errorHandler);
+        start(AgentRole.INBOUND_INDEXER, inboundIndexerRunner, threadFactory, errorHandler);
+        start(AgentRole.OUTBOUND_INDEXER, outboundIndexerRunner, threadFactory, errorHandler);
+        start(AgentRole.REPLAYER, replayerRunner, threadFactory, errorHandler);
+        start(AgentRole.MONITORING, monitoringRunner, threadFactory, errorHandler);
+    }
+
+    private void validateCpuAffinity()
+    {
+        if (cpuAffinity == null)
+        {
+            for (final AgentRole role : ROLES)
+            {
+                if (cpuCores[role.ordinal()] != NO_CPU_AFFINITY)
+                {
+                    throw new IllegalStateException(
+                        "A CPU core is configured for " + role + " but no CpuAffinity hook has been set");
+                }
+            }
+        }
+    }
+
+    private AgentRunner newRunner(
+        final AgentRole role,
+        final IdleStrategy defaultIdleStrategy,
+        final ErrorHandler errorHandler,
+        final Agent agent)
+    {
+        if (agent == null)
+        {
+            return null;
+        }
+
+        final IdleStrategy idleStrategy = idleStrategies[role.ordinal()];
+        return new AgentRunner(
+            idleStrategy != null ? idleStrategy : defaultIdleStrategy, errorHandler, null, agent);
+    }
+
+    private void start(
+        final AgentRole role,
+        final AgentRunner runner,
+        final ThreadFactory threadFactory,
+        final ErrorHandler errorHandler)
+    {
+        if (runner == null)
+        {
+            return;
+        }
+
+        final int cpuCore = cpuCores[role.ordinal()];
+        if (cpuCore == NO_CPU_AFFINITY)
+        {
+            startOnThread(runner, threadFactory);
+        }
+        else
+        {
+            final CpuAffinity cpuAffinity = this.cpuAffinity;
+            startOnThread(runner, runnable -> threadFactory.newThread(() ->
+            {
+                try
+                {
+                    cpuAffinity.pinCurrentThread(role, cpuCore);
+                }
+                catch (final Throwable e)
+                {
+                    // Still run the agent unpinned, otherwise the engine would never finish starting or closing.
+                    errorHandler.onError(e);
+                }
+
+                runnable.run();
+            }));
+        }
+    }
+
+    public void close()
+    {
+        EngineScheduler.awaitRunnerStart(framerRunner);
+        EngineScheduler.awaitRunnerStart(inboundIndexerRunner);
+        EngineScheduler.awaitRunnerStart(outboundIndexerRunner);
+        EngineScheduler.awaitRunnerStart(replayerRunner);
+        EngineScheduler.awaitRunnerStart(monitoringRunner);
+
+        Exceptions.closeAll(
+            framerRunner,
+            inboundIndexerRunner,
+            outboundIndexerRunner,
+            replayerRunner,
+            recordingCoordinator,
+            monitoringRunner);
+    }
+
+    public int pollFramer()
+    {
+        return 0;
+    }
+
+    public void configure(final Aeron.Context aeronContext)
+    {
+    }
+}
@@ -67,6 +67,8 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
             "Awaiting index position: indexed=%s vs required=%s");
         private final CharFormatter replayQueryingFormatter = new CharFormatter(
             "Querying for sessionId=%s, currently at (%s, %s)");
+        private final CharFormatter recentMessagesFormatter = new CharFormatter(
+            "Replaying recent messages for sessionId=%s, from (%s, %s) to (%s, %s)");
     }
 
     private static final int ENCODE_BUFFER_SIZE = 8 * 1024;
@@ -148,6 +150,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
         AWAITING_INDEX,
         REPLAY_QUERY,
         REPLAYING,
+        REPLAYING_RECENT,
         SEND_MISSING,
         SEND_OK
     }
@@ -190,6 +193,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
     private int heartbeatRangeSequenceNumberStart = OUT_OF_RANGE;
 
     private ReplayOperation replayOperation = null;
+    private RecentInboundMessages.Replay recentMessagesReplay = null;
 
     CatchupReplayer(
         final SequenceNumberIndexReader receivedSequenceNumberIndex,
@@ -266,28 +270,74 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
         asciiBuffer.wrap(srcBuffer, messageOffset, messageLength);
         headerDecoder.decode(asciiBuffer, 0, messageLength);
 
-        if (messageType == HEARTBEAT_MESSAGE_TYPE)
+        if (skipHeartbeat(messageType))
         {
-            if (heartbeatRangeSequenceNumberStart == OUT_OF_RANGE)
-            {
-                heartbeatRangeSequenceNumberStart = headerDecoder.msgSeqNum();
-            }
+            return CONTINUE;
+        }
+
+        if (!sendPendingGapFill())
+        {
+            return ABORT;
+        }
 
+        return processNormalMessage(
+            srcBuffer, srcOffset, srcLength);
+    }
+
+    Action onRecentMessage(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final long messageType,
+        final long timestamp)
+    {
+        asciiBuffer.wrap(buffer, offset, length);
+        headerDecoder.decode(asciiBuffer, 0, length);
+
+        if (skipHeartbeat(messageType))
+        {
             return CONTINUE;
         }
-        else
+
+        if (!sendPendingGapFill())
         {
-            if (heartbeatRangeSequenceNumberStart != OUT_OF_RANGE)
+            return ABORT;
+        }
+
+        // Saved in the same way as the receiver end point saved the original message
+        final long position = inboundPublication.saveMessage(
+            buffer, offset, length,
+            libraryId, messageType,
+            session.sessionId(), replayFromSequenceIndex, connectionId,
+            CATCHUP_REPLAY, 0, timestamp);
+
+        final Action action = Pressure.apply(position);
+        if (action == CONTINUE)
+        {
+            replayFromSequenceNumber = headerDecoder.msgSeqNum() + 1;
+        }
+        return action;
+    }
+
+    private boolean skipHeartbeat(final long messageType)
+    {
+        if (messageType == HEARTBEAT_MESSAGE_TYPE)
+        {
+            if (heartbeatRangeSequenceNumberStart == OUT_OF_RANGE)
             {
-                if (!sendGapFill())
-                {
-                    return ABORT;
-                }
+                heartbeatRangeSequenceNumberStart = headerDecoder.msgSeqNum();
             }
 
-            return processNormalMessage(
-                srcBuffer, srcOffset, srcLength);
+            return true;
         }
+
+        return false;
+    }
+
+    // returns false if back-pressured
+    private boolean sendPendingGapFill()
+    {
+        return heartbeatRangeSequenceNumberStart == OUT_OF_RANGE || sendGapFill();
     }
 
     private boolean sendGapFill()
@@ -336,7 +386,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
         final boolean sent = inboundPublication.saveMessage(
             encodeBuffer, encodedOffset, encodedLength,
             libraryId, SEQUENCE_RESET_MESSAGE_TYPE,
-            messageDecoder.session(), replayFromSequenceIndex, libraryId,
+            session.sessionId(), replayFromSequenceIndex, libraryId,
             CATCHUP_REPLAY, heartbeatRangeSequenceNumberEnd) > 0;
 
         if (sent)
@@ -375,6 +425,12 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
         {
             case AWAITING_INDEX:
             {
+                if (startRecentMessagesReplay())
+                {
+                    state = State.REPLAYING_RECENT;
+                    return BACK_PRESSURED;
+                }
+
                 final long indexedPosition = receivedSequenceNumberIndex.indexedPosition(
                     inboundPublication.sessionId());
 
@@ -445,6 +501,32 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
                 }
             }
 
+            case REPLAYING_RECENT:
+            {
+                if (System.currentTimeMillis() > catchupEndTimeInMs)
+                {
+                    return switchToMissingMessages("Catchup operation timed out");
+                }
+
+                if (recentMessagesReplay.poll(this))
+                {
+                    recentMessagesReplay = null;
+                    if (hasMissingMessages())
+                    {
+                        return switchToMissingMessages("Is missing messages from recent inbound messages");
+                    }
+                    else
+                    {
+                        state = State.SEND_OK;
+                        return sendOk(inboundPublication, correlationId, session);
+                    }
+                }
+                else
+                {
+                    return BACK_PRESSURED;
+                }
+            }
+
             case SEND_MISSING:
             {
                 return sendMissingMessages();
@@ -463,6 +545,30 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
         }
     }
 
+    // The recent messages have been saved to the inbound stream, so don't need to wait for them to be indexed.
+    private boolean startRecentMessagesReplay()
+    {
+        final RecentInboundMessages recentInboundMessages = session.recentInboundMessages();
+        if (recentInboundMessages == null || !recentInboundMessages.contains(
+            replayFromSequenceIndex, replayFromSequenceNumber, replayToSequenceIndex, replayToSequenceNumber))
+        {
+            return false;
+        }
+
+        if (DebugLogger.isEnabled(CATCHUP))
+        {
+            DebugLogger.log(CATCHUP, formatters.recentMessagesFormatter.clear()
+                .with(session.sessionId())
+                .with(replayFromSequenceIndex)
+                .with(replayFromSequenceNumber)
+                .with(replayToSequenceIndex)
+                .with(replayToSequenceNumber));
+        }
+
+        recentMessagesReplay = recentInboundMessages.copy(replayFromSequenceNumber, replayToSequenceNumber);
+        return true;
+    }
+
     private long switchToMissingMessages(final String reason)
     {
         state = State.SEND_MISSING;
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+
+/**
+ * Collects the outbound messages for a single connection within a Framer duty cycle so that they can be written to
+ * the TCP connection with a single write. Message bodies are stored contiguously, the per-message sequence number
+ * and metadata are stored alongside so that the sender end point can still account for each message individually.
+ */
+final class CoalescedWrites
+{
+    private static final int SEQUENCE_NUMBER_OFFSET = 0;
+    private static final int BODY_LENGTH_OFFSET = SEQUENCE_NUMBER_OFFSET + SIZE_OF_INT;
+    private static final int META_DATA_OFFSET_OFFSET = BODY_LENGTH_OFFSET + SIZE_OF_INT;
+    private static final int META_DATA_LENGTH_OFFSET = META_DATA_OFFSET_OFFSET + SIZE_OF_INT;
+    private static final int RECORD_LENGTH = META_DATA_LENGTH_OFFSET + SIZE_OF_INT;
+
+    private final ExpandableDirectByteBuffer bodies;
+    private final ExpandableArrayBuffer metaData = new ExpandableArrayBuffer();
+    private final ExpandableArrayBuffer records = new ExpandableArrayBuffer();
+
+    private int messageCount;
+    private int bodiesLength;
+    private int metaDataLength;
+
+    CoalescedWrites(final int initialCapacity)
+    {
+        bodies = new ExpandableDirectByteBuffer(initialCapacity);
+    }
+
+    void append(
+        final DirectBuffer srcBuffer,
+        final int srcOffset,
+        final int bodyLength,
+        final int metaDataOffset,
+        final int metaDataLength,
+        final int sequenceNumber)
+    {
+        final int bodiesLength = this.bodiesLength;
+        bodies.putBytes(bodiesLength, srcBuffer, srcOffset, bodyLength);
+        this.bodiesLength = bodiesLength + bodyLength;
+
+        final int metaDataStart = this.metaDataLength;
+        if (metaDataLength > 0)
+        {
+            metaData.putBytes(metaDataStart, srcBuffer, metaDataOffset, metaDataLength);
+            this.metaDataLength = metaDataStart + metaDataLength;
+        }
+
+        final int recordOffset = messageCount * RECORD_LENGTH;
+        final ExpandableArrayBuffer records = this.records;
+        records.putInt(recordOffset + SEQUENCE_NUMBER_OFFSET, sequenceNumber);
+        records.putInt(recordOffset + BODY_LENGTH_OFFSET, bodyLength);
+        records.putInt(recordOffset + META_DATA_OFFSET_OFFSET, metaDataStart);
+        records.putInt(recordOffset + META_DATA_LENGTH_OFFSET, metaDataLength);
+        messageCount++;
+    }
+
+    int messageCount()
+    {
+        return messageCount;
+    }
+
+    int bodiesLength()
+    {
+        return bodiesLength;
+    }
+
+    ExpandableDirectByteBuffer bodies()
+    {
+        return bodies;
+    }
+
+    ExpandableArrayBuffer metaData()
+    {
+        return metaData;
+    }
+
+    int sequenceNumber(final int index)
+    {
+        return records.getInt(index * RECORD_LENGTH + SEQUENCE_NUMBER_OFFSET);
+    }
+
+    int bodyLength(final int index)
+    {
+        return records.getInt(index * RECORD_LENGTH + BODY_LENGTH_OFFSET);
+    }
+
+    int metaDataOffset(final int index)
+    {
+        return records.getInt(index * RECORD_LENGTH + META_DATA_OFFSET_OFFSET);
+    }
+
+    int metaDataLength(final int index)
+    {
+        return records.getInt(index * RECORD_LENGTH + META_DATA_LENGTH_OFFSET);
+    }
+
+    void reset()
+    {
+        messageCount = 0;
+        bodiesLength = 0;
+        metaDataLength = 0;
+    }
+}
@@ -23,6 +23,8 @@ import uk.co.real_logic.artio.engine.MessageTimingHandler;
 import uk.co.real_logic.artio.engine.SenderSequenceNumbers;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 
+import static uk.co.real_logic.artio.engine.EngineConfiguration.NO_FRAMER_RECENT_INBOUND_MESSAGES;
+
 class FixEndPointFactory
 {
     private final FixReceiverEndPoint.FixReceiverEndPointFormatters receiverFormatters =
@@ -87,7 +89,9 @@ class FixEndPointFactory
             receiverFormatters,
             configuration.throttleWindowInMs(),
             configuration.throttleLimitOfMessages(),
-            configuration.isReproductionEnabled());
+            configuration.isReproductionEnabled(),
+            configuration.canReplayInbound() ?
+                configuration.framerRecentInboundMessagesCapacity() : NO_FRAMER_RECENT_INBOUND_MESSAGES);
     }
 
     FixSenderEndPoint senderEndPoint(
@@ -115,6 +119,8 @@ class FixEndPointFactory
             senderSequenceNumbers.onNewSender(connectionId, bytesInBuffer),
             messageTimingHandler,
             receiverEndPoint,
-            senderFormatters);
+            senderFormatters,
+            configuration.coalesceOutboundWrites() && !configuration.isReproductionEnabled(),
+            configuration.coalescedWritesBufferSize());
     }
 }
@@ -128,11 +128,13 @@ class FixGatewaySession extends GatewaySession implements ConnectedSessionInfo,
         this.session = session;
         this.proxy = proxy;
         this.session.sessionProcessHandler(this);
+        this.session.pollTimeChangedHandler(wakeUp);
         if (receiverEndPoint != null)
         {
             receiverEndPoint.libraryId(ENGINE_LIBRARY_ID);
             senderEndPoint.libraryId(ENGINE_LIBRARY_ID);
         }
+        wakeUp();
     }
 
     // sets management to a library and also cleans up locally associated session.
@@ -143,6 +145,7 @@ class FixGatewaySession extends GatewaySession implements ConnectedSessionInfo,
 
         sessionParser = null;
         context.updateAndSaveFrom(session);
+        session.pollTimeChangedHandler(null);
         session.close();
         session = null;
         proxy = null;
@@ -167,12 +170,25 @@ class FixGatewaySession extends GatewaySession implements ConnectedSessionInfo,
         }
     }
 
+    RecentInboundMessages recentInboundMessages()
+    {
+        final FixReceiverEndPoint receiverEndPoint = this.receiverEndPoint;
+        return receiverEndPoint == null ? null : receiverEndPoint.recentInboundMessages();
+    }
+
     int poll(final long timeInMs, final long timeInNs)
     {
         final int events = session != null ? session.poll(timeInNs) : 0;
         return events + checkNoLogonDisconnect(timeInMs);
     }
 
+    public long nextPollTimeInNs()
+    {
+        final long nextPollTimeInNs = super.nextPollTimeInNs();
+        final InternalSession session = this.session;
+        return session == null ? nextPollTimeInNs : Math.min(nextPollTimeInNs, session.nextPollTimeInNs());
+    }
+
     public void onLogon(final Session session)
     {
         context.updateFrom(session);
@@ -215,7 +215,7 @@ public class FixGatewaySessions extends GatewaySessions
 
         if (!sessions.contains(gatewaySession))
         {
-            sessions.add(gatewaySession);
+            addSession(gatewaySession);
         }
         gatewaySession.manage(sessionParser, session, proxy);
 
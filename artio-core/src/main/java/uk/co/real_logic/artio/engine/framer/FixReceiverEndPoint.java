@@ -43,6 +43,8 @@ import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.agrona.BitUtil.SIZE_OF_CHAR;
 import static uk.co.real_logic.artio.LogTag.*;
 import static uk.co.real_logic.artio.dictionary.SessionConstants.*;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.NO_FRAMER_RECENT_INBOUND_MESSAGES;
+import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
 import static uk.co.real_logic.artio.messages.MessageStatus.*;
 import static uk.co.real_logic.artio.session.Session.UNKNOWN;
 import static uk.co.real_logic.artio.util.AsciiBuffer.SEPARATOR;
@@ -137,6 +139,8 @@ class FixReceiverEndPoint extends ReceiverEndPoint
 
     private static final int PASSWORD_CLEANED = 0;
 
+    private static final int NO_MESSAGE_BATCH = -1;
+
     static class FixReceiverEndPointFormatters
     {
         private final CharFormatter noProxyProtocol = new CharFormatter("No proxy protocol usage for connId=%s");
@@ -155,8 +159,11 @@ class FixReceiverEndPoint extends ReceiverEndPoint
     private final AcceptorFixDictionaryLookup acceptorFixDictionaryLookup;
     private final FixReceiverEndPointFormatters formatters;
     private final boolean reproductionEnabled;
+    private final int recentInboundMessagesCapacity;
 
     private FixGatewaySession gatewaySession;
+    // Allocated when the first message is saved, null if disabled.
+    private RecentInboundMessages recentInboundMessages;
     private long sessionId;
     private int sequenceIndex;
     private boolean isPaused = false;
@@ -166,6 +173,12 @@ class FixReceiverEndPoint extends ReceiverEndPoint
     private long lastReadTimestampInNs;
     private String address;
     private boolean requiresProxyCheck = true;
+    // Offset of the first message in the publication's message batch, kept so that it can be retried if back-pressured
+    private int messageBatchStartOffset = NO_MESSAGE_BATCH;
+    private int messageBatchCount;
+    // Messages whose save was back-pressured and that are re-read when retried. They've already been counted towards
+    // the throttle and had their sequence index updated, so that isn't done again.
+    private int retriedMessageCount;
 
     FixReceiverEndPoint(
         final TcpChannel channel,
@@ -185,7 +198,8 @@ class FixReceiverEndPoint extends ReceiverEndPoint
         final FixReceiverEndPointFormatters formatters,
         final int throttleWindowInMs,
         final int throttleLimitOfMessages,
-        final boolean reproductionEnabled)
+        final boolean reproductionEnabled,
+        final int recentInboundMessagesCapacity)
     {
         super(publication, channel, connectionId, bufferSize, errorHandler, framer, libraryId,
             throttleWindowInMs, throttleLimitOfMessages);
@@ -202,6 +216,7 @@ class FixReceiverEndPoint extends ReceiverEndPoint
         this.clock = clock;
         this.acceptorFixDictionaryLookup = acceptorFixDictionaryLookup;
         this.reproductionEnabled = reproductionEnabled;
+        this.recentInboundMessagesCapacity = recentInboundMessagesCapacity;
 
         address = channel.remoteAddr();
     }
@@ -450,7 +465,8 @@ class FixReceiverEndPoint extends ReceiverEndPoint
                 }
                 else
                 {
-                    final boolean firstMessage = messagesRead.incrementOrdered() == 0;
+                    final boolean retried = retriedMessageCount > 0;
+                    final boolean firstMessage = !retried && messagesRead.incrementOrdered() == 0;
                     if (requiresAuthentication())
                     {
                         startAuthenticationFlow(offset, length, messageType);
@@ -458,7 +474,7 @@ class FixReceiverEndPoint extends ReceiverEndPoint
                         // a back-pressure scenario.
                         return true;
                     }
-                    else if (messageType == LOGON_MESSAGE_TYPE)
+                    else if (messageType == LOGON_MESSAGE_TYPE && !retried)
                     {
                         onLogon(readTimestampInNs, firstMessage);
                     }
@@ -482,6 +498,11 @@ class FixReceiverEndPoint extends ReceiverEndPoint
             }
         }
 
+        if (commitMessageBatch())
+        {
+            return false;
+        }
+
         moveRemainingDataToBufferStart(offset);
         return true;
     }
@@ -670,13 +691,12 @@ class FixReceiverEndPoint extends ReceiverEndPoint
         int checksumTagScanPoint = startOfChecksumTag + 1;
         while (!isStartOfChecksum(checksumTagScanPoint))
         {
-            final int endOfScanPoint = checksumTagScanPoint + CHECKSUM_TAG_SIZE;
-            if (endOfScanPoint >= usedBufferData)
+            // The checksum tag always starts with a separator, so jump to the next one rather than every byte
+            checksumTagScanPoint = buffer.scan(checksumTagScanPoint + 1, usedBufferData, START_OF_HEADER);
+            if (checksumTagScanPoint == UNKNOWN_INDEX || checksumTagScanPoint + CHECKSUM_TAG_SIZE >= usedBufferData)
             {
                 return BREAK;
             }
-
-            checksumTagScanPoint++;
         }
 
         final int endOfScanPoint = checksumTagScanPoint + CHECKSUM_TAG_SIZE;
@@ -812,57 +832,218 @@ class FixReceiverEndPoint extends ReceiverEndPoint
         final int sequenceIndex,
         final long readTimestamp)
     {
-        DirectBuffer buffer = this.buffer;
-
-        if (shouldThrottle(readTimestamp))
+        if (retriedMessageCount > 0)
+        {
+            // Wasn't throttled when first read
+            retriedMessageCount--;
+        }
+        else if (wouldThrottle(readTimestamp))
         {
-            return throttleMessage(messageOffset, messageType, messageLength, buffer);
+            // Committed before the message is counted, so that if back-pressured it is throttled again when retried
+            if (commitMessageBatch())
+            {
+                return false;
+            }
+
+            resetRecentInboundMessages();
+            if (!throttleMessage(messageOffset, messageType, messageLength, buffer))
+            {
+                return false;
+            }
+
+            countTowardsThrottle(readTimestamp);
+            return true;
         }
         else
         {
-            int offset = messageOffset;
-            int length = messageLength;
+            countTowardsThrottle(readTimestamp);
+        }
 
-            final boolean isUserRequest = messageType == USER_REQUEST_MESSAGE_TYPE;
-            if (messageType == LOGON_MESSAGE_TYPE || isUserRequest)
+        if (saveUnthrottledMessage(messageOffset, messageType, messageLength, sessionId, sequenceIndex, readTimestamp))
+        {
+            return true;
+        }
+
+        retriedMessageCount++;
+        return false;
+    }
+
+    private boolean saveUnthrottledMessage(
+        final int messageOffset,
+        final long messageType,
+        final int messageLength,
+        final long sessionId,
+        final int sequenceIndex,
+        final long readTimestamp)
+    {
+        DirectBuffer buffer = this.buffer;
+
+        int offset = messageOffset;
+        int length = messageLength;
+
+        final boolean isUserRequest = messageType == USER_REQUEST_MESSAGE_TYPE;
+        if (messageType == LOGON_MESSAGE_TYPE || isUserRequest)
+        {
+            if (isUserRequest)
             {
-                if (isUserRequest)
-                {
-                    gatewaySessions.onUserRequest(
-                        buffer, offset, length, gatewaySession.fixDictionary(), connectionId, sessionId);
-                }
+                gatewaySessions.onUserRequest(
+                    buffer, offset, length, gatewaySession.fixDictionary(), connectionId, sessionId);
+            }
 
-                passwordCleaner.clean(buffer, offset, length);
+            passwordCleaner.clean(buffer, offset, length);
 
-                offset = 0;
-                buffer = passwordCleaner.cleanedBuffer();
-                length = passwordCleaner.cleanedLength();
+            offset = 0;
+            buffer = passwordCleaner.cleanedBuffer();
+            length = passwordCleaner.cleanedLength();
+        }
+        else if (canBatchMessages())
+        {
+            if (batchMessage(offset, messageType, length, sessionId, sequenceIndex, readTimestamp))
+            {
+                onMessageSaved(buffer, offset, length, messageType, sequenceIndex, readTimestamp);
+                return true;
             }
 
-            final long position = publication.saveMessage(
-                buffer,
-                offset,
-                length,
-                libraryId,
-                messageType,
-                sessionId,
-                sequenceIndex,
-                connectionId,
-                OK,
-                0,
-                readTimestamp);
-
-            if (Pressure.isBackPressured(position))
+            // Full batch, commit it and start a new one.
+            if (commitMessageBatch())
             {
-                moveRemainingDataToBufferStart(messageOffset);
                 return false;
             }
-            else
+
+            if (batchMessage(offset, messageType, length, sessionId, sequenceIndex, readTimestamp))
             {
-                gatewaySession.onMessage(buffer, offset, length, messageType, position);
+                onMessageSaved(buffer, offset, length, messageType, sequenceIndex, readTimestamp);
                 return true;
             }
         }
+
+        if (commitMessageBatch())
+        {
+            return false;
+        }
+
+        final long position = publication.saveMessage(
+            buffer,
+            offset,
+            length,
+            libraryId,
+            messageType,
+            sessionId,
+            sequenceIndex,
+            connectionId,
+            OK,
+            0,
+            readTimestamp);
+
+        if (Pressure.isBackPressured(position))
+        {
+            moveRemainingDataToBufferStart(messageOffset);
+            return false;
+        }
+        else
+        {
+            gatewaySession.onMessage(buffer, offset, length, messageType, position);
+            onMessageSaved(buffer, offset, length, messageType, sequenceIndex, readTimestamp);
+            return true;
+        }
+    }
+
+    private void onMessageSaved(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final long messageType,
+        final int sequenceIndex,
+        final long readTimestamp)
+    {
+        if (recentInboundMessagesCapacity == NO_FRAMER_RECENT_INBOUND_MESSAGES)
+        {
+            return;
+        }
+
+        RecentInboundMessages recentInboundMessages = this.recentInboundMessages;
+        if (recentInboundMessages == null)
+        {
+            recentInboundMessages = new RecentInboundMessages(recentInboundMessagesCapacity);
+            this.recentInboundMessages = recentInboundMessages;
+        }
+
+        recentInboundMessages.onMessage(buffer, offset, length, messageType, sequenceIndex, readTimestamp);
+    }
+
+    private void resetRecentInboundMessages()
+    {
+        final RecentInboundMessages recentInboundMessages = this.recentInboundMessages;
+        if (recentInboundMessages != null)
+        {
+            recentInboundMessages.reset();
+        }
+    }
+
+    RecentInboundMessages recentInboundMessages()
+    {
+        return recentInboundMessages;
+    }
+
+    // Engine managed sessions process each message after it has been saved, using its position, so aren't batched.
+    private boolean canBatchMessages()
+    {
+        return libraryId != ENGINE_LIBRARY_ID && publication.isMessageBatchingEnabled();
+    }
+
+    private boolean batchMessage(
+        final int messageOffset,
+        final long messageType,
+        final int messageLength,
+        final long sessionId,
+        final int sequenceIndex,
+        final long readTimestamp)
+    {
+        if (publication.batchMessage(
+            buffer,
+            messageOffset,
+            messageLength,
+            libraryId,
+            messageType,
+            sessionId,
+            sequenceIndex,
+            connectionId,
+            OK,
+            0,
+            readTimestamp))
+        {
+            if (messageBatchStartOffset == NO_MESSAGE_BATCH)
+            {
+                messageBatchStartOffset = messageOffset;
+            }
+            messageBatchCount++;
+            return true;
+        }
+
+        return false;
+    }
+
+    // returns true if back-pressured, in which case the data from the first batched message onwards is kept
+    // so that the batch can be retried.
+    private boolean commitMessageBatch()
+    {
+        final int messageBatchStartOffset = this.messageBatchStartOffset;
+        if (messageBatchStartOffset == NO_MESSAGE_BATCH)
+        {
+            return false;
+        }
+
+        this.messageBatchStartOffset = NO_MESSAGE_BATCH;
+        final int messageBatchCount = this.messageBatchCount;
+        this.messageBatchCount = 0;
+        final boolean backPressured = stashIfBackPressured(messageBatchStartOffset, publication.commitMessageBatch());
+        if (backPressured)
+        {
+            // The batched messages are re-read when retried, so the run of recent messages starts again from them.
+            resetRecentInboundMessages();
+            retriedMessageCount += messageBatchCount;
+        }
+        return backPressured;
     }
 
     private boolean throttleMessage(
@@ -949,6 +1130,11 @@ class FixReceiverEndPoint extends ReceiverEndPoint
 
     private boolean saveInvalidMessage(final int offset, final int length, final long readTimestamp)
     {
+        if (commitMessageBatch())
+        {
+            return true;
+        }
+
         final long position = publication.saveMessage(
             buffer,
             offset,
@@ -968,6 +1154,11 @@ class FixReceiverEndPoint extends ReceiverEndPoint
     // returns true if back-pressured
     private boolean saveInvalidMessage(final int offset, final long readTimestamp)
     {
+        if (commitMessageBatch())
+        {
+            return true;
+        }
+
         final long position = publication.saveMessage(
             buffer,
             offset,
@@ -1007,6 +1198,11 @@ class FixReceiverEndPoint extends ReceiverEndPoint
     private boolean saveInvalidChecksumMessage(
         final int offset, final long messageType, final int length, final long readTimestamp)
     {
+        if (commitMessageBatch())
+        {
+            return true;
+        }
+
         final long position = publication.saveMessage(
             buffer,
             offset,
@@ -1029,6 +1225,11 @@ class FixReceiverEndPoint extends ReceiverEndPoint
         {
             channel.close();
             messagesRead.close();
+            if (recentInboundMessages != null)
+            {
+                recentInboundMessages.close();
+                recentInboundMessages = null;
+            }
         }
         catch (final Exception ex)
         {
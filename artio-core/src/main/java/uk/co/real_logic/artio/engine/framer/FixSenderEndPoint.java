@@ -94,6 +94,8 @@ class FixSenderEndPoint extends SenderEndPoint
     private final MessageTimingHandler messageTimingHandler;
     private final FixReceiverEndPoint receiverEndPoint;
     private final Formatters formatters;
+    private final boolean coalesceWrites;
+    private final int coalescedWritesBufferSize;
 
     private long sessionId;
     private long sendingTimeoutTimeInMs;
@@ -110,6 +112,8 @@ class FixSenderEndPoint extends SenderEndPoint
     private long replayCorrelationId;
     private boolean requiresRetry;
     private int reattemptBytesWritten = NO_REATTEMPT;
+    // Allocated on the first coalesced write
+    private CoalescedWrites coalescedWrites;
 
     FixSenderEndPoint(
         final long connectionId,
@@ -127,7 +131,9 @@ class FixSenderEndPoint extends SenderEndPoint
         final SenderSequenceNumber senderSequenceNumber,
         final MessageTimingHandler messageTimingHandler,
         final FixReceiverEndPoint receiverEndPoint,
-        final Formatters formatters)
+        final Formatters formatters,
+        final boolean coalesceWrites,
+        final int coalescedWritesBufferSize)
     {
         super(connectionId, inboundPublication, reproductionPublication, libraryId, channel, bytesInBuffer,
             maxBytesInBuffer, errorHandler,
@@ -141,6 +147,8 @@ class FixSenderEndPoint extends SenderEndPoint
         this.messageTimingHandler = messageTimingHandler;
         this.receiverEndPoint = receiverEndPoint;
         this.formatters = formatters;
+        this.coalesceWrites = coalesceWrites;
+        this.coalescedWritesBufferSize = coalescedWritesBufferSize;
         sendingTimeoutTimeInMs = timeInMs + slowConsumerTimeoutInMs;
     }
 
@@ -241,6 +249,25 @@ class FixSenderEndPoint extends SenderEndPoint
         {
             final int metaDataOffset = offset - FixMessageDecoder.bodyHeaderLength() - metaDataLength;
 
+            if (coalesceWrites)
+            {
+                if (!replay && !replaying && !requiresRetry)
+                {
+                    CoalescedWrites coalescedWrites = this.coalescedWrites;
+                    if (coalescedWrites == null)
+                    {
+                        coalescedWrites = new CoalescedWrites(coalescedWritesBufferSize);
+                        this.coalescedWrites = coalescedWrites;
+                    }
+                    coalescedWrites.append(
+                        directBuffer, offset, bodyLength, metaDataOffset, metaDataLength, seqNum);
+                    return;
+                }
+
+                // Preserve ordering with anything that has already been coalesced
+                flushCoalescedWrites(timeInMs);
+            }
+
             if ((replaying && !replay) || (!replaying && replay) || requiresRetry)
             {
                 enqueueMessage(directBuffer, offset, bodyLength, metaDataOffset, metaDataLength, seqNum, replay);
@@ -298,6 +325,92 @@ class FixSenderEndPoint extends SenderEndPoint
         }
     }
 
+    boolean hasCoalescedWrites()
+    {
+        final CoalescedWrites coalescedWrites = this.coalescedWrites;
+        return coalescedWrites != null && coalescedWrites.messageCount() > 0;
+    }
+
+    /**
+     * Writes all the messages coalesced during the current duty cycle with a single write to the TCP connection.
+     * Any messages that are not written, or partially written, move onto the normal reattempt buffer so
+     * back-pressure and slow consumer handling work per message just like the uncoalesced path.
+     *
+     * @param timeInMs the current time in milliseconds.
+     * @return the number of messages that were flushed.
+     */
+    int flushCoalescedWrites(final long timeInMs)
+    {
+        final CoalescedWrites coalescedWrites = this.coalescedWrites;
+        if (coalescedWrites == null)
+        {
+            return 0;
+        }
+
+        final int messageCount = coalescedWrites.messageCount();
+        if (messageCount == 0)
+        {
+            return 0;
+        }
+
+        // Reset up front: a slow consumer disconnect whilst enqueueing can re-enter this method. The buffers remain
+        // valid until the next append, which can't happen during the flush.
+        final int bodiesLength = coalescedWrites.bodiesLength();
+        coalescedWrites.reset();
+
+        try
+        {
+            final ExpandableDirectByteBuffer bodies = coalescedWrites.bodies();
+            final DirectBuffer metaData = coalescedWrites.metaData();
+            final int lastSequenceNumber = coalescedWrites.sequenceNumber(messageCount - 1);
+            final int written = writeBuffer(bodies, 0, bodiesLength, lastSequenceNumber, false);
+            final MessageTimingHandler messageTimingHandler = this.messageTimingHandler;
+
+            int bodyOffset = 0;
+            for (int i = 0; i < messageCount; i++)
+            {
+                final int sequenceNumber = coalescedWrites.sequenceNumber(i);
+                final int bodyLength = coalescedWrites.bodyLength(i);
+                final int metaDataOffset = coalescedWrites.metaDataOffset(i);
+                final int metaDataLength = coalescedWrites.metaDataLength(i);
+                final int messageWritten = written - bodyOffset;
+
+                if (messageWritten >= bodyLength)
+                {
+                    if (messageTimingHandler != null)
+                    {
+                        messageTimingHandler.onMessage(
+                            sequenceNumber, connectionId, metaData, metaDataOffset, metaDataLength);
+                    }
+                }
+                else
+                {
+                    if (messageWritten >= 0)
+                    {
+                        // The first message that couldn't be completely written
+                        this.reattemptBytesWritten = messageWritten;
+                        tryLogBackPressure(sequenceNumber, false, messageWritten);
+                    }
+
+                    enqueueMessage(
+                        bodies, bodyOffset, bodyLength,
+                        metaData, metaDataOffset, metaDataLength,
+                        sequenceNumber, false);
+                }
+
+                bodyOffset += bodyLength;
+            }
+
+            updateSendingTimeoutTimeInMs(timeInMs, written);
+        }
+        catch (final IOException e)
+        {
+            errorHandler.onError(e);
+        }
+
+        return messageCount;
+    }
+
     private void tryLogBackPressure(final int seqNum, final boolean replay, final int written)
     {
         final ReproductionLogWriter reproductionLogWriter = this.reproductionLogWriter;
@@ -343,6 +456,15 @@ class FixSenderEndPoint extends SenderEndPoint
     private void enqueueMessage(
         final DirectBuffer srcBuffer, final int srcOffset, final int bodyLength,
         final int metaDataOffset, final int metaDataLength, final int sequenceNumber, final boolean replay)
+    {
+        enqueueMessage(
+            srcBuffer, srcOffset, bodyLength, srcBuffer, metaDataOffset, metaDataLength, sequenceNumber, replay);
+    }
+
+    private void enqueueMessage(
+        final DirectBuffer srcBuffer, final int srcOffset, final int bodyLength,
+        final DirectBuffer metaDataBuffer, final int metaDataOffset, final int metaDataLength,
+        final int sequenceNumber, final boolean replay)
     {
         final int totalLength = ENQ_MESSAGE_BLOCK_LEN + bodyLength + metaDataLength;
         final ReattemptState reattemptState = enqueue(totalLength, replay);
@@ -365,7 +487,7 @@ class FixSenderEndPoint extends SenderEndPoint
         buffer.putInt(reattemptOffset, metaDataLength);
         reattemptOffset += SIZE_OF_INT;
 
-        buffer.putBytes(reattemptOffset, srcBuffer, metaDataOffset, metaDataLength);
+        buffer.putBytes(reattemptOffset, metaDataBuffer, metaDataOffset, metaDataLength);
     }
 
     private void enqueueReplayComplete(final long correlationId)
@@ -612,6 +734,10 @@ class FixSenderEndPoint extends SenderEndPoint
 
     public void close()
     {
+        if (coalescedWrites != null)
+        {
+            coalescedWrites.reset();
+        }
         senderSequenceNumber.close();
         invalidLibraryAttempts.close();
         super.close();
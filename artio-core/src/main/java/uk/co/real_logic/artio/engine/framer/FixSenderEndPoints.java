@@ -24,6 +24,7 @@ import uk.co.real_logic.artio.LogTag;
 import uk.co.real_logic.artio.engine.FixEngine;
 import uk.co.real_logic.artio.util.CharFormatter;
 
+import java.util.ArrayList;
 import java.util.function.LongToIntFunction;
 
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
@@ -35,6 +36,8 @@ class FixSenderEndPoints implements AutoCloseable
         "SEPs.missReplayComplete, connId=%s, corrId=%s, slow=%s");
 
     private final Long2ObjectHashMap<FixSenderEndPoint> connectionIdToSenderEndpoint = new Long2ObjectHashMap<>();
+    // Sender end points that have coalesced writes pending in the current duty cycle
+    private final ArrayList<FixSenderEndPoint> endPointsWithCoalescedWrites = new ArrayList<>();
     private final ErrorHandler errorHandler;
     private final LongToIntFunction libraryLookup = this::libraryLookup;
 
@@ -68,6 +71,8 @@ class FixSenderEndPoints implements AutoCloseable
         final FixSenderEndPoint senderEndPoint = connectionIdToSenderEndpoint.remove(connectionId);
         if (senderEndPoint != null)
         {
+            // Messages sent before the disconnect, eg: a logout, should still be written out
+            senderEndPoint.flushCoalescedWrites(timeInMs);
             senderEndPoint.close();
         }
     }
@@ -84,8 +89,10 @@ class FixSenderEndPoints implements AutoCloseable
         final FixSenderEndPoint endPoint = connectionIdToSenderEndpoint.get(connectionId);
         if (endPoint != null)
         {
+            final boolean hadCoalescedWrites = endPoint.hasCoalescedWrites();
             endPoint.onOutboundMessage(
                 libraryId, buffer, offset, length, sequenceNumber, timeInMs, metaDataLength);
+            trackCoalescedWrites(endPoint, hadCoalescedWrites);
             return true;
         }
 
@@ -105,15 +112,25 @@ class FixSenderEndPoints implements AutoCloseable
         final FixSenderEndPoint endPoint = connectionIdToSenderEndpoint.get(connectionId);
         if (endPoint != null)
         {
+            final boolean hadCoalescedWrites = endPoint.hasCoalescedWrites();
             endPoint.onThrottleReject(
                 libraryId, refMsgType, refSeqNum, sequenceNumber,
                 businessRejectRefIDBuffer, businessRejectRefIDOffset, businessRejectRefIDLength,
                 timeInMs);
+            trackCoalescedWrites(endPoint, hadCoalescedWrites);
         }
 
         return null;
     }
 
+    private void trackCoalescedWrites(final FixSenderEndPoint endPoint, final boolean hadCoalescedWrites)
+    {
+        if (!hadCoalescedWrites && endPoint.hasCoalescedWrites())
+        {
+            endPointsWithCoalescedWrites.add(endPoint);
+        }
+    }
+
     Action onReplayMessage(
         final long connectionId, final DirectBuffer buffer, final int offset, final int length,
         final int sequenceNumber)
@@ -160,6 +177,7 @@ class FixSenderEndPoints implements AutoCloseable
 
     public void close()
     {
+        endPointsWithCoalescedWrites.clear();
         connectionIdToSenderEndpoint
             .values()
             .forEach(FixSenderEndPoint::close);
@@ -190,6 +208,26 @@ class FixSenderEndPoints implements AutoCloseable
         return count;
     }
 
+    int flushCoalescedWrites()
+    {
+        final ArrayList<FixSenderEndPoint> endPoints = this.endPointsWithCoalescedWrites;
+        final int size = endPoints.size();
+        if (size == 0)
+        {
+            return 0;
+        }
+
+        final long timeInMs = this.timeInMs;
+        int count = 0;
+        for (int i = 0; i < size; i++)
+        {
+            count += endPoints.get(i).flushCoalescedWrites(timeInMs);
+        }
+        endPoints.clear();
+
+        return count;
+    }
+
     LongToIntFunction libraryLookup()
     {
         return libraryLookup;
@@ -62,6 +62,7 @@ import static io.aeron.Publication.BACK_PRESSURED;
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.agrona.collections.CollectionUtil.removeIf;
 import static org.agrona.concurrent.status.CountersReader.NULL_COUNTER_ID;
 import static uk.co.real_logic.artio.GatewayProcess.NO_CONNECTION_ID;
@@ -72,6 +73,7 @@ import static uk.co.real_logic.artio.dictionary.SessionConstants.LOGON_MESSAGE_T
 import static uk.co.real_logic.artio.dictionary.SessionConstants.SEQUENCE_RESET_MESSAGE_TYPE;
 import static uk.co.real_logic.artio.dictionary.generation.Exceptions.closeAll;
 import static uk.co.real_logic.artio.engine.ConnectedSessionInfo.UNK_SESSION;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.NO_FRAMER_IDLE_PARK;
 import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
 import static uk.co.real_logic.artio.engine.framer.Continuation.COMPLETE;
 import static uk.co.real_logic.artio.engine.framer.FixContexts.UNKNOWN_SESSION;
@@ -91,9 +93,13 @@ import static uk.co.real_logic.artio.messages.SequenceNumberType.TRANSIENT;
 import static uk.co.real_logic.artio.messages.SessionReplyStatus.*;
 import static uk.co.real_logic.artio.messages.SessionState.*;
 import static uk.co.real_logic.artio.messages.SessionStatus.SESSION_HANDOVER;
+import static uk.co.real_logic.artio.session.SessionTimerWheel.NO_DEADLINE;
 
 /**
  * Handles incoming connections from clients and outgoing connections to exchanges.
+ *
+ * Every connection is handled by this one agent. The end points call back into session, library and publication
+ * state that the Framer owns and that isn't thread safe, so they can't be split over several threads.
  */
 class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 {
@@ -185,6 +191,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
     private final long replyTimeoutInNs;
     private final DeadlineTimerWheel timerWheel;
     private final TimerEventHandler timerEventHandler;
+    private final long idleParkTimeoutInMs;
+    private final long idleParkThresholdInNs;
 
     private long nextConnectionId = (long)(Math.random() * Long.MAX_VALUE);
     private FixPProtocol fixPProtocol;
@@ -199,6 +207,11 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
     // If we're in sole library mode and no library is connected we will be unbound.
     private boolean shouldBind;
 
+    private long lastWorkTimeInNs;
+    private long nextDeadlineInMs;
+    private final DeadlineTimerWheel.TimerConsumer findNextDeadline =
+        (deadline, timerId) -> nextDeadlineInMs = Math.min(nextDeadlineInMs, deadline);
+
     private long nextApplicationHeartbeatTimeInNs = 0;
 
     Framer(
@@ -353,6 +366,10 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             shouldBind = configuration.bindAtStartup();
         }
 
+        idleParkTimeoutInMs = isReproducing ?
+            NO_FRAMER_IDLE_PARK : configuration.framerIdleParkTimeoutInMs();
+        idleParkThresholdInNs = MILLISECONDS.toNanos(configuration.framerIdleParkThresholdInMs());
+
         Image image = null;
         while (image == null)
         {
@@ -378,7 +395,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 
         checkOutboundTimestampSender(timeInNs);
 
-        return retryManager.attemptSteps() +
+        final int workCount = retryManager.attemptSteps() +
             sendOutboundMessages() +
             sendReplayMessages() +
             pollEndPoints() +
@@ -388,6 +405,54 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             fixSenderEndPoints.poll(timeInMs) +
             adminCommands.drain(onAdminCommand) +
             checkDutyCycle(timeInMs);
+
+        if (idleParkTimeoutInMs != NO_FRAMER_IDLE_PARK)
+        {
+            parkIfIdle(workCount, timeInMs, timeInNs);
+        }
+
+        return workCount;
+    }
+
+    private void parkIfIdle(final int workCount, final long timeInMs, final long timeInNs)
+    {
+        if (workCount > 0)
+        {
+            lastWorkTimeInNs = timeInNs;
+        }
+        else if (timeInNs - lastWorkTimeInNs >= idleParkThresholdInNs)
+        {
+            // Timers and session deadlines are only expired by the duty cycle, so don't park past the next one.
+            final long timeoutInMs = Math.min(idleParkTimeoutInMs, nextDeadlineInMs(timeInMs, timeInNs) - timeInMs);
+            if (timeoutInMs > 0)
+            {
+                receiverEndPoints.park(timeoutInMs);
+            }
+        }
+    }
+
+    private long nextDeadlineInMs(final long timeInMs, final long timeInNs)
+    {
+        final long nextSessionDeadlineInNs = gatewaySessions.nextDeadlineInNs(timeInNs);
+        final long nextDeadlineInNs = nextSessionDeadlineInNs == NO_DEADLINE ?
+            nextApplicationHeartbeatTimeInNs : Math.min(nextApplicationHeartbeatTimeInNs, nextSessionDeadlineInNs);
+        nextDeadlineInMs = timeInMs + NANOSECONDS.toMillis(nextDeadlineInNs - timeInNs);
+        if (timerWheel.timerCount() > 0)
+        {
+            timerWheel.forEach(findNextDeadline);
+        }
+        return nextDeadlineInMs;
+    }
+
+    /**
+     * Wakes up the Framer if it's parked waiting for TCP data, can be called from any thread.
+     */
+    void wakeUp()
+    {
+        if (idleParkTimeoutInMs != NO_FRAMER_IDLE_PARK)
+        {
+            receiverEndPoints.wakeUp();
+        }
     }
 
     private void checkOutboundTimestampSender(final long timeInNs)
@@ -443,9 +508,14 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 
     private int sendOutboundMessages()
     {
-        return fixPSenderEndPoints.reattempt() +
+        final int messagesRead = fixPSenderEndPoints.reattempt() +
             librarySubscription.controlledPoll(librarySubscriber, outboundLibraryFragmentLimit) +
             adminEngineSubscription.poll(adminEngineProtocolSubscription, outboundLibraryFragmentLimit);
+
+        // A no-op unless coalesceOutboundWrites is enabled
+        fixSenderEndPoints.flushCoalescedWrites();
+
+        return messagesRead;
     }
 
     private int pollLibraries(final long timeInMs)
@@ -1366,6 +1436,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         catch (final Exception ex)
         {
             fixContexts.onDisconnect(sessionContext.sessionId());
+            library.connectionFinishesConnecting(correlationId);
             return saveError(UNABLE_TO_CONNECT, libraryId, correlationId, ex);
         }
 
@@ -1779,8 +1850,9 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 
     public Action onDisconnect(final int libraryId, final long connectionId, final DisconnectReason reason)
     {
-        receiverEndPoints.removeConnection(connectionId, reason);
+        // Remove the sender first so that any coalesced writes can be flushed before the channel is closed
         fixSenderEndPoints.removeConnection(connectionId);
+        receiverEndPoints.removeConnection(connectionId, reason);
         fixPSenderEndPoints.removeConnection(connectionId);
         gatewaySessions.releaseByConnectionId(connectionId);
         fixPContexts.onDisconnect(connectionId);
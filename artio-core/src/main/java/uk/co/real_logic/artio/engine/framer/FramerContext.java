@@ -224,11 +224,22 @@ public class FramerContext
         return framer;
     }
 
+    private boolean offerAdminCommand(final AdminCommand command)
+    {
+        if (adminCommands.offer(command))
+        {
+            framer.wakeUp();
+            return true;
+        }
+
+        return false;
+    }
+
     public Reply<List<LibraryInfo>> libraries()
     {
         final QueryLibrariesCommand reply = new QueryLibrariesCommand();
 
-        if (adminCommands.offer(reply))
+        if (offerAdminCommand(reply))
         {
             return reply;
         }
@@ -248,7 +259,7 @@ public class FramerContext
             outboundPublication,
             configuration.epochNanoClock().nanoTime());
 
-        if (adminCommands.offer(reply))
+        if (offerAdminCommand(reply))
         {
             return reply;
         }
@@ -274,7 +285,7 @@ public class FramerContext
         }
 
         final ResetSessionIdsCommand command = new ResetSessionIdsCommand(backupLocation);
-        if (adminCommands.offer(command))
+        if (offerAdminCommand(command))
         {
             return command;
         }
@@ -286,7 +297,7 @@ public class FramerContext
     {
         final IdleStrategy idleStrategy = CommonConfiguration.backoffIdleStrategy();
         final DisconnectAllCommand command = new DisconnectAllCommand();
-        while (!adminCommands.offer(command))
+        while (!offerAdminCommand(command))
         {
             idleStrategy.idle();
         }
@@ -322,7 +333,7 @@ public class FramerContext
             localLocationId,
             remoteLocationId);
 
-        if (adminCommands.offer(command))
+        if (offerAdminCommand(command))
         {
             return command;
         }
@@ -340,7 +351,7 @@ public class FramerContext
             return command;
         }
 
-        if (adminCommands.offer(command))
+        if (offerAdminCommand(command))
         {
             return command;
         }
@@ -352,7 +363,7 @@ public class FramerContext
     {
         final UnbindCommand command = new UnbindCommand(disconnect);
 
-        if (adminCommands.offer(command))
+        if (offerAdminCommand(command))
         {
             return command;
         }
@@ -362,7 +373,15 @@ public class FramerContext
 
     public boolean offer(final AdminCommand command)
     {
-        return adminCommands.offer(command);
+        return offerAdminCommand(command);
+    }
+
+    /**
+     * Wakes up the Framer if it's parked waiting for TCP data, can be called from any thread.
+     */
+    public void wakeUpFramer()
+    {
+        framer.wakeUp();
     }
 
     public List<SessionInfo> allSessions()
@@ -380,7 +399,7 @@ public class FramerContext
         final PositionRequestCommand command = new PositionRequestCommand(
             libraryId);
 
-        if (adminCommands.offer(command))
+        if (offerAdminCommand(command))
         {
             return command;
         }
@@ -403,7 +422,7 @@ public class FramerContext
         // block the framer thread
         final EngineScheduler scheduler = configuration.scheduler();
 
-        while (!adminCommands.offer(command) && !startingClose)
+        while (!offerAdminCommand(command) && !startingClose)
         {
             idleStrategy.idle(scheduler.pollFramer());
         }
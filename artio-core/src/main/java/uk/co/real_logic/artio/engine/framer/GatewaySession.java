@@ -17,8 +17,9 @@ package uk.co.real_logic.artio.engine.framer;
 
 import uk.co.real_logic.artio.engine.AbstractConnectedSessionInfo;
 import uk.co.real_logic.artio.messages.ConnectionType;
+import uk.co.real_logic.artio.session.SessionTimerWheel;
 
-abstract class GatewaySession implements AbstractConnectedSessionInfo
+abstract class GatewaySession implements AbstractConnectedSessionInfo, SessionTimerWheel.Entry
 {
     protected static final int NO_TIMEOUT = -1;
 
@@ -37,6 +38,10 @@ abstract class GatewaySession implements AbstractConnectedSessionInfo
     // Only set when owned by gateway, in case that library reconnects.
     protected int lastLibraryId;
 
+    protected final Runnable wakeUp = this::wakeUp;
+    private SessionTimerWheel<GatewaySession> timerWheel;
+    private long pollTimerId = SessionTimerWheel.NOT_TRACKED;
+
     GatewaySession(
         final long connectionId,
         final long sessionId,
@@ -71,16 +76,50 @@ abstract class GatewaySession implements AbstractConnectedSessionInfo
     {
         hasStartedAuthentication = true;
         disconnectTimeInMs = timeInMs + authenticationTimeoutInMs;
+        wakeUp();
     }
 
     void onAuthenticationResult()
     {
         disconnectTimeInMs = NO_TIMEOUT;
+        wakeUp();
     }
 
     void disconnectAt(final long disconnectTimeout)
     {
         this.disconnectTimeInMs = disconnectTimeout;
+        wakeUp();
+    }
+
+    // Disconnect timeouts are in the millisecond clock's domain rather than the nanosecond clock's, so
+    // connections awaiting a logon or an authentication result are polled on every duty cycle.
+    public long nextPollTimeInNs()
+    {
+        return disconnectTimeInMs == NO_TIMEOUT ? SessionTimerWheel.NO_DEADLINE : 0;
+    }
+
+    public long pollTimerId()
+    {
+        return pollTimerId;
+    }
+
+    public void pollTimerId(final long pollTimerId)
+    {
+        this.pollTimerId = pollTimerId;
+    }
+
+    void timerWheel(final SessionTimerWheel<GatewaySession> timerWheel)
+    {
+        this.timerWheel = timerWheel;
+    }
+
+    void wakeUp()
+    {
+        final SessionTimerWheel<GatewaySession> timerWheel = this.timerWheel;
+        if (timerWheel != null)
+        {
+            timerWheel.wakeUp(this);
+        }
     }
 
     boolean hasDisconnected()
@@ -24,6 +24,7 @@ import uk.co.real_logic.artio.FixGatewayException;
 import uk.co.real_logic.artio.engine.logger.SequenceNumberIndexReader;
 import uk.co.real_logic.artio.messages.DisconnectReason;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
+import uk.co.real_logic.artio.session.SessionTimerWheel;
 import uk.co.real_logic.artio.util.CharFormatter;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 import uk.co.real_logic.artio.validation.AbstractAuthenticationProxy;
@@ -43,6 +44,9 @@ abstract class GatewaySessions
     protected final LongHashSet disconnectedSessionIds = new LongHashSet();
     protected final CharFormatter acquiredConnection = new CharFormatter("Gateway Acquired Connection %s");
     protected final List<GatewaySession> sessions = new ArrayList<>();
+    // Polls the sessions in the sessions list when they have a deadline due
+    protected final SessionTimerWheel<GatewaySession> timerWheel = new SessionTimerWheel<>();
+    private final SessionTimerWheel.Poller<GatewaySession> pollSession = this::pollSession;
     protected final EpochClock epochClock;
     protected final GatewayPublication inboundPublication;
     protected final GatewayPublication outboundPublication;
@@ -50,6 +54,8 @@ abstract class GatewaySessions
     protected final SequenceNumberIndexReader receivedSequenceNumberIndex;
     protected ErrorHandler errorHandler;
 
+    private long timeInMs;
+
     GatewaySessions(
         final EpochClock epochClock,
         final GatewayPublication inboundPublication,
@@ -89,7 +95,9 @@ abstract class GatewaySessions
             return null;
         }
 
-        return sessions.remove(index);
+        final GatewaySession session = sessions.remove(index);
+        timerWheel.remove(session);
+        return session;
     }
 
     GatewaySession sessionById(final long sessionId)
@@ -129,6 +137,7 @@ abstract class GatewaySessions
         final GatewaySession session = removeSessionByConnectionId(connectionId, sessions);
         if (session != null)
         {
+            timerWheel.remove(session);
             session.onDisconnectReleasedByOwner();
             session.close();
 
@@ -142,23 +151,25 @@ abstract class GatewaySessions
 
     int pollSessions(final long timeInMs, final long timeInNs)
     {
-        final List<GatewaySession> sessions = this.sessions;
+        this.timeInMs = timeInMs;
+        return timerWheel.poll(timeInNs, pollSession);
+    }
 
-        int eventsProcessed = 0;
-        for (int i = 0, size = sessions.size(); i < size;)
-        {
-            final GatewaySession session = sessions.get(i);
-            eventsProcessed += session.poll(timeInMs, timeInNs);
-            if (session.hasDisconnected())
-            {
-                size--;
-            }
-            else
-            {
-                i++;
-            }
-        }
-        return eventsProcessed;
+    long nextDeadlineInNs(final long timeInNs)
+    {
+        return timerWheel.nextDeadlineInNs(timeInNs);
+    }
+
+    private int pollSession(final GatewaySession session, final long timeInNs)
+    {
+        return session.poll(timeInMs, timeInNs);
+    }
+
+    protected void addSession(final GatewaySession gatewaySession)
+    {
+        sessions.add(gatewaySession);
+        gatewaySession.timerWheel(timerWheel);
+        timerWheel.add(gatewaySession);
     }
 
     List<GatewaySession> sessions()
@@ -197,7 +208,7 @@ abstract class GatewaySessions
     // But we aren't actually acquiring the session.
     void track(final GatewaySession gatewaySession)
     {
-        sessions.add(gatewaySession);
+        addSession(gatewaySession);
     }
 
     public LongHashSet findDisconnectedSessions(final int libraryId)
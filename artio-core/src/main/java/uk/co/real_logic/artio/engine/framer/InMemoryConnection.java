@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+
+/**
+ * One end of a connection made through an {@link InMemoryTcpChannelSupplier}. Behaves like a non-blocking
+ * {@link java.nio.channels.SocketChannel}: reads and writes may be partial, reads return 0 when there's nothing to
+ * read and -1 once the other end has closed the connection.
+ *
+ * Each end must only be read by one thread and written by one thread.
+ */
+public final class InMemoryConnection implements ByteChannel
+{
+    private final InMemoryPipe inbound;
+    private final InMemoryPipe outbound;
+    private final String remoteAddress;
+
+    private InMemoryConnection(final InMemoryPipe inbound, final InMemoryPipe outbound, final String remoteAddress)
+    {
+        this.inbound = inbound;
+        this.outbound = outbound;
+        this.remoteAddress = remoteAddress;
+    }
+
+    /**
+     * Create both ends of a connection.
+     *
+     * @param name a name for the connection, used as the remote address of both ends.
+     * @param capacityTowardsAcceptor the number of bytes that can be buffered from the initiator to the acceptor.
+     * @param capacityTowardsInitiator the number of bytes that can be buffered from the acceptor to the initiator.
+     * @return an array containing the initiator's end followed by the acceptor's end.
+     */
+    static InMemoryConnection[] newPair(
+        final String name, final int capacityTowardsAcceptor, final int capacityTowardsInitiator)
+    {
+        final InMemoryPipe towardsAcceptor = new InMemoryPipe(capacityTowardsAcceptor);
+        final InMemoryPipe towardsInitiator = new InMemoryPipe(capacityTowardsInitiator);
+
+        return new InMemoryConnection[]
+        {
+            new InMemoryConnection(towardsInitiator, towardsAcceptor, name),
+            new InMemoryConnection(towardsAcceptor, towardsInitiator, name),
+        };
+    }
+
+    public String remoteAddress()
+    {
+        return remoteAddress;
+    }
+
+    public int read(final ByteBuffer dst)
+    {
+        return inbound.read(dst);
+    }
+
+    public int write(final ByteBuffer src) throws IOException
+    {
+        return outbound.write(src);
+    }
+
+    public boolean isOpen()
+    {
+        return !outbound.isClosed();
+    }
+
+    /**
+     * Closes both directions of the connection, the other end reads any bytes already written and then -1.
+     */
+    public void close()
+    {
+        outbound.close();
+        inbound.close();
+    }
+
+    public String toString()
+    {
+        return "InMemoryConnection{" +
+            "remoteAddress='" + remoteAddress + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.BitUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
+
+/**
+ * A single producer, single consumer stream of bytes between two threads in the same process. Writes and reads are
+ * partial in the same way as a non-blocking TCP socket: a write only copies what fits into the free space and a read
+ * only copies what has been written so far.
+ */
+final class InMemoryPipe
+{
+    private static final int HEAD_POSITION_OFFSET = CACHE_LINE_LENGTH * 2;
+    private static final int TAIL_POSITION_OFFSET = HEAD_POSITION_OFFSET + CACHE_LINE_LENGTH * 2;
+    private static final int TRAILER_LENGTH = TAIL_POSITION_OFFSET + CACHE_LINE_LENGTH * 2;
+
+    private final UnsafeBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final int headPositionIndex;
+    private final int tailPositionIndex;
+
+    private volatile boolean closed;
+
+    InMemoryPipe(final int capacity)
+    {
+        this.capacity = BitUtil.findNextPositivePowerOfTwo(capacity);
+        mask = this.capacity - 1;
+        buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(this.capacity + TRAILER_LENGTH));
+        headPositionIndex = this.capacity + HEAD_POSITION_OFFSET;
+        tailPositionIndex = this.capacity + TAIL_POSITION_OFFSET;
+    }
+
+    int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Copy as many of the remaining bytes of <code>src</code> as there is space for. Must only be called from the
+     * producing thread.
+     *
+     * @param src the buffer to copy from, its position is advanced by the number of bytes copied.
+     * @return the number of bytes copied, 0 if the pipe is full.
+     * @throws IOException if the pipe has been closed.
+     */
+    int write(final ByteBuffer src) throws IOException
+    {
+        if (closed)
+        {
+            throw new ClosedChannelException();
+        }
+
+        final UnsafeBuffer buffer = this.buffer;
+        final int capacity = this.capacity;
+        final long tail = buffer.getLong(tailPositionIndex);
+        final long head = buffer.getLongVolatile(headPositionIndex);
+        final int available = capacity - (int)(tail - head);
+        final int length = Math.min(available, src.remaining());
+        if (length == 0)
+        {
+            return 0;
+        }
+
+        final int srcPosition = src.position();
+        final int index = (int)tail & mask;
+        final int firstLength = Math.min(length, capacity - index);
+        buffer.putBytes(index, src, srcPosition, firstLength);
+        if (firstLength < length)
+        {
+            buffer.putBytes(0, src, srcPosition + firstLength, length - firstLength);
+        }
+        src.position(srcPosition + length);
+
+        buffer.putLongOrdered(tailPositionIndex, tail + length);
+
+        return length;
+    }
+
+    /**
+     * Copy as many bytes as have been written and fit into <code>dst</code>. Must only be called from the consuming
+     * thread.
+     *
+     * @param dst the buffer to copy into, its position is advanced by the number of bytes copied.
+     * @return the number of bytes copied, or -1 if the pipe has been closed and all its bytes have been read.
+     */
+    int read(final ByteBuffer dst)
+    {
+        // Read the closed flag before the tail so that bytes written before the close are never lost.
+        final boolean closed = this.closed;
+        final UnsafeBuffer buffer = this.buffer;
+        final long head = buffer.getLong(headPositionIndex);
+        final long tail = buffer.getLongVolatile(tailPositionIndex);
+        final int length = Math.min((int)(tail - head), dst.remaining());
+        if (length == 0)
+        {
+            return closed && tail == head ? -1 : 0;
+        }
+
+        final int dstPosition = dst.position();
+        final int index = (int)head & mask;
+        final int firstLength = Math.min(length, capacity - index);
+        buffer.getBytes(index, dst, dstPosition, firstLength);
+        if (firstLength < length)
+        {
+            buffer.getBytes(0, dst, dstPosition + firstLength, length - firstLength);
+        }
+        dst.position(dstPosition + length);
+
+        buffer.putLongOrdered(headPositionIndex, head + length);
+
+        return length;
+    }
+
+    boolean isClosed()
+    {
+        return closed;
+    }
+
+    void close()
+    {
+        closed = true;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * The engine's side of an {@link InMemoryConnection}.
+ */
+class InMemoryTcpChannel extends TcpChannel
+{
+    private final InMemoryConnection connection;
+
+    InMemoryTcpChannel(final InMemoryConnection connection) throws IOException
+    {
+        super(connection.remoteAddress());
+        this.connection = connection;
+    }
+
+    public SelectionKey register(final Selector sel, final int ops, final Object att)
+    {
+        return null; // not selectable, ReceiverEndPoints polls these end points directly
+    }
+
+    public int write(final ByteBuffer src, final int seqNum, final boolean replay) throws IOException
+    {
+        return connection.write(src);
+    }
+
+    public int read(final ByteBuffer dst)
+    {
+        return connection.read(dst);
+    }
+
+    public void close()
+    {
+        connection.close();
+    }
+
+    public void onReplayComplete(final long correlationId)
+    {
+    }
+}
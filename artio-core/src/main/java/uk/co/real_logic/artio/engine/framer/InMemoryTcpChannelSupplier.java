@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.LangUtil;
+import org.agrona.concurrent.ManyToOneConcurrentLinkedQueue;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static uk.co.real_logic.artio.messages.InitialAcceptedSessionOwner.SOLE_LIBRARY;
+
+/**
+ * A {@link TcpChannelSupplier} that connects to other parts of the same process through shared memory ring buffers
+ * rather than the kernel's network stack. This lets the costs of the Framer, indexers and libraries be measured
+ * without the noise of the network, for example:
+ *
+ * <pre>
+ * configuration.channelSupplierFactory(InMemoryTcpChannelSupplier::new);
+ * ...
+ * final InMemoryConnection connection = InMemoryTcpChannelSupplier.connect(configuration.bindAddress());
+ * </pre>
+ *
+ * Suppliers are bound by the port of {@link EngineConfiguration#bindAddress()}, the host is ignored. The buffer
+ * sizes of each connection are taken from {@link EngineConfiguration#receiverSocketBufferSize()} and
+ * {@link EngineConfiguration#senderSocketBufferSize()}. End points using these channels can't be registered with a
+ * selector so they are always polled. Connecting to a port that nothing is bound to fails straight away.
+ */
+public class InMemoryTcpChannelSupplier extends TcpChannelSupplier
+{
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ConcurrentHashMap<Integer, InMemoryTcpChannelSupplier> BOUND_SUPPLIERS =
+        new ConcurrentHashMap<>();
+    private static final AtomicLong CONNECTION_COUNTER = new AtomicLong();
+
+    private final ManyToOneConcurrentLinkedQueue<InMemoryConnection> acceptedConnections =
+        new ManyToOneConcurrentLinkedQueue<>();
+    private final List<PendingConnect> pendingConnects = new ArrayList<>();
+    private final EngineConfiguration configuration;
+    private final int receiveBufferSize;
+    private final int sendBufferSize;
+
+    // Written by the Framer thread, read by connecting threads so that a connect racing an unbind is refused
+    private volatile boolean bound;
+
+    public InMemoryTcpChannelSupplier(final EngineConfiguration configuration)
+    {
+        this.configuration = configuration;
+        receiveBufferSize = bufferSize(configuration.receiverSocketBufferSize());
+        sendBufferSize = bufferSize(configuration.senderSocketBufferSize());
+
+        if (configuration.bindAtStartup() && configuration.initialAcceptedSessionOwner() != SOLE_LIBRARY)
+        {
+            try
+            {
+                bind();
+            }
+            catch (final BindException ex)
+            {
+                LangUtil.rethrowUnchecked(ex);
+            }
+        }
+    }
+
+    /**
+     * Connect to the supplier that is bound to the port of the given address.
+     *
+     * @param address the address that the engine is bound to.
+     * @return the initiator's end of the connection.
+     * @throws ConnectException if no supplier is bound to the port of the address.
+     */
+    public static InMemoryConnection connect(final InetSocketAddress address) throws ConnectException
+    {
+        final InMemoryTcpChannelSupplier supplier = BOUND_SUPPLIERS.get(address.getPort());
+        if (supplier == null)
+        {
+            throw new ConnectException("Connection refused, nothing bound in memory to: " + address);
+        }
+
+        return supplier.accept(address);
+    }
+
+    /**
+     * Check whether a supplier is bound to the port of the given address, useful for waiting until an engine in the
+     * same process is ready to accept connections.
+     *
+     * @param address the address to check.
+     * @return true if a supplier is bound to the port of the address, false otherwise.
+     */
+    public static boolean isBound(final InetSocketAddress address)
+    {
+        return BOUND_SUPPLIERS.containsKey(address.getPort());
+    }
+
+    private InMemoryConnection accept(final InetSocketAddress address) throws ConnectException
+    {
+        final String name = "in-memory:" + CONNECTION_COUNTER.incrementAndGet();
+        final InMemoryConnection[] pair = InMemoryConnection.newPair(name, receiveBufferSize, sendBufferSize);
+        acceptedConnections.offer(pair[1]);
+
+        // Unbinding clears the flag before draining the queue, so either the drain closes the connection or it's
+        // refused here. The acceptor's end is closed and discarded when the supplier is next bound.
+        if (!bound)
+        {
+            pair[0].close();
+            throw new ConnectException("Connection refused, unbound in memory from: " + address);
+        }
+
+        return pair[0];
+    }
+
+    public void open(final InetSocketAddress address, final InitiatedChannelHandler channelHandler)
+        throws ConnectException
+    {
+        // A refused connect throws straight away, otherwise it's completed on the next poll in order to keep the
+        // asynchronous semantics of a TCP connect
+        pendingConnects.add(new PendingConnect(address, channelHandler, connect(address)));
+    }
+
+    public void stopConnecting(final InetSocketAddress address)
+    {
+        final List<PendingConnect> pendingConnects = this.pendingConnects;
+        for (int i = 0, size = pendingConnects.size(); i < size; i++)
+        {
+            final PendingConnect pendingConnect = pendingConnects.get(i);
+            if (pendingConnect.address.equals(address))
+            {
+                pendingConnects.remove(i);
+                pendingConnect.connection.close();
+                break;
+            }
+        }
+    }
+
+    public int pollSelector(final long timeInMs, final NewChannelHandler handler) throws IOException
+    {
+        int count = 0;
+
+        final List<PendingConnect> pendingConnects = this.pendingConnects;
+        if (!pendingConnects.isEmpty())
+        {
+            for (int i = 0, size = pendingConnects.size(); i < size; i++)
+            {
+                final PendingConnect pendingConnect = pendingConnects.get(i);
+                final InMemoryConnection connection = pendingConnect.connection;
+                pendingConnect.channelHandler.onInitiatedChannel(new InMemoryTcpChannel(connection), null);
+            }
+            count += pendingConnects.size();
+            pendingConnects.clear();
+        }
+
+        if (bound)
+        {
+            InMemoryConnection connection;
+            while ((connection = acceptedConnections.poll()) != null)
+            {
+                handler.onNewChannel(timeInMs, new InMemoryTcpChannel(connection));
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public void unbind()
+    {
+        if (bound)
+        {
+            BOUND_SUPPLIERS.remove(configuration.bindAddress().getPort(), this);
+            bound = false;
+
+            // Like closing a listening socket, any connections that haven't been accepted yet are dropped
+            closeUnacceptedConnections();
+        }
+    }
+
+    public void bind() throws BindException
+    {
+        if (configuration.hasBindAddress() && !bound)
+        {
+            // Connections refused whilst unbound
+            closeUnacceptedConnections();
+
+            // Set before publishing the supplier so that connects which find it aren't refused
+            bound = true;
+            final InetSocketAddress bindAddress = configuration.bindAddress();
+            final InMemoryTcpChannelSupplier existing = BOUND_SUPPLIERS.putIfAbsent(bindAddress.getPort(), this);
+            if (existing != null)
+            {
+                bound = false;
+                throw new BindException("Address already bound in memory: " + bindAddress);
+            }
+        }
+    }
+
+    private void closeUnacceptedConnections()
+    {
+        InMemoryConnection connection;
+        while ((connection = acceptedConnections.poll()) != null)
+        {
+            connection.close();
+        }
+    }
+
+    public void close()
+    {
+        unbind();
+        closeUnacceptedConnections();
+
+        for (final PendingConnect pendingConnect : pendingConnects)
+        {
+            pendingConnect.connection.close();
+        }
+        pendingConnects.clear();
+    }
+
+    private static int bufferSize(final int socketBufferSize)
+    {
+        return socketBufferSize > 0 ? socketBufferSize : DEFAULT_BUFFER_SIZE;
+    }
+
+    static final class PendingConnect
+    {
+        private final InetSocketAddress address;
+        private final InitiatedChannelHandler channelHandler;
+        private final InMemoryConnection connection;
+
+        PendingConnect(
+            final InetSocketAddress address,
+            final InitiatedChannelHandler channelHandler,
+            final InMemoryConnection connection)
+        {
+            this.address = address;
+            this.channelHandler = channelHandler;
+            this.connection = connection;
+        }
+    }
+}
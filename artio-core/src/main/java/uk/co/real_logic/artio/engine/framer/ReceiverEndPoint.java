@@ -126,6 +126,14 @@ public abstract class ReceiverEndPoint
     }
 
     final boolean shouldThrottle(final long readTimestampInNs)
+    {
+        final boolean throttled = wouldThrottle(readTimestampInNs);
+        countTowardsThrottle(readTimestampInNs);
+        return throttled;
+    }
+
+    // Checks the throttle without counting the message towards it, see countTowardsThrottle()
+    final boolean wouldThrottle(final long readTimestampInNs)
     {
         final long throttleWindowInNs = this.throttleWindowInNs;
         if (throttleWindowInNs == MISSING_LONG)
@@ -133,22 +141,26 @@ public abstract class ReceiverEndPoint
             return false;
         }
 
-        final long[] lastMessageTimestampsInNs = this.lastMessageTimestampsInNs;
-        final int lastMessageTimestampsMask = this.lastMessageTimestampsInNsMask;
-        final int throttlePosition = this.throttlePosition;
-
         final int oldestMessagePosition = throttlePosition - throttleLimitOfMessages;
-        final int oldestMessageIndex = oldestMessagePosition & lastMessageTimestampsMask;
+        final int oldestMessageIndex = oldestMessagePosition & lastMessageTimestampsInNsMask;
         final long oldestMessageTimestampInNs = lastMessageTimestampsInNs[oldestMessageIndex];
 
-        final int currentIndex = throttlePosition & lastMessageTimestampsMask;
-        lastMessageTimestampsInNs[currentIndex] = readTimestampInNs;
-        this.throttlePosition = throttlePosition + 1;
-
         final long timeAgoOfOldestMessageInNs = readTimestampInNs - oldestMessageTimestampInNs;
         return timeAgoOfOldestMessageInNs < throttleWindowInNs;
     }
 
+    final void countTowardsThrottle(final long readTimestampInNs)
+    {
+        if (throttleWindowInNs == MISSING_LONG)
+        {
+            return;
+        }
+
+        final int throttlePosition = this.throttlePosition;
+        lastMessageTimestampsInNs[throttlePosition & lastMessageTimestampsInNsMask] = readTimestampInNs;
+        this.throttlePosition = throttlePosition + 1;
+    }
+
     long connectionId()
     {
         return connectionId;
@@ -159,6 +171,11 @@ public abstract class ReceiverEndPoint
         selectionKey = channel.register(selector, OP_READ, this);
     }
 
+    boolean isRegistered()
+    {
+        return selectionKey != null;
+    }
+
     void onDisconnectDetected()
     {
         completeDisconnect(REMOTE_DISCONNECT);
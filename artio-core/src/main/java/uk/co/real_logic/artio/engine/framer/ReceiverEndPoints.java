@@ -24,6 +24,7 @@ import uk.co.real_logic.artio.messages.DisconnectReason;
 import java.io.IOException;
 import java.nio.channels.SelectionKey;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.LongConsumer;
 import java.util.stream.Stream;
 
@@ -38,6 +39,10 @@ class ReceiverEndPoints extends TransportPoller
         ARTIO_ITERATION_THRESHOLD_PROP_NAME, ITERATION_THRESHOLD_DEFAULT);
 
     private final ErrorHandler errorHandler;
+    // Set by the first wakeUp() since the last park started, so that producers only make a wakeup system call once per
+    // park. The selectNow() calls of a duty cycle can consume that wakeup, so a park that finds the flag set doesn't
+    // block, as whatever the producer offered may not have been seen yet.
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
 
     // Authentication flow requires periodic polling of the receiver end points until the authentication is
     // complete, so these endpoints are always polled, rather than using the selector.
@@ -46,6 +51,9 @@ class ReceiverEndPoints extends TransportPoller
     // An endpoint that has read data out of the TCP layer but has been back-pressured when attempting to write
     // the data into the Aeron stream.
     private ReceiverEndPoint backpressuredEndPoint = null;
+    // Set once an endpoint whose channel can't be registered with the selector, eg an in-memory channel, is added.
+    // From then on the normal endpoints are always iterated over rather than selected.
+    private boolean hasUnselectableEndPoints = false;
 
     ReceiverEndPoints(final ErrorHandler errorHandler)
     {
@@ -77,6 +85,7 @@ class ReceiverEndPoints extends TransportPoller
             if (register)
             {
                 endPoint.register(selector);
+                hasUnselectableEndPoints |= !endPoint.isRegistered();
             }
         }
         catch (final IOException ex)
@@ -181,6 +190,46 @@ class ReceiverEndPoints extends TransportPoller
         }
     }
 
+    // Blocks until an endpoint registered with the selector has data to read, the selector is woken up or the
+    // timeout expires. Returns false without blocking if some endpoints have to be polled regardless of the selector.
+    boolean park(final long timeoutInMs)
+    {
+        if (requiredPollingEndPoints.length != 0 || backpressuredEndPoint != null || hasUnselectableEndPoints)
+        {
+            return false;
+        }
+
+        try
+        {
+            // Cleared before selecting, so any later wakeUp() makes the system call and ends this park.
+            if (wakeUpPending.getAndSet(false))
+            {
+                selector.selectNow();
+            }
+            else
+            {
+                selector.select(timeoutInMs);
+            }
+            // Ready endpoints are found again by the next poll, whether it selects or iterates over the endpoints.
+            selectedKeySet.reset();
+        }
+        catch (final IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        return true;
+    }
+
+    // Can be called from any thread. A wakeup before the park starts makes the park return immediately.
+    void wakeUp()
+    {
+        if (!wakeUpPending.get() && wakeUpPending.compareAndSet(false, true))
+        {
+            selector.wakeup();
+        }
+    }
+
     int pollEndPoints()
     {
         int bytesReceived = 0;
@@ -220,7 +269,7 @@ class ReceiverEndPoints extends TransportPoller
         final ReceiverEndPoint[] endPoints = this.endPoints;
         final int numEndPoints = endPoints.length;
         final int threshold = ARTIO_ITERATION_THRESHOLD - numRequiredPollingEndPoints;
-        if (numEndPoints <= threshold)
+        if (numEndPoints <= threshold || hasUnselectableEndPoints)
         {
             bytesReceived = pollArray(bytesReceived, endPoints, numEndPoints);
         }
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import io.aeron.logbuffer.ControlledFragmentHandler.Action;
+import org.agrona.BufferUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.util.AsciiSwar;
+
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.BitUtil.align;
+import static uk.co.real_logic.artio.dictionary.SessionConstants.SEQUENCE_RESET_MESSAGE_TYPE;
+import static uk.co.real_logic.artio.engine.SequenceNumberExtractor.NO_SEQUENCE_NUMBER;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+import static uk.co.real_logic.artio.util.MutableAsciiBuffer.SEPARATOR;
+
+/**
+ * Keeps the most recently received messages of a FIX connection so that a library that acquires the session can be
+ * caught up without starting an archive replay.
+ *
+ * This is a fixed capacity ring buffer of the messages that were published on the inbound library stream, in
+ * sequence number order. Only an unbroken run of sequence numbers within a single sequence index is kept, anything
+ * that breaks the run - a sequence reset, a throttled message, a back-pressured message batch - empties the ring and
+ * catchup for earlier messages is served from the archive.
+ */
+class RecentInboundMessages
+{
+    private static final int RECORD_LENGTH_OFFSET = 0;
+    private static final int SEQUENCE_NUMBER_OFFSET = RECORD_LENGTH_OFFSET + SIZE_OF_INT;
+    private static final int MESSAGE_TYPE_OFFSET = SEQUENCE_NUMBER_OFFSET + SIZE_OF_INT;
+    private static final int TIMESTAMP_OFFSET = MESSAGE_TYPE_OFFSET + SIZE_OF_LONG;
+    private static final int MESSAGE_LENGTH_OFFSET = TIMESTAMP_OFFSET + SIZE_OF_LONG;
+    private static final int RECORD_HEADER_LENGTH = MESSAGE_LENGTH_OFFSET + SIZE_OF_INT;
+    private static final int RECORD_ALIGNMENT = SIZE_OF_LONG;
+    private static final int PADDING_SEQUENCE_NUMBER = NO_SEQUENCE_NUMBER;
+
+    private static final byte[] MSG_SEQ_NUM_PREFIX = { '3', '4', '=' };
+
+    private final UnsafeBuffer buffer;
+    private final int capacity;
+
+    private int head;
+    private int tail;
+    private int size;
+    private int sequenceIndex;
+    private int firstSeqNo;
+    private int lastSeqNo;
+
+    RecentInboundMessages(final int capacity)
+    {
+        this.capacity = capacity & ~(RECORD_ALIGNMENT - 1);
+        buffer = new UnsafeBuffer(BufferUtil.allocateDirectAligned(this.capacity, RECORD_ALIGNMENT));
+        reset();
+    }
+
+    void reset()
+    {
+        head = 0;
+        tail = 0;
+        size = 0;
+        sequenceIndex = NO_SEQUENCE_NUMBER;
+        firstSeqNo = NO_SEQUENCE_NUMBER;
+        lastSeqNo = NO_SEQUENCE_NUMBER;
+    }
+
+    void onMessage(
+        final DirectBuffer srcBuffer,
+        final int srcOffset,
+        final int srcLength,
+        final long messageType,
+        final int sequenceIndex,
+        final long timestamp)
+    {
+        final int sequenceNumber = msgSeqNum(srcBuffer, srcOffset, srcLength);
+        // Sequence resets are skipped so that every record corresponds to exactly one sequence number.
+        if (sequenceNumber == NO_SEQUENCE_NUMBER || messageType == SEQUENCE_RESET_MESSAGE_TYPE)
+        {
+            reset();
+            return;
+        }
+
+        append(sequenceNumber, sequenceIndex, messageType, timestamp, srcBuffer, srcOffset, srcLength);
+    }
+
+    private void append(
+        final int sequenceNumber,
+        final int sequenceIndex,
+        final long messageType,
+        final long timestamp,
+        final DirectBuffer srcBuffer,
+        final int srcOffset,
+        final int srcLength)
+    {
+        final int recordLength = align(RECORD_HEADER_LENGTH + srcLength, RECORD_ALIGNMENT);
+        if (recordLength > capacity)
+        {
+            reset();
+            return;
+        }
+
+        if (size == 0 || sequenceIndex != this.sequenceIndex || sequenceNumber != lastSeqNo + 1)
+        {
+            reset();
+            this.sequenceIndex = sequenceIndex;
+            firstSeqNo = sequenceNumber;
+        }
+
+        final UnsafeBuffer buffer = this.buffer;
+        final int remainingBeforeWrap = capacity - tail;
+        if (recordLength > remainingBeforeWrap)
+        {
+            if (evict(remainingBeforeWrap + recordLength))
+            {
+                buffer.putInt(tail + RECORD_LENGTH_OFFSET, remainingBeforeWrap);
+                buffer.putInt(tail + SEQUENCE_NUMBER_OFFSET, PADDING_SEQUENCE_NUMBER);
+                size += remainingBeforeWrap;
+                tail = 0;
+            }
+        }
+        else
+        {
+            evict(recordLength);
+        }
+
+        buffer.putInt(tail + RECORD_LENGTH_OFFSET, recordLength);
+        buffer.putInt(tail + SEQUENCE_NUMBER_OFFSET, sequenceNumber);
+        buffer.putLong(tail + MESSAGE_TYPE_OFFSET, messageType);
+        buffer.putLong(tail + TIMESTAMP_OFFSET, timestamp);
+        buffer.putInt(tail + MESSAGE_LENGTH_OFFSET, srcLength);
+        buffer.putBytes(tail + RECORD_HEADER_LENGTH, srcBuffer, srcOffset, srcLength);
+        size += recordLength;
+        tail += recordLength;
+        if (tail == capacity)
+        {
+            tail = 0;
+        }
+        lastSeqNo = sequenceNumber;
+    }
+
+    /**
+     * Evict the oldest records until there's enough free space.
+     *
+     * @return true if records remain, false if the ring has been emptied and writes restart from its beginning.
+     */
+    private boolean evict(final int requiredLength)
+    {
+        final UnsafeBuffer buffer = this.buffer;
+        while (size > 0 && capacity - size < requiredLength)
+        {
+            final int recordLength = buffer.getInt(head + RECORD_LENGTH_OFFSET);
+            final int sequenceNumber = buffer.getInt(head + SEQUENCE_NUMBER_OFFSET);
+            if (sequenceNumber != PADDING_SEQUENCE_NUMBER)
+            {
+                // Sequence numbers within the ring are contiguous
+                firstSeqNo = sequenceNumber + 1;
+            }
+
+            size -= recordLength;
+            head += recordLength;
+            if (head == capacity)
+            {
+                head = 0;
+            }
+        }
+
+        if (size == 0)
+        {
+            head = 0;
+            tail = 0;
+            return false;
+        }
+
+        return true;
+    }
+
+    boolean contains(
+        final int beginSequenceIndex, final int beginSeqNo, final int endSequenceIndex, final int endSeqNo)
+    {
+        return size > 0 && beginSequenceIndex == sequenceIndex && endSequenceIndex == sequenceIndex &&
+            firstSeqNo <= beginSeqNo && beginSeqNo <= endSeqNo && endSeqNo <= lastSeqNo;
+    }
+
+    int sequenceIndex()
+    {
+        return sequenceIndex;
+    }
+
+    /**
+     * Copy out an inclusive range of sequence numbers, which must be within the ring, so that a catchup isn't
+     * affected by messages received whilst it is back-pressured.
+     *
+     * @return the copied messages.
+     */
+    Replay copy(final int beginSeqNo, final int endSeqNo)
+    {
+        final UnsafeBuffer buffer = this.buffer;
+
+        int offset = head;
+        int remaining = size;
+        while (true)
+        {
+            final int sequenceNumber = buffer.getInt(offset + SEQUENCE_NUMBER_OFFSET);
+            if (sequenceNumber != PADDING_SEQUENCE_NUMBER && sequenceNumber >= beginSeqNo)
+            {
+                break;
+            }
+            final int recordLength = buffer.getInt(offset + RECORD_LENGTH_OFFSET);
+            remaining -= recordLength;
+            offset += recordLength;
+            if (offset == capacity)
+            {
+                offset = 0;
+            }
+        }
+
+        final int messageCount = endSeqNo - beginSeqNo + 1;
+        final UnsafeBuffer replayBuffer = new UnsafeBuffer(new byte[remaining]);
+        int replayLength = 0;
+        int copied = 0;
+        while (copied < messageCount)
+        {
+            final int recordLength = buffer.getInt(offset + RECORD_LENGTH_OFFSET);
+            if (buffer.getInt(offset + SEQUENCE_NUMBER_OFFSET) != PADDING_SEQUENCE_NUMBER)
+            {
+                replayBuffer.putBytes(replayLength, buffer, offset, recordLength);
+                replayLength += recordLength;
+                copied++;
+            }
+            offset += recordLength;
+            if (offset == capacity)
+            {
+                offset = 0;
+            }
+        }
+
+        return new Replay(replayBuffer, replayLength);
+    }
+
+    void close()
+    {
+        BufferUtil.free(buffer);
+    }
+
+    static int msgSeqNum(final DirectBuffer buffer, final int offset, final int length)
+    {
+        final int end = offset + length;
+        final byte[] prefix = MSG_SEQ_NUM_PREFIX;
+        int separatorIndex = AsciiSwar.indexOf(buffer, offset, end, SEPARATOR);
+        while (separatorIndex != UNKNOWN_INDEX)
+        {
+            final int fieldOffset = separatorIndex + 1;
+            final int valueOffset = fieldOffset + prefix.length;
+            separatorIndex = AsciiSwar.indexOf(buffer, fieldOffset, end, SEPARATOR);
+            if (separatorIndex != UNKNOWN_INDEX && valueOffset < separatorIndex &&
+                buffer.getByte(fieldOffset) == prefix[0] &&
+                buffer.getByte(fieldOffset + 1) == prefix[1] &&
+                buffer.getByte(fieldOffset + 2) == prefix[2])
+            {
+                return natural(buffer, valueOffset, separatorIndex);
+            }
+        }
+
+        return NO_SEQUENCE_NUMBER;
+    }
+
+    private static int natural(final DirectBuffer buffer, final int offset, final int end)
+    {
+        int value = 0;
+        for (int i = offset; i < end; i++)
+        {
+            final int digit = buffer.getByte(i) - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return NO_SEQUENCE_NUMBER;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * A catchup from a snapshot of recently received messages. It is polled until it completes, retrying any
+     * message that is back-pressured.
+     */
+    static final class Replay
+    {
+        private final UnsafeBuffer buffer;
+        private final int length;
+
+        private int offset;
+
+        Replay(final UnsafeBuffer buffer, final int length)
+        {
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        boolean poll(final CatchupReplayer catchupReplayer)
+        {
+            final UnsafeBuffer buffer = this.buffer;
+            while (offset < length)
+            {
+                final Action action = catchupReplayer.onRecentMessage(
+                    buffer,
+                    offset + RECORD_HEADER_LENGTH,
+                    buffer.getInt(offset + MESSAGE_LENGTH_OFFSET),
+                    buffer.getLong(offset + MESSAGE_TYPE_OFFSET),
+                    buffer.getLong(offset + TIMESTAMP_OFFSET));
+                if (action == ABORT)
+                {
+                    return false;
+                }
+
+                offset += buffer.getInt(offset + RECORD_LENGTH_OFFSET);
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.archive.client.RecordingDescriptorConsumer;
+import org.agrona.ErrorHandler;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.EpochNanoClock;
+import uk.co.real_logic.artio.DebugLogger;
+import uk.co.real_logic.artio.util.CharFormatter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.aeron.Aeron.NULL_VALUE;
+import static io.aeron.archive.client.AeronArchive.segmentFileBasePosition;
+import static uk.co.real_logic.artio.LogTag.STATE_CLEANUP;
+
+/**
+ * Continuously prunes the archive according to a set of {@link RetentionPolicy}s. Runs on the replayer's thread as it
+ * shares the replayer's replay queries and archive client.
+ *
+ * Each evaluation queries a bounded number of sessions per duty cycle, then purges at most one recording per duty
+ * cycle and at most a configured number of segments per recording, so that a backlog of prunable data is removed
+ * incrementally over several evaluations rather than in one burst of purge I/O.
+ *
+ * A session based policy that retains none of the messages in a recording that has indexed messages lets it be pruned
+ * up to its last indexed message. Otherwise a recording is only pruned when every policy has found a position for it,
+ * so recordings whose messages aren't indexed, or whose stream can't be queried, are kept.
+ */
+public class ArchiveRetentionAgent implements Agent, RecordingDescriptorConsumer
+{
+    static final int SESSIONS_PER_DUTY_CYCLE = 16;
+
+    private enum State
+    {
+        WAITING,
+        QUERYING,
+        PURGING
+    }
+
+    private final CharFormatter purgeFormatter = new CharFormatter(
+        "ArchiveRetentionAgent: purging recordingId=%s,newStartPosition=%s,prunePosition=%s");
+
+    private final RetentionPolicy[] policies;
+    private final Long2LongHashMap[] policyPrunePositions;
+    private final Long2LongHashMap recordingIdToPrunePosition = new Long2LongHashMap(NULL_VALUE);
+    private final Long2LongHashMap lastIndexedPositions = new Long2LongHashMap(NULL_VALUE);
+    private final IndexQuery indexQuery = new IndexQuery();
+    private final Long2ObjectHashMap<PositionRange> recordingIdToPositionRange = new Long2ObjectHashMap<>();
+    private final ReplayQuery[] replayQueries;
+    private final TimeIndexReader[] timeIndexReaders;
+    private final AeronArchive aeronArchive;
+    private final EpochNanoClock clock;
+    private final ErrorHandler errorHandler;
+    private final long intervalInNs;
+    private final int maxSegmentsPerPurge;
+    private final String agentNamePrefix;
+
+    private State state = State.WAITING;
+    private long nextEvaluationTimeInNs;
+    private int replayQueryIndex;
+    private LongHashSet.LongIterator sessionIds;
+    private Long2LongHashMap.KeyIterator recordingIds;
+
+    private long recordingStartPosition;
+    private int termBufferLength;
+    private int segmentFileLength;
+
+    /**
+     * Constructor.
+     *
+     * @param policies the policies for which messages to keep, must not be empty.
+     * @param replayQueries the replay queries, on this agent's thread, of the streams that can be pruned.
+     * @param logFileDir the directory of the time index files.
+     * @param timeIndexStreamIds the stream ids whose time indices are used for duration based policies.
+     * @param aeronArchive the archive client to purge segments with.
+     * @param clock the clock that archived messages are timestamped with.
+     * @param errorHandler the handler for errors whilst pruning.
+     * @param intervalInMs the interval between evaluations of the policies.
+     * @param maxSegmentsPerPurge the maximum number of segments of a recording to purge in each evaluation.
+     * @param agentNamePrefix the prefix of this agent's role name.
+     */
+    public ArchiveRetentionAgent(
+        final List<RetentionPolicy> policies,
+        final List<ReplayQuery> replayQueries,
+        final String logFileDir,
+        final int[] timeIndexStreamIds,
+        final AeronArchive aeronArchive,
+        final EpochNanoClock clock,
+        final ErrorHandler errorHandler,
+        final long intervalInMs,
+        final int maxSegmentsPerPurge,
+        final String agentNamePrefix)
+    {
+        if (policies.isEmpty())
+        {
+            throw new IllegalArgumentException("At least one retention policy is required");
+        }
+
+        this.policies = policies.toArray(new RetentionPolicy[0]);
+        this.replayQueries = replayQueries.toArray(new ReplayQuery[0]);
+        this.timeIndexReaders = new TimeIndexReader[timeIndexStreamIds.length];
+        for (int i = 0; i < timeIndexStreamIds.length; i++)
+        {
+            timeIndexReaders[i] = new TimeIndexReader(logFileDir, timeIndexStreamIds[i]);
+        }
+        this.aeronArchive = aeronArchive;
+        this.clock = clock;
+        this.errorHandler = errorHandler;
+        this.intervalInNs = TimeUnit.MILLISECONDS.toNanos(intervalInMs);
+        this.maxSegmentsPerPurge = maxSegmentsPerPurge;
+        this.agentNamePrefix = agentNamePrefix;
+
+        policyPrunePositions = new Long2LongHashMap[this.policies.length];
+        for (int i = 0; i < policyPrunePositions.length; i++)
+        {
+            policyPrunePositions[i] = new Long2LongHashMap(NULL_VALUE);
+        }
+
+        nextEvaluationTimeInNs = clock.nanoTime() + intervalInNs;
+    }
+
+    public int doWork()
+    {
+        try
+        {
+            switch (state)
+            {
+                case QUERYING:
+                    return querySessions();
+
+                case PURGING:
+                    return purgeRecording();
+
+                case WAITING:
+                default:
+                    return checkEvaluationTime();
+            }
+        }
+        catch (final Exception e)
+        {
+            errorHandler.onError(e);
+            waitForNextEvaluation();
+            return 1;
+        }
+    }
+
+    private int checkEvaluationTime()
+    {
+        final long timeInNs = clock.nanoTime();
+        if (timeInNs < nextEvaluationTimeInNs)
+        {
+            return 0;
+        }
+
+        for (final Long2LongHashMap prunePositions : policyPrunePositions)
+        {
+            prunePositions.clear();
+        }
+        recordingIdToPrunePosition.clear();
+        lastIndexedPositions.clear();
+
+        queryTimeIndices(timeInNs);
+
+        replayQueryIndex = 0;
+        sessionIds = null;
+        state = State.QUERYING;
+        return 1;
+    }
+
+    private void queryTimeIndices(final long timeInNs)
+    {
+        final RetentionPolicy[] policies = this.policies;
+        for (int i = 0; i < policies.length; i++)
+        {
+            final RetentionPolicy policy = policies[i];
+            if (policy.type() == RetentionPolicy.Type.DURATION)
+            {
+                final IndexQuery indexQuery = this.indexQuery;
+                indexQuery.reset();
+                indexQuery.from(timeInNs - policy.durationInNs());
+                final Long2LongHashMap prunePositions = policyPrunePositions[i];
+                for (final TimeIndexReader timeIndexReader : timeIndexReaders)
+                {
+                    recordingIdToPositionRange.clear();
+                    timeIndexReader.findPositionRange(indexQuery, recordingIdToPositionRange);
+
+                    final Long2ObjectHashMap<PositionRange>.EntryIterator it =
+                        recordingIdToPositionRange.entrySet().iterator();
+                    while (it.hasNext())
+                    {
+                        it.next();
+                        // The start position is the end of the last indexed message that is older than the duration
+                        prunePositions.put(it.getLongKey(), it.getValue().startPosition());
+                    }
+                }
+            }
+        }
+    }
+
+    private int querySessions()
+    {
+        final ReplayQuery[] replayQueries = this.replayQueries;
+        int sessionsQueried = 0;
+        try
+        {
+            while (sessionsQueried < SESSIONS_PER_DUTY_CYCLE)
+            {
+                if (sessionIds == null || !sessionIds.hasNext())
+                {
+                    if (replayQueryIndex >= replayQueries.length)
+                    {
+                        startPurging();
+                        return sessionsQueried + 1;
+                    }
+
+                    sessionIds = replayQueries[replayQueryIndex].sessionIds().iterator();
+                    replayQueryIndex++;
+                    continue;
+                }
+
+                querySession(replayQueries[replayQueryIndex - 1], sessionIds.nextValue());
+                sessionsQueried++;
+            }
+
+            return sessionsQueried;
+        }
+        finally
+        {
+            // Each session's policies share the mapping of an uncached session, but the index isn't held across
+            // duty cycles in which its session may be reset.
+            for (final ReplayQuery replayQuery : replayQueries)
+            {
+                replayQuery.closeTemporarySessionQuery();
+            }
+        }
+    }
+
+    private void querySession(final ReplayQuery replayQuery, final long sessionId)
+    {
+        final RetentionPolicy[] policies = this.policies;
+        for (int i = 0; i < policies.length; i++)
+        {
+            final RetentionPolicy policy = policies[i];
+            switch (policy.type())
+            {
+                case LAST_MESSAGES_PER_SESSION:
+                    replayQuery.queryLastMessagesStartPositions(
+                        sessionId, policy.messageCount(), policyPrunePositions[i], lastIndexedPositions);
+                    break;
+
+                case SINCE_LAST_SEQUENCE_RESET:
+                    replayQuery.querySinceLastResetStartPositions(
+                        sessionId, policyPrunePositions[i], lastIndexedPositions);
+                    break;
+
+                case DURATION:
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void startPurging()
+    {
+        addPrunePositions(lastIndexedPositions);
+        for (final Long2LongHashMap prunePositions : policyPrunePositions)
+        {
+            addPrunePositions(prunePositions);
+        }
+
+        recordingIds = recordingIdToPrunePosition.keySet().iterator();
+        state = State.PURGING;
+    }
+
+    private void addPrunePositions(final Long2LongHashMap recordingIdToPosition)
+    {
+        final Long2LongHashMap recordingIdToPrunePosition = this.recordingIdToPrunePosition;
+        final Long2LongHashMap.KeyIterator it = recordingIdToPosition.keySet().iterator();
+        while (it.hasNext())
+        {
+            final long recordingId = it.nextValue();
+            if (!recordingIdToPrunePosition.containsKey(recordingId))
+            {
+                final long prunePosition = prunePosition(recordingId);
+                if (prunePosition != NULL_VALUE)
+                {
+                    recordingIdToPrunePosition.put(recordingId, prunePosition);
+                }
+            }
+        }
+    }
+
+    private long prunePosition(final long recordingId)
+    {
+        final RetentionPolicy[] policies = this.policies;
+        final Long2LongHashMap[] policyPrunePositions = this.policyPrunePositions;
+        long prunePosition = Long.MAX_VALUE;
+        for (int i = 0; i < policies.length; i++)
+        {
+            long position = policyPrunePositions[i].get(recordingId);
+            if (position == NULL_VALUE)
+            {
+                // A session based policy that has no position for a recording with indexed messages retains none of
+                // them, but a duration policy without a position from the time index is unknown.
+                if (policies[i].type() == RetentionPolicy.Type.DURATION)
+                {
+                    return NULL_VALUE;
+                }
+
+                position = lastIndexedPositions.get(recordingId);
+                if (position == NULL_VALUE)
+                {
+                    return NULL_VALUE;
+                }
+            }
+
+            prunePosition = Math.min(prunePosition, position);
+        }
+
+        return prunePosition;
+    }
+
+    private int purgeRecording()
+    {
+        if (!recordingIds.hasNext())
+        {
+            waitForNextEvaluation();
+            return 0;
+        }
+
+        final long recordingId = recordingIds.nextValue();
+        final long prunePosition = recordingIdToPrunePosition.get(recordingId);
+        if (aeronArchive.listRecording(recordingId, this) != 1)
+        {
+            return 1;
+        }
+
+        final int segmentFileLength = this.segmentFileLength;
+        final long recordingStartPosition = this.recordingStartPosition;
+        final long startSegmentPosition = segmentFileBasePosition(
+            recordingStartPosition, recordingStartPosition, termBufferLength, segmentFileLength);
+        final long pruneSegmentPosition = segmentFileBasePosition(
+            recordingStartPosition, prunePosition, termBufferLength, segmentFileLength);
+        final long newStartPosition = Math.min(
+            pruneSegmentPosition, startSegmentPosition + (long)maxSegmentsPerPurge * segmentFileLength);
+
+        // Can only purge whole segments that are before the one containing the prune position
+        if (prunePosition > recordingStartPosition && newStartPosition >= startSegmentPosition + segmentFileLength)
+        {
+            if (DebugLogger.isEnabled(STATE_CLEANUP))
+            {
+                DebugLogger.log(STATE_CLEANUP, purgeFormatter.clear()
+                    .with(recordingId)
+                    .with(newStartPosition)
+                    .with(prunePosition));
+            }
+
+            aeronArchive.purgeSegments(recordingId, newStartPosition);
+        }
+
+        return 1;
+    }
+
+    private void waitForNextEvaluation()
+    {
+        sessionIds = null;
+        recordingIds = null;
+        nextEvaluationTimeInNs = clock.nanoTime() + intervalInNs;
+        state = State.WAITING;
+    }
+
+    public void onRecordingDescriptor(
+        final long controlSessionId, final long correlationId, final long recordingId, final long startTimestamp,
+        final long stopTimestamp, final long startPosition, final long stopPosition, final int initialTermId,
+        final int segmentFileLength, final int termBufferLength, final int mtuLength, final int sessionId,
+        final int streamId, final String strippedChannel, final String originalChannel, final String sourceIdentity)
+    {
+        this.recordingStartPosition = startPosition;
+        this.termBufferLength = termBufferLength;
+        this.segmentFileLength = segmentFileLength;
+    }
+
+    public String roleName()
+    {
+        return agentNamePrefix + "ArchiveRetention";
+    }
+}
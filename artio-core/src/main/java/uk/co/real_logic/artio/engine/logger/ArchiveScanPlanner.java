@@ -22,6 +22,11 @@ import uk.co.real_logic.artio.engine.logger.FixMessagePredicates.To;
 final class ArchiveScanPlanner
 {
     static IndexQuery extractIndexQuery(final FixMessageConsumer fixHandler)
+    {
+        return extractIndexQuery(queryPredicate(fixHandler));
+    }
+
+    static FixMessagePredicate queryPredicate(final FixMessageConsumer fixHandler)
     {
         // need a filter in order to optimise the scan
         if (!(fixHandler instanceof FilterBy))
@@ -29,12 +34,16 @@ final class ArchiveScanPlanner
             return null;
         }
 
-        final FixMessagePredicate queryPredicate = ((FilterBy)fixHandler).predicate;
-        return extractIndexQuery(queryPredicate);
+        return ((FilterBy)fixHandler).predicate;
     }
 
-    private static IndexQuery extractIndexQuery(final FixMessagePredicate queryPredicate)
+    static IndexQuery extractIndexQuery(final FixMessagePredicate queryPredicate)
     {
+        if (queryPredicate == null)
+        {
+            return null;
+        }
+
         final IndexQuery indexQuery = new IndexQuery();
         extractIndexQuery(queryPredicate, indexQuery);
         return indexQuery.needed() ? indexQuery : null;
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.archive.Archive;
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.archive.client.RecordingDescriptorConsumer;
+import io.aeron.logbuffer.ControlledFragmentHandler;
+import io.aeron.logbuffer.FrameDescriptor;
+import io.aeron.logbuffer.Header;
+import org.agrona.IoUtil;
+import org.agrona.collections.Long2ObjectCache;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+
+import static io.aeron.archive.client.AeronArchive.segmentFileBasePosition;
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static org.agrona.BitUtil.align;
+
+/**
+ * Reads recorded fragments directly from the segment files of an Aeron Archive that shares a filesystem with the
+ * engine, avoiding the replay session, publication and copy of an archive replay.
+ *
+ * Segment files are mapped read only and a small number of them are kept mapped for each recording. Recordings whose
+ * segments aren't present in the directory, for example because the archive is remote, can't be read and are replayed
+ * through the archive as normal.
+ *
+ * This object isn't thread-safe.
+ */
+class ArchiveSegmentReader implements RecordingDescriptorConsumer, AutoCloseable
+{
+    private static final int MAPPED_SEGMENT_NUM_SETS = 1;
+    private static final int MAPPED_SEGMENT_SET_SIZE = 4;
+
+    private final Long2ObjectHashMap<Recording> recordingIdToRecording = new Long2ObjectHashMap<>();
+    private final File archiveDir;
+    private final AeronArchive aeronArchive;
+
+    private Recording listedRecording;
+
+    ArchiveSegmentReader(final File archiveDir, final AeronArchive aeronArchive)
+    {
+        this.archiveDir = archiveDir;
+        this.aeronArchive = aeronArchive;
+    }
+
+    /**
+     * Check whether a range of a recording can be read from its segment files.
+     *
+     * @param recordingId the recording to read.
+     * @param beginPosition the position of the first frame to read.
+     * @param endPosition the position after the last frame to read.
+     * @return true if every segment file within the range is present.
+     */
+    boolean canRead(final long recordingId, final long beginPosition, final long endPosition)
+    {
+        final Recording recording = recording(recordingId);
+        if (recording == null || beginPosition < recording.startPosition)
+        {
+            return false;
+        }
+
+        final int segmentFileLength = recording.segmentFileLength;
+        final long lastSegmentPosition = recording.segmentBasePosition(endPosition - 1);
+        for (long segmentPosition = recording.segmentBasePosition(beginPosition);
+            segmentPosition <= lastSegmentPosition;
+            segmentPosition += segmentFileLength)
+        {
+            if (recording.segments.get(segmentPosition) == null && !segmentFile(recordingId, segmentPosition).exists())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Find the position at which the segment file containing a position ends. Segment files hold whole terms, so
+     * frames never straddle this boundary, but the fragments of a message can.
+     * {@link #canRead(long, long, long)} must have returned true for the recording first.
+     *
+     * @param recordingId the recording containing the position.
+     * @param position the position within the recording.
+     * @return the position at which the next segment file starts.
+     */
+    long segmentEndPosition(final long recordingId, final long position)
+    {
+        final Recording recording = recordingIdToRecording.get(recordingId);
+        return recording.segmentBasePosition(position) + recording.segmentFileLength;
+    }
+
+    /**
+     * Create a reader of the same archive directory that already knows about the recordings this reader has checked
+     * with {@link #canRead(long, long, long)}. The new reader maps its own segments, so it can be used on another
+     * thread, but it can't look up any other recordings.
+     *
+     * @return the new reader.
+     */
+    ArchiveSegmentReader copy()
+    {
+        final ArchiveSegmentReader copy = new ArchiveSegmentReader(archiveDir, null);
+        for (final Recording recording : recordingIdToRecording.values())
+        {
+            copy.recordingIdToRecording.put(recording.recordingId, recording.copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Deliver the frames of a recording from a position, stopping at the end position, when the handler aborts or
+     * when it reaches a frame that hasn't been written yet.
+     *
+     * @param recordingId the recording to read.
+     * @param position the position of the first frame to read.
+     * @param endPosition the position after the last frame to read.
+     * @param handler the handler to deliver frames to.
+     * @return the position after the last frame that was consumed, to resume reading from.
+     */
+    long read(
+        final long recordingId,
+        final long position,
+        final long endPosition,
+        final ControlledFragmentHandler handler)
+    {
+        final Recording recording = recordingIdToRecording.get(recordingId);
+        final Header header = recording.header;
+
+        long readPosition = position;
+        while (readPosition < endPosition)
+        {
+            final long segmentPosition = recording.segmentBasePosition(readPosition);
+            final UnsafeBuffer segment = segment(recording, segmentPosition);
+            final int offset = (int)(readPosition - segmentPosition);
+            final int frameLength = FrameDescriptor.frameLengthVolatile(segment, offset);
+            if (frameLength <= 0)
+            {
+                break;
+            }
+
+            if (!FrameDescriptor.isPaddingFrame(segment, offset))
+            {
+                header.buffer(segment);
+                header.offset(offset);
+                final ControlledFragmentHandler.Action action = handler.onFragment(
+                    segment, offset + HEADER_LENGTH, frameLength - HEADER_LENGTH, header);
+                if (action == ABORT)
+                {
+                    break;
+                }
+            }
+
+            readPosition += align(frameLength, FRAME_ALIGNMENT);
+        }
+
+        return readPosition;
+    }
+
+    private Recording recording(final long recordingId)
+    {
+        Recording recording = recordingIdToRecording.get(recordingId);
+        if (recording == null)
+        {
+            listedRecording = null;
+            aeronArchive.listRecording(recordingId, this);
+            recording = listedRecording;
+            if (recording != null)
+            {
+                recordingIdToRecording.put(recordingId, recording);
+            }
+        }
+
+        return recording;
+    }
+
+    private UnsafeBuffer segment(final Recording recording, final long segmentPosition)
+    {
+        UnsafeBuffer segment = recording.segments.get(segmentPosition);
+        if (segment == null)
+        {
+            final File file = segmentFile(recording.recordingId, segmentPosition);
+            segment = new UnsafeBuffer(IoUtil.mapExistingFile(file, FileChannel.MapMode.READ_ONLY, file.getName()));
+            recording.segments.put(segmentPosition, segment);
+        }
+        return segment;
+    }
+
+    private File segmentFile(final long recordingId, final long segmentPosition)
+    {
+        return new File(archiveDir, Archive.segmentFileName(recordingId, segmentPosition));
+    }
+
+    public void onRecordingDescriptor(
+        final long controlSessionId, final long correlationId, final long recordingId, final long startTimestamp,
+        final long stopTimestamp, final long startPosition, final long stopPosition, final int initialTermId,
+        final int segmentFileLength, final int termBufferLength, final int mtuLength, final int sessionId,
+        final int streamId, final String strippedChannel, final String originalChannel, final String sourceIdentity)
+    {
+        listedRecording = new Recording(
+            recordingId, startPosition, initialTermId, segmentFileLength, termBufferLength);
+    }
+
+    public void close()
+    {
+        for (final Recording recording : recordingIdToRecording.values())
+        {
+            recording.segments.clear();
+        }
+        recordingIdToRecording.clear();
+    }
+
+    private static final class Recording
+    {
+        private final long recordingId;
+        private final long startPosition;
+        private final int segmentFileLength;
+        private final int termBufferLength;
+        private final Header header;
+        private final Long2ObjectCache<UnsafeBuffer> segments = new Long2ObjectCache<>(
+            MAPPED_SEGMENT_NUM_SETS, MAPPED_SEGMENT_SET_SIZE, segment -> IoUtil.unmap(segment.byteBuffer()));
+
+        private Recording(
+            final long recordingId,
+            final long startPosition,
+            final int initialTermId,
+            final int segmentFileLength,
+            final int termBufferLength)
+        {
+            this.recordingId = recordingId;
+            this.startPosition = startPosition;
+            this.segmentFileLength = segmentFileLength;
+            this.termBufferLength = termBufferLength;
+            header = new Header(initialTermId, Integer.numberOfTrailingZeros(termBufferLength));
+        }
+
+        private Recording copy()
+        {
+            return new Recording(
+                recordingId, startPosition, header.initialTermId(), segmentFileLength, termBufferLength);
+        }
+
+        private long segmentBasePosition(final long position)
+        {
+            return segmentFileBasePosition(startPosition, position, termBufferLength, segmentFileLength);
+        }
+    }
+}
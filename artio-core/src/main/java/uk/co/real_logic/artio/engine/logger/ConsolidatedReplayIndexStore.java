@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.IoUtil;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.*;
+
+/**
+ * {@link ReplayIndexLayout#CONSOLIDATED} implementation of the store.
+ *
+ * Each session is allocated a fixed size extent, consisting of its header followed by its segments laid out
+ * contiguously. Extents are packed into large, sparsely allocated, extent files. A directory file records which
+ * session owns each extent: it consists of a count of allocated extents followed by the session id owning each
+ * extent in order. The writer appends a session id before publishing the new count, so readers can pick up new
+ * sessions by reading the entries beyond the count that they last saw.
+ *
+ * Extents stay owned by their session when the session's index is deleted, the extent is zeroed instead. A session
+ * only exists if its extent's header has been initialised.
+ */
+class ConsolidatedReplayIndexStore implements ReplayIndexStore
+{
+    static final int MAX_SESSIONS = 1 << 20;
+    static final int TARGET_EXTENT_FILE_SIZE = 1 << 30;
+    static final int EXTENT_HEADER_LENGTH = 4096;
+
+    private static final int COUNT_OFFSET = 0;
+    private static final int DIRECTORY_HEADER_LENGTH = CACHE_LINE_LENGTH;
+    private static final int DIRECTORY_FILE_SIZE = DIRECTORY_HEADER_LENGTH + MAX_SESSIONS * SIZE_OF_LONG;
+    private static final long NO_EXTENT = -1;
+
+    private final Long2LongHashMap sessionIdToExtent = new Long2LongHashMap(NO_EXTENT);
+    private final List<UnsafeBuffer> extentFiles = new ArrayList<>();
+
+    private final String logFileDir;
+    private final int streamId;
+    private final long indexFileSize;
+    private final int segmentSize;
+    private final boolean writable;
+    private final int extentSize;
+    private final int extentsPerFile;
+    private final int extentFileSize;
+
+    private UnsafeBuffer directoryBuffer;
+    private int extentCount;
+
+    ConsolidatedReplayIndexStore(
+        final String logFileDir,
+        final int streamId,
+        final long indexFileSize,
+        final int segmentSize,
+        final boolean writable)
+    {
+        this.logFileDir = logFileDir;
+        this.streamId = streamId;
+        this.indexFileSize = indexFileSize;
+        this.segmentSize = segmentSize;
+        this.writable = writable;
+
+        final long extentSize = EXTENT_HEADER_LENGTH + indexFileSize;
+        if (extentSize > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(
+                "Replay index is too large for the consolidated layout: indexFileSize=" + indexFileSize);
+        }
+        this.extentSize = (int)extentSize;
+        this.extentsPerFile = Math.max(1, TARGET_EXTENT_FILE_SIZE / this.extentSize);
+        this.extentFileSize = extentsPerFile * this.extentSize;
+
+        if (writable)
+        {
+            final File directoryFile = replayIndexDirectoryFile(logFileDir, streamId);
+            directoryBuffer = new UnsafeBuffer(mapFile(directoryFile, DIRECTORY_FILE_SIZE));
+        }
+        refresh();
+    }
+
+    public boolean exists(final long fixSessionId)
+    {
+        final long extent = extent(fixSessionId);
+        return extent != NO_EXTENT && isInitialised(extent);
+    }
+
+    public UnsafeBuffer mapHeader(final long fixSessionId)
+    {
+        long extent = extent(fixSessionId);
+        if (extent == NO_EXTENT)
+        {
+            if (!writable)
+            {
+                throw new IllegalStateException("No replay index extent for session: " + fixSessionId);
+            }
+            extent = allocateExtent(fixSessionId);
+        }
+        else if (!writable && !isInitialised(extent))
+        {
+            throw new IllegalStateException("Replay index for session has been deleted: " + fixSessionId);
+        }
+
+        return view(extent, 0, HEADER_FILE_SIZE);
+    }
+
+    public UnsafeBuffer mapSegment(final long fixSessionId, final int segmentIndex)
+    {
+        final long extent = extent(fixSessionId);
+        if (extent == NO_EXTENT)
+        {
+            throw new IllegalStateException("No replay index extent for session: " + fixSessionId);
+        }
+
+        return view(extent, EXTENT_HEADER_LENGTH + segmentIndex * segmentSize, segmentSize);
+    }
+
+    public void unmap(final UnsafeBuffer headerBuffer, final UnsafeBuffer[] segmentBuffers)
+    {
+        // Buffers are views onto the extent files, which stay mapped until the store is closed.
+    }
+
+    public void delete(final long fixSessionId, final UnsafeBuffer[] segmentBuffers)
+    {
+        final long extent = extent(fixSessionId);
+        if (extent == NO_EXTENT)
+        {
+            return;
+        }
+
+        final UnsafeBuffer extentFile = extentFile(extent);
+        final int extentOffset = extentOffset(extent);
+
+        // Zero the records that have been written so that a recreated index doesn't read them, then the header.
+        final long writtenLength = Math.min(beginChange(view(extent, 0, HEADER_FILE_SIZE)), indexFileSize);
+        extentFile.setMemory(extentOffset + EXTENT_HEADER_LENGTH, (int)writtenLength, (byte)0);
+        extentFile.setMemory(extentOffset, HEADER_FILE_SIZE, (byte)0);
+    }
+
+    public LongHashSet listSessionIds()
+    {
+        refresh();
+
+        final LongHashSet sessionIds = new LongHashSet();
+        final Long2LongHashMap.EntryIterator it = sessionIdToExtent.entrySet().iterator();
+        while (it.hasNext())
+        {
+            it.next();
+            if (isInitialised(it.getLongValue()))
+            {
+                sessionIds.add(it.getLongKey());
+            }
+        }
+        return sessionIds;
+    }
+
+    public void close()
+    {
+        for (final UnsafeBuffer extentFile : extentFiles)
+        {
+            if (extentFile != null)
+            {
+                IoUtil.unmap(extentFile.byteBuffer());
+            }
+        }
+        extentFiles.clear();
+
+        if (directoryBuffer != null)
+        {
+            IoUtil.unmap(directoryBuffer.byteBuffer());
+            directoryBuffer = null;
+        }
+    }
+
+    private long extent(final long fixSessionId)
+    {
+        long extent = sessionIdToExtent.get(fixSessionId);
+        if (extent == NO_EXTENT && !writable)
+        {
+            refresh();
+            extent = sessionIdToExtent.get(fixSessionId);
+        }
+        return extent;
+    }
+
+    private long allocateExtent(final long fixSessionId)
+    {
+        final int extent = extentCount;
+        if (extent >= MAX_SESSIONS)
+        {
+            throw new IllegalStateException(
+                "Unable to allocate replay index extent for session " + fixSessionId + ", all " + MAX_SESSIONS +
+                " extents are in use");
+        }
+
+        // Ensure that the extent file exists before publishing the extent
+        extentFile(extent);
+
+        directoryBuffer.putLong(entryOffset(extent), fixSessionId);
+        directoryBuffer.putIntOrdered(COUNT_OFFSET, extent + 1);
+        extentCount = extent + 1;
+        sessionIdToExtent.put(fixSessionId, extent);
+
+        return extent;
+    }
+
+    private void refresh()
+    {
+        if (directoryBuffer == null)
+        {
+            final File directoryFile = replayIndexDirectoryFile(logFileDir, streamId);
+            if (!directoryFile.exists())
+            {
+                return;
+            }
+            directoryBuffer = new UnsafeBuffer(LoggerUtil.mapExistingFile(directoryFile));
+        }
+
+        final UnsafeBuffer directoryBuffer = this.directoryBuffer;
+        final int count = directoryBuffer.getIntVolatile(COUNT_OFFSET);
+        for (int extent = extentCount; extent < count; extent++)
+        {
+            sessionIdToExtent.put(directoryBuffer.getLong(entryOffset(extent)), extent);
+        }
+        extentCount = count;
+    }
+
+    private boolean isInitialised(final long extent)
+    {
+        final int offset = extentOffset(extent) + MessageHeaderDecoder.blockLengthEncodingOffset();
+        return extentFile(extent).getShort(offset) != 0;
+    }
+
+    private UnsafeBuffer view(final long extent, final int offsetInExtent, final int length)
+    {
+        final UnsafeBuffer extentFile = extentFile(extent);
+        return new UnsafeBuffer(extentFile.byteBuffer(), extentOffset(extent) + offsetInExtent, length);
+    }
+
+    private UnsafeBuffer extentFile(final long extent)
+    {
+        final int fileIndex = (int)(extent / extentsPerFile);
+        final List<UnsafeBuffer> extentFiles = this.extentFiles;
+        while (extentFiles.size() <= fileIndex)
+        {
+            extentFiles.add(null);
+        }
+
+        UnsafeBuffer extentFile = extentFiles.get(fileIndex);
+        if (extentFile == null)
+        {
+            final File file = replayIndexExtentFile(logFileDir, streamId, fileIndex);
+            extentFile = new UnsafeBuffer(writable ? mapFile(file, extentFileSize) : LoggerUtil.mapExistingFile(file));
+            extentFiles.set(fileIndex, extentFile);
+        }
+        return extentFile;
+    }
+
+    private int extentOffset(final long extent)
+    {
+        return (int)(extent % extentsPerFile) * extentSize;
+    }
+
+    private static int entryOffset(final int extent)
+    {
+        return DIRECTORY_HEADER_LENGTH + extent * SIZE_OF_LONG;
+    }
+
+    private static MappedByteBuffer mapFile(final File file, final int size)
+    {
+        if (file.exists())
+        {
+            return LoggerUtil.mapExistingFile(file);
+        }
+
+        final File parentDir = file.getParentFile();
+        IoUtil.ensureDirectoryExists(parentDir, parentDir.getAbsolutePath());
+        // Sparse so that disk space is only used for extents as they are written to.
+        return IoUtil.mapNewFile(file, size, false);
+    }
+}
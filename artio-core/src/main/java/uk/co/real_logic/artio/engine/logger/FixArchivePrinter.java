@@ -19,17 +19,16 @@ import io.aeron.archive.Archive;
 import io.aeron.archive.ArchivingMediaDriver;
 import io.aeron.driver.MediaDriver;
 import org.agrona.CloseHelper;
-import org.agrona.DirectBuffer;
+import org.agrona.LangUtil;
 import org.agrona.collections.IntHashSet;
-import uk.co.real_logic.artio.ArtioLogHeader;
 import uk.co.real_logic.artio.CommonConfiguration;
+import uk.co.real_logic.artio.builder.Printer;
 import uk.co.real_logic.artio.decoder.SessionHeaderDecoder;
 import uk.co.real_logic.artio.dictionary.FixDictionary;
-import uk.co.real_logic.artio.messages.FixMessageDecoder;
 import uk.co.real_logic.artio.messages.FixPProtocolType;
-import uk.co.real_logic.artio.messages.MessageStatus;
 
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import static java.lang.Long.parseLong;
 import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_INBOUND_LIBRARY_STREAM;
@@ -64,6 +63,9 @@ public final class FixArchivePrinter
     private boolean fixp = false;
     private Class<? extends FixDictionary> fixDictionaryType = null;
     private Predicate<SessionHeaderDecoder> headerPredicate = null;
+    private Printer printer = null;
+    private int scanThreads = 0;
+    private String archiveSegmentDir = null;
 
     private void scan(final String[] args)
     {
@@ -74,7 +76,8 @@ public final class FixArchivePrinter
         try
         {
             scanArchive(aeronDirectoryName, aeronChannel, queryStreamIds, predicate, follow, headerPredicate,
-                archiveScannerStreamId, fixDictionaryType, fixPProtocolType, logFileDir);
+                archiveScannerStreamId, fixDictionaryType, fixPProtocolType, logFileDir, printer, scanThreads,
+                archiveSegmentDir);
         }
         finally
         {
@@ -178,6 +181,15 @@ public final class FixArchivePrinter
                 case "log-file-dir":
                     logFileDir = optionValue;
                     break;
+                case "printer":
+                    printer = newPrinter(optionValue);
+                    break;
+                case "scan-threads":
+                    scanThreads = Integer.parseInt(optionValue);
+                    break;
+                case "archive-segment-dir":
+                    archiveSegmentDir = optionValue;
+                    break;
             }
         }
     }
@@ -196,6 +208,16 @@ public final class FixArchivePrinter
 
         requiredArgument(aeronDirectoryName, "aeron-dir-name");
         requiredArgument(aeronChannel, "aeron-channel");
+
+        if (archiveSegmentDir == null)
+        {
+            archiveSegmentDir = offlineArchiveDirectoryName;
+        }
+
+        if (scanThreads > 0)
+        {
+            requiredArgument(archiveSegmentDir, "archive-segment-dir");
+        }
     }
 
     private static void requiredArgument(final int eqIndex)
@@ -218,14 +240,23 @@ public final class FixArchivePrinter
         final int archiveScannerStreamId,
         final Class<? extends FixDictionary> fixDictionaryType,
         final FixPProtocolType fixPProtocolType,
-        final String logFileDir)
+        final String logFileDir,
+        final Printer printer,
+        final int scanThreads,
+        final String archiveSegmentDir)
     {
-        final FixDictionary fixDictionary = fixDictionaryType == null ? null : FixDictionary.of(fixDictionaryType);
-        FixMessagePredicate predicate = otherPredicate;
-        if (headerPredicate != null)
+        // The header predicate decodes into a dictionary's header decoder so parallel scans need one each
+        final Supplier<FixMessagePredicate> predicateFactory = () ->
         {
-            predicate = whereHeader(fixDictionary, headerPredicate).and(predicate);
-        }
+            if (headerPredicate == null)
+            {
+                return otherPredicate;
+            }
+
+            final FixDictionary fixDictionary = fixDictionaryType == null ?
+                null : FixDictionary.of(fixDictionaryType);
+            return whereHeader(fixDictionary, headerPredicate).and(otherPredicate);
+        };
 
         final FixArchiveScanner.Configuration configuration = new FixArchiveScanner.Configuration()
             .aeronDirectoryName(aeronDirectoryName)
@@ -236,16 +267,33 @@ public final class FixArchivePrinter
             configuration.logFileDir(logFileDir);
         }
 
+        final boolean parallel = scanThreads > 0 && !follow;
+        if (parallel)
+        {
+            configuration.scanParallelism(scanThreads).archiveSegmentDir(archiveSegmentDir);
+        }
+
         try (FixArchiveScanner scanner = new FixArchiveScanner(configuration))
         {
             System.out.println("Starting Scan ... ");
-            scanner.scan(
-                aeronChannel,
-                queryStreamIds,
-                filterBy(FixArchivePrinter::print, predicate),
-                new LazyFixPMessagePrinter(DEFAULT_INBOUND_LIBRARY_STREAM, fixPProtocolType),
-                follow,
-                archiveScannerStreamId);
+            final FixMessagePrinter fixHandler = new FixMessagePrinter(printer, System.out);
+            final LazyFixPMessagePrinter fixPHandler = new LazyFixPMessagePrinter(
+                DEFAULT_INBOUND_LIBRARY_STREAM, fixPProtocolType);
+            if (parallel)
+            {
+                scanner.scanInParallel(
+                    aeronChannel, queryStreamIds, predicateFactory, fixHandler, fixPHandler, archiveScannerStreamId);
+            }
+            else
+            {
+                scanner.scan(
+                    aeronChannel,
+                    queryStreamIds,
+                    filterBy(fixHandler, predicateFactory.get()),
+                    fixPHandler,
+                    follow,
+                    archiveScannerStreamId);
+            }
         }
     }
 
@@ -288,6 +336,11 @@ public final class FixArchivePrinter
             "ilink",
             "Deprecated: use --fixp.",
             false);
+        printOption(
+            "printer",
+            "The class name of a generated PrinterImpl, eg: uk.co.real_logic.artio.decoder.PrinterImpl. If provided" +
+            " message bodies are printed in a decoded JSON format rather than as raw FIX",
+            false);
         printOption(
             "fixp",
             "Suppresses the need to provide a fix dictionary on the classpath - used for situations where" +
@@ -347,6 +400,16 @@ public final class FixArchivePrinter
             "help",
             "Only prints this help message.",
             false);
+        printOption(
+            "scan-threads",
+            "Scan the archive's segment files on this many threads, merging the results by timestamp. Requires" +
+            " an --archive-segment-dir or --offline-archive-dir and isn't used with --follow",
+            false);
+        printOption(
+            "archive-segment-dir",
+            "The directory of the aeron archive's segment files when scanning on multiple threads, defaults to" +
+            " the --offline-archive-dir",
+            false);
         printOption(
             "log-file-dir",
             "Specifies a logFileDir option, this should be the same as provided to your EngineConfiguration." +
@@ -364,17 +427,17 @@ public final class FixArchivePrinter
         return left == null ? right : left.and(right);
     }
 
-    private static void print(
-        final FixMessageDecoder message,
-        final DirectBuffer buffer,
-        final int offset,
-        final int length,
-        final ArtioLogHeader header)
+    private static Printer newPrinter(final String className)
     {
-        final MessageStatus status = message.status();
-        final long timestamp = message.timestamp();
-        final String body = message.body();
-        System.out.printf("%1$20s: %2$s (%3$s)%n", timestamp, body, status);
+        try
+        {
+            return (Printer)Class.forName(className).getConstructor().newInstance();
+        }
+        catch (final ReflectiveOperationException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+            throw new IllegalStateException(); // Never invoked
+        }
     }
 
 }
@@ -16,13 +16,24 @@
 package uk.co.real_logic.artio.engine.logger;
 
 import io.aeron.Aeron;
+import io.aeron.ControlledFragmentAssembler;
 import io.aeron.archive.client.AeronArchive;
+import org.agrona.CloseHelper;
+import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.collections.IntHashSet;
+import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.IdleStrategy;
+import uk.co.real_logic.artio.ArtioLogHeader;
 import uk.co.real_logic.artio.DebugLogger;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanningAgent.ArchiveLocation;
 import uk.co.real_logic.artio.fixp.FixPMessageConsumer;
 
+import java.io.File;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
 import static uk.co.real_logic.artio.LogTag.ARCHIVE_SCAN;
 import static uk.co.real_logic.artio.engine.logger.FixMessageLogger.Configuration.*;
 
@@ -50,6 +61,8 @@ public class FixArchiveScanner implements AutoCloseable
         private String logFileDir;
         private boolean enableIndexScan;
         private AeronArchive.Context archiveContext;
+        private String archiveSegmentDir;
+        private int scanParallelism;
 
         public Configuration()
         {
@@ -186,8 +199,59 @@ public class FixArchiveScanner implements AutoCloseable
             return this;
         }
 
+        /**
+         * Sets the archive directory of the Aeron Archive that the engine recorded to, when it's on the same
+         * filesystem as the scanner. This is required for
+         * {@link FixArchiveScanner#scanInParallel(String, IntHashSet, Supplier, FixMessageConsumer,
+         * FixPMessageConsumer, int)} to read segment files directly.
+         *
+         * @param archiveSegmentDir the directory containing the archive's segment files.
+         * @return this
+         */
+        public Configuration archiveSegmentDir(final String archiveSegmentDir)
+        {
+            this.archiveSegmentDir = archiveSegmentDir;
+            return this;
+        }
+
+        public String archiveSegmentDir()
+        {
+            return archiveSegmentDir;
+        }
+
+        /**
+         * Sets the number of threads that
+         * {@link FixArchiveScanner#scanInParallel(String, IntHashSet, Supplier, FixMessageConsumer,
+         * FixPMessageConsumer, int)} reads segment files and evaluates predicates on. Parallel scanning is disabled
+         * by default and requires an {@link #archiveSegmentDir(String)}.
+         *
+         * @param scanParallelism the number of threads to scan with, or 0 to disable parallel scanning.
+         * @return this
+         */
+        public Configuration scanParallelism(final int scanParallelism)
+        {
+            this.scanParallelism = scanParallelism;
+            return this;
+        }
+
+        public int scanParallelism()
+        {
+            return scanParallelism;
+        }
+
         private void conclude()
         {
+            if (scanParallelism < 0)
+            {
+                throw new IllegalArgumentException("scanParallelism must not be negative: " + scanParallelism);
+            }
+
+            if (scanParallelism > 0 && archiveSegmentDir == null)
+            {
+                throw new IllegalArgumentException(
+                    "Please configure an archiveSegmentDir if you want to enable parallel scanning");
+            }
+
             if (enableIndexScan && logFileDir == null)
             {
                 throw new IllegalArgumentException("Please configure a logFileDir if you want to enable index scan");
@@ -199,6 +263,9 @@ public class FixArchiveScanner implements AutoCloseable
 
     private final IdleStrategy idleStrategy;
     private final FixArchiveScanningAgent agent;
+    private final ParallelArchiveScanner parallelScanner;
+    private final ArchiveSegmentReader segmentReader;
+    private final String tagIndexDir;
 
     public FixArchiveScanner(final Configuration configuration)
     {
@@ -216,6 +283,7 @@ public class FixArchiveScanner implements AutoCloseable
         // Context closes Aeron instance if this fails to connect.
         final AeronArchive aeronArchive = AeronArchive.connect(archiveContext.aeron(aeron).ownsAeronClient(true));
 
+        tagIndexDir = configuration.logFileDir();
         String logFileDir = configuration.logFileDir();
         if (!configuration.enableIndexScan())
         {
@@ -231,6 +299,11 @@ public class FixArchiveScanner implements AutoCloseable
             logFileDir,
             aeron,
             aeronArchive);
+
+        parallelScanner = configuration.scanParallelism() == 0 ? null : new ParallelArchiveScanner(
+            new File(configuration.archiveSegmentDir()), aeronArchive, configuration.scanParallelism());
+        segmentReader = configuration.archiveSegmentDir() == null ? null : new ArchiveSegmentReader(
+            new File(configuration.archiveSegmentDir()), aeronArchive);
     }
 
     public void scan(
@@ -265,7 +338,11 @@ public class FixArchiveScanner implements AutoCloseable
         final int archiveScannerStreamId)
     {
         agent.setup(aeronChannel, queryStreamIds, fixHandler, fixPHandler, follow, archiveScannerStreamId);
+        pollUntilComplete();
+    }
 
+    private void pollUntilComplete()
+    {
         while (true)
         {
             if (agent.poll(Integer.MAX_VALUE))
@@ -278,8 +355,148 @@ public class FixArchiveScanner implements AutoCloseable
         }
     }
 
+    /**
+     * Scan the archive on multiple threads, see {@link Configuration#scanParallelism(int)}. Recordings are read
+     * directly from their segment files and split into ranges that are filtered in parallel, then the matching
+     * messages of the different streams are merged by timestamp and passed to the handlers on the calling thread.
+     *
+     * Predicates are typically stateful so a new one is created for each thread using the predicateFactory.
+     * This doesn't support following the archive and falls back to a normal scan if parallel scanning isn't
+     * configured or the segment files of a recording aren't available.
+     *
+     * @param aeronChannel the channel that the recordings were made on.
+     * @param queryStreamIds the streams to scan.
+     * @param predicateFactory creates predicates that select the messages to pass to the fixHandler.
+     * @param fixHandler the handler for FIX messages, called on the calling thread.
+     * @param fixPHandler the handler for FIXP messages, called on the calling thread, may be null.
+     * @param archiveScannerStreamId the stream id to replay recordings on if falling back to a normal scan.
+     */
+    public void scanInParallel(
+        final String aeronChannel,
+        final IntHashSet queryStreamIds,
+        final Supplier<FixMessagePredicate> predicateFactory,
+        final FixMessageConsumer fixHandler,
+        final FixPMessageConsumer fixPHandler,
+        final int archiveScannerStreamId)
+    {
+        if (parallelScanner != null)
+        {
+            fixHandler.reset();
+
+            final Int2ObjectHashMap<List<ArchiveLocation>> streamIdToLocations = agent.findArchiveLocations(
+                aeronChannel, queryStreamIds, predicateFactory.get());
+            if (parallelScanner.scan(streamIdToLocations, predicateFactory, fixHandler, fixPHandler))
+            {
+                return;
+            }
+        }
+
+        scan(
+            aeronChannel,
+            queryStreamIds,
+            FixMessagePredicates.filterBy(fixHandler, predicateFactory.get()),
+            fixPHandler,
+            false,
+            archiveScannerStreamId);
+    }
+
+    /**
+     * Scan the archive for the FIX messages that contain a field with a tag value, for example a ClOrdID, using
+     * the secondary index that the engine builds for the tags configured with
+     * {@link EngineConfiguration#tagIndexTags(int...)}. Requires the {@link Configuration#logFileDir(String)}.
+     *
+     * Only the indexed messages are read, directly from their segment files if an
+     * {@link Configuration#archiveSegmentDir(String)} is configured. Otherwise the range of each recording that
+     * contains them is replayed. Messages are passed to the handler in the order that they were archived.
+     *
+     * @param aeronChannel the channel that the recordings were made on.
+     * @param queryStreamId the stream to scan.
+     * @param tag the tag number of the field, this must be one of the indexed tags.
+     * @param value the value of the field.
+     * @param fixHandler the handler for the FIX messages that contain the value.
+     * @param archiveScannerStreamId the stream id to replay recordings on if they can't be read directly.
+     */
+    public void scanTag(
+        final String aeronChannel,
+        final int queryStreamId,
+        final int tag,
+        final CharSequence value,
+        final FixMessageConsumer fixHandler,
+        final int archiveScannerStreamId)
+    {
+        if (tagIndexDir == null)
+        {
+            throw new IllegalStateException("Please configure a logFileDir if you want to scan the tag index");
+        }
+
+        final FixMessageConsumer handler = FixMessagePredicates.filterBy(
+            fixHandler, FixMessagePredicates.tagValueOf(tag, value));
+        handler.reset();
+
+        final List<ArchiveLocation> locations = new TagIndexReader(tagIndexDir, queryStreamId).find(tag, value);
+        if (locations.isEmpty())
+        {
+            return;
+        }
+
+        if (canReadSegments(locations))
+        {
+            final ArtioLogHeader header = new ArtioLogHeader(queryStreamId);
+            final ParallelArchiveScanner.MessageDispatcher dispatcher =
+                new ParallelArchiveScanner.MessageDispatcher(handler, null);
+            final ControlledFragmentAssembler fragmentAssembler = new ControlledFragmentAssembler(
+                (buffer, offset, length, fragmentHeader) ->
+                {
+                    dispatcher.onMessage(buffer, offset, length, header);
+                    return CONTINUE;
+                });
+
+            for (final ArchiveLocation location : locations)
+            {
+                segmentReader.read(
+                    location.recordingId, location.startPosition, location.stopPosition, fragmentAssembler);
+            }
+            return;
+        }
+
+        final Long2ObjectHashMap<PositionRange> recordingIdToPositionRange = new Long2ObjectHashMap<>();
+        for (final ArchiveLocation location : locations)
+        {
+            final PositionRange range = recordingIdToPositionRange.get(location.recordingId);
+            recordingIdToPositionRange.put(location.recordingId, range == null ?
+                new PositionRange(location.startPosition, location.stopPosition) :
+                new PositionRange(range.startPosition(), location.stopPosition));
+        }
+
+        final IntHashSet queryStreamIds = new IntHashSet();
+        queryStreamIds.add(queryStreamId);
+        agent.setup(aeronChannel, queryStreamIds, handler, null, false, archiveScannerStreamId,
+            recordingIdToPositionRange);
+        pollUntilComplete();
+    }
+
+    private boolean canReadSegments(final List<ArchiveLocation> locations)
+    {
+        if (segmentReader == null)
+        {
+            return false;
+        }
+
+        for (final ArchiveLocation location : locations)
+        {
+            if (!segmentReader.canRead(location.recordingId, location.startPosition, location.stopPosition))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public void close()
     {
+        CloseHelper.close(segmentReader);
+        CloseHelper.close(parallelScanner);
         agent.close();
     }
 }
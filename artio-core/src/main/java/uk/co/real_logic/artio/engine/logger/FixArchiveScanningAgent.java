@@ -17,6 +17,7 @@ package uk.co.real_logic.artio.engine.logger;
 
 import io.aeron.*;
 import io.aeron.archive.client.AeronArchive;
+import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.collections.IntHashSet;
 import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.IdleStrategy;
@@ -83,8 +84,23 @@ public class FixArchiveScanningAgent implements AutoCloseable
         }
 
         final Long2ObjectHashMap<PositionRange> recordingIdToPositionRange =
-            scanIndexIfPossible(fixHandler, follow, queryStreamIds);
+            scanIndexIfPossible(ArchiveScanPlanner.queryPredicate(fixHandler), follow, queryStreamIds);
 
+        setup(aeronChannel, queryStreamIds, fixHandler, fixPHandler, follow, archiveScannerStreamId,
+            recordingIdToPositionRange);
+    }
+
+    // Scans ranges of recordings that have already been found, eg using the tag index. Recordings that aren't in
+    // recordingIdToPositionRange are skipped, or all of them are scanned if it's null.
+    void setup(
+        final String aeronChannel,
+        final IntHashSet queryStreamIds,
+        final FixMessageConsumer fixHandler,
+        final FixPMessageConsumer fixPHandler,
+        final boolean follow,
+        final int archiveScannerStreamId,
+        final Long2ObjectHashMap<PositionRange> recordingIdToPositionRange)
+    {
         this.follow = follow;
         replaySubscription = aeron.addSubscription(IPC_CHANNEL, archiveScannerStreamId);
         pollers = makeRecordingPollers(
@@ -138,8 +154,35 @@ public class FixArchiveScanningAgent implements AutoCloseable
             .toArray(RecordingPoller[]::new);
     }
 
+    /**
+     * Find the parts of the recordings of each stream that need to be scanned to answer a query that doesn't follow
+     * the archive, narrowed down using the time index where possible.
+     *
+     * @param aeronChannel the channel that the recordings were made on.
+     * @param queryStreamIds the streams to scan.
+     * @param queryPredicate the predicate that is being used to filter messages, may be null.
+     * @return a map from stream id to the non-empty archive locations of that stream.
+     */
+    Int2ObjectHashMap<List<ArchiveLocation>> findArchiveLocations(
+        final String aeronChannel, final IntHashSet queryStreamIds, final FixMessagePredicate queryPredicate)
+    {
+        final Long2ObjectHashMap<PositionRange> recordingIdToPositionRange =
+            scanIndexIfPossible(queryPredicate, false, queryStreamIds);
+
+        final Int2ObjectHashMap<List<ArchiveLocation>> streamIdToLocations = new Int2ObjectHashMap<>();
+        for (final int streamId : queryStreamIds)
+        {
+            final List<ArchiveLocation> locations = lookupArchiveLocations(
+                streamId, false, aeronChannel, recordingIdToPositionRange);
+            locations.removeIf(location -> location.length() == 0L);
+            streamIdToLocations.put(streamId, locations);
+        }
+
+        return streamIdToLocations;
+    }
+
     private Long2ObjectHashMap<PositionRange> scanIndexIfPossible(
-        final FixMessageConsumer fixHandler, final boolean follow, final IntHashSet queryStreamIds)
+        final FixMessagePredicate queryPredicate, final boolean follow, final IntHashSet queryStreamIds)
     {
         if (DEBUG_LOG_ARCHIVE_SCAN)
         {
@@ -164,7 +207,7 @@ public class FixArchiveScanningAgent implements AutoCloseable
 
         try
         {
-            final IndexQuery indexQuery = ArchiveScanPlanner.extractIndexQuery(fixHandler);
+            final IndexQuery indexQuery = ArchiveScanPlanner.extractIndexQuery(queryPredicate);
             if (DEBUG_LOG_ARCHIVE_SCAN)
             {
                 DebugLogger.log(ARCHIVE_SCAN, "indexQuery = " + indexQuery);
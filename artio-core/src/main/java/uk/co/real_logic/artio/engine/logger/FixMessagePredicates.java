@@ -549,6 +549,77 @@ public final class FixMessagePredicates
         };
     }
 
+    /**
+     * Filter messages by whether their body contains a field with the given tag and value, for example a ClOrdID.
+     *
+     * @param tag the tag number of the field.
+     * @param value the value of the field.
+     * @return the resulting predicate.
+     */
+    public static FixMessagePredicate tagValueOf(final int tag, final CharSequence value)
+    {
+        final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(1024);
+        final MutableAsciiBuffer asciiBuffer = new MutableAsciiBuffer();
+        return message ->
+        {
+            final int length = message.bodyLength();
+            buffer.checkLimit(length);
+            message.getBody(buffer, 0, length);
+            asciiBuffer.wrap(buffer);
+            return containsField(asciiBuffer, length, tag, value);
+        };
+    }
+
+    private static boolean containsField(
+        final AsciiBuffer buffer, final int length, final int tag, final CharSequence value)
+    {
+        int position = 0;
+        while (position < length)
+        {
+            final int equalsIndex = buffer.scan(position, length, '=');
+            if (equalsIndex == AsciiBuffer.UNKNOWN_INDEX)
+            {
+                return false;
+            }
+
+            final int valueOffset = equalsIndex + 1;
+            int valueEnd = buffer.scan(valueOffset, length, AsciiBuffer.SEPARATOR);
+            if (valueEnd == AsciiBuffer.UNKNOWN_INDEX)
+            {
+                valueEnd = length;
+            }
+
+            if (buffer.getNatural(position, equalsIndex) == tag && valueEquals(buffer, valueOffset, valueEnd, value))
+            {
+                return true;
+            }
+
+            position = valueEnd + 1;
+        }
+
+        return false;
+    }
+
+    private static boolean valueEquals(
+        final AsciiBuffer buffer, final int valueOffset, final int valueEnd, final CharSequence value)
+    {
+        final int valueLength = value.length();
+        if (valueEnd - valueOffset != valueLength)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < valueLength; i++)
+        {
+            if (buffer.getByte(valueOffset + i) != value.charAt(i))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public static FixMessagePredicate alwaysTrue()
     {
         return message -> true;
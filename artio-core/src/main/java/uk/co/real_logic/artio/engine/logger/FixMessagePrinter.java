@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import uk.co.real_logic.artio.ArtioLogHeader;
+import uk.co.real_logic.artio.builder.Printer;
+import uk.co.real_logic.artio.engine.framer.MessageTypeExtractor;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.util.AsciiAppender;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.io.PrintStream;
+
+import static org.agrona.AsciiEncoding.digitCount;
+
+/**
+ * Prints archived FIX messages by rendering each line into a reused buffer and writing its bytes out, rather than
+ * going through {@link String#format(String, Object...)} and a decoded body {@link String} per message.
+ *
+ * If a {@link Printer} is provided the body is decoded and appended using its JSON representation, otherwise the
+ * raw FIX message is printed.
+ */
+final class FixMessagePrinter implements FixMessageConsumer
+{
+    private static final int TIMESTAMP_WIDTH = 20;
+
+    private final ExpandableArrayBuffer lineBuffer = new ExpandableArrayBuffer(1024);
+    private final AsciiAppender appender = new AsciiAppender(lineBuffer);
+    private final MutableAsciiBuffer bodyBuffer = new MutableAsciiBuffer();
+    private final Printer printer;
+    private final PrintStream out;
+
+    FixMessagePrinter(final Printer printer, final PrintStream out)
+    {
+        this.printer = printer;
+        this.out = out;
+    }
+
+    public void onMessage(
+        final FixMessageDecoder message,
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final ArtioLogHeader header)
+    {
+        final AsciiAppender appender = this.appender.clear();
+
+        appendTimestamp(appender, message.timestamp());
+        appender.append(':').append(' ');
+
+        // The message has already had its meta data skipped, so the body immediately follows the limit.
+        final int bodyOffset = message.limit() + FixMessageDecoder.bodyHeaderLength();
+        final int bodyLength = message.bodyLength();
+        final Printer printer = this.printer;
+        if (printer == null)
+        {
+            appender.append(buffer, bodyOffset, bodyLength);
+        }
+        else
+        {
+            final MutableAsciiBuffer bodyBuffer = this.bodyBuffer;
+            bodyBuffer.wrap(buffer, bodyOffset, bodyLength);
+            printer.appendTo(bodyBuffer, 0, bodyLength, MessageTypeExtractor.getMessageType(message), appender);
+        }
+
+        appender
+            .append(' ')
+            .append('(')
+            .append(message.status().name())
+            .append(')')
+            .append('\n');
+
+        out.write(lineBuffer.byteArray(), 0, appender.length());
+    }
+
+    private static void appendTimestamp(final AsciiAppender appender, final long timestamp)
+    {
+        if (timestamp >= 0)
+        {
+            for (int i = digitCount(timestamp); i < TIMESTAMP_WIDTH; i++)
+            {
+                appender.append(' ');
+            }
+        }
+
+        appender.append(timestamp);
+    }
+}
@@ -18,6 +18,7 @@ package uk.co.real_logic.artio.engine.logger;
 import io.aeron.ExclusivePublication;
 import io.aeron.logbuffer.BufferClaim;
 import io.aeron.logbuffer.Header;
+import org.agrona.BitUtil;
 import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
 import org.agrona.MutableDirectBuffer;
@@ -40,13 +41,16 @@ import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
 import static uk.co.real_logic.artio.DebugLogger.IS_REPLAY_LOG_TAG_ENABLED;
 import static uk.co.real_logic.artio.LogTag.*;
 import static uk.co.real_logic.artio.dictionary.SessionConstants.BUSINESS_MESSAGE_REJECT_MESSAGE_TYPE;
 import static uk.co.real_logic.artio.dictionary.SessionConstants.SEQUENCE_RESET_MESSAGE_TYPE;
 import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
+import static uk.co.real_logic.artio.engine.HeaderOffsets.NO_HEADER_OFFSETS;
 import static uk.co.real_logic.artio.engine.framer.SenderEndPoint.NOT_LAST_REPLAY_MSG;
 import static uk.co.real_logic.artio.engine.logger.Replayer.MESSAGE_FRAME_BLOCK_LENGTH;
+import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
 import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataHeaderLength;
 import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataSinceVersion;
 
@@ -86,6 +90,7 @@ class FixReplayerSession extends ReplayerSession
     private int beginGapFillSeqNum = NONE;
 
     private State state;
+    private RecentMessageCache.CachedReplay cachedReplay;
 
     FixReplayerSession(
         final BufferClaim bufferClaim,
@@ -139,6 +144,15 @@ class FixReplayerSession extends ReplayerSession
         state = State.REPLAYING;
     }
 
+    void query()
+    {
+        cachedReplay = replayer.cachedReplay(sessionId, sequenceIndex, beginSeqNo, endSeqNo, messageTracker());
+        if (cachedReplay == null)
+        {
+            super.query();
+        }
+    }
+
     MessageTracker messageTracker()
     {
         return new FixMessageTracker(REPLAY_MESSAGE, this, sessionId);
@@ -179,7 +193,7 @@ class FixReplayerSession extends ReplayerSession
         {
             case FixMessageDecoder.TEMPLATE_ID:
             {
-                return onFixMessage(srcBuffer, srcOffset, srcLength, actingBlockLength, offset, version);
+                return onFixMessage(srcBuffer, srcOffset, srcLength, header, actingBlockLength, offset, version);
             }
 
             case ThrottleRejectDecoder.TEMPLATE_ID:
@@ -195,6 +209,7 @@ class FixReplayerSession extends ReplayerSession
         final DirectBuffer srcBuffer,
         final int srcOffset,
         final int srcLength,
+        final Header header,
         final int actingBlockLength,
         final int offset,
         final int version)
@@ -255,7 +270,8 @@ class FixReplayerSession extends ReplayerSession
 
                 headerSeqNum = msgSeqNum == endSeqNo ? msgSeqNum : NOT_LAST_REPLAY_MSG;
                 final Action action = possDupEnabler.enablePossDupFlag(
-                    srcBuffer, messageOffset, messageLength, srcOffset, srcLength, metaDataAdjustment, messageType);
+                    srcBuffer, messageOffset, messageLength, srcOffset, srcLength, metaDataAdjustment, messageType,
+                    headerOffsets(header, srcLength));
                 if (action != ABORT)
                 {
                     lastSeqNo = msgSeqNum;
@@ -268,6 +284,17 @@ class FixReplayerSession extends ReplayerSession
         return CONTINUE;
     }
 
+    private int headerOffsets(final Header header, final int srcLength)
+    {
+        final ReplayOperation replayOperation = this.replayOperation;
+        if (cachedReplay != null || replayOperation == null)
+        {
+            return NO_HEADER_OFFSETS;
+        }
+
+        return replayOperation.headerOffsets(header.position() - BitUtil.align(srcLength, FRAME_ALIGNMENT));
+    }
+
     private Action onThrottleReject(
         final DirectBuffer srcBuffer, final int actingBlockLength, final int offset, final int version)
     {
@@ -385,7 +412,7 @@ class FixReplayerSession extends ReplayerSession
         {
             case REPLAYING:
                 DebugLogger.log(REPLAY_ATTEMPT, "ReplayerSession: REPLAYING step");
-                if (replayOperation.pollReplay())
+                if (pollReplay())
                 {
                     state = State.CHECK_REPLAY;
                     return attemptReplay();
@@ -401,10 +428,20 @@ class FixReplayerSession extends ReplayerSession
                 return false;
 
             case SEND_COMPLETE_MESSAGE:
-                return sendCompleteMessage();
+                if (sendCompleteMessage())
+                {
+                    releaseCachedReplay();
+                    return true;
+                }
+                return false;
 
             case CLOSING:
             {
+                if (cachedReplay != null)
+                {
+                    releaseCachedReplay();
+                    return true;
+                }
                 return replayOperation.pollReplay();
             }
 
@@ -413,14 +450,22 @@ class FixReplayerSession extends ReplayerSession
         }
     }
 
+    private boolean pollReplay()
+    {
+        return cachedReplay != null ? cachedReplay.pollReplay() : replayOperation.pollReplay();
+    }
+
     private boolean completeReplay()
     {
         // Load state needed to complete the replay
-        final int replayedMessages = replayOperation.replayedMessages();
+        final int replayedMessages = cachedReplay != null ?
+            cachedReplay.replayedMessages() : replayOperation.replayedMessages();
 
         // If the last N messages were admin messages then we need to send a gapfill
         // after the replay query has run.
-        final int newSequenceNumber = endSeqNo + 1;
+        // A replay up to the most recent message ends wherever the replayed messages end.
+        final boolean upToMostRecentMessage = endSeqNo == MOST_RECENT_MESSAGE;
+        final int newSequenceNumber = (upToMostRecentMessage ? lastSeqNo : endSeqNo) + 1;
         if (beginGapFillSeqNum != NONE)
         {
             if (newSequenceNumber > beginGapFillSeqNum)
@@ -438,7 +483,7 @@ class FixReplayerSession extends ReplayerSession
                 return action != ABORT;
             }
         }
-        else
+        else if (!upToMostRecentMessage)
         {
             // Validate that we've replayed the correct number of messages.
             // If we have missing messages for some reason then just gap fill them.
@@ -475,6 +520,20 @@ class FixReplayerSession extends ReplayerSession
         return true;
     }
 
+    private void releaseCachedReplay()
+    {
+        if (cachedReplay != null)
+        {
+            cachedReplay.release();
+        }
+    }
+
+    void closeNow()
+    {
+        releaseCachedReplay();
+        super.closeNow();
+    }
+
     void startClose()
     {
         state = State.CLOSING;
@@ -43,6 +43,12 @@ class IndexQuery
         }
     }
 
+    void reset()
+    {
+        beginTimestampInclusive = NO_BEGIN;
+        endTimestampExclusive = NO_END;
+    }
+
     boolean needed()
     {
         return beginTimestampInclusive != NO_BEGIN ||
@@ -166,7 +166,12 @@ class IndexedPositionWriter implements AutoCloseable
 
     void updateChecksums()
     {
-        checksumFramer.updateChecksums();
+        updateChecksums(null);
+    }
+
+    void updateChecksums(final long[] updatedSectors)
+    {
+        checksumFramer.updateDirtyChecksums(updatedSectors);
     }
 
     AtomicBuffer buffer()
@@ -177,6 +182,7 @@ class IndexedPositionWriter implements AutoCloseable
     private void putPosition(final long position, final AtomicBuffer buffer, final int offset)
     {
         buffer.putLongVolatile(offset + POSITION_OFFSET, position);
+        checksumFramer.markDirty(offset);
     }
 
     public void trackPosition(final int aeronSessionId, final long endPosition)
@@ -15,6 +15,7 @@
  */
 package uk.co.real_logic.artio.engine.logger;
 
+import io.aeron.ChannelUri;
 import io.aeron.Image;
 import io.aeron.Subscription;
 import io.aeron.archive.client.AeronArchive;
@@ -24,6 +25,7 @@ import io.aeron.logbuffer.FragmentHandler;
 import io.aeron.logbuffer.Header;
 import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
+import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.Agent;
 import org.agrona.concurrent.AgentInvoker;
 import org.agrona.concurrent.IdleStrategy;
@@ -34,6 +36,7 @@ import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.CompletionPosition;
 import uk.co.real_logic.artio.util.CharFormatter;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static io.aeron.CommonContext.IPC_CHANNEL;
@@ -47,6 +50,7 @@ import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
 public class Indexer implements Agent, ControlledFragmentHandler
 {
     private static final int LIMIT = 20;
+    private static final long NOT_INDEXED = -1;
 
     private final CharFormatter indexingFormatter = new CharFormatter(
         "Indexing @ %s from [%s, %s]");
@@ -93,62 +97,153 @@ public class Indexer implements Agent, ControlledFragmentHandler
         return total;
     }
 
+    /**
+     * Catches the indices up with everything that was recorded after the positions they had indexed up to, eg: after
+     * an unclean shutdown. The tail of each recording is replayed once, from the earliest position indexed by any of
+     * the indices, and each index is only given the fragments after its own position.
+     *
+     * The positions used are the checkpoints that each index already persists: the replay and tag indices record
+     * their position as each fragment is indexed, whereas the sequence number index records its position when it
+     * flushes its file, according to its {@link SequenceNumberIndexDurability}. So catch-up covers at most the
+     * messages since the sequence number index's last flush.
+     *
+     * The replay is subscribed to by its replay session id, so that indexers of different streams can catch up
+     * concurrently using the same archive replay stream.
+     *
+     * @param aeronArchive the archive to replay the recordings from.
+     * @param errorHandler the handler for errors replaying a recording.
+     */
     public void catchIndexUp(final AeronArchive aeronArchive, final ErrorHandler errorHandler)
     {
         final IdleStrategy idleStrategy = CommonConfiguration.backoffIdleStrategy();
         final AgentInvoker aeronInvoker = aeronArchive.context().aeron().conductorAgentInvoker();
+        final Long2ObjectHashMap<long[]> recordingIdToIndexedPositions = indexedPositions();
 
-        for (int i = 0, size = indices.size(); i < size; i++)
+        final Long2ObjectHashMap<long[]>.EntryIterator it = recordingIdToIndexedPositions.entrySet().iterator();
+        while (it.hasNext())
         {
-            final Index index = indices.get(i);
+            it.next();
+            final long recordingId = it.getLongKey();
+            final long[] indexedPositions = it.getValue();
 
-            index.readLastPosition((aeronSessionId, recordingId, indexStoppedPosition) ->
+            try
             {
-                try
+                final long recordingStoppedPosition = aeronArchive.getStopPosition(recordingId);
+                final long indexStoppedPosition = minimumPosition(indexedPositions, recordingStoppedPosition);
+                if (recordingStoppedPosition > indexStoppedPosition)
                 {
-                    final long recordingStoppedPosition = aeronArchive.getStopPosition(recordingId);
-                    if (recordingStoppedPosition > indexStoppedPosition)
+                    logCatchup(recordingId, indexedPositions, recordingStoppedPosition);
+
+                    final long length = recordingStoppedPosition - indexStoppedPosition;
+                    // The archive waits for the replay's publication to be connected, so it's safe to subscribe
+                    // after starting the replay.
+                    final int replaySessionId = (int)aeronArchive.startReplay(
+                        recordingId, indexStoppedPosition, length, IPC_CHANNEL, archiveReplayStream);
+                    final String replayChannel = ChannelUri.addSessionId(IPC_CHANNEL, replaySessionId);
+                    try (Subscription subscription = aeronArchive.context().aeron().addSubscription(
+                        replayChannel, archiveReplayStream))
                     {
-                        DebugLogger.log(
-                            LogTag.INDEX,
-                            catchupFormatter,
-                            index.getName(),
-                            recordingId,
-                            recordingStoppedPosition,
-                            indexStoppedPosition);
-
-                        final long length = recordingStoppedPosition - indexStoppedPosition;
-                        try (Subscription subscription = aeronArchive.replay(
-                            recordingId, indexStoppedPosition, length, IPC_CHANNEL, archiveReplayStream))
+                        Image replayImage;
+                        while ((replayImage = subscription.imageBySessionId(replaySessionId)) == null)
+                        {
+                            idle(idleStrategy, aeronInvoker, 0);
+                            aeronArchive.checkForErrorResponse();
+                        }
+                        idleStrategy.reset();
+
+                        final FragmentHandler handler = (buffer, offset, srcLength, header) ->
+                            onCatchupFragment(buffer, offset, srcLength, header, recordingId, indexedPositions);
+
+                        while (replayImage.position() < recordingStoppedPosition)
                         {
-                            // Only do 1 replay at a time
-                            while (subscription.imageCount() != 1)
-                            {
-                                idle(idleStrategy, aeronInvoker, 0);
-                                aeronArchive.checkForErrorResponse();
-                            }
-                            idleStrategy.reset();
-
-                            final Image replayImage = subscription.imageAtIndex(0);
-
-                            final FragmentHandler handler = (buffer, offset, srcLength, header) ->
-                                index.onCatchup(buffer, offset, srcLength, header, recordingId);
-
-                            while (replayImage.position() < recordingStoppedPosition)
-                            {
-                                final int workCount = replayImage.poll(handler, LIMIT);
-                                idle(idleStrategy, aeronInvoker, workCount);
-                            }
-                            idleStrategy.reset();
+                            final int workCount = replayImage.poll(handler, LIMIT);
+                            idle(idleStrategy, aeronInvoker, workCount);
                         }
+                        idleStrategy.reset();
                     }
                 }
-                catch (final ArchiveException ex)
+            }
+            catch (final ArchiveException ex)
+            {
+                errorHandler.onError(ex);
+            }
+        }
+    }
+
+    // Indexed up to positions of each recording, in the same order as the indices, or NOT_INDEXED if an index
+    // hasn't got a position for that recording.
+    private Long2ObjectHashMap<long[]> indexedPositions()
+    {
+        final Long2ObjectHashMap<long[]> recordingIdToIndexedPositions = new Long2ObjectHashMap<>();
+        final int size = indices.size();
+        for (int i = 0; i < size; i++)
+        {
+            final int indexNumber = i;
+            indices.get(i).readLastPosition((aeronSessionId, recordingId, indexStoppedPosition) ->
+            {
+                long[] indexedPositions = recordingIdToIndexedPositions.get(recordingId);
+                if (indexedPositions == null)
                 {
-                    errorHandler.onError(ex);
+                    indexedPositions = new long[size];
+                    Arrays.fill(indexedPositions, NOT_INDEXED);
+                    recordingIdToIndexedPositions.put(recordingId, indexedPositions);
                 }
+                indexedPositions[indexNumber] = indexStoppedPosition;
             });
         }
+        return recordingIdToIndexedPositions;
+    }
+
+    private static long minimumPosition(final long[] indexedPositions, final long recordingStoppedPosition)
+    {
+        long minimumPosition = recordingStoppedPosition;
+        for (final long indexedPosition : indexedPositions)
+        {
+            if (indexedPosition != NOT_INDEXED)
+            {
+                minimumPosition = Math.min(minimumPosition, indexedPosition);
+            }
+        }
+        return minimumPosition;
+    }
+
+    private void logCatchup(
+        final long recordingId, final long[] indexedPositions, final long recordingStoppedPosition)
+    {
+        for (int i = 0, size = indices.size(); i < size; i++)
+        {
+            final long indexStoppedPosition = indexedPositions[i];
+            if (indexStoppedPosition != NOT_INDEXED && recordingStoppedPosition > indexStoppedPosition)
+            {
+                DebugLogger.log(
+                    LogTag.INDEX,
+                    catchupFormatter,
+                    indices.get(i).getName(),
+                    recordingId,
+                    recordingStoppedPosition,
+                    indexStoppedPosition);
+            }
+        }
+    }
+
+    private void onCatchupFragment(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final Header header,
+        final long recordingId,
+        final long[] indexedPositions)
+    {
+        final long endPosition = header.position();
+        final List<Index> indices = this.indices;
+        for (int i = 0, size = indices.size(); i < size; i++)
+        {
+            final long indexStoppedPosition = indexedPositions[i];
+            if (indexStoppedPosition != NOT_INDEXED && endPosition > indexStoppedPosition)
+            {
+                indices.get(i).onCatchup(buffer, offset, length, header, recordingId);
+            }
+        }
     }
 
     private void idle(final IdleStrategy idleStrategy, final AgentInvoker aeronInvoker, final int workCount)
@@ -0,0 +1,525 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.ControlledFragmentAssembler;
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.logbuffer.ControlledFragmentHandler;
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.LangUtil;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.IntArrayList;
+import org.agrona.collections.LongArrayList;
+import uk.co.real_logic.artio.ArtioLogHeader;
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanningAgent.ArchiveLocation;
+import uk.co.real_logic.artio.fixp.FixPMessageConsumer;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.FixPMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static io.aeron.logbuffer.FrameDescriptor.BEGIN_FRAG_FLAG;
+import static io.aeron.logbuffer.FrameDescriptor.END_FRAG_FLAG;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static uk.co.real_logic.artio.messages.FixMessageDecoder.bodyHeaderLength;
+import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataHeaderLength;
+import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataSinceVersion;
+
+/**
+ * Scans recordings by reading their segment files on a fork-join pool rather than replaying them through the archive.
+ *
+ * Each recording range is split at segment file boundaries into tasks. A message belongs to the task whose range its
+ * first fragment is in, so a task reads past the end of its range to finish a message that straddles the boundary, and
+ * skips the fragments that finish a message from the previous range. A task evaluates its own copy of the predicate
+ * and copies out the messages that match it. The calling thread merges the results of the streams by timestamp,
+ * taking the results of each stream in recording order, and hands the messages to the consumers. Only a limited
+ * number of tasks per stream run ahead of the merge, so memory use is bounded by the matching messages within them.
+ *
+ * This object isn't thread-safe, only one scan should be run at a time.
+ */
+final class ParallelArchiveScanner implements AutoCloseable
+{
+    private final ArchiveSegmentReader segmentReader;
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    ParallelArchiveScanner(final File archiveDir, final AeronArchive aeronArchive, final int parallelism)
+    {
+        this.parallelism = parallelism;
+        segmentReader = new ArchiveSegmentReader(archiveDir, aeronArchive);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Scan the given archive locations.
+     *
+     * @param streamIdToLocations the locations to scan for each stream.
+     * @param predicateFactory creates a predicate for each thread that messages are filtered with.
+     * @param fixHandler the consumer of FIX messages.
+     * @param fixPHandler the consumer of FIXP messages, may be null if they should be ignored.
+     * @return false if a segment file of one of the locations isn't available, in which case nothing has been
+     *         scanned, true otherwise.
+     */
+    boolean scan(
+        final Int2ObjectHashMap<List<ArchiveLocation>> streamIdToLocations,
+        final Supplier<FixMessagePredicate> predicateFactory,
+        final FixMessageConsumer fixHandler,
+        final FixPMessageConsumer fixPHandler)
+    {
+        final List<StreamCursor> cursors = new ArrayList<>();
+        for (final int streamId : streamIdToLocations.keySet())
+        {
+            final ArrayDeque<SegmentRange> ranges = splitIntoSegments(streamIdToLocations.get(streamId));
+            if (ranges == null)
+            {
+                return false;
+            }
+
+            cursors.add(new StreamCursor(streamId, ranges));
+        }
+
+        // Workers are copied on this thread as the segment reader isn't thread-safe, there's one per pool thread.
+        final BlockingQueue<ScanWorker> idleWorkers = new ArrayBlockingQueue<>(parallelism);
+        for (int i = 0; i < parallelism; i++)
+        {
+            idleWorkers.add(new ScanWorker(segmentReader.copy(), predicateFactory.get(), fixPHandler != null));
+        }
+
+        try
+        {
+            for (final StreamCursor cursor : cursors)
+            {
+                cursor.submitTasks(idleWorkers);
+            }
+
+            merge(cursors, new MessageDispatcher(fixHandler, fixPHandler), idleWorkers);
+        }
+        finally
+        {
+            // Tasks mustn't be running when their workers unmap segments
+            for (final StreamCursor cursor : cursors)
+            {
+                cursor.awaitTasks();
+            }
+
+            for (final ScanWorker worker : idleWorkers)
+            {
+                worker.close();
+            }
+        }
+
+        return true;
+    }
+
+    private ArrayDeque<SegmentRange> splitIntoSegments(final List<ArchiveLocation> locations)
+    {
+        final ArchiveSegmentReader segmentReader = this.segmentReader;
+        final ArrayDeque<SegmentRange> ranges = new ArrayDeque<>();
+        for (final ArchiveLocation location : locations)
+        {
+            final long recordingId = location.recordingId;
+            final long stopPosition = location.stopPosition;
+            if (!segmentReader.canRead(recordingId, location.startPosition, stopPosition))
+            {
+                return null;
+            }
+
+            long position = location.startPosition;
+            while (position < stopPosition)
+            {
+                final long endPosition = Math.min(
+                    stopPosition, segmentReader.segmentEndPosition(recordingId, position));
+                ranges.add(new SegmentRange(recordingId, position, endPosition, stopPosition));
+                position = endPosition;
+            }
+        }
+
+        return ranges;
+    }
+
+    private void merge(
+        final List<StreamCursor> cursors,
+        final MessageDispatcher dispatcher,
+        final BlockingQueue<ScanWorker> idleWorkers)
+    {
+        final int size = cursors.size();
+        while (true)
+        {
+            StreamCursor next = null;
+            for (int i = 0; i < size; i++)
+            {
+                final StreamCursor cursor = cursors.get(i);
+                if (cursor.hasMessage(idleWorkers) && (next == null || cursor.timestamp() < next.timestamp()))
+                {
+                    next = cursor;
+                }
+            }
+
+            if (next == null)
+            {
+                return;
+            }
+
+            next.dispatch(dispatcher);
+        }
+    }
+
+    public void close()
+    {
+        pool.shutdown();
+        segmentReader.close();
+    }
+
+    static final class SegmentRange
+    {
+        final long recordingId;
+        final long startPosition;
+        final long endPosition;
+        // The end of the location, messages in flight at the end position can be read up to here
+        final long stopPosition;
+
+        SegmentRange(final long recordingId, final long startPosition, final long endPosition, final long stopPosition)
+        {
+            this.recordingId = recordingId;
+            this.startPosition = startPosition;
+            this.endPosition = endPosition;
+            this.stopPosition = stopPosition;
+        }
+
+        public String toString()
+        {
+            return "SegmentRange{" +
+                "recordingId=" + recordingId +
+                ", startPosition=" + startPosition +
+                ", endPosition=" + endPosition +
+                ", stopPosition=" + stopPosition +
+                '}';
+        }
+    }
+
+    /**
+     * The copies of the messages from a segment range that matched the predicate, each one is stored as its length
+     * followed by the fragment.
+     */
+    static final class ScanResult
+    {
+        private final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer();
+        private final LongArrayList timestamps = new LongArrayList();
+        private final IntArrayList offsets = new IntArrayList();
+        private int limit;
+
+        void add(final long timestamp, final DirectBuffer srcBuffer, final int srcOffset, final int length)
+        {
+            final int offset = limit;
+            buffer.putInt(offset, length);
+            buffer.putBytes(offset + SIZE_OF_INT, srcBuffer, srcOffset, length);
+            timestamps.addLong(timestamp);
+            offsets.addInt(offset);
+            limit = offset + SIZE_OF_INT + length;
+        }
+
+        int size()
+        {
+            return offsets.size();
+        }
+    }
+
+    final class StreamCursor
+    {
+        private final ArrayDeque<Future<ScanResult>> tasks = new ArrayDeque<>();
+        private final ArtioLogHeader header;
+        private final ArrayDeque<SegmentRange> ranges;
+
+        private ScanResult result;
+        private int index;
+
+        StreamCursor(final int streamId, final ArrayDeque<SegmentRange> ranges)
+        {
+            this.ranges = ranges;
+            header = new ArtioLogHeader(streamId);
+        }
+
+        void submitTasks(final BlockingQueue<ScanWorker> idleWorkers)
+        {
+            final ArrayDeque<Future<ScanResult>> tasks = this.tasks;
+            final ArrayDeque<SegmentRange> ranges = this.ranges;
+            while (tasks.size() < parallelism && !ranges.isEmpty())
+            {
+                final SegmentRange range = ranges.poll();
+                tasks.add(pool.submit(() -> scanRange(idleWorkers, range)));
+            }
+        }
+
+        boolean hasMessage(final BlockingQueue<ScanWorker> idleWorkers)
+        {
+            while (result == null || index >= result.size())
+            {
+                final Future<ScanResult> task = tasks.poll();
+                if (task == null)
+                {
+                    return false;
+                }
+
+                result = await(task);
+                index = 0;
+                submitTasks(idleWorkers);
+            }
+
+            return true;
+        }
+
+        long timestamp()
+        {
+            return result.timestamps.getLong(index);
+        }
+
+        void dispatch(final MessageDispatcher dispatcher)
+        {
+            final ScanResult result = this.result;
+            final int offset = result.offsets.getInt(index);
+            final ExpandableArrayBuffer buffer = result.buffer;
+            dispatcher.onMessage(buffer, offset + SIZE_OF_INT, buffer.getInt(offset), header);
+            index++;
+        }
+
+        void awaitTasks()
+        {
+            boolean interrupted = false;
+            for (final Future<ScanResult> task : tasks)
+            {
+                while (!task.isDone())
+                {
+                    try
+                    {
+                        task.get();
+                    }
+                    catch (final InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                    catch (final ExecutionException e)
+                    {
+                        // Already failing, the first failure has been propagated
+                    }
+                }
+            }
+            tasks.clear();
+
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static ScanResult scanRange(final BlockingQueue<ScanWorker> idleWorkers, final SegmentRange range)
+        throws InterruptedException
+    {
+        final ScanWorker worker = idleWorkers.take();
+        try
+        {
+            return worker.scan(range);
+        }
+        finally
+        {
+            idleWorkers.add(worker);
+        }
+    }
+
+    private static ScanResult await(final Future<ScanResult> task)
+    {
+        try
+        {
+            return task.get();
+        }
+        catch (final ExecutionException e)
+        {
+            LangUtil.rethrowUnchecked(e.getCause());
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            LangUtil.rethrowUnchecked(e);
+        }
+
+        return null;
+    }
+
+    static final class ScanWorker implements ControlledFragmentHandler, AutoCloseable
+    {
+        private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
+        private final FixMessageDecoder fixMessage = new FixMessageDecoder();
+        private final FixPMessageDecoder fixPMessage = new FixPMessageDecoder();
+        private final ControlledFragmentAssembler fragmentAssembler = new ControlledFragmentAssembler(this);
+        private final ControlledFragmentHandler rangeHandler = this::onRangeFragment;
+        private final ArchiveSegmentReader segmentReader;
+        private final FixMessagePredicate predicate;
+        private final boolean includeFixP;
+
+        private ScanResult result;
+        private long rangeEndPosition;
+        private boolean messageInFlight;
+
+        ScanWorker(
+            final ArchiveSegmentReader segmentReader, final FixMessagePredicate predicate, final boolean includeFixP)
+        {
+            this.segmentReader = segmentReader;
+            this.predicate = predicate;
+            this.includeFixP = includeFixP;
+        }
+
+        ScanResult scan(final SegmentRange range)
+        {
+            final ScanResult result = new ScanResult();
+            this.result = result;
+            rangeEndPosition = range.endPosition;
+            messageInFlight = false;
+
+            // Any partial message is from another range, without it the fragments that finish a message from the
+            // previous range are dropped.
+            fragmentAssembler.clear();
+
+            final long recordingId = range.recordingId;
+            final long position = segmentReader.read(
+                recordingId, range.startPosition, range.endPosition, rangeHandler);
+            if (messageInFlight && position == range.endPosition)
+            {
+                segmentReader.read(recordingId, position, range.stopPosition, rangeHandler);
+            }
+
+            this.result = null;
+            return result;
+        }
+
+        private Action onRangeFragment(
+            final DirectBuffer buffer, final int offset, final int length, final Header header)
+        {
+            final byte flags = header.flags();
+            // A message that begins after the range belongs to the next range, header positions are frame ends.
+            if ((flags & BEGIN_FRAG_FLAG) == BEGIN_FRAG_FLAG && header.position() > rangeEndPosition)
+            {
+                return ABORT;
+            }
+
+            messageInFlight = (flags & END_FRAG_FLAG) != END_FRAG_FLAG;
+            return fragmentAssembler.onFragment(buffer, offset, length, header);
+        }
+
+        public Action onFragment(final DirectBuffer buffer, final int offset, final int length, final Header header)
+        {
+            final MessageHeaderDecoder messageHeader = this.messageHeader;
+            messageHeader.wrap(buffer, offset);
+            final int templateId = messageHeader.templateId();
+            final int blockLength = messageHeader.blockLength();
+            final int version = messageHeader.version();
+            final int messageOffset = offset + MessageHeaderDecoder.ENCODED_LENGTH;
+
+            if (templateId == FixMessageDecoder.TEMPLATE_ID)
+            {
+                final FixMessageDecoder fixMessage = this.fixMessage;
+                fixMessage.wrap(buffer, messageOffset, blockLength, version);
+                if (version >= metaDataSinceVersion())
+                {
+                    fixMessage.skipMetaData();
+                }
+
+                final long timestamp = fixMessage.timestamp();
+                if (predicate.test(fixMessage))
+                {
+                    result.add(timestamp, buffer, offset, length);
+                }
+            }
+            else if (templateId == FixPMessageDecoder.TEMPLATE_ID && includeFixP)
+            {
+                fixPMessage.wrap(buffer, messageOffset, blockLength, version);
+                result.add(fixPMessage.enqueueTime(), buffer, offset, length);
+            }
+
+            return CONTINUE;
+        }
+
+        public void close()
+        {
+            segmentReader.close();
+        }
+    }
+
+    static final class MessageDispatcher
+    {
+        private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
+        private final FixMessageDecoder fixMessage = new FixMessageDecoder();
+        private final FixPMessageDecoder fixPMessage = new FixPMessageDecoder();
+        private final FixMessageConsumer fixHandler;
+        private final FixPMessageConsumer fixPHandler;
+
+        MessageDispatcher(final FixMessageConsumer fixHandler, final FixPMessageConsumer fixPHandler)
+        {
+            this.fixHandler = fixHandler;
+            this.fixPHandler = fixPHandler;
+        }
+
+        void onMessage(final DirectBuffer buffer, final int start, final int length, final ArtioLogHeader header)
+        {
+            int offset = start;
+
+            final MessageHeaderDecoder messageHeader = this.messageHeader;
+            messageHeader.wrap(buffer, offset);
+            final int templateId = messageHeader.templateId();
+            final int blockLength = messageHeader.blockLength();
+            final int version = messageHeader.version();
+
+            offset += MessageHeaderDecoder.ENCODED_LENGTH;
+
+            if (templateId == FixMessageDecoder.TEMPLATE_ID)
+            {
+                final FixMessageDecoder fixMessage = this.fixMessage;
+                fixMessage.wrap(buffer, offset, blockLength, version);
+
+                if (version >= metaDataSinceVersion())
+                {
+                    offset += metaDataHeaderLength() + fixMessage.metaDataLength();
+                    fixMessage.skipMetaData();
+                }
+
+                fixHandler.onMessage(fixMessage, buffer,
+                    offset + FixMessageDecoder.BLOCK_LENGTH + bodyHeaderLength(), fixMessage.bodyLength(), header);
+            }
+            else if (templateId == FixPMessageDecoder.TEMPLATE_ID)
+            {
+                final FixPMessageDecoder fixPMessage = this.fixPMessage;
+                fixPMessage.wrap(buffer, offset, blockLength, version);
+
+                offset += FixPMessageDecoder.BLOCK_LENGTH;
+
+                fixPHandler.onMessage(fixPMessage, buffer, offset, header);
+            }
+        }
+    }
+}
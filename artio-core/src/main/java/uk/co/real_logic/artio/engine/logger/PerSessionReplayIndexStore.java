@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.ErrorHandler;
+import org.agrona.IoUtil;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.io.IOException;
+
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.HEADER_FILE_SIZE;
+
+/**
+ * {@link ReplayIndexLayout#PER_SESSION_FILES} implementation of the store: a header file and segment files per
+ * session.
+ */
+class PerSessionReplayIndexStore implements ReplayIndexStore
+{
+    private final String logFileDir;
+    private final int streamId;
+    private final int segmentSize;
+    private final BufferFactory bufferFactory;
+    private final ErrorHandler errorHandler;
+
+    PerSessionReplayIndexStore(
+        final String logFileDir,
+        final int streamId,
+        final int segmentSize,
+        final BufferFactory bufferFactory,
+        final ErrorHandler errorHandler)
+    {
+        this.logFileDir = logFileDir;
+        this.streamId = streamId;
+        this.segmentSize = segmentSize;
+        this.bufferFactory = bufferFactory;
+        this.errorHandler = errorHandler;
+    }
+
+    public boolean exists(final long fixSessionId)
+    {
+        return headerFile(fixSessionId).exists();
+    }
+
+    public UnsafeBuffer mapHeader(final long fixSessionId)
+    {
+        return new UnsafeBuffer(bufferFactory.map(headerFile(fixSessionId), HEADER_FILE_SIZE));
+    }
+
+    public UnsafeBuffer mapSegment(final long fixSessionId, final int segmentIndex)
+    {
+        return new UnsafeBuffer(bufferFactory.map(segmentFile(fixSessionId, segmentIndex), segmentSize));
+    }
+
+    public void unmap(final UnsafeBuffer headerBuffer, final UnsafeBuffer[] segmentBuffers)
+    {
+        if (segmentBuffers == null)
+        {
+            IoUtil.unmap(headerBuffer.byteBuffer());
+        }
+        else
+        {
+            ReplayIndexDescriptor.unmapBuffers(headerBuffer, segmentBuffers);
+        }
+    }
+
+    public void delete(final long fixSessionId, final UnsafeBuffer[] segmentBuffers)
+    {
+        final File headerFile = headerFile(fixSessionId);
+        if (headerFile.exists())
+        {
+            deleteFile(headerFile);
+        }
+
+        if (segmentBuffers != null)
+        {
+            for (int segmentIndex = 0; segmentIndex < segmentBuffers.length; segmentIndex++)
+            {
+                if (segmentBuffers[segmentIndex] != null)
+                {
+                    deleteFile(segmentFile(fixSessionId, segmentIndex));
+                }
+            }
+        }
+    }
+
+    public LongHashSet listSessionIds()
+    {
+        return ReplayIndexDescriptor.listReplayIndexSessionIds(new File(logFileDir), streamId);
+    }
+
+    public void close()
+    {
+    }
+
+    private File headerFile(final long fixSessionId)
+    {
+        return ReplayIndexDescriptor.replayIndexHeaderFile(logFileDir, fixSessionId, streamId);
+    }
+
+    private File segmentFile(final long fixSessionId, final int segmentIndex)
+    {
+        return ReplayIndexDescriptor.replayIndexSegmentFile(logFileDir, fixSessionId, streamId, segmentIndex);
+    }
+
+    private void deleteFile(final File replayIndexFile)
+    {
+        if (!replayIndexFile.delete())
+        {
+            errorHandler.onError(new IOException("Unable to delete replay index file: " + replayIndexFile));
+        }
+    }
+}
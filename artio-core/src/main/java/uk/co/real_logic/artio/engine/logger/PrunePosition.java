@@ -17,10 +17,9 @@ package uk.co.real_logic.artio.engine.logger;
 
 class PrunePosition
 {
-    private final int sequenceIndex;
-
     private long position;
     private int sequenceNumber;
+    private int sequenceIndex;
 
     PrunePosition(final long position, final int sequenceNumber, final int sequenceIndex)
     {
@@ -54,6 +53,11 @@ class PrunePosition
         this.sequenceNumber = sequenceNumber;
     }
 
+    public void sequenceIndex(final int sequenceIndex)
+    {
+        this.sequenceIndex = sequenceIndex;
+    }
+
     @Override
     public String toString()
     {
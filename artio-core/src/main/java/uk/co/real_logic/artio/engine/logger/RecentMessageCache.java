@@ -0,0 +1,486 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.ControlledFragmentHandler.Action;
+import io.aeron.logbuffer.FragmentHandler;
+import io.aeron.logbuffer.Header;
+import org.agrona.BufferUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.engine.SequenceNumberExtractor;
+import uk.co.real_logic.artio.messages.*;
+
+import java.util.ArrayDeque;
+
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
+import static io.aeron.logbuffer.FrameDescriptor.BEGIN_FRAG_FLAG;
+import static io.aeron.logbuffer.FrameDescriptor.UNFRAGMENTED;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.BitUtil.align;
+import static uk.co.real_logic.artio.engine.SequenceNumberExtractor.NO_SEQUENCE_NUMBER;
+import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
+import static uk.co.real_logic.artio.messages.FixMessageDecoder.bodyHeaderLength;
+import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataHeaderLength;
+import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataSinceVersion;
+import static uk.co.real_logic.artio.messages.MessageStatus.OK;
+
+/**
+ * Keeps the most recently sent messages of each FIX session so that resend requests for them can be served without
+ * starting an archive replay.
+ *
+ * Each session has a fixed capacity ring buffer of the fragments that were published on the outbound library stream,
+ * in sequence number order. Only an unbroken run of sequence numbers within a single sequence index is kept, anything
+ * that breaks the run - a sequence reset, a fragmented message, a throttle rejection - empties the session's ring and
+ * requests for earlier messages are served from the archive. A session's ring is freed when its sequence numbers are
+ * reset, as none of its messages can be requested again after that.
+ */
+class RecentMessageCache implements FragmentHandler
+{
+    private static final int RECORD_LENGTH_OFFSET = 0;
+    private static final int SEQUENCE_NUMBER_OFFSET = RECORD_LENGTH_OFFSET + SIZE_OF_INT;
+    private static final int FRAGMENT_LENGTH_OFFSET = SEQUENCE_NUMBER_OFFSET + SIZE_OF_INT;
+    private static final int RECORD_HEADER_LENGTH = FRAGMENT_LENGTH_OFFSET + SIZE_OF_INT;
+    private static final int RECORD_ALIGNMENT = SIZE_OF_LONG;
+    private static final int PADDING_SEQUENCE_NUMBER = NO_SEQUENCE_NUMBER;
+
+    private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
+    private final FixMessageDecoder fixMessage = new FixMessageDecoder();
+    private final ThrottleNotificationDecoder throttleNotification = new ThrottleNotificationDecoder();
+    private final ThrottleRejectDecoder throttleReject = new ThrottleRejectDecoder();
+    private final ResetSequenceNumberDecoder resetSequenceNumber = new ResetSequenceNumberDecoder();
+    private final RedactSequenceUpdateDecoder redactSequenceUpdate = new RedactSequenceUpdateDecoder();
+    private final SequenceNumberExtractor sequenceNumberExtractor = new SequenceNumberExtractor();
+    private final SessionOwnershipTracker sessTracker = new SessionOwnershipTracker();
+    private final Long2ObjectHashMap<SessionMessages> sessionIdToMessages = new Long2ObjectHashMap<>();
+    private final ArrayDeque<CachedReplay> freeReplays = new ArrayDeque<>();
+    private final Header replayHeader = new Header(0, 0);
+    private final int capacity;
+
+    RecentMessageCache(final int capacity)
+    {
+        this.capacity = capacity & ~(RECORD_ALIGNMENT - 1);
+    }
+
+    public void onFragment(final DirectBuffer buffer, final int offset, final int length, final Header header)
+    {
+        final byte flags = header.flags();
+        if ((flags & UNFRAGMENTED) != UNFRAGMENTED && (flags & BEGIN_FRAG_FLAG) != BEGIN_FRAG_FLAG)
+        {
+            return;
+        }
+
+        messageHeader.wrap(buffer, offset);
+        final int templateId = messageHeader.templateId();
+        final int blockLength = messageHeader.blockLength();
+        final int version = messageHeader.version();
+        final int messageOffset = offset + MessageHeaderDecoder.ENCODED_LENGTH;
+
+        switch (templateId)
+        {
+            case FixMessageDecoder.TEMPLATE_ID:
+            {
+                fixMessage.wrap(buffer, messageOffset, blockLength, version);
+                if (fixMessage.status() == OK &&
+                    !sessTracker.messageFromWrongLibrary(fixMessage.session(), fixMessage.libraryId()))
+                {
+                    onFixMessage(buffer, offset, length, messageOffset, blockLength, version, flags);
+                }
+                break;
+            }
+
+            case ThrottleNotificationDecoder.TEMPLATE_ID:
+            {
+                throttleNotification.wrap(buffer, messageOffset, blockLength, version);
+                reset(throttleNotification.session());
+                break;
+            }
+
+            case ThrottleRejectDecoder.TEMPLATE_ID:
+            {
+                throttleReject.wrap(buffer, messageOffset, blockLength, version);
+                reset(throttleReject.session());
+                break;
+            }
+
+            case ResetSequenceNumberDecoder.TEMPLATE_ID:
+            {
+                resetSequenceNumber.wrap(buffer, messageOffset, blockLength, version);
+                free(resetSequenceNumber.session());
+                break;
+            }
+
+            case ResetSessionIdsDecoder.TEMPLATE_ID:
+            {
+                close();
+                break;
+            }
+
+            case RedactSequenceUpdateDecoder.TEMPLATE_ID:
+            {
+                redactSequenceUpdate.wrap(buffer, messageOffset, blockLength, version);
+                reset(redactSequenceUpdate.session());
+                break;
+            }
+
+            case ManageSessionDecoder.TEMPLATE_ID:
+            {
+                sessTracker.onManageSession(buffer, messageOffset, blockLength, version);
+                break;
+            }
+        }
+    }
+
+    private void onFixMessage(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final int messageOffset,
+        final int blockLength,
+        final int version,
+        final byte flags)
+    {
+        int bodyOffset = messageOffset + blockLength;
+        if (version >= metaDataSinceVersion())
+        {
+            bodyOffset += metaDataHeaderLength() + fixMessage.metaDataLength();
+            fixMessage.skipMetaData();
+        }
+        bodyOffset += bodyHeaderLength();
+
+        sequenceNumberExtractor.extract(buffer, bodyOffset, fixMessage.bodyLength());
+        final int sequenceNumber = sequenceNumberExtractor.sequenceNumber();
+        if (sequenceNumber == NO_SEQUENCE_NUMBER)
+        {
+            return;
+        }
+
+        final long sessionId = fixMessage.session();
+        SessionMessages messages = sessionIdToMessages.get(sessionId);
+        if (messages == null)
+        {
+            messages = new SessionMessages(capacity);
+            sessionIdToMessages.put(sessionId, messages);
+        }
+
+        final int sequenceIndex = fixMessage.sequenceIndex();
+        if ((flags & UNFRAGMENTED) != UNFRAGMENTED ||
+            sequenceNumberExtractor.newSequenceNumber() != NO_SEQUENCE_NUMBER)
+        {
+            // Gap fills are skipped so that every cached record corresponds to exactly one sequence number, and
+            // fragmented messages are larger than is worth caching.
+            messages.reset();
+        }
+        else
+        {
+            messages.append(sequenceNumber, sequenceIndex, buffer, offset, length);
+        }
+    }
+
+    private void reset(final long sessionId)
+    {
+        final SessionMessages messages = sessionIdToMessages.get(sessionId);
+        if (messages != null)
+        {
+            messages.reset();
+        }
+    }
+
+    private void free(final long sessionId)
+    {
+        final SessionMessages messages = sessionIdToMessages.remove(sessionId);
+        if (messages != null)
+        {
+            messages.close();
+        }
+    }
+
+    void close()
+    {
+        sessionIdToMessages.values().forEach(SessionMessages::close);
+        sessionIdToMessages.clear();
+    }
+
+    /**
+     * Start a replay of an inclusive range of sequence numbers if all of them are within the cache. An end sequence
+     * number of {@link Replayer#MOST_RECENT_MESSAGE} replays up to the most recently cached message.
+     *
+     * @return the replay or null if the range needs to be replayed from the archive.
+     */
+    CachedReplay replay(
+        final long sessionId,
+        final int sequenceIndex,
+        final int beginSeqNo,
+        final int endSeqNo,
+        final MessageTracker messageTracker)
+    {
+        final SessionMessages messages = sessionIdToMessages.get(sessionId);
+        if (messages == null)
+        {
+            return null;
+        }
+
+        final int lastSeqNo = endSeqNo == MOST_RECENT_MESSAGE ? messages.lastSeqNo : endSeqNo;
+        if (!messages.contains(sequenceIndex, beginSeqNo, lastSeqNo))
+        {
+            return null;
+        }
+
+        CachedReplay replay = freeReplays.pollFirst();
+        if (replay == null)
+        {
+            replay = new CachedReplay();
+        }
+
+        final int messageCount = lastSeqNo - beginSeqNo + 1;
+        final int length = messages.copy(beginSeqNo, messageCount, replay.buffer);
+        messageTracker.reset(messageCount);
+        replay.init(length, messageTracker);
+        return replay;
+    }
+
+    static final class SessionMessages
+    {
+        private final UnsafeBuffer buffer;
+        private final int capacity;
+
+        private int head;
+        private int tail;
+        private int size;
+        private int sequenceIndex;
+        private int firstSeqNo;
+        private int lastSeqNo;
+
+        SessionMessages(final int capacity)
+        {
+            this.capacity = capacity;
+            buffer = new UnsafeBuffer(BufferUtil.allocateDirectAligned(capacity, RECORD_ALIGNMENT));
+            reset();
+        }
+
+        void reset()
+        {
+            head = 0;
+            tail = 0;
+            size = 0;
+            sequenceIndex = NO_SEQUENCE_NUMBER;
+            firstSeqNo = NO_SEQUENCE_NUMBER;
+            lastSeqNo = NO_SEQUENCE_NUMBER;
+        }
+
+        void append(
+            final int sequenceNumber,
+            final int sequenceIndex,
+            final DirectBuffer srcBuffer,
+            final int srcOffset,
+            final int srcLength)
+        {
+            final int recordLength = align(RECORD_HEADER_LENGTH + srcLength, RECORD_ALIGNMENT);
+            if (recordLength > capacity)
+            {
+                reset();
+                return;
+            }
+
+            if (size == 0 || sequenceIndex != this.sequenceIndex || sequenceNumber != lastSeqNo + 1)
+            {
+                reset();
+                this.sequenceIndex = sequenceIndex;
+                firstSeqNo = sequenceNumber;
+            }
+
+            final UnsafeBuffer buffer = this.buffer;
+            final int remainingBeforeWrap = capacity - tail;
+            if (recordLength > remainingBeforeWrap)
+            {
+                if (evict(remainingBeforeWrap + recordLength))
+                {
+                    buffer.putInt(tail + RECORD_LENGTH_OFFSET, remainingBeforeWrap);
+                    buffer.putInt(tail + SEQUENCE_NUMBER_OFFSET, PADDING_SEQUENCE_NUMBER);
+                    size += remainingBeforeWrap;
+                    tail = 0;
+                }
+            }
+            else
+            {
+                evict(recordLength);
+            }
+
+            buffer.putInt(tail + RECORD_LENGTH_OFFSET, recordLength);
+            buffer.putInt(tail + SEQUENCE_NUMBER_OFFSET, sequenceNumber);
+            buffer.putInt(tail + FRAGMENT_LENGTH_OFFSET, srcLength);
+            buffer.putBytes(tail + RECORD_HEADER_LENGTH, srcBuffer, srcOffset, srcLength);
+            size += recordLength;
+            tail += recordLength;
+            if (tail == capacity)
+            {
+                tail = 0;
+            }
+            lastSeqNo = sequenceNumber;
+        }
+
+        /**
+         * Evict the oldest records until there's enough free space.
+         *
+         * @return true if records remain, false if the ring has been emptied and writes restart from its beginning.
+         */
+        private boolean evict(final int requiredLength)
+        {
+            final UnsafeBuffer buffer = this.buffer;
+            while (size > 0 && capacity - size < requiredLength)
+            {
+                final int recordLength = buffer.getInt(head + RECORD_LENGTH_OFFSET);
+                final int sequenceNumber = buffer.getInt(head + SEQUENCE_NUMBER_OFFSET);
+                if (sequenceNumber != PADDING_SEQUENCE_NUMBER)
+                {
+                    // Sequence numbers within the ring are contiguous
+                    firstSeqNo = sequenceNumber + 1;
+                }
+
+                size -= recordLength;
+                head += recordLength;
+                if (head == capacity)
+                {
+                    head = 0;
+                }
+            }
+
+            if (size == 0)
+            {
+                head = 0;
+                tail = 0;
+                return false;
+            }
+
+            return true;
+        }
+
+        void close()
+        {
+            BufferUtil.free(buffer);
+        }
+
+        boolean contains(final int sequenceIndex, final int beginSeqNo, final int endSeqNo)
+        {
+            return size > 0 && sequenceIndex == this.sequenceIndex &&
+                firstSeqNo <= beginSeqNo && beginSeqNo <= endSeqNo && endSeqNo <= lastSeqNo;
+        }
+
+        int copy(final int beginSeqNo, final int messageCount, final MutableDirectBuffer replayBuffer)
+        {
+            final UnsafeBuffer buffer = this.buffer;
+
+            int offset = head;
+            while (true)
+            {
+                final int sequenceNumber = buffer.getInt(offset + SEQUENCE_NUMBER_OFFSET);
+                if (sequenceNumber != PADDING_SEQUENCE_NUMBER && sequenceNumber >= beginSeqNo)
+                {
+                    break;
+                }
+                offset += buffer.getInt(offset + RECORD_LENGTH_OFFSET);
+                if (offset == capacity)
+                {
+                    offset = 0;
+                }
+            }
+
+            // Copy out the requested records so that the replay isn't affected by subsequent evictions from the
+            // ring whilst it is back-pressured.
+            int replayLength = 0;
+            int copied = 0;
+            while (copied < messageCount)
+            {
+                final int recordLength = buffer.getInt(offset + RECORD_LENGTH_OFFSET);
+                if (buffer.getInt(offset + SEQUENCE_NUMBER_OFFSET) != PADDING_SEQUENCE_NUMBER)
+                {
+                    replayBuffer.putBytes(replayLength, buffer, offset, recordLength);
+                    replayLength += recordLength;
+                    copied++;
+                }
+                offset += recordLength;
+                if (offset == capacity)
+                {
+                    offset = 0;
+                }
+            }
+
+            return replayLength;
+        }
+    }
+
+    /**
+     * A replay of a snapshot of cached messages. Like a {@link ReplayOperation} it is polled until it completes,
+     * retrying any message that is back-pressured. Replays are pooled so that their snapshot buffers are reused, each
+     * replay should be released once it has completed.
+     */
+    final class CachedReplay
+    {
+        private final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer();
+
+        private int length;
+        private MessageTracker messageTracker;
+        private int offset;
+        private boolean inUse;
+
+        void init(final int length, final MessageTracker messageTracker)
+        {
+            this.length = length;
+            this.messageTracker = messageTracker;
+            offset = 0;
+            inUse = true;
+        }
+
+        boolean pollReplay()
+        {
+            final ExpandableArrayBuffer buffer = this.buffer;
+            final Header header = replayHeader;
+            while (offset < length)
+            {
+                final int fragmentLength = buffer.getInt(offset + FRAGMENT_LENGTH_OFFSET);
+                final Action action = messageTracker.onFragment(
+                    buffer, offset + RECORD_HEADER_LENGTH, fragmentLength, header);
+                if (action == ABORT)
+                {
+                    return false;
+                }
+
+                offset += buffer.getInt(offset + RECORD_LENGTH_OFFSET);
+            }
+
+            return true;
+        }
+
+        int replayedMessages()
+        {
+            return messageTracker.count;
+        }
+
+        void release()
+        {
+            if (inUse)
+            {
+                inUse = false;
+                messageTracker = null;
+                freeReplays.addLast(this);
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package uk.co.real_logic.artio.engine.logger;
 
+import org.agrona.collections.Long2LongHashMap;
 import uk.co.real_logic.artio.DebugLogger;
 import uk.co.real_logic.artio.util.CharFormatter;
 
@@ -31,6 +32,9 @@ public final class RecordingRange
     long position = MISSING_LONG;
     long length;
     int count;
+    // Positions are only unique within a recording, so each range keeps the header offsets of its own messages.
+    // Null if none were indexed, otherwise pooled by the ReplayQuery.
+    Long2LongHashMap positionToHeaderOffsets;
 
     RecordingRange(final long recordingId, final long sessionId)
     {
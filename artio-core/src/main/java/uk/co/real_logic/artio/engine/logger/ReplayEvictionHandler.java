@@ -16,25 +16,75 @@
 package uk.co.real_logic.artio.engine.logger;
 
 import org.agrona.ErrorHandler;
+import org.agrona.concurrent.OneToOneConcurrentArrayQueue;
+import uk.co.real_logic.artio.engine.ReplayerCommand;
+import uk.co.real_logic.artio.engine.ReplayerCommandQueue;
 import uk.co.real_logic.artio.engine.framer.FramerContext;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class ReplayEvictionHandler
 {
+    // The inbound and outbound handlers share the replayer's queue, each needs room for its pooled resets and its
+    // reset all command.
+    static final int RESET_COMMAND_POOL_SIZE = ReplayerCommandQueue.CAPACITY / 2 - 1;
+
     private final ErrorHandler errorHandler;
+    private final ReplayerCommandQueue replayerCommandQueue;
+    // Taken on the Indexer, returned on the Replayer
+    private final OneToOneConcurrentArrayQueue<ResetCommand> freeResetCommands;
+    private final AtomicBoolean resetAllEnqueued = new AtomicBoolean();
+    private final ReplayerCommand resetAllCommand = this::resetAll;
     private ReplayQuery replayQuery;
     private ReplayQuery framerReplayQuery;
     private FramerContext framerContext;
 
     public ReplayEvictionHandler(final ErrorHandler errorHandler)
+    {
+        this(errorHandler, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param errorHandler the handler for errors whilst evicting.
+     * @param replayerCommandQueue if not null then evictions of the replayer thread's replay query are passed through
+     *                             this queue, so that they are safe if the replayer runs on a different thread to
+     *                             the indexers. Evictions use a fixed pool of commands, if the replayer falls so far
+     *                             behind that the pool is empty then its whole replay query is reset instead.
+     */
+    public ReplayEvictionHandler(final ErrorHandler errorHandler, final ReplayerCommandQueue replayerCommandQueue)
     {
         this.errorHandler = errorHandler;
+        this.replayerCommandQueue = replayerCommandQueue;
+
+        if (replayerCommandQueue == null)
+        {
+            freeResetCommands = null;
+        }
+        else
+        {
+            freeResetCommands = new OneToOneConcurrentArrayQueue<>(RESET_COMMAND_POOL_SIZE);
+            for (int i = 0; i < RESET_COMMAND_POOL_SIZE; i++)
+            {
+                freeResetCommands.offer(new ResetCommand());
+            }
+        }
     }
 
     public void onReset(final long fixSessionId)
     {
+        final ReplayQuery replayQuery = this.replayQuery;
         if (replayQuery != null)
         {
-            replayQuery.onReset(fixSessionId);
+            if (replayerCommandQueue != null)
+            {
+                enqueueReset(fixSessionId);
+            }
+            else
+            {
+                replayQuery.onReset(fixSessionId);
+            }
         }
 
         if (framerReplayQuery != null)
@@ -49,6 +99,35 @@ public class ReplayEvictionHandler
         }
     }
 
+    private void enqueueReset(final long fixSessionId)
+    {
+        final ResetCommand command = freeResetCommands.poll();
+        if (command != null)
+        {
+            command.fixSessionId = fixSessionId;
+            if (replayerCommandQueue.offerFromIndexer(command))
+            {
+                return;
+            }
+            freeResetCommands.offer(command);
+        }
+
+        // Rather than waiting for the replayer, which may be running on this thread, reset all of its sessions once
+        // it catches up. A reset all that is already enqueued hasn't started yet, so it covers this session too.
+        if (resetAllEnqueued.compareAndSet(false, true) && !replayerCommandQueue.offerFromIndexer(resetAllCommand))
+        {
+            resetAllEnqueued.set(false);
+            errorHandler.onError(new IllegalStateException(
+                "Unable to enqueue replay query reset for fixSessionId=" + fixSessionId));
+        }
+    }
+
+    private void resetAll()
+    {
+        resetAllEnqueued.set(false);
+        replayQuery.onResetAll();
+    }
+
     public void replayQuery(final ReplayQuery replayQuery)
     {
         if (this.replayQuery != null)
@@ -68,4 +147,16 @@ public class ReplayEvictionHandler
     {
         this.framerContext = framerContext;
     }
+
+    final class ResetCommand implements ReplayerCommand
+    {
+        private long fixSessionId;
+
+        public void execute()
+        {
+            final long fixSessionId = this.fixSessionId;
+            freeResetCommands.offer(this);
+            replayQuery.onReset(fixSessionId);
+        }
+    }
 }
@@ -25,17 +25,17 @@ import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+import uk.co.real_logic.artio.engine.HeaderOffsets;
 import uk.co.real_logic.artio.engine.SequenceNumberExtractor;
 import uk.co.real_logic.artio.messages.*;
 import uk.co.real_logic.artio.storage.messages.ReplayIndexRecordEncoder;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.function.LongFunction;
 
 import static io.aeron.archive.status.RecordingPos.NULL_RECORDING_ID;
 import static io.aeron.logbuffer.FrameDescriptor.*;
 import static org.agrona.UnsafeAccess.UNSAFE;
+import static uk.co.real_logic.artio.engine.HeaderOffsets.NO_HEADER_OFFSETS;
 import static uk.co.real_logic.artio.engine.SequenceNumberExtractor.NO_SEQUENCE_NUMBER;
 import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.*;
 import static uk.co.real_logic.artio.messages.FixMessageDecoder.*;
@@ -75,16 +75,14 @@ public class ReplayIndex implements Index
 
     private final Long2ObjectHashMap<SessionIndex> fixSessionIdToIndex;
 
-    private final String logFileDir;
     private final int requiredStreamId;
     private final long indexFileSize;
     private final int segmentSize;
     private final ReplayEvictionHandler evictionHandler;
     private final int segmentSizeBitShift;
     private final int segmentCount;
-    private final BufferFactory bufferFactory;
+    private final ReplayIndexStore store;
     private final AtomicBuffer positionBuffer;
-    private final ErrorHandler errorHandler;
     private final RecordingIdLookup recordingIdLookup;
     private final TimeIndexWriter timeIndex;
     private final SessionOwnershipTracker sessTracker;
@@ -104,25 +102,27 @@ public class ReplayIndex implements Index
         final SequenceNumberIndexReader reader,
         final long timeIndexReplayFlushIntervalInNs,
         final boolean indexChecksumEnabled,
-        final ReplayEvictionHandler evictionHandler)
+        final ReplayEvictionHandler evictionHandler,
+        final ReplayIndexLayout indexLayout)
     {
         this.sequenceNumberExtractor = sequenceNumberExtractor;
-        this.logFileDir = logFileDir;
         this.requiredStreamId = requiredStreamId;
         this.indexFileSize = ReplayIndexDescriptor.capacityToBytes(indexFileCapacity);
         this.segmentSize = ReplayIndexDescriptor.capacityToBytesInt(indexSegmentCapacity);
         this.evictionHandler = evictionHandler;
         this.segmentSizeBitShift = Long.numberOfTrailingZeros(segmentSize);
         this.segmentCount = ReplayIndexDescriptor.segmentCount(indexFileCapacity, indexSegmentCapacity);
-        this.bufferFactory = bufferFactory;
         this.positionBuffer = positionBuffer;
-        this.errorHandler = errorHandler;
         this.recordingIdLookup = recordingIdLookup;
 
         checkPowerOfTwo("segmentCount", segmentCount);
         checkPowerOfTwo("segmentSize", segmentSize);
         checkPowerOfTwo("indexFileSize", indexFileSize);
 
+        store = indexLayout == ReplayIndexLayout.CONSOLIDATED ?
+            new ConsolidatedReplayIndexStore(logFileDir, requiredStreamId, indexFileSize, segmentSize, true) :
+            new PerSessionReplayIndexStore(logFileDir, requiredStreamId, segmentSize, bufferFactory, errorHandler);
+
         sessTracker = new SessionOwnershipTracker();
         fixPSequenceIndexer = new FixPSequenceIndexer(
             connectionIdToFixPSessionId, errorHandler, fixPProtocolType, reader,
@@ -191,10 +191,9 @@ public class ReplayIndex implements Index
         else
         {
             // This session isn't in the cache
-            final File headerFile = replayIndexHeaderFile(sessionId);
-            if (headerFile.exists())
+            if (store.exists(sessionId))
             {
-                final UnsafeBuffer headerBuffer = mapUnsafeBuffer(HEADER_FILE_SIZE, headerFile);
+                final UnsafeBuffer headerBuffer = store.mapHeader(sessionId);
                 try
                 {
                     if (forNextSessionVersion(headerBuffer))
@@ -205,7 +204,7 @@ public class ReplayIndex implements Index
                 }
                 finally
                 {
-                    IoUtil.unmap(headerBuffer.byteBuffer());
+                    store.unmap(headerBuffer, null);
                 }
             }
         }
@@ -270,9 +269,10 @@ public class ReplayIndex implements Index
         offset += frameHeaderDecoder.encodedLength();
 
         final boolean beginMessage = (flags & BEGIN_FRAG_FLAG) == BEGIN_FRAG_FLAG;
+        final boolean unfragmented = (flags & UNFRAGMENTED) == UNFRAGMENTED;
         final int aeronSessionId = header.sessionId();
 
-        if ((flags & UNFRAGMENTED) == UNFRAGMENTED || beginMessage)
+        if (unfragmented || beginMessage)
         {
             switch (templateId)
             {
@@ -283,7 +283,7 @@ public class ReplayIndex implements Index
                     {
                         onFixMessage(
                             srcBuffer, header, recordingId, endPosition,
-                            length, offset, blockLength, version, beginMessage);
+                            length, offset, blockLength, version, beginMessage, unfragmented);
                     }
                     break;
                 }
@@ -380,7 +380,8 @@ public class ReplayIndex implements Index
         final int start,
         final int blockLength,
         final int version,
-        final boolean beginMessage)
+        final boolean beginMessage,
+        final boolean unfragmented)
     {
         if (messageFrame.status() == OK)
         {
@@ -393,8 +394,9 @@ public class ReplayIndex implements Index
             offset += bodyHeaderLength();
 
             final long fixSessionId = messageFrame.session();
+            final int messageLength = messageFrame.bodyLength();
             sequenceNumberExtractor.extractCached(
-                srcBuffer, offset, messageFrame.bodyLength(), header.sessionId(), endPosition);
+                srcBuffer, offset, messageLength, header.sessionId(), endPosition);
             int sequenceNumber = sequenceNumberExtractor.sequenceNumber();
             final int newSequenceNumber = sequenceNumberExtractor.newSequenceNumber();
             final int sequenceIndex = messageFrame.sequenceIndex();
@@ -412,6 +414,9 @@ public class ReplayIndex implements Index
 
                 final SessionIndex sessionIndex = sessionIndex(fixSessionId);
                 final int aeronSessionId = header.sessionId();
+                // The body of a fragmented message isn't all in this fragment so can't be scanned here
+                final int headerOffsets = unfragmented ?
+                    HeaderOffsets.find(srcBuffer, offset, messageLength) : NO_HEADER_OFFSETS;
 
                 if (newSequenceNumber > sequenceNumber)
                 {
@@ -419,14 +424,16 @@ public class ReplayIndex implements Index
                     while (sequenceNumber < newSequenceNumber)
                     {
                         sessionIndex.onRecord(
-                            endPosition, length, sequenceNumber, sequenceIndex, aeronSessionId, recordingId, timestamp);
+                            endPosition, length, sequenceNumber, sequenceIndex, aeronSessionId, recordingId, timestamp,
+                            headerOffsets);
                         sequenceNumber++;
                     }
                 }
                 else
                 {
                     sessionIndex.onRecord(
-                        endPosition, length, sequenceNumber, sequenceIndex, aeronSessionId, recordingId, timestamp);
+                        endPosition, length, sequenceNumber, sequenceIndex, aeronSessionId, recordingId, timestamp,
+                        headerOffsets);
                 }
             }
         }
@@ -444,11 +451,7 @@ public class ReplayIndex implements Index
         {
             // File might be present but not within the cache.
             evictionHandler.onReset(fixSessionId);
-            final File replayIndexFile = replayIndexHeaderFile(fixSessionId);
-            if (replayIndexFile.exists())
-            {
-                deleteFile(replayIndexFile);
-            }
+            store.delete(fixSessionId, null);
         }
     }
 
@@ -470,6 +473,7 @@ public class ReplayIndex implements Index
             positionWriter);
         fixSessionIdToIndex.values().forEach(SessionIndex::close);
         fixSessionIdToIndex.clear();
+        store.close();
         IoUtil.unmap(positionBuffer.byteBuffer());
     }
 
@@ -485,10 +489,7 @@ public class ReplayIndex implements Index
         private final int segmentSizeBitShift;
 
         private final UnsafeBuffer headerBuffer;
-        private final File headerFile;
-
         private final UnsafeBuffer[] segmentBuffers;
-        private final File[] segmentBufferFiles;
 
         SessionIndex(final long fixSessionId)
         {
@@ -498,11 +499,9 @@ public class ReplayIndex implements Index
             this.segmentSize = replayIndex.segmentSize;
             this.segmentSizeBitShift = replayIndex.segmentSizeBitShift;
             segmentBuffers = new UnsafeBuffer[segmentCount];
-            segmentBufferFiles = new File[segmentCount];
 
-            headerFile = replayIndexHeaderFile(fixSessionId);
-            final boolean exists = headerFile.exists();
-            this.headerBuffer = mapUnsafeBuffer(HEADER_FILE_SIZE, headerFile);
+            final boolean exists = store.exists(fixSessionId);
+            this.headerBuffer = store.mapHeader(fixSessionId);
 
             if (!exists)
             {
@@ -532,6 +531,21 @@ public class ReplayIndex implements Index
             final int aeronSessionId,
             final long knownRecordingId,
             final long timestamp)
+        {
+            onRecord(
+                endPosition, length, sequenceNumber, sequenceIndex, aeronSessionId, knownRecordingId, timestamp,
+                NO_HEADER_OFFSETS);
+        }
+
+        void onRecord(
+            final long endPosition,
+            final int length,
+            final int sequenceNumber,
+            final int sequenceIndex,
+            final int aeronSessionId,
+            final long knownRecordingId,
+            final long timestamp,
+            final int headerOffsets)
         {
             final long beginChangePosition = beginChange(headerBuffer);
             final long changePosition = beginChangePosition + RECORD_LENGTH;
@@ -554,6 +568,8 @@ public class ReplayIndex implements Index
                 .sequenceIndex(sequenceIndex)
                 .recordingId(recordingId)
                 .length(length);
+            // Always written since slots in the ring buffer are reused
+            segmentBuffer.putInt(offset + HEADER_OFFSETS_OFFSET, headerOffsets);
 
             endChangeOrdered(headerBuffer, changePosition);
 
@@ -568,9 +584,7 @@ public class ReplayIndex implements Index
             UnsafeBuffer segmentBuffer = segmentBuffers[segmentIndex];
             if (segmentBuffer == null)
             {
-                final File file = replayIndexSegmentFile(fixSessionId, segmentIndex);
-                segmentBufferFiles[segmentIndex] = file;
-                segmentBuffer = mapUnsafeBuffer(segmentSize, file);
+                segmentBuffer = store.mapSegment(fixSessionId, segmentIndex);
                 segmentBuffers[segmentIndex] = segmentBuffer;
             }
             return segmentBuffer;
@@ -581,19 +595,12 @@ public class ReplayIndex implements Index
             close();
 
             evictionHandler.onReset(fixSessionId);
-            deleteFile(headerFile);
-            for (final File segmentFile: segmentBufferFiles)
-            {
-                if (segmentFile != null)
-                {
-                    deleteFile(segmentFile);
-                }
-            }
+            store.delete(fixSessionId, segmentBuffers);
         }
 
         public void close()
         {
-            ReplayIndexDescriptor.unmapBuffers(headerBuffer, segmentBuffers);
+            store.unmap(headerBuffer, segmentBuffers);
         }
 
         public void checkForNextSession(final boolean forNextSession)
@@ -609,27 +616,4 @@ public class ReplayIndex implements Index
     {
         forNextSessionVersion(headerBuffer, false);
     }
-
-    private File replayIndexHeaderFile(final long fixSessionId)
-    {
-        return ReplayIndexDescriptor.replayIndexHeaderFile(logFileDir, fixSessionId, requiredStreamId);
-    }
-
-    private File replayIndexSegmentFile(final long fixSessionId, final int segmentIndex)
-    {
-        return ReplayIndexDescriptor.replayIndexSegmentFile(logFileDir, fixSessionId, requiredStreamId, segmentIndex);
-    }
-
-    void deleteFile(final File replayIndexFile)
-    {
-        if (!replayIndexFile.delete())
-        {
-            errorHandler.onError(new IOException("Unable to delete replay index file: " + replayIndexFile));
-        }
-    }
-
-    private UnsafeBuffer mapUnsafeBuffer(final int size, final File replayIndexFile)
-    {
-        return new UnsafeBuffer(bufferFactory.map(replayIndexFile, size));
-    }
 }
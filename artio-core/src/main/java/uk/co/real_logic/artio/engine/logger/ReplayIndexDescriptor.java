@@ -37,10 +37,12 @@ public final class ReplayIndexDescriptor
     public static final byte NOT_FOR_NEXT_SESSION_VERSION = 0;
 
     public static final int RECORD_LENGTH = 32;
+    // The HeaderOffsets of FIX messages are stored in the padding after the ReplayIndexRecord
+    static final int HEADER_OFFSETS_OFFSET = ReplayIndexRecordDecoder.BLOCK_LENGTH;
     static
     {
         // Safety check against making the ReplayIndexRecord big without modifying this
-        if (RECORD_LENGTH < ReplayIndexRecordDecoder.BLOCK_LENGTH) // lgtm [java/constant-comparison]
+        if (RECORD_LENGTH < HEADER_OFFSETS_OFFSET + BitUtil.SIZE_OF_INT) // lgtm [java/constant-comparison]
         {
             throw new IllegalStateException("Invalid record length");
         }
@@ -60,6 +62,16 @@ public final class ReplayIndexDescriptor
             logFileDir + File.separator + "replay-index-" + fixSessionId + "-" + streamId + "-" + segmentIndex);
     }
 
+    static File replayIndexDirectoryFile(final String logFileDir, final int streamId)
+    {
+        return new File(logFileDir + File.separator + "replay-index-" + streamId + "-directory");
+    }
+
+    static File replayIndexExtentFile(final String logFileDir, final int streamId, final int fileIndex)
+    {
+        return new File(logFileDir + File.separator + "replay-index-" + streamId + "-extents-" + fileIndex);
+    }
+
     static LongHashSet listReplayIndexSessionIds(final File logFileDir, final int streamId)
     {
         final String prefix = "replay-index-";
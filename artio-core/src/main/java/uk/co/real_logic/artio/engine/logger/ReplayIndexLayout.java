@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+/**
+ * How the replay index for each session is laid out on disk.
+ */
+public enum ReplayIndexLayout
+{
+    /**
+     * Each session has its own header file and its own set of segment files. This is the default layout.
+     */
+    PER_SESSION_FILES,
+
+    /**
+     * Sessions are allocated fixed size extents within a small number of large, sparsely allocated, files and a
+     * directory file maps session ids to extents. This avoids creating several files per session when there are large
+     * numbers of sessions.
+     */
+    CONSOLIDATED
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Provides the header and segment buffers of each session's replay index, abstracting over the
+ * {@link ReplayIndexLayout} on disk. Used by both the {@link ReplayIndex} writer and the {@link ReplayQuery} reader.
+ */
+interface ReplayIndexStore extends AutoCloseable
+{
+    boolean exists(long fixSessionId);
+
+    /**
+     * Maps the header of a session's index. When writing this allocates the storage for the session if it doesn't
+     * exist.
+     *
+     * @param fixSessionId the session whose index header should be mapped.
+     * @return the header buffer.
+     */
+    UnsafeBuffer mapHeader(long fixSessionId);
+
+    UnsafeBuffer mapSegment(long fixSessionId, int segmentIndex);
+
+    void unmap(UnsafeBuffer headerBuffer, UnsafeBuffer[] segmentBuffers);
+
+    /**
+     * Removes a session's index so that it is recreated empty when next written to.
+     *
+     * @param fixSessionId the session whose index should be removed.
+     * @param segmentBuffers the segments that have been mapped for the session, or null if none have been.
+     */
+    void delete(long fixSessionId, UnsafeBuffer[] segmentBuffers);
+
+    LongHashSet listSessionIds();
+
+    void close();
+}
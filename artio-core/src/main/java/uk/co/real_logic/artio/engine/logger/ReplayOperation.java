@@ -22,16 +22,24 @@ import io.aeron.Subscription;
 import io.aeron.archive.client.AeronArchive;
 import io.aeron.archive.client.ArchiveException;
 import io.aeron.archive.status.RecordingPos;
+import io.aeron.logbuffer.ControlledFragmentHandler;
+import io.aeron.logbuffer.ControlledFragmentHandler.Action;
 import io.aeron.logbuffer.FragmentHandler;
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
+import org.agrona.collections.Long2LongHashMap;
 import org.agrona.concurrent.status.CountersReader;
 import uk.co.real_logic.artio.DebugLogger;
 import uk.co.real_logic.artio.LogTag;
+import uk.co.real_logic.artio.engine.HeaderOffsets;
 import uk.co.real_logic.artio.util.CharFormatter;
 
 import java.util.List;
 
 import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
+import static io.aeron.logbuffer.FrameDescriptor.END_FRAG_FLAG;
 
 /**
  * A continuable replay operation that can retried.
@@ -41,6 +49,7 @@ import static io.aeron.CommonContext.IPC_CHANNEL;
 public class ReplayOperation
 {
     private static final FragmentHandler EMPTY_FRAGMENT_HANDLER = (buffer, offset, length, header) -> {};
+    private static final long NO_SEGMENT_READ = -1;
 
     private static final ThreadLocal<CharFormatter> RECORDING_RANGE_FORMATTER =
         ThreadLocal.withInitial(() -> new CharFormatter("ReplayOperation : Attempting Recording Range:" +
@@ -75,8 +84,10 @@ public class ReplayOperation
 
     private final MessageTracker messageTracker;
     private final ControlledFragmentAssembler assembler;
+    private final ControlledFragmentHandler segmentHandler = this::onSegmentFragment;
 
     private final List<RecordingRange> ranges;
+    private final ReplayQuery replayQuery;
     private final AeronArchive aeronArchive;
     private final ErrorHandler errorHandler;
     private final int archiveReplayStream;
@@ -84,6 +95,7 @@ public class ReplayOperation
     private final LogTag logTag;
     private final CountersReader countersReader;
     private final Subscription subscription;
+    private final ArchiveSegmentReader segmentReader;
 
     // fields reset for each recordingRange
     private int replayedMessages = 0;
@@ -92,6 +104,9 @@ public class ReplayOperation
     private long replaySessionId;
     private int aeronSessionId;
     private Image image;
+    private long segmentReadPosition = NO_SEGMENT_READ;
+    // The position after the last whole message read from the segments, an archive replay resumes from here.
+    private long segmentMessageEndPosition;
 
     private enum State
     {
@@ -106,17 +121,21 @@ public class ReplayOperation
 
     ReplayOperation(
         final List<RecordingRange> ranges,
+        final ReplayQuery replayQuery,
         final AeronArchive aeronArchive,
         final ErrorHandler errorHandler,
         final Subscription subscription,
         final int archiveReplayStream,
         final LogTag logTag,
-        final MessageTracker messageTracker)
+        final MessageTracker messageTracker,
+        final ArchiveSegmentReader segmentReader)
     {
         this.messageTracker = messageTracker;
+        this.segmentReader = segmentReader;
         assembler = new ControlledFragmentAssembler(this.messageTracker);
 
         this.ranges = ranges;
+        this.replayQuery = replayQuery;
         this.aeronArchive = aeronArchive;
         this.errorHandler = errorHandler;
         this.archiveReplayStream = archiveReplayStream;
@@ -129,6 +148,21 @@ public class ReplayOperation
         logTagEnabled = DebugLogger.isEnabled(logTag);
     }
 
+    /**
+     * Lookup the header offsets that were indexed for a message replayed from the current recording range.
+     *
+     * @param beginPosition the position of the fragment, excluding its aeron data header.
+     * @return the header offsets or {@link HeaderOffsets#NO_HEADER_OFFSETS} if none were indexed.
+     */
+    int headerOffsets(final long beginPosition)
+    {
+        final RecordingRange recordingRange = this.recordingRange;
+        final Long2LongHashMap positionToHeaderOffsets =
+            recordingRange == null ? null : recordingRange.positionToHeaderOffsets;
+        return positionToHeaderOffsets == null ?
+            HeaderOffsets.NO_HEADER_OFFSETS : (int)positionToHeaderOffsets.get(beginPosition);
+    }
+
     /**
      * Attempt a replay step
      *
@@ -281,32 +315,31 @@ public class ReplayOperation
 
             try
             {
-                replaySessionId = aeronArchive.startReplay(
-                    recordingId,
-                    beginPosition,
-                    length,
-                    IPC_CHANNEL,
-                    archiveReplayStream);
-                aeronSessionId = (int)replaySessionId;
-
                 messageTracker.reset(count);
 
-                logStart(count);
-
-                // reset the image if the new recordingRange requires it
-                if (image != null && aeronSessionId != image.sessionId())
+                if (segmentReader != null && segmentReader.canRead(recordingId, beginPosition, endPosition))
                 {
-                    image = null;
+                    segmentReadPosition = beginPosition;
+                    segmentMessageEndPosition = beginPosition;
+                    return pollSegments();
                 }
+
+                startArchiveReplay(recordingId, beginPosition, length, count);
             }
             catch (final Throwable exception)
             {
                 errorHandler.onError(exception);
+                releaseHeaderOffsets();
 
                 return true;
             }
         }
 
+        if (segmentReadPosition != NO_SEGMENT_READ)
+        {
+            return pollSegments();
+        }
+
         if (image == null)
         {
             return attemptAcquireImage();
@@ -342,6 +375,85 @@ public class ReplayOperation
         }
     }
 
+    private void startArchiveReplay(final long recordingId, final long position, final long length, final int count)
+    {
+        replaySessionId = aeronArchive.startReplay(
+            recordingId,
+            position,
+            length,
+            IPC_CHANNEL,
+            archiveReplayStream);
+        aeronSessionId = (int)replaySessionId;
+
+        logStart(count);
+
+        // reset the image if the new recordingRange requires it
+        if (image != null && aeronSessionId != image.sessionId())
+        {
+            image = null;
+        }
+    }
+
+    private boolean pollSegments()
+    {
+        try
+        {
+            segmentReadPosition = segmentReader.read(
+                recordingRange.recordingId, segmentReadPosition, endPosition, segmentHandler);
+        }
+        catch (final Throwable exception)
+        {
+            errorHandler.onError(exception);
+
+            return replayRemainingSegments();
+        }
+
+        if (segmentReadPosition < endPosition)
+        {
+            return false;
+        }
+
+        segmentReadPosition = NO_SEGMENT_READ;
+        return onReachedMessageReplayCount(messageTracker.count, recordingRange.count);
+    }
+
+    private Action onSegmentFragment(
+        final DirectBuffer buffer, final int offset, final int length, final Header header)
+    {
+        final Action action = assembler.onFragment(buffer, offset, length, header);
+        if (action != ABORT && (header.flags() & END_FRAG_FLAG) == END_FRAG_FLAG)
+        {
+            segmentMessageEndPosition = header.position();
+        }
+        return action;
+    }
+
+    // If a segment can't be read, for example because it has been purged since the replay started, then fall back to
+    // an archive replay of the rest of the range rather than completing the replay with messages missing.
+    private boolean replayRemainingSegments()
+    {
+        segmentReadPosition = NO_SEGMENT_READ;
+
+        final long position = segmentMessageEndPosition;
+        try
+        {
+            startArchiveReplay(
+                recordingRange.recordingId,
+                position,
+                endPosition - position,
+                recordingRange.count - messageTracker.count);
+        }
+        catch (final Throwable exception)
+        {
+            errorHandler.onError(exception);
+            releaseHeaderOffsets();
+
+            return true;
+        }
+
+        return false;
+    }
+
     private boolean attemptAcquireImage()
     {
         if (DebugLogger.IS_REPLAY_ATTEMPT_ENABLED)
@@ -396,6 +508,7 @@ public class ReplayOperation
             recordingRangeCount);
 
         replayedMessages += recordingRangeCount;
+        replayQuery.releaseHeaderOffsets(recordingRange);
         recordingRange = null;
 
         return ranges.isEmpty();
@@ -412,6 +525,7 @@ public class ReplayOperation
         aeronSessionId = 0;
         replaySessionId = 0;
         replayedMessages += recordingRangeCount;
+        replayQuery.releaseHeaderOffsets(recordingRange);
         recordingRange = null;
         image = null;
 
@@ -440,6 +554,22 @@ public class ReplayOperation
     public void startClose()
     {
         state = State.INIT_CLOSING;
+        releaseHeaderOffsets();
+    }
+
+    private void releaseHeaderOffsets()
+    {
+        final ReplayQuery replayQuery = this.replayQuery;
+        if (recordingRange != null)
+        {
+            replayQuery.releaseHeaderOffsets(recordingRange);
+        }
+
+        final List<RecordingRange> ranges = this.ranges;
+        for (int i = 0, size = ranges.size(); i < size; i++)
+        {
+            replayQuery.releaseHeaderOffsets(ranges.get(i));
+        }
     }
 
     // Close the session immediately. Can leave open images that will be cleaned up by it's parent.
@@ -17,9 +17,9 @@ package uk.co.real_logic.artio.engine.logger;
 
 import io.aeron.Subscription;
 import io.aeron.archive.client.AeronArchive;
+import io.aeron.archive.client.ArchiveException;
 import org.agrona.CloseHelper;
 import org.agrona.ErrorHandler;
-import org.agrona.IoUtil;
 import org.agrona.collections.Long2LongHashMap;
 import org.agrona.collections.Long2ObjectCache;
 import org.agrona.collections.Long2ObjectHashMap;
@@ -33,6 +33,7 @@ import uk.co.real_logic.artio.storage.messages.ReplayIndexRecordDecoder;
 import uk.co.real_logic.artio.util.CharFormatter;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.LongFunction;
@@ -41,6 +42,7 @@ import static io.aeron.Aeron.NULL_VALUE;
 import static io.aeron.CommonContext.IPC_CHANNEL;
 import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
 import static org.agrona.UnsafeAccess.UNSAFE;
+import static uk.co.real_logic.artio.engine.HeaderOffsets.NO_HEADER_OFFSETS;
 import static uk.co.real_logic.artio.DebugLogger.IS_REPLAY_ATTEMPT_ENABLED;
 import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.*;
 import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
@@ -52,6 +54,8 @@ import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
  */
 public class ReplayQuery implements AutoCloseable
 {
+    private static final int ALL_RECORDS = 0;
+
     private final MessageHeaderDecoder messageFrameHeader = new MessageHeaderDecoder();
     private final ReplayIndexRecordDecoder indexRecord = new ReplayIndexRecordDecoder();
 
@@ -61,11 +65,14 @@ public class ReplayQuery implements AutoCloseable
         "beginPosition=%s,recordingId=%s,sequenceNumber=%s,sequenceIndex=%s");
 
     private final LongFunction<SessionQuery> newSessionQuery = this::newSessionQuery;
+    private final Long2LongHashMap recordingIdToStartPosition = new Long2LongHashMap(NULL_VALUE);
+    // Released by the ReplayOperation once it has replayed the range that uses them.
+    private final ArrayDeque<Long2LongHashMap> freePositionToHeaderOffsets = new ArrayDeque<>();
+    private final StartPositionQuery allStartPositionsQuery = new StartPositionQuery();
+    private final StartPositionQuery lastMessagesStartPositionsQuery = new StartPositionQuery(false);
 
     private final Long2ObjectCache<SessionQuery> fixSessionToIndex;
-    private final String logFileDir;
-    private final File logFileDirFile;
-    private final ExistingBufferFactory indexBufferFactory;
+    private final ReplayIndexStore store;
     private final int requiredStreamId;
     private final IdleStrategy idleStrategy;
     private final AeronArchive aeronArchive;
@@ -75,8 +82,11 @@ public class ReplayQuery implements AutoCloseable
     private final int segmentSizeBitShift;
     private final int segmentCount;
     private final long indexFileSize;
+    private final ArchiveSegmentReader segmentReader;
 
     private Subscription replaySubscription;
+    // Maps a session that isn't cached for as long as consecutive start position queries are for that session.
+    private SessionQuery temporarySessionQuery;
 
     public ReplayQuery(
         final String logFileDir,
@@ -89,10 +99,10 @@ public class ReplayQuery implements AutoCloseable
         final ErrorHandler errorHandler,
         final int archiveReplayStream,
         final int indexFileCapacity,
-        final int indexSegmentCapacity)
+        final int indexSegmentCapacity,
+        final String archiveSegmentDir,
+        final ReplayIndexLayout indexLayout)
     {
-        this.logFileDir = logFileDir;
-        this.indexBufferFactory = indexBufferFactory;
         this.requiredStreamId = requiredStreamId;
         this.idleStrategy = idleStrategy;
         this.aeronArchive = aeronArchive;
@@ -104,8 +114,13 @@ public class ReplayQuery implements AutoCloseable
         this.segmentSizeBitShift = Long.numberOfTrailingZeros(segmentSize);
         this.segmentCount = ReplayIndexDescriptor.segmentCount(indexFileCapacity, indexSegmentCapacity);
 
-        logFileDirFile = new File(logFileDir);
+        store = indexLayout == ReplayIndexLayout.CONSOLIDATED ?
+            new ConsolidatedReplayIndexStore(logFileDir, requiredStreamId, indexFileSize, segmentSize, false) :
+            new PerSessionReplayIndexStore(
+                logFileDir, requiredStreamId, segmentSize, (file, size) -> indexBufferFactory.map(file), errorHandler);
         fixSessionToIndex = new Long2ObjectCache<>(cacheNumSets, cacheSetSize, SessionQuery::close);
+        segmentReader = archiveSegmentDir == null ?
+            null : new ArchiveSegmentReader(new File(archiveSegmentDir), aeronArchive);
     }
 
     /**
@@ -117,7 +132,7 @@ public class ReplayQuery implements AutoCloseable
      * @param endSequenceIndex the sequence index to end replay at (inclusive).
      * @param logTag the operation to tag log entries with
      * @param tracker the tracker to which messages are replayed
-     * @return number of messages replayed
+     * @return number of messages replayed, messages whose recording has since been pruned are left out.
      */
     public ReplayOperation query(
         final long sessionId,
@@ -140,12 +155,12 @@ public class ReplayQuery implements AutoCloseable
 
     public void queryStartPositions(final Long2LongHashMap newStartPositions)
     {
-        final LongHashSet allSessionIds = listReplayIndexSessionIds(logFileDirFile, requiredStreamId);
+        final LongHashSet allSessionIds = store.listSessionIds();
 
         // Run over existing session queries first in order to minimise cache evictions then reloads.
         for (final SessionQuery query : fixSessionToIndex.values())
         {
-            aggregateLowerPosition(query.queryStartPositions(), newStartPositions);
+            aggregateLowerPosition(queryAllStartPositions(query), newStartPositions);
             allSessionIds.remove(query.fixSessionId);
         }
 
@@ -154,10 +169,116 @@ public class ReplayQuery implements AutoCloseable
         {
             final long sessionId = sessionIdIt.nextValue();
             final SessionQuery query = lookupSessionQuery(sessionId);
-            aggregateLowerPosition(query.queryStartPositions(), newStartPositions);
+            aggregateLowerPosition(queryAllStartPositions(query), newStartPositions);
         }
     }
 
+    /**
+     * Lists the ids of the sessions that have a replay index.
+     *
+     * @return a new set of the session ids.
+     */
+    public LongHashSet sessionIds()
+    {
+        return store.listSessionIds();
+    }
+
+    /**
+     * Finds the lowest position in each recording from which a session's messages since its last sequence reset can
+     * be replayed, and lowers the positions in <code>newStartPositions</code> to it.
+     *
+     * If the session isn't cached then its index stays mapped until {@link #closeTemporarySessionQuery()} is called or
+     * another uncached session is queried.
+     *
+     * @param sessionId the session to query.
+     * @param newStartPositions a map of recording id to position to aggregate into.
+     * @param lastIndexedPositions a map of recording id to the position of the last indexed message that is raised to
+     *                             the position of the session's last indexed message in each recording.
+     */
+    public void querySinceLastResetStartPositions(
+        final long sessionId, final Long2LongHashMap newStartPositions, final Long2LongHashMap lastIndexedPositions)
+    {
+        queryStartPositions(sessionId, allStartPositionsQuery, ALL_RECORDS, newStartPositions, lastIndexedPositions);
+    }
+
+    /**
+     * Finds the lowest position in each recording from which a session's last <code>messageCount</code> indexed
+     * messages can be replayed, and lowers the positions in <code>newStartPositions</code> to it.
+     *
+     * If the session isn't cached then its index stays mapped until {@link #closeTemporarySessionQuery()} is called or
+     * another uncached session is queried.
+     *
+     * @param sessionId the session to query.
+     * @param messageCount the number of the session's most recent messages to keep.
+     * @param newStartPositions a map of recording id to position to aggregate into.
+     * @param lastIndexedPositions a map of recording id to the position of the last indexed message that is raised to
+     *                             the position of the session's last indexed message in each recording.
+     */
+    public void queryLastMessagesStartPositions(
+        final long sessionId,
+        final int messageCount,
+        final Long2LongHashMap newStartPositions,
+        final Long2LongHashMap lastIndexedPositions)
+    {
+        queryStartPositions(
+            sessionId, lastMessagesStartPositionsQuery, messageCount, newStartPositions, lastIndexedPositions);
+    }
+
+    /**
+     * Unmaps the index of the uncached session that was last queried for its start positions, if any.
+     */
+    public void closeTemporarySessionQuery()
+    {
+        final SessionQuery temporarySessionQuery = this.temporarySessionQuery;
+        if (temporarySessionQuery != null)
+        {
+            this.temporarySessionQuery = null;
+            temporarySessionQuery.close();
+        }
+    }
+
+    private void queryStartPositions(
+        final long sessionId,
+        final StartPositionQuery startPositionQuery,
+        final int lastRecordCount,
+        final Long2LongHashMap newStartPositions,
+        final Long2LongHashMap lastIndexedPositions)
+    {
+        // Avoid evicting the sessions being replayed from the cache when querying other sessions in the background
+        SessionQuery query = fixSessionToIndex.get(sessionId);
+        if (query == null)
+        {
+            query = temporarySessionQuery(sessionId);
+            if (query == null)
+            {
+                return;
+            }
+        }
+
+        startPositionQuery.reset();
+        aggregateLowerPosition(
+            query.queryStartPositions(startPositionQuery, lastRecordCount, lastIndexedPositions), newStartPositions);
+    }
+
+    private Long2ObjectHashMap<PrunePosition> queryAllStartPositions(final SessionQuery query)
+    {
+        final StartPositionQuery allStartPositionsQuery = this.allStartPositionsQuery;
+        allStartPositionsQuery.reset();
+        return query.queryStartPositions(allStartPositionsQuery, ALL_RECORDS, null);
+    }
+
+    private SessionQuery temporarySessionQuery(final long sessionId)
+    {
+        SessionQuery query = temporarySessionQuery;
+        if (query == null || query.fixSessionId != sessionId)
+        {
+            closeTemporarySessionQuery();
+            query = newSessionQuery(sessionId);
+            temporarySessionQuery = query;
+        }
+        return query;
+    }
+
     private SessionQuery lookupSessionQuery(final long sessionId)
     {
         return fixSessionToIndex.computeIfAbsent(sessionId, newSessionQuery);
@@ -166,13 +287,36 @@ public class ReplayQuery implements AutoCloseable
     public void close()
     {
         fixSessionToIndex.clear();
+        closeTemporarySessionQuery();
 
-        CloseHelper.close(replaySubscription);
+        CloseHelper.closeAll(store, segmentReader, replaySubscription);
     }
 
     public void onReset(final long fixSessionId)
     {
         fixSessionToIndex.remove(fixSessionId);
+        final SessionQuery temporarySessionQuery = this.temporarySessionQuery;
+        if (temporarySessionQuery != null && temporarySessionQuery.fixSessionId == fixSessionId)
+        {
+            closeTemporarySessionQuery();
+        }
+    }
+
+    public void onResetAll()
+    {
+        fixSessionToIndex.clear();
+        closeTemporarySessionQuery();
+    }
+
+    void releaseHeaderOffsets(final RecordingRange range)
+    {
+        final Long2LongHashMap positionToHeaderOffsets = range.positionToHeaderOffsets;
+        if (positionToHeaderOffsets != null)
+        {
+            range.positionToHeaderOffsets = null;
+            positionToHeaderOffsets.clear();
+            freePositionToHeaderOffsets.addFirst(positionToHeaderOffsets);
+        }
     }
 
     private SessionQuery newSessionQuery(final long fixSessionId)
@@ -194,18 +338,19 @@ public class ReplayQuery implements AutoCloseable
     {
         private final long fixSessionId;
 
-        private final File headerFile;
         private final UnsafeBuffer headerBuffer;
         private final UnsafeBuffer[] segmentBuffers;
 
         private final int actingBlockLength;
         private final int actingVersion;
 
+        private int prunedSequenceNumber;
+        private int prunedSequenceIndex;
+
         SessionQuery(final long fixSessionId)
         {
             segmentBuffers = new UnsafeBuffer[segmentCount];
-            headerFile = replayIndexHeaderFile(logFileDir, fixSessionId, requiredStreamId);
-            headerBuffer = new UnsafeBuffer(indexBufferFactory.map(headerFile));
+            headerBuffer = store.mapHeader(fixSessionId);
             this.fixSessionId = fixSessionId;
 
             messageFrameHeader.wrap(headerBuffer, 0);
@@ -249,6 +394,8 @@ public class ReplayQuery implements AutoCloseable
             long stopIteratingPosition = iteratorPosition + indexFileSize;
 
             int lastSequenceNumber = -1;
+            prunedSequenceNumber = NULL_VALUE;
+            recordingIdToStartPosition.clear();
             while (iteratorPosition < stopIteratingPosition)
             {
                 final long changePosition = endChangeVolatile(headerBuffer);
@@ -271,6 +418,7 @@ public class ReplayQuery implements AutoCloseable
                 final int sequenceNumber = indexRecord.sequenceNumber();
                 final long recordingId = indexRecord.recordingId();
                 final int readLength = indexRecord.length();
+                final int headerOffsets = segmentBuffer.getInt(offset + HEADER_OFFSETS_OFFSET);
 
                 UNSAFE.loadFence(); // LoadLoad required so previous loads don't move past version check below.
 
@@ -294,11 +442,20 @@ public class ReplayQuery implements AutoCloseable
 
                     final boolean withinQueryRange = sequenceIndex > beginSequenceIndex ||
                         (sequenceIndex == beginSequenceIndex && sequenceNumber >= beginSequenceNumber);
-                    if (withinQueryRange)
+                    if (withinQueryRange && isPruned(sequenceNumber, sequenceIndex, beginPosition, recordingId))
+                    {
+                        // Leave the message out of the ranges so that the replayer gap fills it.
+                        iteratorPosition += RECORD_LENGTH;
+                    }
+                    else if (withinQueryRange)
                     {
                         currentRange = addRange(
                             ranges, currentRange, lastSequenceNumber, beginPosition, sequenceNumber,
                             recordingId, readLength);
+                        if (headerOffsets != NO_HEADER_OFFSETS)
+                        {
+                            putHeaderOffsets(currentRange, beginPosition, headerOffsets);
+                        }
                         lastSequenceNumber = sequenceNumber;
                         iteratorPosition += RECORD_LENGTH;
                     }
@@ -321,6 +478,42 @@ public class ReplayQuery implements AutoCloseable
             return newReplayOperation(ranges, logTag, messageTracker);
         }
 
+        // Keyed by the position of the message's fragment, as seen by the replayer
+        private void putHeaderOffsets(final RecordingRange range, final long beginPosition, final int headerOffsets)
+        {
+            Long2LongHashMap positionToHeaderOffsets = range.positionToHeaderOffsets;
+            if (positionToHeaderOffsets == null)
+            {
+                positionToHeaderOffsets = freePositionToHeaderOffsets.pollFirst();
+                if (positionToHeaderOffsets == null)
+                {
+                    positionToHeaderOffsets = new Long2LongHashMap(NO_HEADER_OFFSETS);
+                }
+                range.positionToHeaderOffsets = positionToHeaderOffsets;
+            }
+            positionToHeaderOffsets.put(beginPosition, headerOffsets);
+        }
+
+        // A message is pruned if any of its fragments precede the start of its recording, the fragments of a
+        // message are indexed consecutively.
+        private boolean isPruned(
+            final int sequenceNumber, final int sequenceIndex, final long beginPosition, final long recordingId)
+        {
+            if (sequenceNumber == prunedSequenceNumber && sequenceIndex == prunedSequenceIndex)
+            {
+                return true;
+            }
+
+            if (trueBeginPosition(beginPosition) < recordingStartPosition(recordingId))
+            {
+                prunedSequenceNumber = sequenceNumber;
+                prunedSequenceIndex = sequenceIndex;
+                return true;
+            }
+
+            return false;
+        }
+
         private UnsafeBuffer segmentBuffer(
             final long position,
             final int segmentSizeBitShift,
@@ -331,8 +524,7 @@ public class ReplayQuery implements AutoCloseable
             UnsafeBuffer segmentBuffer = segmentBuffers[segmentIndex];
             if (segmentBuffer == null)
             {
-                final File file = replayIndexSegmentFile(logFileDir, fixSessionId, requiredStreamId, segmentIndex);
-                segmentBuffer = new UnsafeBuffer(indexBufferFactory.map(file));
+                segmentBuffer = store.mapSegment(fixSessionId, segmentIndex);
                 segmentBuffers[segmentIndex] = segmentBuffer;
             }
             return segmentBuffer;
@@ -361,7 +553,9 @@ public class ReplayQuery implements AutoCloseable
         }
 
         private ReplayOperation newReplayOperation(
-            final List<RecordingRange> ranges, final LogTag logTag, final MessageTracker messageTracker)
+            final List<RecordingRange> ranges,
+            final LogTag logTag,
+            final MessageTracker messageTracker)
         {
             if (replaySubscription == null)
             {
@@ -371,12 +565,14 @@ public class ReplayQuery implements AutoCloseable
 
             return new ReplayOperation(
                 ranges,
+                ReplayQuery.this,
                 aeronArchive,
                 errorHandler,
                 replaySubscription,
                 archiveReplayStream,
                 logTag,
-                messageTracker);
+                messageTracker,
+                segmentReader);
         }
 
         private RecordingRange addRange(
@@ -423,10 +619,11 @@ public class ReplayQuery implements AutoCloseable
             return iteratorPosition;
         }
 
-        public Long2ObjectHashMap<PrunePosition> queryStartPositions()
+        Long2ObjectHashMap<PrunePosition> queryStartPositions(
+            final StartPositionQuery startPositionQuery,
+            final int lastRecordCount,
+            final Long2LongHashMap lastIndexedPositions)
         {
-            final StartPositionQuery startPositionQuery = new StartPositionQuery();
-
             final UnsafeBuffer headerBuffer = this.headerBuffer;
             final long indexFileSize = ReplayQuery.this.indexFileSize;
             final ReplayIndexRecordDecoder indexRecord = ReplayQuery.this.indexRecord;
@@ -440,6 +637,10 @@ public class ReplayQuery implements AutoCloseable
             long iteratorPosition = getIteratorPosition();
             long stopIteratingPosition = iteratorPosition + indexFileSize;
 
+            // Positions of records before this, on the writer's monotonically increasing scale, are skipped.
+            final long retainFromPosition = lastRecordCount == ALL_RECORDS ?
+                0 : beginChangeVolatile(headerBuffer) - (long)lastRecordCount * RECORD_LENGTH;
+
             while (iteratorPosition != stopIteratingPosition)
             {
                 final long changePosition = endChangeVolatile(headerBuffer);
@@ -474,7 +675,19 @@ public class ReplayQuery implements AutoCloseable
                         return startPositionQuery.recordingIdToStartPosition();
                     }
 
-                    startPositionQuery.updateStartPosition(sequenceNumber, sequenceIndex, recordingId, beginPosition);
+                    // Once the writer has lapped the file iteration starts a file length ahead of the writer's scale
+                    final long recordPosition = iteratorPosition < indexFileSize ?
+                        iteratorPosition : iteratorPosition - indexFileSize;
+                    if (lastIndexedPositions != null)
+                    {
+                        raisePosition(lastIndexedPositions, recordingId, trueBeginPosition(beginPosition));
+                    }
+
+                    if (recordPosition >= retainFromPosition)
+                    {
+                        startPositionQuery.updateStartPosition(
+                            sequenceNumber, sequenceIndex, recordingId, beginPosition);
+                    }
 
                     iteratorPosition += RECORD_LENGTH;
                 }
@@ -489,15 +702,29 @@ public class ReplayQuery implements AutoCloseable
 
         public void close()
         {
-            IoUtil.unmap(headerBuffer.byteBuffer());
-            for (final UnsafeBuffer segmentBuffer : segmentBuffers)
+            store.unmap(headerBuffer, segmentBuffers);
+        }
+    }
+
+    // Segments at the start of a recording can be purged by FixEngine.pruneArchive() or an ArchiveRetentionAgent
+    // while the index still refers to them.
+    private long recordingStartPosition(final long recordingId)
+    {
+        long startPosition = recordingIdToStartPosition.get(recordingId);
+        if (startPosition == NULL_VALUE)
+        {
+            try
             {
-                if (segmentBuffer != null)
-                {
-                    IoUtil.unmap(segmentBuffer.byteBuffer());
-                }
+                startPosition = aeronArchive.getStartPosition(recordingId);
+            }
+            catch (final ArchiveException e)
+            {
+                // Let the replay of the recording report the problem.
+                startPosition = 0;
             }
+            recordingIdToStartPosition.put(recordingId, startPosition);
         }
+        return startPosition;
     }
 
     static long trueBeginPosition(final long beginPosition)
@@ -505,6 +732,16 @@ public class ReplayQuery implements AutoCloseable
         return beginPosition - FRAME_ALIGNMENT;
     }
 
+    private static void raisePosition(
+        final Long2LongHashMap recordingIdToPosition, final long recordingId, final long position)
+    {
+        final long oldPosition = recordingIdToPosition.get(recordingId);
+        if (oldPosition == NULL_VALUE || position > oldPosition)
+        {
+            recordingIdToPosition.put(recordingId, position);
+        }
+    }
+
     static void aggregateLowerPosition(
         final Long2ObjectHashMap<PrunePosition> recordingIdToStartPosition, final Long2LongHashMap newStartPositions)
     {
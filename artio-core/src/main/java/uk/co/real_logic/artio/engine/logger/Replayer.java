@@ -109,6 +109,8 @@ public class Replayer extends AbstractReplayer
     private final ErrorHandler errorHandler;
     private final int maxClaimAttempts;
     private final Subscription inboundSubscription;
+    private final Subscription outboundSubscription;
+    private final RecentMessageCache recentMessages;
     private final String agentNamePrefix;
     private final ReplayHandler replayHandler;
     private final FixPRetransmitHandler fixPRetransmitHandler;
@@ -122,6 +124,7 @@ public class Replayer extends AbstractReplayer
         final ErrorHandler errorHandler,
         final int maxClaimAttempts,
         final Subscription inboundSubscription,
+        final Subscription outboundSubscription,
         final String agentNamePrefix,
         final Set<String> gapfillOnReplayMessageTypes,
         final IntHashSet gapfillOnRetransmitILinkTemplateIds,
@@ -144,6 +147,7 @@ public class Replayer extends AbstractReplayer
         this.errorHandler = errorHandler;
         this.maxClaimAttempts = maxClaimAttempts;
         this.inboundSubscription = inboundSubscription;
+        this.outboundSubscription = outboundSubscription;
         this.agentNamePrefix = agentNamePrefix;
         this.gapfillOnRetransmitILinkTemplateIds = gapfillOnRetransmitILinkTemplateIds;
         this.replayHandler = replayHandler;
@@ -167,6 +171,8 @@ public class Replayer extends AbstractReplayer
         abstractBinaryFixPOffsets = new Lazy<>(() -> binaryFixPProtocol.get().makeOffsets());
 
         timestamper = new ReplayTimestamper(publication, clock);
+        recentMessages = outboundSubscription == null ?
+            null : new RecentMessageCache(configuration.replayerRecentMessageCacheCapacity());
     }
 
     public Action onFragment(
@@ -465,10 +471,29 @@ public class Replayer extends AbstractReplayer
         timestamper.sendTimestampMessage();
 
         int work = replayerCommandQueue.poll();
+        if (recentMessages != null)
+        {
+            work += outboundSubscription.poll(recentMessages, POLL_LIMIT);
+        }
         work += pollReplayerChannels();
         return work + inboundSubscription.controlledPoll(this, POLL_LIMIT);
     }
 
+    RecentMessageCache.CachedReplay cachedReplay(
+        final long sessionId,
+        final int sequenceIndex,
+        final int beginSeqNo,
+        final int endSeqNo,
+        final MessageTracker messageTracker)
+    {
+        if (recentMessages == null)
+        {
+            return null;
+        }
+
+        return recentMessages.replay(sessionId, sequenceIndex, beginSeqNo, endSeqNo, messageTracker);
+    }
+
     private int pollReplayerChannels()
     {
         final Long2ObjectHashMap<ReplayChannel>.EntryIterator replayerChannels =
@@ -520,6 +545,10 @@ public class Replayer extends AbstractReplayer
         currentReplayCount.set(0);
         currentReplayCount.close();
         outboundReplayQuery.close();
+        if (recentMessages != null)
+        {
+            recentMessages.close();
+        }
         super.onClose();
     }
 
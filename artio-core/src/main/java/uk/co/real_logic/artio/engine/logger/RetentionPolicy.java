@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rule for which archived messages must be kept when the engine prunes its archive in the background. When several
+ * policies are configured a message is kept if any policy keeps it.
+ *
+ * Messages that have been pruned can no longer be replayed, so policies should keep any messages that counterparties
+ * may still request to be resent. Pruned messages within a resend request are gap filled.
+ *
+ * @see uk.co.real_logic.artio.engine.EngineConfiguration#archiveRetentionPolicies(RetentionPolicy...)
+ */
+public final class RetentionPolicy
+{
+    enum Type
+    {
+        DURATION,
+        LAST_MESSAGES_PER_SESSION,
+        SINCE_LAST_SEQUENCE_RESET
+    }
+
+    private final Type type;
+    private final long value;
+
+    private RetentionPolicy(final Type type, final long value)
+    {
+        this.type = type;
+        this.value = value;
+    }
+
+    /**
+     * Keep messages that were archived within a duration of the current time, using the engine's epoch nano clock.
+     * This uses the time index, so its precision is bounded by the time index flush interval.
+     *
+     * @param duration the duration to keep messages for.
+     * @param unit the unit of the duration.
+     * @return the policy.
+     * @see uk.co.real_logic.artio.engine.EngineConfiguration#timeIndexReplayFlushIntervalInNs(long)
+     */
+    public static RetentionPolicy keepDuration(final long duration, final TimeUnit unit)
+    {
+        if (duration <= 0)
+        {
+            throw new IllegalArgumentException("duration must be positive: " + duration);
+        }
+
+        return new RetentionPolicy(Type.DURATION, unit.toNanos(duration));
+    }
+
+    /**
+     * Keep the last messages of each session, based upon the entries in the replay index of each session.
+     *
+     * @param messageCount the number of messages of each session to keep.
+     * @return the policy.
+     */
+    public static RetentionPolicy keepLastMessagesPerSession(final int messageCount)
+    {
+        if (messageCount <= 0)
+        {
+            throw new IllegalArgumentException("messageCount must be positive: " + messageCount);
+        }
+
+        return new RetentionPolicy(Type.LAST_MESSAGES_PER_SESSION, messageCount);
+    }
+
+    /**
+     * Keep every message since the last sequence reset of each session. This is the same rule that is used by
+     * {@link uk.co.real_logic.artio.engine.FixEngine#pruneArchive(org.agrona.collections.Long2LongHashMap)}.
+     *
+     * @return the policy.
+     */
+    public static RetentionPolicy keepSinceLastSequenceReset()
+    {
+        return new RetentionPolicy(Type.SINCE_LAST_SEQUENCE_RESET, 0);
+    }
+
+    Type type()
+    {
+        return type;
+    }
+
+    long durationInNs()
+    {
+        return value;
+    }
+
+    int messageCount()
+    {
+        return (int)value;
+    }
+
+    public String toString()
+    {
+        return "RetentionPolicy{" +
+            "type=" + type +
+            ", value=" + value +
+            '}';
+    }
+}
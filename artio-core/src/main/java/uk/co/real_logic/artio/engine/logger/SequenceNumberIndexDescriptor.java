@@ -15,6 +15,8 @@
  */
 package uk.co.real_logic.artio.engine.logger;
 
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Hashing;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
@@ -24,6 +26,8 @@ import java.io.File;
 
 import static org.agrona.BitUtil.SIZE_OF_INT;
 import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static uk.co.real_logic.artio.engine.SectorFramer.OUT_OF_SPACE;
+import static uk.co.real_logic.artio.engine.SectorFramer.SECTOR_DATA_LENGTH;
 import static uk.co.real_logic.artio.engine.SectorFramer.SECTOR_SIZE;
 import static uk.co.real_logic.artio.engine.SectorFramer.nextSectorStart;
 
@@ -37,11 +41,21 @@ import static uk.co.real_logic.artio.engine.SectorFramer.nextSectorStart;
  * Series of LastKnownSequenceNumber records
  * ...
  * Positions Table
+ * <p>
+ * The records form an open addressed hash table keyed by session id. Each record slot that fits within the data
+ * of a sector is numbered in order, a session's record is stored in the first empty slot from the slot that its
+ * session id hashes to, wrapping around at the end. An empty slot has a session id of {@link #EMPTY_SESSION_ID}.
+ * As records are never removed, only reset as a whole, lookups can stop probing at the first empty slot.
  */
 final class SequenceNumberIndexDescriptor
 {
     static final int HEADER_SIZE = MessageHeaderDecoder.ENCODED_LENGTH;
     static final int RECORD_SIZE = LastKnownSequenceNumberDecoder.BLOCK_LENGTH;
+    static final int SESSION_ID_OFFSET = LastKnownSequenceNumberDecoder.sessionIdEncodingOffset();
+    static final long EMPTY_SESSION_ID = 0;
+
+    static final int FIRST_SECTOR_RECORD_SLOTS = (SECTOR_DATA_LENGTH - HEADER_SIZE) / RECORD_SIZE;
+    static final int RECORD_SLOTS_PER_SECTOR = SECTOR_DATA_LENGTH / RECORD_SIZE;
 
     static final int NO_META_DATA = -1;
     static final long META_DATA_MAGIC_NUMBER = 0xBEEF;
@@ -79,6 +93,75 @@ final class SequenceNumberIndexDescriptor
         return proposedCapacity;
     }
 
+    /**
+     * Calculate the number of record slots in the sequence number index.
+     *
+     * @param positionTableOffset the offset of the positions table, which the records end before.
+     * @return the number of record slots in the sequence number index.
+     */
+    static int recordSlotCount(final int positionTableOffset)
+    {
+        if (positionTableOffset < SECTOR_SIZE)
+        {
+            return 0;
+        }
+
+        return FIRST_SECTOR_RECORD_SLOTS + (positionTableOffset / SECTOR_SIZE - 1) * RECORD_SLOTS_PER_SECTOR;
+    }
+
+    static int recordOffset(final int slot)
+    {
+        if (slot < FIRST_SECTOR_RECORD_SLOTS)
+        {
+            return HEADER_SIZE + slot * RECORD_SIZE;
+        }
+
+        final int laterSectorSlot = slot - FIRST_SECTOR_RECORD_SLOTS;
+        final int sector = 1 + laterSectorSlot / RECORD_SLOTS_PER_SECTOR;
+        return sector * SECTOR_SIZE + (laterSectorSlot % RECORD_SLOTS_PER_SECTOR) * RECORD_SIZE;
+    }
+
+    static int homeSlot(final long sessionId, final int recordSlotCount)
+    {
+        return (Hashing.hash(sessionId) & Integer.MAX_VALUE) % recordSlotCount;
+    }
+
+    /**
+     * Find the offset of the record for a session, probing from its home slot.
+     *
+     * @param buffer the sequence number index.
+     * @param recordSlotCount the number of record slots in the index.
+     * @param sessionId the session id to look up.
+     * @return the offset of the session's record, the offset of the empty record that it should be stored in if it
+     * isn't in the index or {@link uk.co.real_logic.artio.engine.SectorFramer#OUT_OF_SPACE} if every record is used
+     * by other sessions.
+     */
+    static int findRecord(final DirectBuffer buffer, final int recordSlotCount, final long sessionId)
+    {
+        if (recordSlotCount == 0)
+        {
+            return OUT_OF_SPACE;
+        }
+
+        int slot = homeSlot(sessionId, recordSlotCount);
+        for (int i = 0; i < recordSlotCount; i++)
+        {
+            final int offset = recordOffset(slot);
+            final long recordSessionId = buffer.getLong(offset + SESSION_ID_OFFSET);
+            if (recordSessionId == sessionId || recordSessionId == EMPTY_SESSION_ID)
+            {
+                return offset;
+            }
+
+            if (++slot == recordSlotCount)
+            {
+                slot = 0;
+            }
+        }
+
+        return OUT_OF_SPACE;
+    }
+
     public static File passingFile(final String indexFilePath)
     {
         return new File(indexFilePath + "-passing");
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+/**
+ * When the sequence number index is written out to its file and whether the file is synced to disk. The index can
+ * always be rebuilt from the archive after a failure, so this trades the amount of the archive that needs to be
+ * indexed on recovery against the cost of flushing on the archiver thread.
+ */
+public enum SequenceNumberIndexDurability
+{
+    /**
+     * The index file is updated after the index file state flush timeout and at the end of each term, but the OS
+     * decides when to write it to disk. This survives the engine crashing but not the machine failing.
+     */
+    ASYNC,
+
+    /**
+     * The index file is updated and synced to disk after the index file state flush timeout and at the end of each
+     * term. This is the default.
+     */
+    PERIODIC_FSYNC,
+
+    /**
+     * Like {@link #PERIODIC_FSYNC}, but the index file is also updated and synced to disk once a configured number
+     * of sequence number updates are waiting to be written, bounding how much needs to be recovered under load.
+     */
+    GROUP_COMMIT
+}
@@ -20,7 +20,6 @@ import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
 import org.agrona.LangUtil;
 import org.agrona.concurrent.AtomicBuffer;
-import uk.co.real_logic.artio.engine.SectorFramer;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 import uk.co.real_logic.artio.messages.MetaDataStatus;
 import uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberDecoder;
@@ -47,7 +46,7 @@ public class SequenceNumberIndexReader implements AutoCloseable
     private final MessageHeaderDecoder fileHeaderDecoder = new MessageHeaderDecoder();
     private final LastKnownSequenceNumberDecoder lastKnownDecoder = new LastKnownSequenceNumberDecoder();
     private final AtomicBuffer inMemoryBuffer;
-    private final SectorFramer sectorFramer;
+    private final int recordSlotCount;
     private final IndexedPositionReader positions;
     private final ErrorHandler errorHandler;
     private final RecordingIdLookup recordingIdLookup;
@@ -63,7 +62,7 @@ public class SequenceNumberIndexReader implements AutoCloseable
         this.errorHandler = errorHandler;
         this.recordingIdLookup = recordingIdLookup;
         final int positionTableOffset = positionTableOffset(inMemoryBuffer.capacity());
-        sectorFramer = new SectorFramer(positionTableOffset);
+        recordSlotCount = recordSlotCount(positionTableOffset);
         validateBuffer();
         positions = new IndexedPositionReader(positionsBuffer(inMemoryBuffer, positionTableOffset));
         metaDataFile = openMetaDataFile(metaDataDir);
@@ -89,25 +88,19 @@ public class SequenceNumberIndexReader implements AutoCloseable
 
     public int lastKnownSequenceNumber(final long sessionId)
     {
-        int position = SequenceNumberIndexDescriptor.HEADER_SIZE;
-        while (true)
+        final int position = findRecord(inMemoryBuffer, recordSlotCount, sessionId);
+        if (position == OUT_OF_SPACE)
         {
-            position = sectorFramer.claim(position, RECORD_SIZE);
-            if (position == OUT_OF_SPACE)
-            {
-                return UNK_SESSION;
-            }
-
-            lastKnownDecoder.wrap(inMemoryBuffer, position, BLOCK_LENGTH, SCHEMA_VERSION);
-
-            if (lastKnownDecoder.sessionId() == sessionId)
-            {
-                final int sequenceNumber = lastKnownDecoder.sequenceNumber();
-                return sequenceNumber;
-            }
+            return UNK_SESSION;
+        }
 
-            position += RECORD_SIZE;
+        lastKnownDecoder.wrap(inMemoryBuffer, position, BLOCK_LENGTH, SCHEMA_VERSION);
+        if (lastKnownDecoder.sessionId() != sessionId)
+        {
+            return UNK_SESSION;
         }
+
+        return lastKnownDecoder.sequenceNumber();
     }
 
     public long indexedPosition(final int aeronSessionId)
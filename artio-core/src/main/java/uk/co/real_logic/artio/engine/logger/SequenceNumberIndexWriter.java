@@ -26,6 +26,8 @@ import org.agrona.collections.Long2LongHashMap;
 import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.EpochClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
 import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.ChecksumFramer;
 import uk.co.real_logic.artio.engine.MappedFile;
@@ -33,7 +35,6 @@ import uk.co.real_logic.artio.engine.SequenceNumberExtractor;
 import uk.co.real_logic.artio.engine.framer.FramerContext;
 import uk.co.real_logic.artio.engine.framer.WriteMetaDataResponse;
 import uk.co.real_logic.artio.messages.*;
-import uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberDecoder;
 import uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberEncoder;
 
 import java.io.File;
@@ -43,6 +44,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -54,15 +56,17 @@ import static uk.co.real_logic.artio.engine.SequenceNumberExtractor.NO_SEQUENCE_
 import static uk.co.real_logic.artio.engine.SessionInfo.UNK_SESSION;
 import static uk.co.real_logic.artio.engine.logger.SequenceNumberIndexDescriptor.*;
 import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataSinceVersion;
-import static uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberEncoder.SCHEMA_VERSION;
 
 /**
  * Writes updates into an in-memory buffer. This buffer is then flushed down to disk. A passing place
  * file is used to ensure that there's a recoverable option if it fails.
+ *
+ * Only the sectors that have been modified since each file was last written are checksummed and copied on a flush,
+ * see {@link SequenceNumberIndexDurability} for when flushes happen.
  */
 public class SequenceNumberIndexWriter implements Index
 {
-    private static final long MISSING_RECORD = -1L;
+    private static final int MISSING_RECORD = -1;
     private static final long UNINITIALISED = -1;
     public static final long NO_REQUIRED_POSITION = -1000;
 
@@ -83,8 +87,6 @@ public class SequenceNumberIndexWriter implements Index
     private final MessageHeaderDecoder fileHeaderDecoder = new MessageHeaderDecoder();
     private final MessageHeaderEncoder fileHeaderEncoder = new MessageHeaderEncoder();
     private final LastKnownSequenceNumberEncoder lastKnownEncoder = new LastKnownSequenceNumberEncoder();
-    private final LastKnownSequenceNumberDecoder lastKnownDecoder = new LastKnownSequenceNumberDecoder();
-    private final Long2LongHashMap recordOffsets = new Long2LongHashMap(MISSING_RECORD);
 
     // Meta data state
     private final File metaDataLocation;
@@ -106,6 +108,7 @@ public class SequenceNumberIndexWriter implements Index
     private final int fileCapacity;
     private final int streamId;
     private final int indexedPositionsOffset;
+    private final int recordSlotCount;
     private final IndexedPositionWriter positionWriter;
     private final FixPSequenceIndexer fixPSequenceIndexer;
 
@@ -116,8 +119,15 @@ public class SequenceNumberIndexWriter implements Index
     private final EpochClock clock;
     private final SessionOwnershipTracker sessionOwnershipTracker;
     private final long indexFileStateFlushTimeoutInMs;
+    private final SequenceNumberIndexDurability durability;
+    private final int groupCommitMaxUpdates;
+    private final AtomicCounter flushLatencyInNs;
+    private final AtomicCounter flushBatchSize;
+    private final FlushedSectors flushedIndexSectors;
+    private final FlushedSectors flushedPositionSectors;
     private long lastUpdatedFileTimeInMs;
     private boolean hasSavedRecordSinceFileUpdate = false;
+    private int updatesSinceFileUpdate;
 
     public SequenceNumberIndexWriter(
         final SequenceNumberExtractor sequenceNumberExtractor,
@@ -133,6 +143,45 @@ public class SequenceNumberIndexWriter implements Index
         final FixPProtocolType fixPProtocolType,
         final boolean indexChecksumEnabled,
         final boolean logMessages)
+    {
+        this(
+            sequenceNumberExtractor,
+            inMemoryBuffer,
+            indexFile,
+            errorHandler,
+            streamId,
+            recordingIdLookup,
+            indexFileStateFlushTimeoutInMs,
+            clock,
+            metaDataDir,
+            connectionIdToFixPSessionId,
+            fixPProtocolType,
+            indexChecksumEnabled,
+            logMessages,
+            SequenceNumberIndexDurability.PERIODIC_FSYNC,
+            Integer.MAX_VALUE,
+            null,
+            null);
+    }
+
+    public SequenceNumberIndexWriter(
+        final SequenceNumberExtractor sequenceNumberExtractor,
+        final AtomicBuffer inMemoryBuffer,
+        final MappedFile indexFile,
+        final ErrorHandler errorHandler,
+        final int streamId,
+        final RecordingIdLookup recordingIdLookup,
+        final long indexFileStateFlushTimeoutInMs,
+        final EpochClock clock,
+        final String metaDataDir,
+        final Long2LongHashMap connectionIdToFixPSessionId,
+        final FixPProtocolType fixPProtocolType,
+        final boolean indexChecksumEnabled,
+        final boolean logMessages,
+        final SequenceNumberIndexDurability durability,
+        final int groupCommitMaxUpdates,
+        final AtomicCounter flushLatencyInNs,
+        final AtomicCounter flushBatchSize)
     {
         this.sequenceNumberExtractor = sequenceNumberExtractor;
         this.inMemoryBuffer = inMemoryBuffer;
@@ -142,6 +191,10 @@ public class SequenceNumberIndexWriter implements Index
         this.fileCapacity = indexFile.buffer().capacity();
         this.indexFileStateFlushTimeoutInMs = indexFileStateFlushTimeoutInMs;
         this.clock = clock;
+        this.durability = durability;
+        this.groupCommitMaxUpdates = groupCommitMaxUpdates;
+        this.flushLatencyInNs = flushLatencyInNs;
+        this.flushBatchSize = flushBatchSize;
 
         this.sessionOwnershipTracker = new SessionOwnershipTracker();
         final String indexFilePath = indexFile.file().getAbsolutePath();
@@ -153,9 +206,12 @@ public class SequenceNumberIndexWriter implements Index
 
         // TODO: Fsync parent directory
         indexedPositionsOffset = positionTableOffset(fileCapacity);
+        recordSlotCount = recordSlotCount(indexedPositionsOffset);
         checksumFramer = new ChecksumFramer(
             inMemoryBuffer, indexedPositionsOffset, errorHandler, 0, "SequenceNumberIndex",
             indexChecksumEnabled);
+        flushedIndexSectors = new FlushedSectors(0, indexedPositionsOffset);
+        flushedPositionSectors = new FlushedSectors(indexedPositionsOffset, fileCapacity);
         try
         {
             initialiseBuffer();
@@ -370,6 +426,12 @@ public class SequenceNumberIndexWriter implements Index
         {
             positionWriter.update(aeronSessionId, templateId, endPosition, recordingId);
         }
+
+        if (durability == SequenceNumberIndexDurability.GROUP_COMMIT &&
+            updatesSinceFileUpdate >= groupCommitMaxUpdates)
+        {
+            updateFile();
+        }
     }
 
     private void onFollowerSessionReply()
@@ -558,7 +620,7 @@ public class SequenceNumberIndexWriter implements Index
             return;
         }
 
-        final int sequenceNumberIndexFilePosition = (int)recordOffsets.get(sessionId);
+        final int sequenceNumberIndexFilePosition = findExistingRecord(sessionId);
         if (sequenceNumberIndexFilePosition == MISSING_RECORD)
         {
             writeMetaDataResponse(libraryId, correlationId, MetaDataStatus.UNKNOWN_SESSION);
@@ -635,7 +697,7 @@ public class SequenceNumberIndexWriter implements Index
         final int metaDataFileInitialLength = (int)metaDataFile.length();
         updateMetaDataFile(metaDataFileInitialLength, metaDataValue, metaDataLength);
         putMetaDataField(sequenceNumberIndexFilePosition, metaDataFileInitialLength);
-        hasSavedRecordSinceFileUpdate = true;
+        onRecordSaved();
     }
 
     private void updateMetaDataFile(
@@ -646,6 +708,12 @@ public class SequenceNumberIndexWriter implements Index
         metaDataFile.write(metaDataValue, 0, metaDataLength);
     }
 
+    private void onRecordSaved()
+    {
+        hasSavedRecordSinceFileUpdate = true;
+        updatesSinceFileUpdate++;
+    }
+
     private void writeMetaDataResponse(final int libraryId, final long correlationId, final MetaDataStatus status)
     {
         final WriteMetaDataResponse response = new WriteMetaDataResponse(libraryId, correlationId, status);
@@ -686,7 +754,6 @@ public class SequenceNumberIndexWriter implements Index
     {
         inMemoryBuffer.setMemory(0, indexedPositionsOffset, (byte)0);
         initialiseBlankBuffer();
-        recordOffsets.clear();
         resetMetaDataFile();
     }
 
@@ -724,22 +791,39 @@ public class SequenceNumberIndexWriter implements Index
 
     private void updateFile()
     {
-        checksumFramer.updateChecksums();
+        final long startTimeInNs = System.nanoTime();
+        final int batchSize = updatesSinceFileUpdate;
+
+        checksumFramer.updateDirtyChecksums(flushedIndexSectors.startFlush());
         if (positionWriter != null)
         {
-            positionWriter.updateChecksums();
+            positionWriter.updateChecksums(flushedPositionSectors.startFlush());
         }
         saveFile();
-        flipFiles();
+        final boolean flippedFiles = flipFiles();
+        flushedIndexSectors.endFlush(flippedFiles);
+        flushedPositionSectors.endFlush(flippedFiles);
         hasSavedRecordSinceFileUpdate = false;
+        updatesSinceFileUpdate = 0;
         lastUpdatedFileTimeInMs = clock.time();
+
+        if (flushLatencyInNs != null)
+        {
+            flushLatencyInNs.setOrdered(System.nanoTime() - startTimeInNs);
+            flushBatchSize.setOrdered(batchSize);
+        }
     }
 
     private void saveFile()
     {
-        writableFile.buffer().putBytes(0, inMemoryBuffer, 0, fileCapacity);
-        writableFile.force();
-        syncMetaDataFile();
+        final AtomicBuffer writableBuffer = writableFile.buffer();
+        flushedIndexSectors.copy(inMemoryBuffer, writableBuffer);
+        flushedPositionSectors.copy(inMemoryBuffer, writableBuffer);
+        if (durability != SequenceNumberIndexDurability.ASYNC)
+        {
+            writableFile.force();
+            syncMetaDataFile();
+        }
     }
 
     private void syncMetaDataFile()
@@ -757,7 +841,7 @@ public class SequenceNumberIndexWriter implements Index
         }
     }
 
-    private void flipFiles()
+    private boolean flipFiles()
     {
         if (RUNNING_ON_WINDOWS)
         {
@@ -781,6 +865,8 @@ public class SequenceNumberIndexWriter implements Index
             writableFile = indexFile;
             indexFile = file;
         }
+
+        return flipsFiles;
     }
 
     private boolean rename(final Path src, final Path dest)
@@ -851,48 +937,41 @@ public class SequenceNumberIndexWriter implements Index
         final long requiredPosition,
         final boolean incrementRequired)
     {
-        int position = (int)recordOffsets.get(sessionId);
-        if (position == MISSING_RECORD)
+        final int position = findRecord(inMemoryBuffer, recordSlotCount, sessionId);
+        if (position == OUT_OF_SPACE)
         {
-            position = SequenceNumberIndexDescriptor.HEADER_SIZE;
-            while (true)
-            {
-                position = checksumFramer.claim(position, RECORD_SIZE);
-                if (position == OUT_OF_SPACE)
-                {
-                    errorHandler.onError(new IllegalStateException(
-                        "Sequence Number Index out of space, can't claim slot for " + sessionId));
-                    return position;
-                }
-
-                lastKnownDecoder.wrap(inMemoryBuffer, position, RECORD_SIZE, SCHEMA_VERSION);
-                if (lastKnownDecoder.sessionId() == 0)
-                {
-                    // Don't redact if there's nothing to redact
-                    if (requiredPosition == NO_REQUIRED_POSITION)
-                    {
-                        createNewRecord(newSequenceNumber, sessionId, position, messagePosition);
-                        hasSavedRecordSinceFileUpdate = true;
-                    }
-                    return position;
-                }
-                else if (lastKnownDecoder.sessionId() == sessionId)
-                {
-                    recordOffsets.put(sessionId, position);
-                    updateSequenceNumber(
-                        newSequenceNumber, position, messagePosition, requiredPosition, incrementRequired, sessionId);
-                    return position;
-                }
+            errorHandler.onError(new IllegalStateException(
+                "Sequence Number Index out of space, can't claim slot for " + sessionId));
+            return position;
+        }
 
-                position += RECORD_SIZE;
+        if (getSessionId(position) == EMPTY_SESSION_ID)
+        {
+            // Don't redact if there's nothing to redact
+            if (requiredPosition == NO_REQUIRED_POSITION)
+            {
+                createNewRecord(newSequenceNumber, sessionId, position, messagePosition);
+                onRecordSaved();
             }
         }
         else
         {
             updateSequenceNumber(
                 newSequenceNumber, position, messagePosition, requiredPosition, incrementRequired, sessionId);
-            return position;
         }
+
+        return position;
+    }
+
+    private int findExistingRecord(final long sessionId)
+    {
+        final int position = findRecord(inMemoryBuffer, recordSlotCount, sessionId);
+        if (position == OUT_OF_SPACE || getSessionId(position) == EMPTY_SESSION_ID)
+        {
+            return MISSING_RECORD;
+        }
+
+        return position;
     }
 
     private void updateSequenceNumber(
@@ -930,7 +1009,7 @@ public class SequenceNumberIndexWriter implements Index
             {
                 putMessagePosition(recordOffset, messagePosition);
                 putSequenceNumber(recordOffset, newSequenceNumber);
-                hasSavedRecordSinceFileUpdate = true;
+                onRecordSaved();
             }
         }
         else
@@ -956,7 +1035,7 @@ public class SequenceNumberIndexWriter implements Index
                     }
                 }
             }
-            hasSavedRecordSinceFileUpdate = true;
+            onRecordSaved();
         }
     }
 
@@ -965,7 +1044,6 @@ public class SequenceNumberIndexWriter implements Index
         final long sessionId,
         final int position, final long messagePosition)
     {
-        recordOffsets.put(sessionId, position);
         lastKnownEncoder
             .wrap(inMemoryBuffer, position)
             .sessionId(sessionId)
@@ -1006,6 +1084,7 @@ public class SequenceNumberIndexWriter implements Index
 
     private void initialiseBlankBuffer()
     {
+        checksumFramer.markAllDirty();
         LoggerUtil.initialiseBuffer(
             inMemoryBuffer,
             fileHeaderEncoder,
@@ -1047,6 +1126,52 @@ public class SequenceNumberIndexWriter implements Index
     {
         loadBuffer(fileBuffer);
         checksumFramer.validateCheckSums();
+        if (!recordsAreHashed())
+        {
+            rehashRecords();
+        }
+    }
+
+    private boolean recordsAreHashed()
+    {
+        final int recordSlotCount = this.recordSlotCount;
+        for (int slot = 0; slot < recordSlotCount; slot++)
+        {
+            final int position = recordOffset(slot);
+            final long sessionId = getSessionId(position);
+            if (sessionId != EMPTY_SESSION_ID && findRecord(inMemoryBuffer, recordSlotCount, sessionId) != position)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Files written before records were hashed by session id have their records stored contiguously from the start.
+    private void rehashRecords()
+    {
+        final int recordSlotCount = this.recordSlotCount;
+        final UnsafeBuffer oldRecords = new UnsafeBuffer(new byte[indexedPositionsOffset]);
+        oldRecords.putBytes(0, inMemoryBuffer, 0, indexedPositionsOffset);
+        inMemoryBuffer.setMemory(
+            SequenceNumberIndexDescriptor.HEADER_SIZE,
+            indexedPositionsOffset - SequenceNumberIndexDescriptor.HEADER_SIZE,
+            (byte)0);
+
+        for (int slot = 0; slot < recordSlotCount; slot++)
+        {
+            final int oldPosition = recordOffset(slot);
+            final long sessionId = oldRecords.getLong(oldPosition + SESSION_ID_OFFSET);
+            if (sessionId != EMPTY_SESSION_ID)
+            {
+                final int position = findRecord(inMemoryBuffer, recordSlotCount, sessionId);
+                inMemoryBuffer.putBytes(position, oldRecords, oldPosition, RECORD_SIZE);
+            }
+        }
+
+        checksumFramer.markAllDirty();
+        hasSavedRecordSinceFileUpdate = true;
     }
 
     private void loadBuffer(final AtomicBuffer fileBuffer)
@@ -1059,6 +1184,7 @@ public class SequenceNumberIndexWriter implements Index
         final long value)
     {
         inMemoryBuffer.putLongOrdered(recordOffset + MESSAGE_POSITION_OFFSET, value);
+        checksumFramer.markDirty(recordOffset);
     }
 
     private void putSequenceNumber(
@@ -1066,6 +1192,12 @@ public class SequenceNumberIndexWriter implements Index
         final int value)
     {
         inMemoryBuffer.putIntOrdered(recordOffset + SEQUENCE_NUMBER_OFFSET, value);
+        checksumFramer.markDirty(recordOffset);
+    }
+
+    private long getSessionId(final int recordOffset)
+    {
+        return inMemoryBuffer.getLong(recordOffset + SESSION_ID_OFFSET);
     }
 
     private int getSequenceNumber(final int recordOffset)
@@ -1083,6 +1215,7 @@ public class SequenceNumberIndexWriter implements Index
         final int value)
     {
         inMemoryBuffer.putIntOrdered(recordOffset + META_DATA_OFFSET, value);
+        checksumFramer.markDirty(recordOffset);
     }
 
     private int getMetaData(
@@ -1100,4 +1233,84 @@ public class SequenceNumberIndexWriter implements Index
     {
         return reader;
     }
+
+    /**
+     * Tracks which sectors of a region of the index need to be copied into the writable file. The writable file was
+     * last written two flushes ago, so it's missing the sectors modified since then: those in this flush and the
+     * previous one. Both files are written in full until they have each been written once.
+     */
+    private static final class FlushedSectors
+    {
+        private static final int FULL_COPIES_ON_START = 2;
+
+        private final int regionStart;
+        private final int regionEnd;
+
+        private long[] flushSectors;
+        private long[] previousFlushSectors;
+        private int fullCopiesRemaining = FULL_COPIES_ON_START;
+
+        FlushedSectors(final int regionStart, final int regionEnd)
+        {
+            this.regionStart = regionStart;
+            this.regionEnd = regionEnd;
+            final int setLength = ChecksumFramer.sectorSetLength(regionEnd - regionStart);
+            flushSectors = new long[setLength];
+            previousFlushSectors = new long[setLength];
+        }
+
+        long[] startFlush()
+        {
+            Arrays.fill(flushSectors, 0L);
+            return flushSectors;
+        }
+
+        void copy(final AtomicBuffer inMemoryBuffer, final AtomicBuffer writableBuffer)
+        {
+            final int regionStart = this.regionStart;
+            final int regionEnd = this.regionEnd;
+            if (fullCopiesRemaining > 0)
+            {
+                writableBuffer.putBytes(regionStart, inMemoryBuffer, regionStart, regionEnd - regionStart);
+                return;
+            }
+
+            final long[] flushSectors = this.flushSectors;
+            final long[] previousFlushSectors = this.previousFlushSectors;
+            for (int i = 0; i < flushSectors.length; i++)
+            {
+                long sectorWord = flushSectors[i] | previousFlushSectors[i];
+                while (sectorWord != 0)
+                {
+                    final int sectorStart = regionStart +
+                        ((i << 6) + Long.numberOfTrailingZeros(sectorWord)) * SECTOR_SIZE;
+                    sectorWord &= sectorWord - 1;
+                    if (sectorStart < regionEnd)
+                    {
+                        final int length = Math.min(SECTOR_SIZE, regionEnd - sectorStart);
+                        writableBuffer.putBytes(sectorStart, inMemoryBuffer, sectorStart, length);
+                    }
+                }
+            }
+        }
+
+        void endFlush(final boolean flippedFiles)
+        {
+            final long[] flushSectors = this.flushSectors;
+            this.flushSectors = previousFlushSectors;
+            previousFlushSectors = flushSectors;
+            if (flippedFiles)
+            {
+                if (fullCopiesRemaining > 0)
+                {
+                    fullCopiesRemaining--;
+                }
+            }
+            else
+            {
+                // A failed rename leaves the contents of the files unknown
+                fullCopiesRemaining = FULL_COPIES_ON_START;
+            }
+        }
+    }
 }
@@ -17,26 +17,70 @@ package uk.co.real_logic.artio.engine.logger;
 
 import org.agrona.collections.Long2ObjectHashMap;
 
+import java.util.ArrayDeque;
+
 import static uk.co.real_logic.artio.engine.logger.ReplayQuery.trueBeginPosition;
 
 class StartPositionQuery
 {
     private final Long2ObjectHashMap<PrunePosition> recordingIdToStartPosition = new Long2ObjectHashMap<>();
+    private final ArrayDeque<PrunePosition> freePrunePositions = new ArrayDeque<>();
+    private final boolean highestSequenceIndexOnly;
 
     private int highestSequenceIndex = 0;
 
+    StartPositionQuery()
+    {
+        this(true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param highestSequenceIndexOnly true to only consider entries of the highest sequence index, false to find the
+     *                                 lowest position of any entry in each recording.
+     */
+    StartPositionQuery(final boolean highestSequenceIndexOnly)
+    {
+        this.highestSequenceIndexOnly = highestSequenceIndexOnly;
+    }
+
+    /**
+     * Clears the start positions found so that the query can be reused.
+     */
+    void reset()
+    {
+        clearStartPositions();
+        highestSequenceIndex = 0;
+    }
+
     // Looking for the highest position of the lowest sequence number entry of the highest sequence index
     public void updateStartPosition(
         final int sequenceNumber, final int sequenceIndex, final long recordingId, final long beginPosition)
     {
         final long trueBeginPosition = trueBeginPosition(beginPosition);
 
-        if (sequenceIndex > highestSequenceIndex)
+        if (!highestSequenceIndexOnly)
+        {
+            final PrunePosition oldPosition = recordingIdToStartPosition.get(recordingId);
+            if (oldPosition == null)
+            {
+                recordingIdToStartPosition.put(recordingId,
+                    newPrunePosition(trueBeginPosition, sequenceNumber, sequenceIndex));
+            }
+            else if (trueBeginPosition < oldPosition.position())
+            {
+                oldPosition.sequenceNumber(sequenceNumber);
+                oldPosition.position(trueBeginPosition);
+            }
+            highestSequenceIndex = Math.max(highestSequenceIndex, sequenceIndex);
+        }
+        else if (sequenceIndex > highestSequenceIndex)
         {
             // Don't want the lower positions of a previous sequence index to matter.
-            recordingIdToStartPosition.clear();
+            clearStartPositions();
             recordingIdToStartPosition.put(recordingId,
-                new PrunePosition(trueBeginPosition, sequenceNumber, sequenceIndex));
+                newPrunePosition(trueBeginPosition, sequenceNumber, sequenceIndex));
             highestSequenceIndex = sequenceIndex;
 
         }
@@ -47,7 +91,7 @@ class StartPositionQuery
             if (oldPosition == null)
             {
                 recordingIdToStartPosition.put(recordingId,
-                    new PrunePosition(trueBeginPosition, sequenceNumber, sequenceIndex));
+                    newPrunePosition(trueBeginPosition, sequenceNumber, sequenceIndex));
             }
             else
             {
@@ -65,6 +109,29 @@ class StartPositionQuery
         }
     }
 
+    private PrunePosition newPrunePosition(final long position, final int sequenceNumber, final int sequenceIndex)
+    {
+        final PrunePosition prunePosition = freePrunePositions.pollFirst();
+        if (prunePosition == null)
+        {
+            return new PrunePosition(position, sequenceNumber, sequenceIndex);
+        }
+
+        prunePosition.position(position);
+        prunePosition.sequenceNumber(sequenceNumber);
+        prunePosition.sequenceIndex(sequenceIndex);
+        return prunePosition;
+    }
+
+    private void clearStartPositions()
+    {
+        for (final PrunePosition prunePosition : recordingIdToStartPosition.values())
+        {
+            freePrunePositions.addFirst(prunePosition);
+        }
+        recordingIdToStartPosition.clear();
+    }
+
     public int highestSequenceIndex()
     {
         return highestSequenceIndex;
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.BufferBuilder;
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.IoUtil;
+import org.agrona.collections.Int2LongHashMap;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.IntHashSet;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.ManageSessionDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+
+import static io.aeron.archive.client.AeronArchive.NULL_POSITION;
+import static io.aeron.archive.status.RecordingPos.NULL_RECORDING_ID;
+import static io.aeron.logbuffer.FrameDescriptor.*;
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.agrona.BitUtil.align;
+import static uk.co.real_logic.artio.engine.logger.TagIndexDescriptor.*;
+import static uk.co.real_logic.artio.messages.FixMessageDecoder.*;
+import static uk.co.real_logic.artio.messages.MessageStatus.OK;
+import static uk.co.real_logic.artio.util.AsciiBuffer.SEPARATOR;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+
+/**
+ * Builds a secondary index of the archive from the values of a configured set of tags, for example ClOrdID, OrderID
+ * or ExecID, to the positions of the FIX messages that contain them. Fragmented messages are reassembled before
+ * their fields are indexed.
+ *
+ * The index is a memory mapped hash table that grows by rehashing into a new file, see {@link TagIndexDescriptor}
+ * for its layout and {@link TagIndexReader} for querying it.
+ */
+public class TagIndex implements Index
+{
+    private static final byte EQUALS = (byte)'=';
+    // Enough for any tag without overflowing an int
+    private static final int MAX_TAG_DIGITS = 9;
+
+    private final MessageHeaderDecoder frameHeaderDecoder = new MessageHeaderDecoder();
+    private final FixMessageDecoder messageFrame = new FixMessageDecoder();
+    private final MutableAsciiBuffer asciiBuffer = new MutableAsciiBuffer();
+    private final Int2ObjectHashMap<BufferBuilder> aeronSessionIdToBuilder = new Int2ObjectHashMap<>();
+    private final Int2LongHashMap aeronSessionIdToBeginPosition = new Int2LongHashMap(NULL_POSITION);
+    private final SessionOwnershipTracker sessTracker = new SessionOwnershipTracker();
+
+    private final IntHashSet tags;
+    private final String logFileDir;
+    private final int requiredStreamId;
+    private final ErrorHandler errorHandler;
+    private final RecordingIdLookup recordingIdLookup;
+    private final AtomicBuffer positionBuffer;
+    private final IndexedPositionWriter positionWriter;
+    private final IndexedPositionReader positionReader;
+    private final File tableFile;
+
+    private MappedByteBuffer mappedTable;
+    private AtomicBuffer table;
+    private int capacity;
+    private int size;
+    private int resizeThreshold;
+    private boolean full;
+
+    public TagIndex(
+        final String logFileDir,
+        final int requiredStreamId,
+        final int[] tags,
+        final int initialCapacity,
+        final AtomicBuffer positionBuffer,
+        final ErrorHandler errorHandler,
+        final RecordingIdLookup recordingIdLookup,
+        final boolean indexChecksumEnabled)
+    {
+        this.logFileDir = logFileDir;
+        this.requiredStreamId = requiredStreamId;
+        this.errorHandler = errorHandler;
+        this.recordingIdLookup = recordingIdLookup;
+        this.positionBuffer = positionBuffer;
+
+        this.tags = new IntHashSet();
+        for (final int tag : tags)
+        {
+            if (tag <= EMPTY_TAG)
+            {
+                throw new IllegalArgumentException("Invalid tag to index: " + tag);
+            }
+            this.tags.add(tag);
+        }
+
+        tableFile = tagIndexFile(logFileDir, requiredStreamId);
+        if (tableFile.exists())
+        {
+            mapTable(LoggerUtil.mapExistingFile(tableFile));
+            final int fileLength = fileLength(capacity);
+            if (Integer.bitCount(capacity) != 1 || table.capacity() < fileLength)
+            {
+                final int tableLength = table.capacity();
+                IoUtil.unmap(mappedTable);
+                throw new IllegalStateException("Invalid tag index file: " + tableFile.getAbsolutePath() +
+                    " capacity=" + capacity + ", fileLength=" + tableLength);
+            }
+            size = TagIndexDescriptor.size(table);
+        }
+        else
+        {
+            if (Integer.bitCount(initialCapacity) != 1 || initialCapacity > MAX_CAPACITY)
+            {
+                throw new IllegalArgumentException(
+                    "initialCapacity must be a power of two no larger than " + MAX_CAPACITY + ": " + initialCapacity);
+            }
+
+            final MappedByteBuffer mappedTable = LoggerUtil.mapNewFile(tableFile, fileLength(initialCapacity));
+            new UnsafeBuffer(mappedTable).putInt(CAPACITY_OFFSET, initialCapacity);
+            mapTable(mappedTable);
+        }
+
+        final File resizeFile = tagIndexResizeFile(logFileDir, requiredStreamId);
+        if (resizeFile.exists() && !resizeFile.delete())
+        {
+            errorHandler.onError(new IllegalStateException(
+                "Unable to delete incomplete tag index resize: " + resizeFile.getAbsolutePath()));
+        }
+
+        final String positionPath = tagIndexPositionPath(logFileDir, requiredStreamId);
+        positionWriter = new IndexedPositionWriter(
+            positionBuffer, errorHandler, 0, positionPath, recordingIdLookup, indexChecksumEnabled);
+        positionReader = new IndexedPositionReader(positionBuffer);
+    }
+
+    public static AtomicBuffer positionBuffer(final String logFileDir, final int streamId, final int bufferSize)
+    {
+        return new UnsafeBuffer(LoggerUtil.map(new File(tagIndexPositionPath(logFileDir, streamId)), bufferSize));
+    }
+
+    private void mapTable(final MappedByteBuffer mappedTable)
+    {
+        this.mappedTable = mappedTable;
+        table = new UnsafeBuffer(mappedTable);
+        capacity = TagIndexDescriptor.capacity(table);
+        resizeThreshold = capacity == MAX_CAPACITY ? capacity - 1 : (capacity >> 1) + (capacity >> 2);
+    }
+
+    public void onCatchup(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final Header header,
+        final long recordingId)
+    {
+        onFragment(buffer, offset, length, header, recordingId);
+    }
+
+    public void onFragment(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final Header header)
+    {
+        if (header.streamId() == requiredStreamId)
+        {
+            onFragment(buffer, offset, length, header, NULL_RECORDING_ID);
+        }
+    }
+
+    private void onFragment(
+        final DirectBuffer srcBuffer,
+        final int srcOffset,
+        final int srcLength,
+        final Header header,
+        final long recordingId)
+    {
+        final long endPosition = header.position();
+        final byte flags = header.flags();
+        final int aeronSessionId = header.sessionId();
+        final long beginPosition = endPosition - align(srcLength + HEADER_LENGTH, FRAME_ALIGNMENT);
+
+        frameHeaderDecoder.wrap(srcBuffer, srcOffset);
+        final int templateId = frameHeaderDecoder.templateId();
+
+        if ((flags & UNFRAGMENTED) == UNFRAGMENTED)
+        {
+            onMessage(srcBuffer, srcOffset, aeronSessionId, recordingId, beginPosition, endPosition);
+        }
+        else if ((flags & BEGIN_FRAG_FLAG) == BEGIN_FRAG_FLAG)
+        {
+            BufferBuilder builder = aeronSessionIdToBuilder.get(aeronSessionId);
+            if (builder == null)
+            {
+                builder = new BufferBuilder();
+                aeronSessionIdToBuilder.put(aeronSessionId, builder);
+            }
+            builder.reset().append(srcBuffer, srcOffset, srcLength);
+            aeronSessionIdToBeginPosition.put(aeronSessionId, beginPosition);
+        }
+        else
+        {
+            // Continuations are dropped if their beginning wasn't seen, eg when catching up from within a message
+            final BufferBuilder builder = aeronSessionIdToBuilder.get(aeronSessionId);
+            if (builder != null && builder.limit() > 0)
+            {
+                builder.append(srcBuffer, srcOffset, srcLength);
+                if ((flags & END_FRAG_FLAG) == END_FRAG_FLAG)
+                {
+                    onMessage(
+                        builder.buffer(),
+                        0,
+                        aeronSessionId,
+                        recordingId,
+                        aeronSessionIdToBeginPosition.get(aeronSessionId),
+                        endPosition);
+                    builder.reset();
+                }
+            }
+        }
+
+        positionWriter.update(aeronSessionId, templateId, endPosition, recordingId);
+        positionWriter.updateChecksums();
+    }
+
+    private void onMessage(
+        final DirectBuffer buffer,
+        final int start,
+        final int aeronSessionId,
+        final long recordingId,
+        final long beginPosition,
+        final long endPosition)
+    {
+        int offset = start;
+        frameHeaderDecoder.wrap(buffer, offset);
+        final int templateId = frameHeaderDecoder.templateId();
+        final int blockLength = frameHeaderDecoder.blockLength();
+        final int version = frameHeaderDecoder.version();
+        offset += frameHeaderDecoder.encodedLength();
+
+        if (templateId == FixMessageDecoder.TEMPLATE_ID)
+        {
+            final FixMessageDecoder messageFrame = this.messageFrame;
+            messageFrame.wrap(buffer, offset, blockLength, version);
+            if (messageFrame.status() == OK &&
+                !sessTracker.messageFromWrongLibrary(messageFrame.session(), messageFrame.libraryId()))
+            {
+                offset += blockLength;
+                if (version >= metaDataSinceVersion())
+                {
+                    offset += metaDataHeaderLength() + messageFrame.metaDataLength();
+                    messageFrame.skipMetaData();
+                }
+                offset += bodyHeaderLength();
+
+                // The indexer redelivers a fragment whose indexing throws, so report the failure and move on
+                try
+                {
+                    indexFields(
+                        buffer,
+                        offset,
+                        messageFrame.bodyLength(),
+                        aeronSessionId,
+                        recordingId,
+                        beginPosition,
+                        endPosition);
+                }
+                catch (final RuntimeException e)
+                {
+                    errorHandler.onError(new IllegalStateException(
+                        "Unable to tag index message at position " + beginPosition, e));
+                }
+            }
+        }
+        else if (templateId == ManageSessionDecoder.TEMPLATE_ID)
+        {
+            sessTracker.onManageSession(buffer, offset, blockLength, version);
+        }
+    }
+
+    private void indexFields(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final int aeronSessionId,
+        final long knownRecordingId,
+        final long beginPosition,
+        final long endPosition)
+    {
+        final MutableAsciiBuffer asciiBuffer = this.asciiBuffer;
+        asciiBuffer.wrap(buffer);
+
+        final IntHashSet tags = this.tags;
+        final int end = offset + length;
+        long recordingId = knownRecordingId;
+        int position = offset;
+        while (position < end)
+        {
+            final int equalsIndex = asciiBuffer.scan(position, end, EQUALS);
+            if (equalsIndex == UNKNOWN_INDEX)
+            {
+                return;
+            }
+
+            final int valueOffset = equalsIndex + 1;
+            int valueEnd = asciiBuffer.scan(valueOffset, end, SEPARATOR);
+            if (valueEnd == UNKNOWN_INDEX)
+            {
+                valueEnd = end;
+            }
+
+            // Tokens that aren't fields, eg part of a data field's value that contains a separator, are skipped
+            final int tag = tag(asciiBuffer, position, equalsIndex);
+            if (tag != EMPTY_TAG && tags.contains(tag))
+            {
+                if (recordingId == NULL_RECORDING_ID)
+                {
+                    recordingId = recordingIdLookup.getRecordingId(aeronSessionId);
+                }
+
+                put(
+                    TagIndexDescriptor.hash(tag, asciiBuffer, valueOffset, valueEnd - valueOffset),
+                    recordingId,
+                    beginPosition,
+                    (int)(endPosition - beginPosition),
+                    tag);
+            }
+
+            position = valueEnd + 1;
+        }
+    }
+
+    private static int tag(final MutableAsciiBuffer asciiBuffer, final int offset, final int end)
+    {
+        if (end <= offset || end - offset > MAX_TAG_DIGITS)
+        {
+            return EMPTY_TAG;
+        }
+
+        int tag = 0;
+        for (int index = offset; index < end; index++)
+        {
+            if (!asciiBuffer.isDigit(index))
+            {
+                return EMPTY_TAG;
+            }
+            tag = tag * 10 + asciiBuffer.getByte(index) - '0';
+        }
+        return tag;
+    }
+
+    private void put(
+        final long hash, final long recordingId, final long beginPosition, final int length, final int tag)
+    {
+        if (size >= resizeThreshold && !resize())
+        {
+            return;
+        }
+
+        insert(table, capacity, hash, recordingId, beginPosition, length, tag);
+        size++;
+        table.putIntOrdered(SIZE_OFFSET, size);
+    }
+
+    private static void insert(
+        final AtomicBuffer table,
+        final int capacity,
+        final long hash,
+        final long recordingId,
+        final long beginPosition,
+        final int length,
+        final int tag)
+    {
+        int slot = slot(hash, capacity);
+        while (table.getInt(entryOffset(slot) + TAG_OFFSET) != EMPTY_TAG)
+        {
+            slot = nextSlot(slot, capacity);
+        }
+
+        final int offset = entryOffset(slot);
+        table.putLong(offset + HASH_OFFSET, hash);
+        table.putLong(offset + RECORDING_ID_OFFSET, recordingId);
+        table.putLong(offset + BEGIN_POSITION_OFFSET, beginPosition);
+        table.putInt(offset + LENGTH_OFFSET, length);
+        table.putIntOrdered(offset + TAG_OFFSET, tag);
+    }
+
+    private boolean resize()
+    {
+        if (full)
+        {
+            return false;
+        }
+
+        if (capacity == MAX_CAPACITY)
+        {
+            full = true;
+            errorHandler.onError(new IllegalStateException(
+                "Tag index full, unable to index further messages: " + tableFile.getAbsolutePath()));
+            return false;
+        }
+
+        final AtomicBuffer oldTable = table;
+        final int oldCapacity = capacity;
+        final int newCapacity = oldCapacity << 1;
+        final File resizeFile = tagIndexResizeFile(logFileDir, requiredStreamId);
+
+        final MappedByteBuffer newMappedTable = LoggerUtil.mapNewFile(resizeFile, fileLength(newCapacity));
+        final UnsafeBuffer newTable = new UnsafeBuffer(newMappedTable);
+        newTable.putInt(CAPACITY_OFFSET, newCapacity);
+        for (int slot = 0; slot < oldCapacity; slot++)
+        {
+            final int offset = entryOffset(slot);
+            final int tag = oldTable.getInt(offset + TAG_OFFSET);
+            if (tag != EMPTY_TAG)
+            {
+                insert(
+                    newTable,
+                    newCapacity,
+                    oldTable.getLong(offset + HASH_OFFSET),
+                    oldTable.getLong(offset + RECORDING_ID_OFFSET),
+                    oldTable.getLong(offset + BEGIN_POSITION_OFFSET),
+                    oldTable.getInt(offset + LENGTH_OFFSET),
+                    tag);
+            }
+        }
+        newTable.putIntOrdered(SIZE_OFFSET, size);
+        newMappedTable.force();
+
+        try
+        {
+            Files.move(resizeFile.toPath(), tableFile.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        }
+        catch (final IOException e)
+        {
+            IoUtil.unmap(newMappedTable);
+            full = true;
+            errorHandler.onError(e);
+            return false;
+        }
+
+        IoUtil.unmap(mappedTable);
+        mapTable(newMappedTable);
+        return true;
+    }
+
+    public int doWork()
+    {
+        return positionWriter.checkRecordings();
+    }
+
+    public void close()
+    {
+        positionWriter.close();
+        IoUtil.unmap(mappedTable);
+        IoUtil.unmap(positionBuffer.byteBuffer());
+    }
+
+    public void readLastPosition(final IndexedPositionConsumer consumer)
+    {
+        positionReader.readLastPosition(consumer);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Hashing;
+import org.agrona.concurrent.AtomicBuffer;
+
+import java.io.File;
+
+/**
+ * Layout of the secondary tag index files. Each stream has a memory mapped open addressed hash table whose entries
+ * map a hash of a tag and its value to the position of a FIX message in the archive, and an indexed position file
+ * that records how far the table has been built for each recording.
+ *
+ * Keys are hashed rather than stored, so readers must check that a message really contains the tag value.
+ * Multiple entries can have the same key, one for each message that contains it.
+ */
+final class TagIndexDescriptor
+{
+    static final int CAPACITY_OFFSET = 0;
+    static final int SIZE_OFFSET = CAPACITY_OFFSET + BitUtil.SIZE_OF_INT;
+    static final int TABLE_HEADER_LENGTH = BitUtil.CACHE_LINE_LENGTH;
+
+    static final int HASH_OFFSET = 0;
+    static final int RECORDING_ID_OFFSET = HASH_OFFSET + BitUtil.SIZE_OF_LONG;
+    static final int BEGIN_POSITION_OFFSET = RECORDING_ID_OFFSET + BitUtil.SIZE_OF_LONG;
+    static final int LENGTH_OFFSET = BEGIN_POSITION_OFFSET + BitUtil.SIZE_OF_LONG;
+    // Written last, an entry with a tag of 0 is empty.
+    static final int TAG_OFFSET = LENGTH_OFFSET + BitUtil.SIZE_OF_INT;
+    static final int ENTRY_LENGTH = TAG_OFFSET + BitUtil.SIZE_OF_INT;
+
+    static final int EMPTY_TAG = 0;
+    static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - TABLE_HEADER_LENGTH) / ENTRY_LENGTH);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private TagIndexDescriptor()
+    {
+    }
+
+    static File tagIndexFile(final String logFileDir, final int streamId)
+    {
+        return new File(logFileDir + File.separator + "tag-index-" + streamId);
+    }
+
+    static File tagIndexResizeFile(final String logFileDir, final int streamId)
+    {
+        return new File(logFileDir + File.separator + "tag-index-" + streamId + "-resize");
+    }
+
+    static String tagIndexPositionPath(final String logFileDir, final int streamId)
+    {
+        return logFileDir + File.separator + "tag-index-positions-" + streamId;
+    }
+
+    static int fileLength(final int capacity)
+    {
+        return TABLE_HEADER_LENGTH + capacity * ENTRY_LENGTH;
+    }
+
+    static int entryOffset(final int slot)
+    {
+        return TABLE_HEADER_LENGTH + slot * ENTRY_LENGTH;
+    }
+
+    static int capacity(final AtomicBuffer buffer)
+    {
+        return buffer.getInt(CAPACITY_OFFSET);
+    }
+
+    static int size(final AtomicBuffer buffer)
+    {
+        return buffer.getIntVolatile(SIZE_OFFSET);
+    }
+
+    static int slot(final long hash, final int capacity)
+    {
+        return Hashing.hash(hash, capacity - 1);
+    }
+
+    static int nextSlot(final int slot, final int capacity)
+    {
+        return (slot + 1) & (capacity - 1);
+    }
+
+    /**
+     * Hash a tag and the encoded value of a field.
+     *
+     * @param tag the tag number of the field.
+     * @param buffer the buffer containing the value.
+     * @param offset the offset of the value within the buffer.
+     * @param length the length of the value.
+     * @return the hash, consistent with {@link #hash(int, CharSequence)}.
+     */
+    static long hash(final int tag, final DirectBuffer buffer, final int offset, final int length)
+    {
+        long hash = hashTag(tag);
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            hash = (hash ^ (buffer.getByte(i) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Hash a tag and an ASCII value of a field.
+     *
+     * @param tag the tag number of the field.
+     * @param value the value of the field.
+     * @return the hash, consistent with {@link #hash(int, DirectBuffer, int, int)}.
+     */
+    static long hash(final int tag, final CharSequence value)
+    {
+        long hash = hashTag(tag);
+        for (int i = 0, length = value.length(); i < length; i++)
+        {
+            hash = (hash ^ (value.charAt(i) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hashTag(final int tag)
+    {
+        return (FNV_OFFSET_BASIS ^ tag) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanningAgent.ArchiveLocation;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static uk.co.real_logic.artio.engine.logger.TagIndexDescriptor.*;
+
+/**
+ * Looks up the messages that contain a tag value in the {@link TagIndex} of a stream. The index file is mapped for
+ * each query so it can be read while an engine is writing to it, including when it has been resized.
+ */
+class TagIndexReader
+{
+    private static final Comparator<ArchiveLocation> BY_POSITION = Comparator
+        .comparingLong((ArchiveLocation location) -> location.recordingId)
+        .thenComparingLong(location -> location.startPosition);
+
+    private final String logFileDir;
+    private final int streamId;
+
+    TagIndexReader(final String logFileDir, final int streamId)
+    {
+        this.logFileDir = logFileDir;
+        this.streamId = streamId;
+    }
+
+    /**
+     * Find the archive locations of messages that may contain a tag value. Only hashes of values are indexed, so
+     * a location can contain a message with a different value that has the same hash.
+     *
+     * @param tag the tag number of the field.
+     * @param value the value of the field.
+     * @return the location of each message, ordered by recording and position, empty if there's no index.
+     */
+    List<ArchiveLocation> find(final int tag, final CharSequence value)
+    {
+        final List<ArchiveLocation> locations = new ArrayList<>();
+        final File file = tagIndexFile(logFileDir, streamId);
+        if (!file.exists())
+        {
+            return locations;
+        }
+
+        final MappedByteBuffer mappedTable = LoggerUtil.mapExistingFile(file);
+        try
+        {
+            final UnsafeBuffer table = new UnsafeBuffer(mappedTable);
+            final int capacity = capacity(table);
+            final long hash = hash(tag, value);
+            int slot = slot(hash, capacity);
+            for (int i = 0; i < capacity; i++)
+            {
+                final int offset = entryOffset(slot);
+                final int entryTag = table.getIntVolatile(offset + TAG_OFFSET);
+                if (entryTag == EMPTY_TAG)
+                {
+                    break;
+                }
+
+                if (entryTag == tag && table.getLong(offset + HASH_OFFSET) == hash)
+                {
+                    final long beginPosition = table.getLong(offset + BEGIN_POSITION_OFFSET);
+                    locations.add(new ArchiveLocation(
+                        table.getLong(offset + RECORDING_ID_OFFSET),
+                        beginPosition,
+                        beginPosition + table.getInt(offset + LENGTH_OFFSET)));
+                }
+
+                slot = nextSlot(slot, capacity);
+            }
+        }
+        finally
+        {
+            IoUtil.unmap(mappedTable);
+        }
+
+        locations.sort(BY_POSITION);
+        removeDuplicates(locations);
+        return locations;
+    }
+
+    // A message is indexed more than once if the value repeats within it, eg in a repeating group, or if the engine
+    // stopped between indexing it and recording how far it had indexed.
+    private static void removeDuplicates(final List<ArchiveLocation> locations)
+    {
+        ArchiveLocation previous = null;
+        for (int i = locations.size() - 1; i >= 0; i--)
+        {
+            final ArchiveLocation location = locations.get(i);
+            if (previous != null && previous.recordingId == location.recordingId &&
+                previous.startPosition == location.startPosition)
+            {
+                locations.remove(i + 1);
+            }
+            previous = location;
+        }
+    }
+}
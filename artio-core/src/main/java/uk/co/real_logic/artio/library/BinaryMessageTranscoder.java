@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.library;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.ExpandableArrayBuffer;
+import uk.co.real_logic.artio.builder.BinaryTranscoder;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import static uk.co.real_logic.artio.builder.BinaryTranscoder.UNKNOWN_MESSAGE_TYPE;
+
+/**
+ * Transcodes received messages once per library so that every consumer of a message within the library can read the
+ * binary form. The binary form is only valid until the next message is transcoded.
+ *
+ * Transcoding happens in the library rather than the engine because the {@link BinaryTranscoder} is generated from
+ * the library's dictionary, which the engine doesn't have, and because only libraries that ask for the binary form
+ * pay for it. This means that each of those libraries parses the FIX text of a message itself. The engine's streams
+ * and archive stay FIX, so replays and other libraries are unaffected. A message that is redelivered after its
+ * handler aborted reuses the binary form from the previous attempt rather than being transcoded again.
+ */
+class BinaryMessageTranscoder
+{
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+    private static final long NO_POSITION = -1;
+
+    private final MutableAsciiBuffer asciiBuffer = new MutableAsciiBuffer();
+    private final ExpandableArrayBuffer binaryBuffer = new ExpandableArrayBuffer(INITIAL_CAPACITY);
+    private final BinaryTranscoder transcoder;
+    private final BinaryTranscodingMode mode;
+    private final ErrorHandler errorHandler;
+
+    private long lastPosition = NO_POSITION;
+    private int lastLength;
+    private long lastMessageType;
+    private int lastBinaryLength;
+
+    BinaryMessageTranscoder(
+        final BinaryTranscoder transcoder, final BinaryTranscodingMode mode, final ErrorHandler errorHandler)
+    {
+        this.transcoder = transcoder;
+        this.mode = mode;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Transcode a message, recording the binary form on the info.
+     *
+     * @param position the position of the message in its stream, used to spot a message being redelivered.
+     * @return true if the binary form should be given to the handler in place of the FIX message.
+     */
+    boolean transcode(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final long messageType,
+        final long position,
+        final OnMessageInfo info)
+    {
+        final int binaryLength;
+        if (position == lastPosition && length == lastLength && messageType == lastMessageType)
+        {
+            binaryLength = lastBinaryLength;
+        }
+        else
+        {
+            binaryLength = fixToBinary(buffer, offset, length, messageType);
+            lastPosition = position;
+            lastLength = length;
+            lastMessageType = messageType;
+            lastBinaryLength = binaryLength;
+        }
+
+        if (binaryLength == UNKNOWN_MESSAGE_TYPE)
+        {
+            info.binary(null, 0, 0);
+            return false;
+        }
+
+        info.binary(binaryBuffer, 0, binaryLength);
+        return mode == BinaryTranscodingMode.INSTEAD;
+    }
+
+    private int fixToBinary(final DirectBuffer buffer, final int offset, final int length, final long messageType)
+    {
+        asciiBuffer.wrap(buffer);
+        try
+        {
+            return transcoder.fixToBinary(asciiBuffer, offset, length, messageType, binaryBuffer, 0);
+        }
+        catch (final IllegalArgumentException | ArithmeticException | IndexOutOfBoundsException e)
+        {
+            // A malformed message, eg: a bad number or a length that runs past the end of the message, is still
+            // given to the handler as FIX.
+            errorHandler.onError(e);
+            return UNKNOWN_MESSAGE_TYPE;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.library;
+
+/**
+ * Determines how the binary form of a received message is handed to a {@link SessionHandler}.
+ *
+ * @see LibraryConfiguration#binaryTranscoding(uk.co.real_logic.artio.builder.BinaryTranscoder, BinaryTranscodingMode)
+ */
+public enum BinaryTranscodingMode
+{
+    /**
+     * The handler is given the FIX message and the binary form is available from {@link OnMessageInfo}.
+     */
+    ALONGSIDE,
+
+    /**
+     * The handler is given the binary form in place of the FIX message. Messages whose type isn't part of the
+     * transcoder's dictionary are still given as FIX, {@link OnMessageInfo#hasBinary()} distinguishes the two.
+     */
+    INSTEAD
+}
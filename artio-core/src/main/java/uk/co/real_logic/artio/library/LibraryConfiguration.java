@@ -19,6 +19,7 @@ import org.agrona.concurrent.EpochNanoClock;
 import org.agrona.concurrent.IdleStrategy;
 import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.ReproductionClock;
+import uk.co.real_logic.artio.builder.BinaryTranscoder;
 import uk.co.real_logic.artio.engine.FixEngine;
 import uk.co.real_logic.artio.session.DirectSessionProxy;
 import uk.co.real_logic.artio.session.ResendRequestController;
@@ -83,6 +84,8 @@ public final class LibraryConfiguration extends CommonConfiguration
     private FixPConnectionExistsHandler fixPConnectionExistsHandler;
     private FixPConnectionAcquiredHandler fixPConnectionAcquiredHandler;
     private LibraryReproductionConfiguration reproductionConfiguration;
+    private BinaryTranscoder binaryTranscoder;
+    private BinaryTranscodingMode binaryTranscodingMode = BinaryTranscodingMode.ALONGSIDE;
 
     /**
      * When a new FIX session connects to the gateway you register a callback handler to find
@@ -287,6 +290,26 @@ public final class LibraryConfiguration extends CommonConfiguration
         return this;
     }
 
+    /**
+     * Transcodes each FIX message received by this library into the fixed layout binary form generated by
+     * {@code CodecConfiguration.binaryCodecsEnabled(true)} before it is given to the {@link SessionHandler}, so that
+     * consumers that the handler fans the message out to can read fields by offset rather than each parsing it, see
+     * {@link uk.co.real_logic.artio.builder.BinaryLayout}. The transcoding is done by this library, so every library
+     * that enables it still parses the FIX text of the messages it receives. Session level validation still operates
+     * on the FIX message. Disabled by default.
+     *
+     * @param binaryTranscoder the transcoder generated for your dictionary, or null to disable transcoding.
+     * @param binaryTranscodingMode whether the binary form is given alongside or instead of the FIX message.
+     * @return this
+     */
+    public LibraryConfiguration binaryTranscoding(
+        final BinaryTranscoder binaryTranscoder, final BinaryTranscodingMode binaryTranscodingMode)
+    {
+        this.binaryTranscoder = binaryTranscoder;
+        this.binaryTranscodingMode = binaryTranscodingMode;
+        return this;
+    }
+
     // ------------------------
     // BEGIN INHERITED SETTERS
     // ------------------------
@@ -400,6 +423,16 @@ public final class LibraryConfiguration extends CommonConfiguration
         return sessionExistsHandler;
     }
 
+    BinaryTranscoder binaryTranscoder()
+    {
+        return binaryTranscoder;
+    }
+
+    BinaryTranscodingMode binaryTranscodingMode()
+    {
+        return binaryTranscodingMode;
+    }
+
     FixPConnectionExistsHandler fixPConnectionExistsHandler()
     {
         return fixPConnectionExistsHandler;
@@ -31,6 +31,7 @@ import org.agrona.concurrent.EpochClock;
 import org.agrona.concurrent.EpochNanoClock;
 import org.agrona.concurrent.status.AtomicCounter;
 import uk.co.real_logic.artio.*;
+import uk.co.real_logic.artio.builder.BinaryTranscoder;
 import uk.co.real_logic.artio.builder.SessionHeaderEncoder;
 import uk.co.real_logic.artio.dictionary.FixDictionary;
 import uk.co.real_logic.artio.engine.ConnectedSessionInfo;
@@ -118,6 +119,9 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
         new UnmodifiableWrapper<>(() -> fixPConnections);
 
     private InternalSession[] sessions = EMPTY_SESSIONS;
+    // Polls the sessions in the sessions array when they have a deadline due
+    private final SessionTimerWheel<InternalSession> sessionTimerWheel = new SessionTimerWheel<>();
+    private final SessionTimerWheel.Poller<InternalSession> pollSession = InternalSession::poll;
     private InternalSession[] pendingInitiatorSessions = EMPTY_SESSIONS;
     private final List<Session> unmodifiableSessions = new UnmodifiableWrapper<>(() -> sessions);
     private final List<Session> unmodifiablePendingInitiatorSessions =
@@ -143,6 +147,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
     private final boolean enginesAreClustered;
     private final ErrorHandler errorHandler;
     private final FixCounters fixCounters;
+    private final BinaryMessageTranscoder binaryMessageTranscoder;
 
     private final boolean isReproductionEnabled;
     private final ReproductionClock reproductionClock;
@@ -258,6 +263,9 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
             epochClock, configuration.epochNanoClock(), configuration.sessionEpochFractionFormat());
         this.isReproductionEnabled = configuration.isReproductionEnabled();
         this.reproductionClock = isReproductionEnabled ? configuration.reproductionConfiguration().clock() : null;
+        final BinaryTranscoder binaryTranscoder = configuration.binaryTranscoder();
+        this.binaryMessageTranscoder = binaryTranscoder == null ? null :
+            new BinaryMessageTranscoder(binaryTranscoder, configuration.binaryTranscodingMode(), errorHandler);
     }
 
     boolean isConnected()
@@ -393,7 +401,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
 
     void disableSession(final InternalSession session)
     {
-        sessions = ArrayUtil.remove(sessions, session);
+        removeSession(session);
         session.disable();
         cacheSession(session);
     }
@@ -819,14 +827,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
 
     private int pollSessions(final long timeInNs)
     {
-        final InternalSession[] sessions = this.sessions;
-        int total = 0;
-
-        for (int i = 0, size = sessions.length; i < size; i++)
-        {
-            final InternalSession session = sessions[i];
-            total += session.poll(timeInNs);
-        }
+        int total = sessionTimerWheel.poll(timeInNs, pollSession);
 
         final long timeInMs = System.currentTimeMillis();
         final InternalFixPConnection[] binaryFixPConnections = this.fixPConnections;
@@ -852,7 +853,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
             {
                 this.pendingInitiatorSessions = pendingSessions = ArrayUtil.remove(pendingSessions, i);
                 size--;
-                sessions = ArrayUtil.add(sessions, session);
+                addSession(session);
             }
             else
             {
@@ -1220,10 +1221,24 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
         }
         else
         {
-            sessions = ArrayUtil.add(sessions, session);
+            addSession(session);
         }
     }
 
+    private void addSession(final InternalSession session)
+    {
+        sessions = ArrayUtil.add(sessions, session);
+        session.pollTimeChangedHandler(() -> sessionTimerWheel.wakeUp(session));
+        sessionTimerWheel.add(session);
+    }
+
+    private void removeSession(final InternalSession session)
+    {
+        sessions = ArrayUtil.remove(sessions, session);
+        sessionTimerWheel.remove(session);
+        session.pollTimeChangedHandler(null);
+    }
+
     public Action onMessage(
         final DirectBuffer buffer,
         final int offset,
@@ -1290,7 +1305,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
 
                     if (!isEngineOwned)
                     {
-                        sessions = ArrayUtil.add(sessions, session);
+                        addSession(session);
                     }
                 }
 
@@ -1299,7 +1314,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
                 if (isEngineOwned)
                 {
                     session.close();
-                    sessions = ArrayUtil.remove(sessions, session);
+                    removeSession(session);
                     cacheSession(session);
                 }
             }
@@ -1830,6 +1845,8 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
                 session.disable();
                 // TODO: Maybe we shouldn't be creating a lot of arrays and batch this up?
                 sessions = ArrayUtil.remove(sessions, i);
+                sessionTimerWheel.remove(session);
+                session.pollTimeChangedHandler(null);
                 cacheSession(session);
                 size--;
             }
@@ -2202,7 +2219,8 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
             sessionTimer,
             this,
             configuration.replyTimeoutInMs(),
-            errorHandler);
+            errorHandler,
+            binaryMessageTranscoder);
         session.isSlowConsumer(sessionAcquiredInfo.isSlow());
         subscriber.reply(reply);
         subscriber.handler(configuration.sessionAcquireHandler().onSessionAcquired(session, sessionAcquiredInfo));
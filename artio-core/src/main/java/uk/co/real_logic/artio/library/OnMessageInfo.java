@@ -15,12 +15,16 @@
  */
 package uk.co.real_logic.artio.library;
 
+import org.agrona.DirectBuffer;
 import uk.co.real_logic.artio.messages.MessageStatus;
 
 public class OnMessageInfo
 {
     private MessageStatus status;
     private boolean isValid;
+    private DirectBuffer binaryBuffer;
+    private int binaryOffset;
+    private int binaryLength;
 
     public OnMessageInfo status(final MessageStatus status)
     {
@@ -43,4 +47,43 @@ public class OnMessageInfo
     {
         return isValid;
     }
+
+    void binary(final DirectBuffer binaryBuffer, final int binaryOffset, final int binaryLength)
+    {
+        this.binaryBuffer = binaryBuffer;
+        this.binaryOffset = binaryOffset;
+        this.binaryLength = binaryLength;
+    }
+
+    /**
+     * Gets whether the message has been transcoded into its binary form, see
+     * {@link LibraryConfiguration#binaryTranscoding(uk.co.real_logic.artio.builder.BinaryTranscoder,
+     * BinaryTranscodingMode)}.
+     *
+     * @return true if the message has a binary form, false otherwise.
+     */
+    public boolean hasBinary()
+    {
+        return binaryBuffer != null;
+    }
+
+    /**
+     * Gets the buffer holding the binary form of the message, only valid for the duration of the callback.
+     *
+     * @return the buffer holding the binary form of the message or null if it has none.
+     */
+    public DirectBuffer binaryBuffer()
+    {
+        return binaryBuffer;
+    }
+
+    public int binaryOffset()
+    {
+        return binaryOffset;
+    }
+
+    public int binaryLength()
+    {
+        return binaryLength;
+    }
 }
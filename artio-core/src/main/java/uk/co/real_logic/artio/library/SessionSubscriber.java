@@ -46,6 +46,7 @@ class SessionSubscriber implements AutoCloseable, FixSessionOwner
     private final LibraryPoller libraryPoller;
     private final long replyTimeoutInMs;
     private final ErrorHandler errorHandler;
+    private final BinaryMessageTranscoder binaryMessageTranscoder;
 
     private SessionHandler handler;
     private InitiateSessionReply initiateSessionReply;
@@ -60,7 +61,8 @@ class SessionSubscriber implements AutoCloseable, FixSessionOwner
         final Timer sessionTimer,
         final LibraryPoller libraryPoller,
         final long replyTimeoutInMs,
-        final ErrorHandler errorHandler)
+        final ErrorHandler errorHandler,
+        final BinaryMessageTranscoder binaryMessageTranscoder)
     {
         this.info = info;
         this.parser = parser;
@@ -70,6 +72,7 @@ class SessionSubscriber implements AutoCloseable, FixSessionOwner
         this.libraryPoller = libraryPoller;
         this.replyTimeoutInMs = replyTimeoutInMs;
         this.errorHandler = errorHandler;
+        this.binaryMessageTranscoder = binaryMessageTranscoder;
         this.session.sessionProcessHandler(this);
     }
 
@@ -100,12 +103,11 @@ class SessionSubscriber implements AutoCloseable, FixSessionOwner
                     if (userAbortedLastMessage)
                     {
                         // Don't re-run the parser / session handling logic if you're on the retry path
-                        final Action handlerAction = handler.onMessage(
+                        final Action handlerAction = onHandlerMessage(
                             buffer,
                             offset,
                             length,
                             libraryId,
-                            session,
                             sequenceIndex,
                             messageType,
                             timestamp,
@@ -131,12 +133,11 @@ class SessionSubscriber implements AutoCloseable, FixSessionOwner
 
                         lastReceivedPosition = position;
 
-                        final Action handlerAction = handler.onMessage(
+                        final Action handlerAction = onHandlerMessage(
                             buffer,
                             offset,
                             length,
                             libraryId,
-                            session,
                             sequenceIndex,
                             messageType,
                             timestamp,
@@ -156,12 +157,11 @@ class SessionSubscriber implements AutoCloseable, FixSessionOwner
                     }
 
                 case CATCHUP_REPLAY:
-                    return handler.onMessage(
+                    return onHandlerMessage(
                         buffer,
                         offset,
                         length,
                         libraryId,
-                        session,
                         sequenceIndex,
                         messageType,
                         timestamp,
@@ -178,6 +178,47 @@ class SessionSubscriber implements AutoCloseable, FixSessionOwner
         }
     }
 
+    private Action onHandlerMessage(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final int libraryId,
+        final int sequenceIndex,
+        final long messageType,
+        final long timestamp,
+        final long position,
+        final OnMessageInfo info)
+    {
+        final BinaryMessageTranscoder binaryMessageTranscoder = this.binaryMessageTranscoder;
+        if (binaryMessageTranscoder != null &&
+            binaryMessageTranscoder.transcode(buffer, offset, length, messageType, position, info))
+        {
+            return handler.onMessage(
+                info.binaryBuffer(),
+                info.binaryOffset(),
+                info.binaryLength(),
+                libraryId,
+                session,
+                sequenceIndex,
+                messageType,
+                timestamp,
+                position,
+                info);
+        }
+
+        return handler.onMessage(
+            buffer,
+            offset,
+            length,
+            libraryId,
+            session,
+            sequenceIndex,
+            messageType,
+            timestamp,
+            position,
+            info);
+    }
+
     Action onDisconnect(final int libraryId, final DisconnectReason reason)
     {
         final Action action = handler.onDisconnect(libraryId, session, reason);
@@ -17,8 +17,10 @@ package uk.co.real_logic.artio.protocol;
 
 import io.aeron.ExclusivePublication;
 import io.aeron.logbuffer.BufferClaim;
+import io.aeron.protocol.DataHeaderFlyweight;
 import org.agrona.CloseHelper;
 import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.IdleStrategy;
 import org.agrona.concurrent.status.AtomicCounter;
 import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
@@ -27,6 +29,11 @@ import java.util.Objects;
 
 import static io.aeron.Publication.CLOSED;
 import static io.aeron.Publication.MAX_POSITION_EXCEEDED;
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
+import static io.aeron.protocol.DataHeaderFlyweight.TERM_ID_FIELD_OFFSET;
+import static io.aeron.protocol.DataHeaderFlyweight.TERM_OFFSET_FIELD_OFFSET;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.agrona.BitUtil.align;
 
 /**
  * A publication designed for deterministic claiming.
@@ -98,6 +105,75 @@ public class ClaimablePublication implements AutoCloseable
         return dataPublication.offer(buffer, offset, length);
     }
 
+    /**
+     * Offer a block of complete, unfragmented, data frames with their Aeron headers already written apart from the
+     * term id and term offset fields, which are written by this method. The block can't span terms so the rest of
+     * the current term is padded out when it doesn't fit.
+     *
+     * @param block the buffer containing the frames, starting at index 0.
+     * @param length the length of the block, must not be larger than {@link ExclusivePublication#maxMessageLength()}.
+     * @return the new position of the publication after the block or a back-pressure code, never the position
+     * after padding.
+     */
+    protected long offerBlock(final MutableDirectBuffer block, final int length)
+    {
+        final ExclusivePublication dataPublication = this.dataPublication;
+        final int termLength = dataPublication.termBufferLength();
+
+        long position;
+        long i = 0;
+        do
+        {
+            final int termOffset = dataPublication.termOffset();
+            if (termOffset < termLength && termOffset + length > termLength)
+            {
+                position = dataPublication.appendPadding(termLength - termOffset);
+                if (position > 0L)
+                {
+                    // Padding moves the publication onto the next term, it isn't an attempt to offer the block.
+                    continue;
+                }
+            }
+            else
+            {
+                writeTermFields(block, length, dataPublication.termId(), termOffset);
+                position = dataPublication.offerBlock(block, 0, length);
+                if (position > 0L)
+                {
+                    return position;
+                }
+            }
+
+            idleStrategy.idle();
+
+            if (position == CLOSED || position == MAX_POSITION_EXCEEDED)
+            {
+                throw new NotConnectedException(position);
+            }
+
+            fails.increment();
+            i++;
+        }
+        while (i <= maxClaimAttempts);
+
+        idleStrategy.reset();
+
+        return position;
+    }
+
+    private static void writeTermFields(
+        final MutableDirectBuffer block, final int length, final int termId, final int termOffset)
+    {
+        int frameOffset = 0;
+        while (frameOffset < length)
+        {
+            block.putInt(frameOffset + TERM_OFFSET_FIELD_OFFSET, termOffset + frameOffset, LITTLE_ENDIAN);
+            block.putInt(frameOffset + TERM_ID_FIELD_OFFSET, termId, LITTLE_ENDIAN);
+            frameOffset += align(block.getInt(frameOffset + DataHeaderFlyweight.FRAME_LENGTH_FIELD_OFFSET,
+                LITTLE_ENDIAN), FRAME_ALIGNMENT);
+        }
+    }
+
     public ExclusivePublication dataPublication()
     {
         return dataPublication;
@@ -17,6 +17,8 @@ package uk.co.real_logic.artio.protocol;
 
 import io.aeron.ExclusivePublication;
 import io.aeron.logbuffer.BufferClaim;
+import io.aeron.protocol.DataHeaderFlyweight;
+import org.agrona.BufferUtil;
 import org.agrona.DirectBuffer;
 import org.agrona.ExpandableArrayBuffer;
 import org.agrona.MutableDirectBuffer;
@@ -181,6 +183,16 @@ public class GatewayPublication extends ClaimablePublication
     private final EpochNanoClock clock;
     private final int maxPayloadLength;
 
+    // Separate from the bufferClaim used to send every other message, so that messages sent whilst a claimed message
+    // is outstanding, eg by other sessions of the same library, don't overwrite it.
+    private final BufferClaim messageClaim = new BufferClaim();
+    private boolean messageClaimed;
+    private int claimedMessageOffset;
+
+    private final DataHeaderFlyweight batchFrameHeader = new DataHeaderFlyweight();
+    private UnsafeBuffer messageBatchBuffer;
+    private int messageBatchLength;
+
     public GatewayPublication(
         final ExclusivePublication dataPublication,
         final AtomicCounter fails,
@@ -390,6 +402,236 @@ public class GatewayPublication extends ClaimablePublication
         return position;
     }
 
+    /**
+     * Claims space in the publication for a FIX message of a known length so that the message can be encoded
+     * directly into the publication rather than copied in. The framing and metadata are written by this method, the
+     * caller must then write exactly <code>messageLength</code> bytes at {@link #claimedMessageOffset()} within
+     * {@link #claimedBuffer()} and {@link #commitClaimedMessage()} or {@link #abortClaimedMessage()}.
+     *
+     * Only messages that fit into a single Aeron frame can be claimed, and only one message can be claimed at a time
+     * on a publication. Messages sent whilst the claim is outstanding are only read after it has been committed or
+     * aborted.
+     *
+     * @return the position of the claim or a negative number indicating an error status.
+     * @throws IllegalArgumentException if the framed message is larger than the max payload length.
+     * @throws IllegalStateException if a claimed message hasn't been committed or aborted yet.
+     */
+    public long claimMessage(
+        final int messageLength,
+        final int libraryId,
+        final long messageType,
+        final long sessionId,
+        final int sequenceIndex,
+        final long connectionId,
+        final MessageStatus status,
+        final int sequenceNumber,
+        final DirectBuffer srcMetaDataBuffer,
+        final int metaDataUpdateOffset)
+    {
+        if (messageClaimed)
+        {
+            throw new IllegalStateException(
+                "Unable to claim a message whilst a claimed message hasn't been committed or aborted");
+        }
+
+        final DirectBuffer metaDataBuffer = srcMetaDataBuffer == null ? NO_METADATA : srcMetaDataBuffer;
+        final int metaDataLength = metaDataBuffer.capacity();
+        final int framedLength = FRAMED_MESSAGE_SIZE + messageLength + metaDataLength;
+        if (framedLength > maxPayloadLength)
+        {
+            throw new IllegalArgumentException(
+                "Unable to claim a message of length " + messageLength + " as it would be fragmented, maxPayload=" +
+                maxPayloadLength);
+        }
+
+        final BufferClaim messageClaim = this.messageClaim;
+        final long position = claim(framedLength, messageClaim);
+        if (position < 0)
+        {
+            return position;
+        }
+        messageClaimed = true;
+
+        int offset = messageClaim.offset();
+        final MutableDirectBuffer destBuffer = messageClaim.buffer();
+
+        header.wrap(destBuffer, offset)
+            .blockLength(fixMessage.sbeBlockLength())
+            .templateId(fixMessage.sbeTemplateId())
+            .schemaId(fixMessage.sbeSchemaId())
+            .version(fixMessage.sbeSchemaVersion());
+
+        offset += header.encodedLength();
+
+        fixMessage.wrap(destBuffer, offset)
+            .libraryId(libraryId)
+            .messageType(messageType)
+            .session(sessionId)
+            .sequenceIndex(sequenceIndex)
+            .connection(connectionId)
+            .timestamp(clock.nanoTime())
+            .status(status)
+            .sequenceNumber(sequenceNumber)
+            .metaDataUpdateOffset(metaDataUpdateOffset)
+            .putMetaData(metaDataBuffer, 0, metaDataLength);
+
+        putBodyLength(messageLength, offset, metaDataLength, destBuffer);
+        claimedMessageOffset = offset + FixMessageEncoder.BLOCK_LENGTH + metaDataHeaderLength() + metaDataLength +
+            FixMessageEncoder.bodyHeaderLength();
+
+        return position;
+    }
+
+    public MutableDirectBuffer claimedBuffer()
+    {
+        return messageClaim.buffer();
+    }
+
+    public int claimedMessageOffset()
+    {
+        return claimedMessageOffset;
+    }
+
+    public boolean hasClaimedMessage()
+    {
+        return messageClaimed;
+    }
+
+    public void commitClaimedMessage()
+    {
+        checkMessageClaimed();
+        messageClaimed = false;
+        messageClaim.commit();
+    }
+
+    public void abortClaimedMessage()
+    {
+        checkMessageClaimed();
+        messageClaimed = false;
+        messageClaim.abort();
+    }
+
+    private void checkMessageClaimed()
+    {
+        if (!messageClaimed)
+        {
+            throw new IllegalStateException("No claimed message to commit or abort");
+        }
+    }
+
+    /**
+     * Enables {@link #batchMessage} so that several FIX messages can be committed to the publication with a single
+     * block write rather than a claim per message. Each message is still its own <code>FixMessage</code> fragment so
+     * subscribers are unaffected.
+     *
+     * @param batchCapacity the maximum number of bytes of framed messages in a batch, limited to the maximum
+     *                      message length of the publication.
+     */
+    public void enableMessageBatching(final int batchCapacity)
+    {
+        final int capacity = Math.min(align(batchCapacity, FRAME_ALIGNMENT), dataPublication.maxMessageLength());
+        messageBatchBuffer = new UnsafeBuffer(BufferUtil.allocateDirectAligned(capacity, FRAME_ALIGNMENT));
+    }
+
+    public boolean isMessageBatchingEnabled()
+    {
+        return messageBatchBuffer != null;
+    }
+
+    /**
+     * Adds a FIX message to the current batch, messages are only visible to subscribers after
+     * {@link #commitMessageBatch()}.
+     *
+     * @return true if the message was added, false if there isn't space in the batch or the message would need to be
+     * fragmented, in which case the batch should be committed and the message saved with
+     * {@link #saveMessage(DirectBuffer, int, int, int, long, long, int, long, MessageStatus, int, long)}.
+     */
+    public boolean batchMessage(
+        final DirectBuffer srcBuffer,
+        final int srcOffset,
+        final int srcLength,
+        final int libraryId,
+        final long messageType,
+        final long sessionId,
+        final int sequenceIndex,
+        final long connectionId,
+        final MessageStatus status,
+        final int sequenceNumber,
+        final long timestamp)
+    {
+        final int framedLength = FRAMED_MESSAGE_SIZE + srcLength;
+        if (framedLength > maxPayloadLength)
+        {
+            return false;
+        }
+
+        final UnsafeBuffer batchBuffer = this.messageBatchBuffer;
+        final int frameOffset = this.messageBatchLength;
+        final int frameLength = DataHeaderFlyweight.HEADER_LENGTH + framedLength;
+        final int alignedFrameLength = align(frameLength, FRAME_ALIGNMENT);
+        if (frameOffset + alignedFrameLength > batchBuffer.capacity())
+        {
+            return false;
+        }
+
+        final ExclusivePublication dataPublication = this.dataPublication;
+        batchFrameHeader.wrap(batchBuffer, frameOffset, DataHeaderFlyweight.HEADER_LENGTH);
+        batchFrameHeader
+            .sessionId(dataPublication.sessionId())
+            .streamId(dataPublication.streamId())
+            .reservedValue(0)
+            .frameLength(frameLength)
+            .version(DataHeaderFlyweight.CURRENT_VERSION)
+            .flags(DataHeaderFlyweight.BEGIN_AND_END_FLAGS)
+            .headerType(DataHeaderFlyweight.HDR_TYPE_DATA);
+
+        int offset = frameOffset + DataHeaderFlyweight.HEADER_LENGTH;
+        header.wrap(batchBuffer, offset)
+            .blockLength(fixMessage.sbeBlockLength())
+            .templateId(fixMessage.sbeTemplateId())
+            .schemaId(fixMessage.sbeSchemaId())
+            .version(fixMessage.sbeSchemaVersion());
+
+        offset += header.encodedLength();
+
+        fixMessage.wrap(batchBuffer, offset)
+            .libraryId(libraryId)
+            .messageType(messageType)
+            .session(sessionId)
+            .sequenceIndex(sequenceIndex)
+            .connection(connectionId)
+            .timestamp(timestamp)
+            .status(status)
+            .sequenceNumber(sequenceNumber)
+            .metaDataUpdateOffset(0)
+            .putMetaData(NO_METADATA, 0, 0)
+            .putBody(srcBuffer, srcOffset, srcLength);
+
+        messageBatchLength = frameOffset + alignedFrameLength;
+
+        DebugLogger.logFixMessage(FIX_MESSAGE_FLOW, messageType, "Batched ", srcBuffer, srcOffset, srcLength);
+
+        return true;
+    }
+
+    /**
+     * Commits the messages in the current batch. The batch is emptied whether or not it was committed, so on
+     * back-pressure the messages must be batched again.
+     *
+     * @return the position after the batch or a back-pressure code.
+     */
+    public long commitMessageBatch()
+    {
+        final int messageBatchLength = this.messageBatchLength;
+        if (messageBatchLength == 0)
+        {
+            return dataPublication.position();
+        }
+
+        this.messageBatchLength = 0;
+        return offerBlock(messageBatchBuffer, messageBatchLength);
+    }
+
     private void putBodyLength(
         final int srcLength, final int offset, final int metaDataLength, final MutableDirectBuffer destBuffer)
     {
@@ -36,7 +36,7 @@ import java.lang.ref.WeakReference;
 /**
  * Exposes Session methods to internal APIs that we don't want to expose to the outside world
  */
-public class InternalSession extends Session implements AutoCloseable
+public class InternalSession extends Session implements AutoCloseable, SessionTimerWheel.Entry
 {
     // Default initialised values used by both the Session and also the manage session handover.
     public static final boolean INITIAL_AWAITING_RESEND = false;
@@ -51,6 +51,8 @@ public class InternalSession extends Session implements AutoCloseable
             "Sess.replayComplete: replaysInFlight=%s,conn=%s,corr=%s");
     }
 
+    private long pollTimerId = SessionTimerWheel.NOT_TRACKED;
+
     public InternalSession(
         final int heartbeatIntervalInS,
         final long connectionId,
@@ -115,6 +117,26 @@ public class InternalSession extends Session implements AutoCloseable
         return super.poll(timeInNs);
     }
 
+    public long nextPollTimeInNs()
+    {
+        return super.nextPollTimeInNs();
+    }
+
+    public long pollTimerId()
+    {
+        return pollTimerId;
+    }
+
+    public void pollTimerId(final long pollTimerId)
+    {
+        this.pollTimerId = pollTimerId;
+    }
+
+    public void pollTimeChangedHandler(final Runnable pollTimeChangedHandler)
+    {
+        super.pollTimeChangedHandler(pollTimeChangedHandler);
+    }
+
     public void disable()
     {
         super.disable();
@@ -82,6 +82,8 @@ public class Session
     public static final int UNKNOWN = -1;
     public static final long UNKNOWN_TIME = -1;
 
+    private static final long NO_CLAIM = 0;
+
     static final short ACTIVE_VALUE = 3;
     static final short LOGGING_OUT_VALUE = 5;
     static final short LOGGING_OUT_AND_DISCONNECTING_VALUE = 6;
@@ -110,6 +112,7 @@ public class Session
     protected final SessionIdStrategy sessionIdStrategy;
     protected final GatewayPublication outboundPublication;
     protected final MutableAsciiBuffer asciiBuffer;
+    private final MutableAsciiBuffer claimBuffer = new MutableAsciiBuffer();
     protected final int libraryId;
     protected final SessionProxy proxy;
 
@@ -163,6 +166,10 @@ public class Session
     private int lastReceivedMsgSeqNum;
     private int lastMsgSeqNumProcessed;
     private int lastSentMsgSeqNum;
+    private int claimedSequenceNumber;
+    private long claimedMessageType;
+    // NO_CLAIM unless this session has a claimed message that hasn't been committed or aborted
+    private long claimedPosition = NO_CLAIM;
     private int sequenceIndex;
     // randomise the start position in order to reduce risk of clashing with another Session instance when you do
     // engine/library hand-over.
@@ -174,6 +181,7 @@ public class Session
     private long nextRequiredHeartbeatTimeInNs;
 
     private long awaitingLogoutTimeoutInNs;
+    private Runnable pollTimeChangedHandler;
 
     private String username;
     private String password;
@@ -184,6 +192,7 @@ public class Session
     private boolean closedResendInterval;
     private int resendRequestChunkSize;
     private boolean sendRedundantResendRequests;
+    private boolean headerTemplatesEnabled;
 
     private boolean incorrectBeginString = false;
 
@@ -490,6 +499,24 @@ public class Session
         return isSlowConsumer;
     }
 
+    /**
+     * Enables pre-encoded header templates for messages sent on this session. When enabled the headers prepared by
+     * {@link #prepare(SessionHeaderEncoder)} cache the encoded session constant fields, eg: the CompIDs, SubIDs and
+     * LocationIDs, so that only MsgSeqNum, SendingTime and the possdup fields are encoded on each send.
+     * See {@link SessionHeaderEncoder#headerTemplateEnabled(boolean)} for restrictions on updating those fields.
+     *
+     * @param headerTemplatesEnabled true to cache header templates, false otherwise.
+     */
+    public void headerTemplatesEnabled(final boolean headerTemplatesEnabled)
+    {
+        this.headerTemplatesEnabled = headerTemplatesEnabled;
+    }
+
+    public boolean headerTemplatesEnabled()
+    {
+        return headerTemplatesEnabled;
+    }
+
     /**
      * Sends a logout message and puts the session into the awaiting logout state.
      * <p>
@@ -653,6 +680,7 @@ public class Session
         }
 
         customisationStrategy.configureHeader(header, id);
+        header.headerTemplateEnabled(headerTemplatesEnabled);
 
         return sentSeqNum;
     }
@@ -770,6 +798,151 @@ public class Session
         return position;
     }
 
+    /**
+     * Tries to claim space for a message in the in memory log buffer and encodes the message directly into it, avoiding
+     * the copy made by {@link #trySend(Encoder)}. The total encoded length of the message must be known in advance,
+     * for example from {@link Encoder#length(long)} of an earlier encode of a message with the same field lengths.
+     * If this method returns a positive position then {@link #commit()} must be called to send the message or
+     * {@link #abort()} to discard it, before any other message is sent on this session.
+     * <p>
+     * The claim is made on the publication that this library shares between all of its sessions, so only one message
+     * can be claimed at a time across every session of the library. Another session of the library can't claim a
+     * message until this one has been committed or aborted, and messages sent by other sessions in the meantime are
+     * only delivered after it. So commit or abort promptly, on the thread that polls the library.
+     *
+     * See {{@link #trySend(Encoder)}} for scenarios where this could fail.
+     *
+     * @param encoder       the encoder of the message to be sent
+     * @param messageLength the total encoded length of the message, from BeginString to CheckSum inclusive.
+     * @return the position in the stream that corresponds to the end of this message or a negative
+     * number indicating an error status.
+     * @throws IllegalArgumentException if the encoded message doesn't have the claimed length or is too large to be
+     *                                  claimed in a single fragment, the claim has been aborted if this happens.
+     * @throws IllegalStateException if any session of this library has a claimed message that hasn't been committed
+     *                               or aborted.
+     * @throws NotConnectedException if the underlying Publication to the FixEngine has been closed or its max position
+     *                               exceeded.
+     */
+    public long tryClaim(final Encoder encoder, final int messageLength)
+    {
+        return tryClaim(encoder, messageLength, null, 0);
+    }
+
+    /**
+     * Tries to claim space for a message and encode it directly into the in memory log buffer.
+     * See {{@link #tryClaim(Encoder, int)}} for details.
+     *
+     * @param encoder              the encoder of the message to be sent
+     * @param messageLength        the total encoded length of the message, from BeginString to CheckSum inclusive.
+     * @param metaDataBuffer       the metadata to associate with this message.
+     * @param metaDataUpdateOffset the offset within the session's metadata buffer.
+     * @return the position in the stream that corresponds to the end of this message or a negative
+     * number indicating an error status.
+     * @throws IllegalArgumentException if the encoded message doesn't have the claimed length or is too large to be
+     *                                  claimed in a single fragment, the claim has been aborted if this happens.
+     * @throws IllegalStateException if any session of this library has a claimed message that hasn't been committed
+     *                               or aborted.
+     * @throws NotConnectedException if the underlying Publication to the FixEngine has been closed or its max position
+     *                               exceeded.
+     * @see uk.co.real_logic.artio.library.FixLibrary#writeMetaData(long, int, DirectBuffer, int, int)
+     */
+    public long tryClaim(
+        final Encoder encoder,
+        final int messageLength,
+        final DirectBuffer metaDataBuffer,
+        final int metaDataUpdateOffset)
+    {
+        final int sentSeqNum = prepare(encoder.header());
+        final long messageType = encoder.messageType();
+
+        // If someone attempts to send a message during a logon / logout or offline then we should archive the message
+        // but not send it.
+        final long connectionId = this.state == ACTIVE ? this.connectionId : NO_CONNECTION_ID;
+        final GatewayPublication outboundPublication = this.outboundPublication;
+        final long position = outboundPublication.claimMessage(
+            messageLength, libraryId, messageType, id(), sequenceIndex(), connectionId, OK, sentSeqNum,
+            metaDataBuffer, metaDataUpdateOffset);
+
+        if (position > 0)
+        {
+            final int messageOffset = outboundPublication.claimedMessageOffset();
+            final MutableAsciiBuffer claimBuffer = this.claimBuffer;
+            // Bounded by the end of the claim so an encoder that overruns it fails rather than corrupting the log
+            claimBuffer.wrap(outboundPublication.claimedBuffer(), 0, messageOffset + messageLength);
+
+            final int encodeOffset = Encoder.encodeOffset(messageOffset, messageLength, beginString.length());
+            final long result;
+            try
+            {
+                if (encodeOffset < 0)
+                {
+                    throw new IllegalArgumentException("Invalid FIX message length: " + messageLength);
+                }
+
+                result = encoder.encode(claimBuffer, encodeOffset);
+            }
+            catch (final RuntimeException e)
+            {
+                outboundPublication.abortClaimedMessage();
+                throw e;
+            }
+
+            if (Encoder.offset(result) != messageOffset || Encoder.length(result) != messageLength)
+            {
+                outboundPublication.abortClaimedMessage();
+                throw new IllegalArgumentException(String.format(
+                    "Encoded message length (%d) does not match claimed length (%d)",
+                    Encoder.length(result),
+                    messageLength));
+            }
+
+            claimedSequenceNumber = sentSeqNum;
+            claimedMessageType = messageType;
+            claimedPosition = position;
+        }
+
+        return position;
+    }
+
+    /**
+     * Sends a message that has been encoded by {@link #tryClaim(Encoder, int)}.
+     *
+     * @throws IllegalStateException if this session doesn't have a claimed message.
+     */
+    public void commit()
+    {
+        checkClaimed();
+        final MutableAsciiBuffer claimBuffer = this.claimBuffer;
+        final int messageOffset = outboundPublication.claimedMessageOffset();
+        final int messageLength = claimBuffer.capacity() - messageOffset;
+        DebugLogger.logFixMessage(FIX_MESSAGE, claimedMessageType, "Sent ", claimBuffer, messageOffset, messageLength);
+
+        outboundPublication.commitClaimedMessage();
+        lastSentMsgSeqNum(claimedSequenceNumber, claimedPosition);
+        claimedPosition = NO_CLAIM;
+    }
+
+    /**
+     * Discards a message that has been encoded by {@link #tryClaim(Encoder, int)}. The sequence number that it was
+     * encoded with will be used by the next message sent.
+     *
+     * @throws IllegalStateException if this session doesn't have a claimed message.
+     */
+    public void abort()
+    {
+        checkClaimed();
+        outboundPublication.abortClaimedMessage();
+        claimedPosition = NO_CLAIM;
+    }
+
+    private void checkClaimed()
+    {
+        if (claimedPosition == NO_CLAIM)
+        {
+            throw new IllegalStateException("No claimed message on this session, id=" + id);
+        }
+    }
+
     /**
      * Deprecated, uses should be removed. This method will be removed in a future version.
      *
@@ -2261,17 +2434,20 @@ public class Session
         incNextReceivedInboundMessageTime(timeInNs);
         sendingHeartbeatIntervalInNs = (long)(heartbeatIntervalInNs * HEARTBEAT_PAUSE_FACTOR);
         nextRequiredHeartbeatTimeInNs = timeInNs + sendingHeartbeatIntervalInNs;
+        onPollTimeChanged();
     }
 
     protected Session state(final SessionState state)
     {
         this.state = state;
+        onPollTimeChanged();
         return this;
     }
 
     void id(final long id)
     {
         this.id = id;
+        onPollTimeChanged();
     }
 
     protected long timeInNs()
@@ -2465,6 +2641,52 @@ public class Session
         }
     }
 
+    // The earliest time at which poll() could have something to do, see SessionTimerWheel.
+    // Deadlines that only move later, eg: on receiving a message, are picked up lazily when the old deadline expires.
+    long nextPollTimeInNs()
+    {
+        final SessionState state = state();
+        if (connectionType == ConnectionType.INITIATOR && state == SessionState.CONNECTED && id() != UNKNOWN)
+        {
+            return 0;
+        }
+
+        switch (state)
+        {
+            case DISCONNECTING:
+            case LOGGING_OUT:
+            case LOGGING_OUT_AND_DISCONNECTING:
+                return 0;
+
+            case AWAITING_LOGOUT:
+                return awaitingLogoutTimeoutInNs;
+
+            case DISCONNECTED:
+            case DISABLED:
+            case AWAITING_ASYNC_PROXY_LOGOUT:
+                return SessionTimerWheel.NO_DEADLINE;
+
+            default:
+                return state == ACTIVE ?
+                    Math.min(nextRequiredHeartbeatTimeInNs, nextRequiredInboundMessageTimeInNs) :
+                    nextRequiredInboundMessageTimeInNs;
+        }
+    }
+
+    void pollTimeChangedHandler(final Runnable pollTimeChangedHandler)
+    {
+        this.pollTimeChangedHandler = pollTimeChangedHandler;
+    }
+
+    private void onPollTimeChanged()
+    {
+        final Runnable pollTimeChangedHandler = this.pollTimeChangedHandler;
+        if (pollTimeChangedHandler != null)
+        {
+            pollTimeChangedHandler.run();
+        }
+    }
+
     private int initiatorPoll()
     {
         int actions = 0;
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import org.agrona.DeadlineTimerWheel;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Schedules the polling of sessions by their next deadline, for example the next heartbeat or the test request
+ * timeout, so that each duty cycle only polls the sessions that have a deadline due rather than every session.
+ *
+ * Entries are polled in the duty cycle that they become due and then rescheduled at their
+ * {@link Entry#nextPollTimeInNs()}. Entries whose deadline moves later don't need to tell the wheel, they are
+ * rescheduled when their old deadline expires. Entries whose deadline moves earlier, or whose state changes, must
+ * call {@link #wakeUp(Entry)}.
+ *
+ * @param <T> the type of entry being polled.
+ */
+public final class SessionTimerWheel<T extends SessionTimerWheel.Entry> implements DeadlineTimerWheel.TimerHandler
+{
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    public static final long NOT_TRACKED = -1;
+    static final long IDLE = -2;
+    static final long DUE = -3;
+
+    // Roughly a millisecond, needs to be a power of 2
+    private static final long TICK_RESOLUTION_IN_NS = 1L << 20;
+    private static final int TICKS_PER_WHEEL = 1024;
+
+    public interface Entry
+    {
+        /**
+         * Gets the earliest time that polling this entry could have something to do.
+         *
+         * @return the earliest time that polling this entry could have something to do, or {@link #NO_DEADLINE}
+         * if it only needs polling after a wake up.
+         */
+        long nextPollTimeInNs();
+
+        long pollTimerId();
+
+        void pollTimerId(long pollTimerId);
+    }
+
+    @FunctionalInterface
+    public interface Poller<T>
+    {
+        int poll(T entry, long timeInNs);
+    }
+
+    private final DeadlineTimerWheel timerWheel = new DeadlineTimerWheel(
+        NANOSECONDS, 0, TICK_RESOLUTION_IN_NS, TICKS_PER_WHEEL);
+    private final Long2ObjectHashMap<T> timerIdToEntry = new Long2ObjectHashMap<>();
+
+    private ArrayList<T> dueEntries = new ArrayList<>();
+    private ArrayList<T> pollingEntries = new ArrayList<>();
+
+    private long nextDeadlineInNs;
+    private final DeadlineTimerWheel.TimerConsumer findNextDeadline =
+        (deadline, timerId) -> nextDeadlineInNs = Math.min(nextDeadlineInNs, deadline);
+
+    /**
+     * Start tracking an entry, it is polled on the next duty cycle.
+     *
+     * @param entry the entry to track.
+     */
+    public void add(final T entry)
+    {
+        if (entry.pollTimerId() == NOT_TRACKED)
+        {
+            makeDue(entry);
+        }
+    }
+
+    public void remove(final T entry)
+    {
+        final long pollTimerId = entry.pollTimerId();
+        if (pollTimerId >= 0)
+        {
+            cancelTimer(pollTimerId);
+        }
+        // A due entry is left in the due list and skipped when polled
+        entry.pollTimerId(NOT_TRACKED);
+    }
+
+    /**
+     * Poll a tracked entry on the next duty cycle, regardless of its deadline.
+     *
+     * @param entry the entry to wake up.
+     */
+    public void wakeUp(final T entry)
+    {
+        final long pollTimerId = entry.pollTimerId();
+        if (pollTimerId == NOT_TRACKED || pollTimerId == DUE)
+        {
+            return;
+        }
+
+        if (pollTimerId >= 0)
+        {
+            cancelTimer(pollTimerId);
+        }
+        makeDue(entry);
+    }
+
+    public int poll(final long timeInNs, final Poller<T> poller)
+    {
+        expireTimers(timeInNs);
+
+        final ArrayList<T> polling = dueEntries;
+        if (polling.isEmpty())
+        {
+            return 0;
+        }
+        dueEntries = pollingEntries;
+        pollingEntries = polling;
+
+        int events = 0;
+        for (int i = 0, size = polling.size(); i < size; i++)
+        {
+            final T entry = polling.get(i);
+            if (entry.pollTimerId() != DUE)
+            {
+                continue;
+            }
+
+            entry.pollTimerId(IDLE);
+            events += poller.poll(entry, timeInNs);
+
+            // Could have been removed or woken up during the poll
+            if (entry.pollTimerId() == IDLE)
+            {
+                schedule(entry, timeInNs);
+            }
+        }
+        polling.clear();
+
+        return events;
+    }
+
+    /**
+     * Gets the earliest time that an entry needs polling, for example to bound how long a duty cycle can block for.
+     *
+     * @param timeInNs the current time.
+     * @return the earliest time that an entry needs polling, {@code timeInNs} if an entry is already due, or
+     * {@link #NO_DEADLINE} if no entry has a deadline.
+     */
+    public long nextDeadlineInNs(final long timeInNs)
+    {
+        if (!dueEntries.isEmpty())
+        {
+            return timeInNs;
+        }
+
+        nextDeadlineInNs = NO_DEADLINE;
+        if (timerWheel.timerCount() > 0)
+        {
+            timerWheel.forEach(findNextDeadline);
+        }
+        return nextDeadlineInNs;
+    }
+
+    public boolean onTimerExpiry(final TimeUnit timeUnit, final long now, final long timerId)
+    {
+        final T entry = timerIdToEntry.remove(timerId);
+        if (entry != null)
+        {
+            makeDue(entry);
+        }
+        return true;
+    }
+
+    private void expireTimers(final long timeInNs)
+    {
+        final DeadlineTimerWheel timerWheel = this.timerWheel;
+        if (timerWheel.timerCount() == 0)
+        {
+            // Nothing to catch up on, so keep the current tick close to the time rather than stepping through ticks
+            timerWheel.resetStartTime(timeInNs);
+            return;
+        }
+
+        // Each poll of the wheel only advances by one tick, catch up if a duty cycle took longer than a tick
+        do
+        {
+            timerWheel.poll(timeInNs, this, Integer.MAX_VALUE);
+        }
+        while (timerWheel.timerCount() > 0 && timerWheel.currentTickTime() <= timeInNs);
+    }
+
+    private void schedule(final T entry, final long timeInNs)
+    {
+        final long nextPollTimeInNs = entry.nextPollTimeInNs();
+        if (nextPollTimeInNs <= timeInNs)
+        {
+            makeDue(entry);
+        }
+        else if (nextPollTimeInNs != NO_DEADLINE)
+        {
+            final long timerId = timerWheel.scheduleTimer(nextPollTimeInNs);
+            timerIdToEntry.put(timerId, entry);
+            entry.pollTimerId(timerId);
+        }
+    }
+
+    private void makeDue(final T entry)
+    {
+        entry.pollTimerId(DUE);
+        dueEntries.add(entry);
+    }
+
+    private void cancelTimer(final long timerId)
+    {
+        timerWheel.cancelTimer(timerId);
+        timerIdToEntry.remove(timerId);
+    }
+
+    public String toString()
+    {
+        return "SessionTimerWheel{" +
+            "scheduled=" + timerIdToEntry.size() +
+            ", due=" + dueEntries.size() +
+            '}';
+    }
+}
@@ -6,7 +6,8 @@ import uk.co.real_logic.artio.dictionary.LongDictionary;
 import uk.co.real_logic.artio.otf.OtfParser;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
+import static uk.co.real_logic.artio.engine.HeaderOffsets.NO_HEADER_OFFSETS;
 import static uk.co.real_logic.artio.engine.logger.ReplayerTest.MESSAGE_REQUIRING_LONGER_BODY_LENGTH;
 
 public class PossDupFinderTest
@@ -44,4 +45,41 @@ public class PossDupFinderTest
         assertEquals(12, possDupFinder.bodyLengthOffset());
         assertEquals(2, possDupFinder.lengthOfBodyLength());
     }
+
+    @Test
+    public void shouldFindSameFieldsFromHeaderOffsetsAsParser()
+    {
+        buffer.putBytes(0, SECOND_MESSAGE);
+        final int length = SECOND_MESSAGE.length;
+
+        parser.onMessage(buffer, 0, length);
+        final int possDupOffset = possDupFinder.possDupOffset();
+        final int sendingTimeOffset = possDupFinder.sendingTimeOffset();
+        final int sendingTimeLength = possDupFinder.sendingTimeLength();
+        final int bodyLengthOffset = possDupFinder.bodyLengthOffset();
+        final int checkSumOffset = possDupFinder.checkSumOffset();
+
+        final int headerOffsets = HeaderOffsets.find(buffer, 0, length);
+        assertNotEquals(NO_HEADER_OFFSETS, headerOffsets);
+        assertTrue(possDupFinder.onHeaderOffsets(buffer, 0, length, headerOffsets));
+
+        assertEquals(possDupOffset, possDupFinder.possDupOffset());
+        assertEquals(sendingTimeOffset, possDupFinder.sendingTimeOffset());
+        assertEquals(sendingTimeLength, possDupFinder.sendingTimeLength());
+        assertEquals(bodyLengthOffset, possDupFinder.bodyLengthOffset());
+        assertEquals(checkSumOffset, possDupFinder.checkSumOffset());
+        assertEquals(65, possDupFinder.bodyLength());
+        assertFalse(possDupFinder.hasOrigSendingTime());
+    }
+
+    @Test
+    public void shouldRejectHeaderOffsetsThatDoNotMatchMessage()
+    {
+        buffer.putBytes(0, SECOND_MESSAGE);
+        final int headerOffsets = HeaderOffsets.find(buffer, 0, SECOND_MESSAGE.length);
+
+        buffer.putBytes(0, FIRST_MESSAGE);
+
+        assertFalse(possDupFinder.onHeaderOffsets(buffer, 0, FIRST_MESSAGE.length, headerOffsets));
+    }
 }
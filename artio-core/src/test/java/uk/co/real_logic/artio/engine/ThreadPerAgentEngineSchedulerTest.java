@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.junit.Test;
+import uk.co.real_logic.artio.engine.ThreadPerAgentEngineScheduler.AgentRole;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.Timing.assertEventuallyTrue;
+import static uk.co.real_logic.artio.engine.ThreadPerAgentEngineScheduler.AgentRole.*;
+
+public class ThreadPerAgentEngineSchedulerTest
+{
+    private final Agent framer = mock(Agent.class);
+    private final Agent inboundIndexer = mock(Agent.class);
+    private final Agent outboundIndexer = mock(Agent.class);
+    private final Agent replayer = mock(Agent.class);
+    private final Agent monitoringAgent = mock(Agent.class);
+    private final EngineConfiguration configuration = mock(EngineConfiguration.class);
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final RecordingCoordinator recordingCoordinator = mock(RecordingCoordinator.class);
+
+    private final Map<AgentRole, Thread> pinnedThreads = new EnumMap<>(AgentRole.class);
+    private final Map<AgentRole, Integer> pinnedCores = new EnumMap<>(AgentRole.class);
+
+    @Test
+    public void shouldPinEachAgentToItsOwnThread()
+    {
+        final ThreadPerAgentEngineScheduler scheduler = newScheduler().separateIndexerThreads(true);
+        try
+        {
+            launch(scheduler);
+
+            assertEventuallyTrue("Failed to pin threads", () -> pinnedCount() == AgentRole.values().length);
+            assertAgentsInvoked();
+
+            synchronized (pinnedThreads)
+            {
+                assertThat(pinnedCores, allOf(
+                    hasEntry(FRAMER, 1),
+                    hasEntry(INBOUND_INDEXER, 2),
+                    hasEntry(OUTBOUND_INDEXER, 3),
+                    hasEntry(REPLAYER, 4),
+                    hasEntry(MONITORING, 5)));
+                assertThat(pinnedThreads.values().stream().distinct().count(), is(5L));
+            }
+        }
+        finally
+        {
+            scheduler.close();
+        }
+
+        verify(recordingCoordinator).close();
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    public void shouldShareIndexerThreadByDefault()
+    {
+        final ThreadPerAgentEngineScheduler scheduler = newScheduler();
+        try
+        {
+            launch(scheduler);
+
+            assertEventuallyTrue("Failed to pin threads", () -> pinnedCount() == AgentRole.values().length - 1);
+            assertAgentsInvoked();
+
+            synchronized (pinnedThreads)
+            {
+                assertThat(pinnedThreads, not(hasKey(OUTBOUND_INDEXER)));
+                assertThat(pinnedCores, hasEntry(INBOUND_INDEXER, 2));
+            }
+        }
+        finally
+        {
+            scheduler.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRequireCpuAffinityHookWhenCoresConfigured()
+    {
+        final ThreadPerAgentEngineScheduler scheduler = new ThreadPerAgentEngineScheduler()
+            .cpuCore(FRAMER, 1);
+
+        launch(scheduler);
+    }
+
+    private ThreadPerAgentEngineScheduler newScheduler()
+    {
+        when(configuration.threadFactory()).thenReturn(Thread::new);
+
+        final ThreadPerAgentEngineScheduler scheduler = new ThreadPerAgentEngineScheduler()
+            .cpuAffinity(this::onPin);
+        int cpuCore = 1;
+        for (final AgentRole role : AgentRole.values())
+        {
+            scheduler
+                .idleStrategy(role, new BusySpinIdleStrategy())
+                .cpuCore(role, cpuCore++);
+        }
+        return scheduler;
+    }
+
+    private void launch(final ThreadPerAgentEngineScheduler scheduler)
+    {
+        scheduler.launch(
+            configuration,
+            errorHandler,
+            framer,
+            inboundIndexer,
+            outboundIndexer,
+            replayer,
+            monitoringAgent,
+            null,
+            recordingCoordinator);
+    }
+
+    private void assertAgentsInvoked()
+    {
+        assertEventuallyTrue("Failed to invoke agents", () ->
+        {
+            verify(framer, atLeastOnce()).doWork();
+            verify(inboundIndexer, atLeastOnce()).doWork();
+            verify(outboundIndexer, atLeastOnce()).doWork();
+            verify(replayer, atLeastOnce()).doWork();
+            verify(monitoringAgent, atLeastOnce()).doWork();
+        });
+    }
+
+    private void onPin(final AgentRole role, final int cpuCore)
+    {
+        synchronized (pinnedThreads)
+        {
+            pinnedThreads.put(role, Thread.currentThread());
+            pinnedCores.put(role, cpuCore);
+        }
+    }
+
+    private int pinnedCount()
+    {
+        synchronized (pinnedThreads)
+        {
+            return pinnedThreads.size();
+        }
+    }
+}
@@ -54,6 +54,8 @@ public class FixSenderEndPointTest
     private static final int BODY_LENGTH = 84;
     private static final int FRAGMENT_LENGTH = alignTerm(HEADER_LENGTH + FRAME_SIZE + BODY_LENGTH);
     private static final int MAX_BYTES_IN_BUFFER = 3 * BODY_LENGTH;
+    // Smaller than the messages coalesced in a duty cycle so that the buffer has to grow
+    private static final int COALESCED_WRITES_BUFFER_SIZE = BODY_LENGTH;
     public static final int INBOUND_BUFFER_LEN = 128;
     public static final int REPLAY_CORRELATION_ID = 2;
     public static final int REPLAY_CORRELATION_ID_2 = 3;
@@ -72,23 +74,30 @@ public class FixSenderEndPointTest
     private final ReproductionLogWriter reproductionLogWriter = mock(ReproductionLogWriter.class);
     private final UnsafeBuffer inboundBuffer = new UnsafeBuffer(new byte[INBOUND_BUFFER_LEN]);
     private final FixReceiverEndPoint receiverEndPoint = mock(FixReceiverEndPoint.class);
-    private final FixSenderEndPoint endPoint = new FixSenderEndPoint(
-        CONNECTION_ID,
-        LIBRARY_ID,
-        inboundPublication,
-        reproductionLogWriter,
-        tcpChannel,
-        bytesInBuffer,
-        invalidLibraryAttempts,
-        errorHandler,
-        framer,
-        MAX_BYTES_IN_BUFFER,
-        DEFAULT_SLOW_CONSUMER_TIMEOUT_IN_MS,
-        0,
-        senderSequenceNumber,
-        messageTimingHandler,
-        receiverEndPoint,
-        new FixSenderEndPoint.Formatters());
+    private final FixSenderEndPoint endPoint = newEndPoint(false);
+
+    private FixSenderEndPoint newEndPoint(final boolean coalesceWrites)
+    {
+        return new FixSenderEndPoint(
+            CONNECTION_ID,
+            LIBRARY_ID,
+            inboundPublication,
+            reproductionLogWriter,
+            tcpChannel,
+            bytesInBuffer,
+            invalidLibraryAttempts,
+            errorHandler,
+            framer,
+            MAX_BYTES_IN_BUFFER,
+            DEFAULT_SLOW_CONSUMER_TIMEOUT_IN_MS,
+            0,
+            senderSequenceNumber,
+            messageTimingHandler,
+            receiverEndPoint,
+            new FixSenderEndPoint.Formatters(),
+            coalesceWrites,
+            COALESCED_WRITES_BUFFER_SIZE);
+    }
 
     @Before
     public void setup()
@@ -352,6 +361,66 @@ public class FixSenderEndPointTest
         verifyNoMoreErrors();
     }
 
+    @Test
+    public void shouldCoalesceOutboundMessagesIntoASingleWrite() throws IOException
+    {
+        final FixSenderEndPoint endPoint = newEndPoint(true);
+
+        endPoint.onOutboundMessage(LIBRARY_ID, buffer, MSG_OFFSET, BODY_LENGTH, 1, 0, 0);
+        endPoint.onOutboundMessage(LIBRARY_ID, buffer, MSG_OFFSET, BODY_LENGTH, 2, 0, 0);
+        endPoint.onOutboundMessage(LIBRARY_ID, buffer, MSG_OFFSET, BODY_LENGTH, 3, 0, 0);
+        byteBufferNotWritten();
+        assertTrue(endPoint.hasCoalescedWrites());
+
+        channelWillWrite(3 * BODY_LENGTH);
+        assertEquals(3, endPoint.flushCoalescedWrites(0));
+
+        verify(tcpChannel, times(1)).write(any(), eq(3), eq(false));
+        verify(messageTimingHandler, times(3)).onMessage(anyLong(), eq(CONNECTION_ID), any(), anyInt(), eq(0));
+        assertFalse(endPoint.hasCoalescedWrites());
+        assertDoesNotRequireReattempting(endPoint);
+        assertEquals(0, bytesInBuffer.get());
+        verifyNoMoreErrors();
+    }
+
+    @Test
+    public void shouldReattemptPartiallyWrittenCoalescedMessages()
+    {
+        final FixSenderEndPoint endPoint = newEndPoint(true);
+        final int partialWrite = 41;
+
+        endPoint.onOutboundMessage(LIBRARY_ID, buffer, MSG_OFFSET, BODY_LENGTH, 1, 0, 0);
+        endPoint.onOutboundMessage(LIBRARY_ID, buffer, MSG_OFFSET, BODY_LENGTH, 2, 0, 0);
+        endPoint.onOutboundMessage(LIBRARY_ID, buffer, MSG_OFFSET, BODY_LENGTH, 3, 0, 0);
+
+        channelWillWrite(BODY_LENGTH + partialWrite);
+        endPoint.flushCoalescedWrites(0);
+        byteBufferWritten();
+
+        // The first message is complete, the second is partially written and the third is unwritten
+        verify(messageTimingHandler, times(1)).onMessage(eq(1L), eq(CONNECTION_ID), any(), anyInt(), eq(0));
+        assertTrue("not requiresReattempting", endPoint.requiresRetry());
+        assertEquals(partialWrite, endPoint.reattemptBytesWritten());
+        assertEquals(2 * (BODY_LENGTH + ENQ_MESSAGE_BLOCK_LEN), bytesInBuffer.get());
+
+        // completes the second message and partially writes the third
+        channelWillWrite(BODY_LENGTH - partialWrite);
+        endPoint.poll(0);
+        assertTrue("not requiresReattempting", endPoint.requiresRetry());
+
+        channelWillWrite(partialWrite);
+        endPoint.poll(0);
+
+        assertDoesNotRequireReattempting(endPoint);
+        assertEquals(0, bytesInBuffer.get());
+        verifyNoMoreErrors();
+    }
+
+    private void assertDoesNotRequireReattempting(final FixSenderEndPoint endPoint)
+    {
+        assertFalse("requiresReattempting", endPoint.requiresRetry());
+    }
+
     private void byteBufferNotWritten()
     {
         byteBufferWritten(never());
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class InMemoryTcpChannelSupplierTest
+{
+    private static final int PORT = 9876;
+    private static final int BUFFER_SIZE = 64;
+
+    private final EngineConfiguration configuration = new EngineConfiguration()
+        .bindTo("localhost", PORT)
+        .receiverSocketBufferSize(BUFFER_SIZE)
+        .senderSocketBufferSize(BUFFER_SIZE);
+    private final TcpChannelSupplier.NewChannelHandler newChannelHandler =
+        mock(TcpChannelSupplier.NewChannelHandler.class);
+    private final InMemoryTcpChannelSupplier supplier = new InMemoryTcpChannelSupplier(configuration);
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(BUFFER_SIZE * 2);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE * 2);
+
+    @After
+    public void tearDown()
+    {
+        supplier.close();
+    }
+
+    @Test
+    public void shouldExchangeBytesBetweenClientAndEngine() throws IOException
+    {
+        final InMemoryConnection client = InMemoryTcpChannelSupplier.connect(address());
+        final TcpChannel channel = acceptChannel();
+
+        write(client, "8=FIX.4.4\u0001");
+        assertEquals("8=FIX.4.4\u0001", read(channel));
+
+        writeBuffer.clear().put("35=0\u0001".getBytes(StandardCharsets.US_ASCII)).flip();
+        assertEquals(5, channel.write(writeBuffer, 1, false));
+        assertEquals("35=0\u0001", read(client));
+    }
+
+    @Test
+    public void shouldOnlyWriteWhatFitsAndWrapAroundTheBuffer() throws IOException
+    {
+        final InMemoryConnection client = InMemoryTcpChannelSupplier.connect(address());
+        final TcpChannel channel = acceptChannel();
+
+        final String firstHalf = repeat('a', BUFFER_SIZE / 2 + 10);
+        write(client, firstHalf);
+        assertEquals(firstHalf, read(channel));
+
+        final String full = repeat('b', BUFFER_SIZE);
+        writeBuffer.clear().put(full.getBytes(StandardCharsets.US_ASCII)).put((byte)'c').flip();
+        assertEquals(BUFFER_SIZE, client.write(writeBuffer));
+        assertEquals(0, client.write(writeBuffer));
+        assertEquals(full, read(channel));
+    }
+
+    @Test
+    public void shouldSignalEndOfStreamAfterClose() throws IOException
+    {
+        final InMemoryConnection client = InMemoryTcpChannelSupplier.connect(address());
+        final TcpChannel channel = acceptChannel();
+
+        write(client, "abc");
+        client.close();
+
+        assertEquals("abc", read(channel));
+        readBuffer.clear();
+        assertEquals(-1, channel.read(readBuffer));
+
+        writeBuffer.clear().put((byte)'d').flip();
+        assertThrows(ClosedChannelException.class, () -> channel.write(writeBuffer, 1, false));
+    }
+
+    @Test
+    public void shouldRefuseConnectionsOnceUnbound() throws IOException
+    {
+        supplier.unbind();
+
+        assertFalse(InMemoryTcpChannelSupplier.isBound(address()));
+        assertThrows(ConnectException.class, () -> InMemoryTcpChannelSupplier.connect(address()));
+    }
+
+    @Test
+    public void shouldFailToOpenConnectionStraightAwayWhenUnbound() throws IOException
+    {
+        supplier.unbind();
+
+        final TcpChannelSupplier.InitiatedChannelHandler channelHandler =
+            mock(TcpChannelSupplier.InitiatedChannelHandler.class);
+        assertThrows(ConnectException.class, () -> supplier.open(address(), channelHandler));
+
+        assertEquals(0, supplier.pollSelector(0, newChannelHandler));
+        verifyNoInteractions(channelHandler);
+    }
+
+    @Test
+    public void shouldCloseUnacceptedConnectionsWhenUnbound() throws IOException
+    {
+        final InMemoryConnection client = InMemoryTcpChannelSupplier.connect(address());
+
+        supplier.unbind();
+
+        readBuffer.clear();
+        assertEquals(-1, client.read(readBuffer));
+
+        supplier.bind();
+        assertEquals(0, supplier.pollSelector(0, newChannelHandler));
+        verifyNoInteractions(newChannelHandler);
+    }
+
+    @Test
+    public void shouldNotBindTheSamePortTwice() throws IOException
+    {
+        final EngineConfiguration otherConfiguration = new EngineConfiguration().bindTo("localhost", PORT);
+        otherConfiguration.bindAtStartup(false);
+        final InMemoryTcpChannelSupplier otherSupplier = new InMemoryTcpChannelSupplier(otherConfiguration);
+
+        assertThrows(BindException.class, otherSupplier::bind);
+    }
+
+    private TcpChannel acceptChannel() throws IOException
+    {
+        final TcpChannel[] accepted = new TcpChannel[1];
+        doAnswer(invocation ->
+        {
+            accepted[0] = invocation.getArgument(1);
+            return null;
+        }).when(newChannelHandler).onNewChannel(anyLong(), any());
+
+        assertEquals(1, supplier.pollSelector(0, newChannelHandler));
+        assertNotNull(accepted[0]);
+        assertNull(accepted[0].register(null, 0, null));
+        return accepted[0];
+    }
+
+    private void write(final InMemoryConnection client, final String message) throws IOException
+    {
+        writeBuffer.clear().put(message.getBytes(StandardCharsets.US_ASCII)).flip();
+        assertEquals(message.length(), client.write(writeBuffer));
+    }
+
+    private String read(final TcpChannel channel) throws IOException
+    {
+        readBuffer.clear();
+        final int length = channel.read(readBuffer);
+        return new String(readBuffer.array(), 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private String read(final InMemoryConnection client)
+    {
+        readBuffer.clear();
+        final int length = client.read(readBuffer);
+        return new String(readBuffer.array(), 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static String repeat(final char character, final int count)
+    {
+        final StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++)
+        {
+            builder.append(character);
+        }
+        return builder.toString();
+    }
+
+    private static InetSocketAddress address()
+    {
+        return new InetSocketAddress("localhost", PORT);
+    }
+}
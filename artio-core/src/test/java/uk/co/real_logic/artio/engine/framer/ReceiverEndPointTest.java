@@ -46,6 +46,7 @@ import static io.aeron.Publication.BACK_PRESSURED;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 import static uk.co.real_logic.artio.dictionary.ExampleDictionary.TAG_SPECIFIED_OUT_OF_REQUIRED_ORDER_MESSAGE_BYTES;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.NO_FRAMER_RECENT_INBOUND_MESSAGES;
 import static uk.co.real_logic.artio.engine.EngineConfiguration.NO_THROTTLE_WINDOW;
 import static uk.co.real_logic.artio.messages.DisconnectReason.DUPLICATE_SESSION;
 import static uk.co.real_logic.artio.messages.DisconnectReason.REMOTE_DISCONNECT;
@@ -59,12 +60,15 @@ public class ReceiverEndPointTest
     private static final long CONNECTION_ID = 20L;
     private static final long SESSION_ID = 4L;
     private static final int LIBRARY_ID = FixEngine.ENGINE_LIBRARY_ID;
+    private static final int OWNING_LIBRARY_ID = 3;
     private static final long POSITION = 1024L;
     private static final int BUFFER_SIZE = 16 * 1024;
     private static final int SEQUENCE_INDEX = 0;
     private static final int LOGON_LEN = LOGON_MESSAGE.length;
     private static final int OUT_OF_REQUIRED_ORDER_MSG_LEN = TAG_SPECIFIED_OUT_OF_REQUIRED_ORDER_MESSAGE_BYTES.length;
     private static final long TIMESTAMP = 1000L;
+    private static final long THROTTLED_TIMESTAMP = 10_000_000_000L;
+    private static final int THROTTLE_WINDOW_IN_MS = 1000;
     // private static final long BACKPRESSURED_TIMESTAMP = 2000L;
 
     private final AcceptorLogonResult pendingAuth = createSuccessfulPendingAuth();
@@ -156,7 +160,8 @@ public class ReceiverEndPointTest
             new FixReceiverEndPoint.FixReceiverEndPointFormatters(),
             NO_THROTTLE_WINDOW,
             NO_THROTTLE_WINDOW,
-            false);
+            false,
+            NO_FRAMER_RECENT_INBOUND_MESSAGES);
         endPoint.gatewaySession(gatewaySession);
     }
 
@@ -288,6 +293,64 @@ public class ReceiverEndPointTest
         sessionReceivesTwoMessages();
     }
 
+    @Test
+    public void shouldBatchMessagesFromOneReadForLibraryOwnedSession()
+    {
+        givenMessageBatchingForALibraryOwnedSession();
+        when(publication.commitMessageBatch()).thenReturn(POSITION);
+
+        theEndpointReceivesTwoCompleteMessages();
+        polls(2 * MSG_LEN);
+
+        batchesFramedMessages(0, times(1));
+        batchesFramedMessages(MSG_LEN, times(1));
+        verify(publication, times(1)).commitMessageBatch();
+        verify(publication, never()).saveMessage(
+            anyBuffer(), anyInt(), anyInt(), anyInt(), anyLong(), anyLong(), anyInt(), anyLong(), any(), anyInt(),
+            anyLong());
+    }
+
+    @Test
+    public void shouldRetryWholeBatchWhenBackPressured()
+    {
+        givenMessageBatchingForALibraryOwnedSession();
+        when(publication.commitMessageBatch()).thenReturn(BACK_PRESSURED, POSITION);
+
+        theEndpointReceivesTwoCompleteMessages();
+        polls(-2 * MSG_LEN);
+
+        assertTrue(endPoint.retryFrameMessages());
+
+        batchesFramedMessages(0, times(2));
+        batchesFramedMessages(MSG_LEN, times(2));
+        verify(publication, times(2)).commitMessageBatch();
+    }
+
+    @Test
+    public void shouldNotCountRetriedBatchTowardsThrottleWhenBackPressured()
+    {
+        when(mockClock.nanoTime()).thenReturn(THROTTLED_TIMESTAMP);
+        when(messagesRead.incrementOrdered()).thenReturn(0L, 1L);
+        endPoint.configureThrottle(THROTTLE_WINDOW_IN_MS, 2);
+        givenMessageBatchingForALibraryOwnedSession();
+        when(publication.commitMessageBatch()).thenReturn(BACK_PRESSURED, POSITION);
+
+        theEndpointReceivesTwoCompleteMessages();
+        polls(-2 * MSG_LEN);
+
+        assertTrue(endPoint.retryFrameMessages());
+
+        verify(publication, times(4)).batchMessage(
+            anyBuffer(), anyInt(), eq(MSG_LEN), eq(OWNING_LIBRARY_ID),
+            eq(MESSAGE_TYPE), eq(SESSION_ID), anyInt(), eq(CONNECTION_ID),
+            eq(OK), eq(0), eq(THROTTLED_TIMESTAMP));
+        verify(publication, times(2)).commitMessageBatch();
+        verify(publication, never()).saveThrottleNotification(
+            anyInt(), anyLong(), anyLong(), anyInt(), anyLong(), anyInt(), any(), anyInt(), anyInt());
+        verify(messagesRead, times(2)).incrementOrdered();
+        verify(gatewaySession, times(1)).onSequenceReset(anyLong());
+    }
+
     @Test
     public void shouldFrameOneCompleteMessageWhenTheSecondMessageIsIncomplete()
     {
@@ -573,6 +636,23 @@ public class ReceiverEndPointTest
             eq(status), eq(0), eq(TIMESTAMP));
     }
 
+    private void givenMessageBatchingForALibraryOwnedSession()
+    {
+        endPoint.libraryId(OWNING_LIBRARY_ID);
+        when(publication.isMessageBatchingEnabled()).thenReturn(true);
+        when(publication.batchMessage(
+            anyBuffer(), anyInt(), anyInt(), anyInt(), anyLong(), anyLong(), anyInt(), anyLong(), any(), anyInt(),
+            anyLong())).thenReturn(true);
+    }
+
+    private void batchesFramedMessages(final int offset, final VerificationMode mode)
+    {
+        verify(publication, mode).batchMessage(
+            anyBuffer(), eq(offset), eq(MSG_LEN), eq(OWNING_LIBRARY_ID),
+            eq(MESSAGE_TYPE), eq(SESSION_ID), anyInt(), eq(CONNECTION_ID),
+            eq(OK), eq(0), eq(TIMESTAMP));
+    }
+
     private void savesTwoFramedMessages(final int firstMessageSaveAttempts)
     {
         final InOrder inOrder = Mockito.inOrder(publication);
@@ -15,13 +15,18 @@
  */
 package uk.co.real_logic.artio.engine.framer;
 
+import org.agrona.ErrorHandler;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.LongConsumer;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static uk.co.real_logic.artio.engine.framer.ReceiverEndPoints.disconnectILinkConnections;
@@ -29,6 +34,7 @@ import static uk.co.real_logic.artio.engine.framer.ReceiverEndPoints.disconnectI
 public class ReceiverEndPointsTest
 {
     private static final int LIBRARY_ID = 1;
+    private static final long LONG_PARK_TIMEOUT_IN_MS = 60_000;
 
     private final LongConsumer removeFunc = mock(LongConsumer.class);
 
@@ -70,6 +76,83 @@ public class ReceiverEndPointsTest
         assertSame(endPoints, result);
     }
 
+    @Test(timeout = 10_000L)
+    public void shouldNotParkWhilstAnEndPointRequiresPolling()
+    {
+        try (ReceiverEndPoints receiverEndPoints = new ReceiverEndPoints(mock(ErrorHandler.class)))
+        {
+            final ReceiverEndPoint endPoint = mock(FixReceiverEndPoint.class);
+            when(endPoint.requiresAuthentication()).thenReturn(true);
+            receiverEndPoints.add(endPoint);
+
+            assertFalse(receiverEndPoints.park(LONG_PARK_TIMEOUT_IN_MS));
+        }
+    }
+
+    @Test(timeout = 10_000L)
+    public void shouldStopParkingWhenWokenUp()
+    {
+        try (ReceiverEndPoints receiverEndPoints = new ReceiverEndPoints(mock(ErrorHandler.class)))
+        {
+            receiverEndPoints.wakeUp();
+
+            assertTrue(receiverEndPoints.park(LONG_PARK_TIMEOUT_IN_MS));
+        }
+    }
+
+    @Test(timeout = 10_000L)
+    public void shouldStopParkingWhenWokenUpFromAnotherThreadAfterAnEarlierWakeUp()
+    {
+        try (ReceiverEndPoints receiverEndPoints = new ReceiverEndPoints(mock(ErrorHandler.class)))
+        {
+            receiverEndPoints.wakeUp();
+            receiverEndPoints.wakeUp();
+            assertTrue(receiverEndPoints.park(LONG_PARK_TIMEOUT_IN_MS));
+
+            final Thread waker = new Thread(() ->
+            {
+                LockSupport.parkNanos(MILLISECONDS.toNanos(100));
+                receiverEndPoints.wakeUp();
+            });
+            waker.start();
+
+            assertTrue(receiverEndPoints.park(LONG_PARK_TIMEOUT_IN_MS));
+        }
+    }
+
+    @Test(timeout = 10_000L)
+    public void shouldStopParkingWhenWokenUpWhilstPollingEndPointsBySelector()
+    {
+        try (ReceiverEndPoints receiverEndPoints = new ReceiverEndPoints(mock(ErrorHandler.class)))
+        {
+            // More end points than the iteration threshold, so polling them calls selectNow()
+            for (int i = 0; i <= ReceiverEndPoints.ARTIO_ITERATION_THRESHOLD; i++)
+            {
+                final ReceiverEndPoint endPoint = mock(FixReceiverEndPoint.class);
+                when(endPoint.isRegistered()).thenReturn(true);
+                receiverEndPoints.add(endPoint);
+            }
+
+            receiverEndPoints.wakeUp();
+            receiverEndPoints.pollEndPoints();
+            assertTrue(receiverEndPoints.park(LONG_PARK_TIMEOUT_IN_MS));
+
+            receiverEndPoints.wakeUp();
+            receiverEndPoints.pollEndPoints();
+            receiverEndPoints.pollEndPoints();
+            assertTrue(receiverEndPoints.park(LONG_PARK_TIMEOUT_IN_MS));
+
+            final Thread waker = new Thread(() ->
+            {
+                LockSupport.parkNanos(MILLISECONDS.toNanos(100));
+                receiverEndPoints.wakeUp();
+            });
+            waker.start();
+
+            assertTrue(receiverEndPoints.park(LONG_PARK_TIMEOUT_IN_MS));
+        }
+    }
+
     private ReceiverEndPoint[] makeEndPoints()
     {
         final ReceiverEndPoint[] endPoints = new ReceiverEndPoint[5];
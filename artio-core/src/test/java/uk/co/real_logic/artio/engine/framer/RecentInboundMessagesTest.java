@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.collections.IntArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.co.real_logic.artio.dictionary.SessionConstants.SEQUENCE_RESET_MESSAGE_TYPE;
+
+public class RecentInboundMessagesTest
+{
+    private static final int CAPACITY = 4096;
+    private static final int SEQUENCE_INDEX = 1;
+    private static final long MESSAGE_TYPE = 'D';
+    private static final long TIMESTAMP = 123L;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[1024]);
+    private final CatchupReplayer catchupReplayer = mock(CatchupReplayer.class);
+    private final IntArrayList replayedSequenceNumbers = new IntArrayList();
+
+    private RecentInboundMessages recentMessages = new RecentInboundMessages(CAPACITY);
+
+    @Before
+    public void setUp()
+    {
+        when(catchupReplayer.onRecentMessage(any(), anyInt(), anyInt(), anyLong(), anyLong())).then(inv ->
+        {
+            final DirectBuffer buffer = inv.getArgument(0);
+            replayedSequenceNumbers.addInt(
+                RecentInboundMessages.msgSeqNum(buffer, inv.getArgument(1), inv.getArgument(2)));
+            return CONTINUE;
+        });
+    }
+
+    @Test
+    public void shouldReplayRangeWithinBuffer()
+    {
+        receiveMessages(1, 5);
+
+        assertTrue(recentMessages.contains(SEQUENCE_INDEX, 2, SEQUENCE_INDEX, 4));
+        assertTrue(recentMessages.copy(2, 4).poll(catchupReplayer));
+        assertThat(replayedSequenceNumbers, contains(2, 3, 4));
+    }
+
+    @Test
+    public void shouldNotContainRangeOutsideOfBuffer()
+    {
+        receiveMessages(3, 5);
+
+        assertFalse(recentMessages.contains(SEQUENCE_INDEX, 2, SEQUENCE_INDEX, 4));
+        assertFalse(recentMessages.contains(SEQUENCE_INDEX, 4, SEQUENCE_INDEX, 6));
+        assertFalse(recentMessages.contains(SEQUENCE_INDEX - 1, 3, SEQUENCE_INDEX, 5));
+    }
+
+    @Test
+    public void shouldEvictOldestMessagesOnceFull()
+    {
+        final int messageLength = message(1);
+        recentMessages = new RecentInboundMessages((messageLength + 32) * 3);
+
+        receiveMessages(1, 6);
+
+        assertFalse(recentMessages.contains(SEQUENCE_INDEX, 1, SEQUENCE_INDEX, 6));
+        assertTrue(recentMessages.contains(SEQUENCE_INDEX, 5, SEQUENCE_INDEX, 6));
+        assertTrue(recentMessages.copy(5, 6).poll(catchupReplayer));
+        assertThat(replayedSequenceNumbers, contains(5, 6));
+    }
+
+    @Test
+    public void shouldRestartRunAfterSequenceGap()
+    {
+        receiveMessages(1, 3);
+        receiveMessages(5, 6);
+
+        assertFalse(recentMessages.contains(SEQUENCE_INDEX, 3, SEQUENCE_INDEX, 5));
+        assertTrue(recentMessages.contains(SEQUENCE_INDEX, 5, SEQUENCE_INDEX, 6));
+    }
+
+    @Test
+    public void shouldResetOnSequenceReset()
+    {
+        receiveMessages(1, 3);
+
+        final int length = message(4);
+        recentMessages.onMessage(buffer, 0, length, SEQUENCE_RESET_MESSAGE_TYPE, SEQUENCE_INDEX, TIMESTAMP);
+
+        assertFalse(recentMessages.contains(SEQUENCE_INDEX, 1, SEQUENCE_INDEX, 3));
+    }
+
+    @Test
+    public void shouldExtractMsgSeqNum()
+    {
+        final int length = message(1234);
+
+        assertEquals(1234, RecentInboundMessages.msgSeqNum(buffer, 0, length));
+    }
+
+    private void receiveMessages(final int from, final int to)
+    {
+        for (int sequenceNumber = from; sequenceNumber <= to; sequenceNumber++)
+        {
+            final int length = message(sequenceNumber);
+            recentMessages.onMessage(buffer, 0, length, MESSAGE_TYPE, SEQUENCE_INDEX, TIMESTAMP);
+        }
+    }
+
+    private int message(final int sequenceNumber)
+    {
+        final byte[] message = ("8=FIX.4.4\0019=0065\00135=D\00134=" + sequenceNumber +
+            "\00149=initiator\00156=acceptor\00152=20161206-11:04:51.461\00110=088\001").getBytes(US_ASCII);
+        buffer.putBytes(0, message);
+        return message.length;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.archive.client.RecordingDescriptorConsumer;
+import org.agrona.ErrorHandler;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.LongHashSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class ArchiveRetentionAgentTest
+{
+    private static final long INTERVAL_IN_MS = 1_000;
+    private static final int MAX_SEGMENTS_PER_PURGE = 4;
+    private static final int TERM_BUFFER_LENGTH = 64 * 1024;
+    private static final int SEGMENT_FILE_LENGTH = 4 * TERM_BUFFER_LENGTH;
+    private static final long SESSION_ID = 1;
+    private static final long SESSION_ID_2 = 2;
+    private static final long RECORDING_ID = 3;
+    private static final long OTHER_RECORDING_ID = 4;
+
+    private final ReplayQuery replayQuery = mock(ReplayQuery.class);
+    private final AeronArchive aeronArchive = mock(AeronArchive.class);
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+
+    private long timeInNs = 0;
+    private long recordingStartPosition = 0;
+
+    @Before
+    public void setUp()
+    {
+        final LongHashSet sessionIds = new LongHashSet();
+        sessionIds.add(SESSION_ID);
+        sessionIds.add(SESSION_ID_2);
+        when(replayQuery.sessionIds()).thenReturn(sessionIds);
+
+        when(aeronArchive.listRecording(anyLong(), any())).then(inv ->
+        {
+            final RecordingDescriptorConsumer consumer = inv.getArgument(1);
+            consumer.onRecordingDescriptor(
+                0, 0, inv.getArgument(0), 0, 0, recordingStartPosition, 0, 0,
+                SEGMENT_FILE_LENGTH, TERM_BUFFER_LENGTH, 0, 0, 0, "", "", "");
+            return 1;
+        });
+    }
+
+    @Test
+    public void shouldPurgeSegmentsBeforeLowestPositionOfAllSessions()
+    {
+        lastMessagesPosition(SESSION_ID, RECORDING_ID, 3L * SEGMENT_FILE_LENGTH + 100);
+        lastMessagesPosition(SESSION_ID_2, RECORDING_ID, 2L * SEGMENT_FILE_LENGTH + 100);
+
+        final ArchiveRetentionAgent agent = newAgent(RetentionPolicy.keepLastMessagesPerSession(10));
+        evaluate(agent);
+
+        verify(aeronArchive).purgeSegments(RECORDING_ID, 2L * SEGMENT_FILE_LENGTH);
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    public void shouldRateLimitSegmentsPurgedPerEvaluation()
+    {
+        final long prunePosition = 10L * SEGMENT_FILE_LENGTH;
+        lastMessagesPosition(SESSION_ID, RECORDING_ID, prunePosition);
+
+        final ArchiveRetentionAgent agent = newAgent(RetentionPolicy.keepLastMessagesPerSession(10));
+        evaluate(agent);
+
+        verify(aeronArchive).purgeSegments(RECORDING_ID, (long)MAX_SEGMENTS_PER_PURGE * SEGMENT_FILE_LENGTH);
+
+        recordingStartPosition = (long)MAX_SEGMENTS_PER_PURGE * SEGMENT_FILE_LENGTH;
+        evaluate(agent);
+
+        verify(aeronArchive).purgeSegments(RECORDING_ID, 2L * MAX_SEGMENTS_PER_PURGE * SEGMENT_FILE_LENGTH);
+    }
+
+    @Test
+    public void shouldPurgeRecordingsToLowestPositionOfEveryPolicy()
+    {
+        lastMessagesPosition(SESSION_ID, RECORDING_ID, 3L * SEGMENT_FILE_LENGTH);
+        sinceLastResetPosition(SESSION_ID, RECORDING_ID, 2L * SEGMENT_FILE_LENGTH);
+
+        final ArchiveRetentionAgent agent = newAgent(
+            RetentionPolicy.keepLastMessagesPerSession(10),
+            RetentionPolicy.keepSinceLastSequenceReset());
+        evaluate(agent);
+
+        verify(aeronArchive).purgeSegments(RECORDING_ID, 2L * SEGMENT_FILE_LENGTH);
+    }
+
+    @Test
+    public void shouldPurgeRecordingUpToLastIndexedMessageWhenPolicyRetainsNothingFromIt()
+    {
+        // The sessions have been reset since their messages in the other recording, so none of them are retained
+        lastMessagesPosition(SESSION_ID, RECORDING_ID, 3L * SEGMENT_FILE_LENGTH);
+        sinceLastResetPosition(SESSION_ID, RECORDING_ID, 2L * SEGMENT_FILE_LENGTH);
+        lastIndexedPosition(SESSION_ID_2, OTHER_RECORDING_ID, 5L * SEGMENT_FILE_LENGTH + 100);
+
+        final ArchiveRetentionAgent agent = newAgent(
+            RetentionPolicy.keepLastMessagesPerSession(10),
+            RetentionPolicy.keepSinceLastSequenceReset());
+        evaluate(agent);
+
+        verify(aeronArchive).purgeSegments(RECORDING_ID, 2L * SEGMENT_FILE_LENGTH);
+        verify(aeronArchive).purgeSegments(OTHER_RECORDING_ID, (long)MAX_SEGMENTS_PER_PURGE * SEGMENT_FILE_LENGTH);
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    public void shouldNotPurgeRecordingsWithoutPositionFromDurationPolicy()
+    {
+        lastMessagesPosition(SESSION_ID, RECORDING_ID, 3L * SEGMENT_FILE_LENGTH);
+
+        final ArchiveRetentionAgent agent = newAgent(
+            RetentionPolicy.keepLastMessagesPerSession(10),
+            RetentionPolicy.keepDuration(1, TimeUnit.DAYS));
+        evaluate(agent);
+
+        verify(aeronArchive, never()).purgeSegments(anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldCloseTemporarySessionQueriesEachDutyCycle()
+    {
+        final ArchiveRetentionAgent agent = newAgent(RetentionPolicy.keepLastMessagesPerSession(10));
+        evaluate(agent);
+
+        verify(replayQuery, atLeastOnce()).closeTemporarySessionQuery();
+    }
+
+    @Test
+    public void shouldNotPurgeSegmentContainingPrunePosition()
+    {
+        lastMessagesPosition(SESSION_ID, RECORDING_ID, SEGMENT_FILE_LENGTH - 100);
+
+        final ArchiveRetentionAgent agent = newAgent(RetentionPolicy.keepLastMessagesPerSession(10));
+        evaluate(agent);
+
+        verify(aeronArchive, never()).purgeSegments(anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldNotEvaluateBeforeInterval()
+    {
+        final ArchiveRetentionAgent agent = newAgent(RetentionPolicy.keepLastMessagesPerSession(10));
+
+        for (int i = 0; i < 10; i++)
+        {
+            agent.doWork();
+        }
+
+        verify(replayQuery, never()).sessionIds();
+    }
+
+    private ArchiveRetentionAgent newAgent(final RetentionPolicy... policies)
+    {
+        return new ArchiveRetentionAgent(
+            Arrays.asList(policies),
+            Collections.singletonList(replayQuery),
+            null,
+            new int[0],
+            aeronArchive,
+            () -> timeInNs,
+            errorHandler,
+            INTERVAL_IN_MS,
+            MAX_SEGMENTS_PER_PURGE,
+            "");
+    }
+
+    private void evaluate(final ArchiveRetentionAgent agent)
+    {
+        timeInNs += INTERVAL_IN_MS * 1_000_000;
+
+        // Waiting, querying, purging the recording and then finishing
+        for (int i = 0; i < 10; i++)
+        {
+            agent.doWork();
+        }
+    }
+
+    private void lastMessagesPosition(final long sessionId, final long recordingId, final long position)
+    {
+        doAnswer(inv ->
+        {
+            lowerPosition(inv.getArgument(2), recordingId, position);
+            raisePosition(inv.getArgument(3), recordingId, position);
+            return null;
+        }).when(replayQuery).queryLastMessagesStartPositions(eq(sessionId), anyInt(), any(), any());
+    }
+
+    private void sinceLastResetPosition(final long sessionId, final long recordingId, final long position)
+    {
+        doAnswer(inv ->
+        {
+            lowerPosition(inv.getArgument(1), recordingId, position);
+            raisePosition(inv.getArgument(2), recordingId, position);
+            return null;
+        }).when(replayQuery).querySinceLastResetStartPositions(eq(sessionId), any(), any());
+    }
+
+    private void lastIndexedPosition(final long sessionId, final long recordingId, final long position)
+    {
+        doAnswer(inv ->
+        {
+            raisePosition(inv.getArgument(3), recordingId, position);
+            return null;
+        }).when(replayQuery).queryLastMessagesStartPositions(eq(sessionId), anyInt(), any(), any());
+
+        doAnswer(inv ->
+        {
+            raisePosition(inv.getArgument(2), recordingId, position);
+            return null;
+        }).when(replayQuery).querySinceLastResetStartPositions(eq(sessionId), any(), any());
+    }
+
+    private static void raisePosition(
+        final Long2LongHashMap lastIndexedPositions, final long recordingId, final long position)
+    {
+        final long oldPosition = lastIndexedPositions.get(recordingId);
+        if (oldPosition == lastIndexedPositions.missingValue() || position > oldPosition)
+        {
+            lastIndexedPositions.put(recordingId, position);
+        }
+    }
+
+    private static void lowerPosition(
+        final Long2LongHashMap newStartPositions, final long recordingId, final long position)
+    {
+        final long oldPosition = newStartPositions.get(recordingId);
+        if (oldPosition == newStartPositions.missingValue() || position < oldPosition)
+        {
+            newStartPositions.put(recordingId, position);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.Aeron;
+import io.aeron.ExclusivePublication;
+import io.aeron.Subscription;
+import io.aeron.archive.ArchivingMediaDriver;
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.archive.codecs.SourceLocation;
+import io.aeron.archive.status.RecordingPos;
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.TestFixtures;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+import uk.co.real_logic.artio.engine.CompletionPosition;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.aeron.Aeron.NULL_VALUE;
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.archive.client.AeronArchive.NULL_POSITION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static uk.co.real_logic.artio.TestFixtures.aeronArchiveContext;
+import static uk.co.real_logic.artio.TestFixtures.cleanupMediaDriver;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.*;
+
+public class IndexerCatchupTest
+{
+    private static final int MESSAGE_COUNT = 2_000;
+    private static final int MESSAGE_LENGTH = 64;
+
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[MESSAGE_LENGTH]);
+
+    private ArchivingMediaDriver mediaDriver;
+    private AeronArchive aeronArchive;
+
+    @Before
+    public void setUp()
+    {
+        mediaDriver = TestFixtures.launchMediaDriver();
+        aeronArchive = AeronArchive.connect(aeronArchiveContext());
+    }
+
+    @After
+    public void tearDown()
+    {
+        Exceptions.closeAll(aeronArchive);
+        cleanupMediaDriver(mediaDriver);
+    }
+
+    @Test(timeout = 30_000L)
+    public void shouldCatchUpIndexersOfDifferentStreamsConcurrently() throws InterruptedException
+    {
+        final long inboundRecordingId = record(DEFAULT_INBOUND_LIBRARY_STREAM);
+        final long outboundRecordingId = record(DEFAULT_OUTBOUND_LIBRARY_STREAM);
+
+        final CountingIndex inboundIndex = new CountingIndex(inboundRecordingId, DEFAULT_INBOUND_LIBRARY_STREAM);
+        final CountingIndex outboundIndex = new CountingIndex(outboundRecordingId, DEFAULT_OUTBOUND_LIBRARY_STREAM);
+        final Indexer inboundIndexer = newIndexer(inboundIndex);
+        final Indexer outboundIndexer = newIndexer(outboundIndex);
+
+        final AtomicReference<Throwable> inboundError = new AtomicReference<>();
+        final Thread inboundThread = new Thread(() -> inboundIndexer.catchIndexUp(aeronArchive, errorHandler));
+        inboundThread.setUncaughtExceptionHandler((thread, throwable) -> inboundError.set(throwable));
+        inboundThread.start();
+
+        outboundIndexer.catchIndexUp(aeronArchive, errorHandler);
+        inboundThread.join();
+
+        assertNull(inboundError.get());
+        verifyNoInteractions(errorHandler);
+        inboundIndex.assertCaughtUp();
+        outboundIndex.assertCaughtUp();
+    }
+
+    private Indexer newIndexer(final Index index)
+    {
+        return new Indexer(
+            Collections.singletonList(index),
+            mock(Subscription.class),
+            "",
+            new CompletionPosition(),
+            DEFAULT_ARCHIVE_REPLAY_STREAM);
+    }
+
+    private long record(final int streamId)
+    {
+        final Aeron aeron = aeronArchive.context().aeron();
+        aeronArchive.startRecording(IPC_CHANNEL, streamId, SourceLocation.LOCAL);
+
+        try (ExclusivePublication publication = aeron.addExclusivePublication(IPC_CHANNEL, streamId))
+        {
+            final CountersReader counters = aeron.countersReader();
+            int counterId;
+            while ((counterId = RecordingPos.findCounterIdBySession(counters, publication.sessionId())) ==
+                CountersReader.NULL_COUNTER_ID)
+            {
+                Thread.yield();
+            }
+            final long recordingId = RecordingPos.getRecordingId(counters, counterId);
+
+            for (int i = 0; i < MESSAGE_COUNT; i++)
+            {
+                buffer.putInt(0, streamId);
+                buffer.putInt(4, i);
+                while (publication.offer(buffer) < 0)
+                {
+                    Thread.yield();
+                }
+            }
+
+            while (counters.getCounterValue(counterId) < publication.position())
+            {
+                Thread.yield();
+            }
+
+            aeronArchive.stopRecording(IPC_CHANNEL, streamId);
+            while (aeronArchive.getStopPosition(recordingId) == NULL_POSITION)
+            {
+                Thread.yield();
+            }
+
+            return recordingId;
+        }
+    }
+
+    private static final class CountingIndex implements Index
+    {
+        private final long recordingId;
+        private final int streamId;
+
+        private int nextMessage = 0;
+
+        CountingIndex(final long recordingId, final int streamId)
+        {
+            this.recordingId = recordingId;
+            this.streamId = streamId;
+        }
+
+        public void onFragment(final DirectBuffer buffer, final int offset, final int length, final Header header)
+        {
+        }
+
+        public void onCatchup(
+            final DirectBuffer buffer, final int offset, final int length, final Header header, final long recordingId)
+        {
+            assertEquals(this.recordingId, recordingId);
+            assertEquals(streamId, buffer.getInt(offset));
+            assertEquals(nextMessage, buffer.getInt(offset + 4));
+            nextMessage++;
+        }
+
+        public void readLastPosition(final IndexedPositionConsumer consumer)
+        {
+            consumer.accept(NULL_VALUE, recordingId, 0);
+        }
+
+        public void close()
+        {
+        }
+
+        void assertCaughtUp()
+        {
+            assertEquals(MESSAGE_COUNT, nextMessage);
+        }
+    }
+}
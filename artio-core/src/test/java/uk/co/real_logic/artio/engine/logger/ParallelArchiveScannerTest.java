@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.Aeron;
+import io.aeron.ExclusivePublication;
+import io.aeron.archive.ArchivingMediaDriver;
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.archive.codecs.SourceLocation;
+import io.aeron.archive.status.RecordingPos;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.IntArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.TestFixtures;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanningAgent.ArchiveLocation;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+import uk.co.real_logic.artio.messages.MessageStatus;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.archive.client.AeronArchive.NULL_POSITION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static uk.co.real_logic.artio.TestFixtures.aeronArchiveContext;
+import static uk.co.real_logic.artio.TestFixtures.cleanupMediaDriver;
+
+public class ParallelArchiveScannerTest
+{
+    // Segments are the same length as terms, so several messages straddle segment boundaries.
+    private static final int TERM_LENGTH = 64 * 1024;
+    private static final int STREAM_ID = 1;
+    private static final int MESSAGE_COUNT = 64;
+    private static final int BODY_LENGTH = 5_000;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[BODY_LENGTH * 2]);
+    private final MessageHeaderEncoder header = new MessageHeaderEncoder();
+    private final FixMessageEncoder fixMessage = new FixMessageEncoder();
+
+    private ArchivingMediaDriver mediaDriver;
+    private AeronArchive aeronArchive;
+
+    @Before
+    public void setUp()
+    {
+        mediaDriver = TestFixtures.launchMediaDriver(TERM_LENGTH);
+        aeronArchive = AeronArchive.connect(aeronArchiveContext());
+    }
+
+    @After
+    public void tearDown()
+    {
+        Exceptions.closeAll(aeronArchive);
+        cleanupMediaDriver(mediaDriver);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldScanMessagesFragmentedAcrossSegmentBoundaries()
+    {
+        final long recordingId = recordFragmentedMessages();
+        final long stopPosition = aeronArchive.getStopPosition(recordingId);
+        assertTrue(stopPosition > 2 * TERM_LENGTH);
+
+        final Int2ObjectHashMap<List<ArchiveLocation>> streamIdToLocations = new Int2ObjectHashMap<>();
+        streamIdToLocations.put(STREAM_ID, Collections.singletonList(
+            new ArchiveLocation(recordingId, 0, stopPosition)));
+
+        final IntArrayList sequenceNumbers = new IntArrayList();
+        final File archiveDir = mediaDriver.archive().context().archiveDir();
+        try (ParallelArchiveScanner scanner = new ParallelArchiveScanner(archiveDir, aeronArchive, 2))
+        {
+            assertTrue(scanner.scan(
+                streamIdToLocations,
+                FixMessagePredicates::alwaysTrue,
+                (message, buffer, offset, length, header) ->
+                {
+                    final int sequenceNumber = message.sequenceNumber();
+                    assertEquals(BODY_LENGTH, length);
+                    assertEquals(bodyByte(sequenceNumber), buffer.getByte(offset));
+                    assertEquals(bodyByte(sequenceNumber), buffer.getByte(offset + length - 1));
+                    sequenceNumbers.addInt(sequenceNumber);
+                },
+                null));
+        }
+
+        assertEquals(MESSAGE_COUNT, sequenceNumbers.size());
+        for (int i = 0; i < MESSAGE_COUNT; i++)
+        {
+            assertEquals(i, sequenceNumbers.getInt(i));
+        }
+    }
+
+    private long recordFragmentedMessages()
+    {
+        final Aeron aeron = aeronArchive.context().aeron();
+        aeronArchive.startRecording(IPC_CHANNEL, STREAM_ID, SourceLocation.LOCAL);
+
+        try (ExclusivePublication publication = aeron.addExclusivePublication(IPC_CHANNEL, STREAM_ID))
+        {
+            final CountersReader counters = aeron.countersReader();
+            int counterId;
+            while ((counterId = RecordingPos.findCounterIdBySession(counters, publication.sessionId())) ==
+                CountersReader.NULL_COUNTER_ID)
+            {
+                Thread.yield();
+            }
+            final long recordingId = RecordingPos.getRecordingId(counters, counterId);
+
+            // Offered rather than claimed, so that Aeron fragments the messages without padding to term ends.
+            for (int sequenceNumber = 0; sequenceNumber < MESSAGE_COUNT; sequenceNumber++)
+            {
+                final int length = encodeMessage(sequenceNumber);
+                while (publication.offer(buffer, 0, length) < 0)
+                {
+                    Thread.yield();
+                }
+            }
+
+            while (counters.getCounterValue(counterId) < publication.position())
+            {
+                Thread.yield();
+            }
+
+            aeronArchive.stopRecording(IPC_CHANNEL, STREAM_ID);
+            while (aeronArchive.getStopPosition(recordingId) == NULL_POSITION)
+            {
+                Thread.yield();
+            }
+
+            return recordingId;
+        }
+    }
+
+    private int encodeMessage(final int sequenceNumber)
+    {
+        final UnsafeBuffer body = new UnsafeBuffer(new byte[BODY_LENGTH]);
+        body.setMemory(0, BODY_LENGTH, bodyByte(sequenceNumber));
+
+        header.wrap(buffer, 0)
+            .blockLength(fixMessage.sbeBlockLength())
+            .templateId(fixMessage.sbeTemplateId())
+            .schemaId(fixMessage.sbeSchemaId())
+            .version(fixMessage.sbeSchemaVersion());
+
+        fixMessage.wrap(buffer, header.encodedLength())
+            .libraryId(1)
+            .messageType('D')
+            .session(2)
+            .sequenceIndex(0)
+            .connection(3)
+            .timestamp(sequenceNumber)
+            .status(MessageStatus.OK)
+            .sequenceNumber(sequenceNumber)
+            .metaDataUpdateOffset(0)
+            .putMetaData(new UnsafeBuffer(new byte[0]), 0, 0)
+            .putBody(body, 0, BODY_LENGTH);
+
+        return header.encodedLength() + fixMessage.encodedLength();
+    }
+
+    private static byte bodyByte(final int sequenceNumber)
+    {
+        return (byte)('a' + sequenceNumber % 26);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.ControlledFragmentHandler.Action;
+import io.aeron.logbuffer.Header;
+import io.aeron.protocol.DataHeaderFlyweight;
+import org.agrona.DirectBuffer;
+import org.agrona.collections.IntArrayList;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.LogTag;
+import uk.co.real_logic.artio.engine.SequenceNumberExtractor;
+import uk.co.real_logic.artio.messages.ResetSequenceNumberEncoder;
+
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
+
+public class RecentMessageCacheTest extends AbstractLogTest
+{
+    private static final int CAPACITY = 4096;
+
+    private final Header fragmentHeader = mock(Header.class);
+    private final SequenceNumberExtractor sequenceNumberExtractor = new SequenceNumberExtractor();
+    private final IntArrayList replayedSequenceNumbers = new IntArrayList();
+
+    private RecentMessageCache recentMessages = new RecentMessageCache(CAPACITY);
+    private Action replayAction = CONTINUE;
+
+    @Before
+    public void setUp()
+    {
+        when(fragmentHeader.flags()).thenReturn((byte)DataHeaderFlyweight.BEGIN_AND_END_FLAGS);
+    }
+
+    @Test
+    public void shouldReplayRangeWithinCache()
+    {
+        sendMessages(1, 5);
+
+        final RecentMessageCache.CachedReplay replay = replay(2, 4);
+
+        assertTrue(replay.pollReplay());
+        assertThat(replayedSequenceNumbers, contains(2, 3, 4));
+        assertEquals(3, replay.replayedMessages());
+    }
+
+    @Test
+    public void shouldNotReplayRangeOutsideOfCache()
+    {
+        sendMessages(3, 5);
+
+        assertNull(replay(2, 4));
+        assertNull(replay(4, 6));
+        assertNull(recentMessages.replay(SESSION_ID, SEQUENCE_INDEX + 1, 3, 5, messageTracker()));
+        assertNull(recentMessages.replay(SESSION_ID_2, SEQUENCE_INDEX, 3, 5, messageTracker()));
+    }
+
+    @Test
+    public void shouldEvictOldestMessagesOnceFull()
+    {
+        recentMessages = new RecentMessageCache(fragmentLength(1) * 6);
+
+        sendMessages(1, 10);
+
+        assertNull(replay(1, 10));
+        final RecentMessageCache.CachedReplay replay = replay(8, 10);
+        assertTrue(replay.pollReplay());
+        assertThat(replayedSequenceNumbers, contains(8, 9, 10));
+    }
+
+    @Test
+    public void shouldEmptyCacheWhenSequenceNumbersAreNotContiguous()
+    {
+        sendMessages(1, 2);
+        sendMessages(4, 4);
+
+        assertNull(replay(1, 2));
+        assertNotNull(replay(4, 4));
+    }
+
+    @Test
+    public void shouldRetryBackPressuredMessage()
+    {
+        sendMessages(1, 2);
+
+        final RecentMessageCache.CachedReplay replay = replay(1, 2);
+        replayAction = ABORT;
+        assertFalse(replay.pollReplay());
+        assertThat(replayedSequenceNumbers, contains(1));
+
+        replayAction = CONTINUE;
+        assertTrue(replay.pollReplay());
+        assertThat(replayedSequenceNumbers, contains(1, 1, 2));
+        assertEquals(2, replay.replayedMessages());
+    }
+
+    @Test
+    public void shouldReplayUpToMostRecentMessage()
+    {
+        sendMessages(1, 5);
+
+        final RecentMessageCache.CachedReplay replay = replay(3, MOST_RECENT_MESSAGE);
+
+        assertTrue(replay.pollReplay());
+        assertThat(replayedSequenceNumbers, contains(3, 4, 5));
+        assertEquals(3, replay.replayedMessages());
+    }
+
+    @Test
+    public void shouldReuseReleasedReplays()
+    {
+        sendMessages(1, 5);
+
+        final RecentMessageCache.CachedReplay replay = replay(1, 2);
+        assertTrue(replay.pollReplay());
+        replay.release();
+
+        final RecentMessageCache.CachedReplay nextReplay = replay(4, 5);
+        assertSame(replay, nextReplay);
+        assertNotSame(nextReplay, replay(4, 5));
+        assertTrue(nextReplay.pollReplay());
+        assertThat(replayedSequenceNumbers, contains(1, 2, 4, 5));
+    }
+
+    @Test
+    public void shouldForgetSessionWhenSequenceNumbersAreReset()
+    {
+        sendMessages(1, 3);
+
+        new ResetSequenceNumberEncoder()
+            .wrapAndApplyHeader(buffer, START, header)
+            .session(SESSION_ID);
+        recentMessages.onFragment(buffer, START, header.encodedLength() + ResetSequenceNumberEncoder.BLOCK_LENGTH,
+            fragmentHeader);
+
+        assertNull(replay(1, 3));
+        sendMessages(1, 2);
+        assertNotNull(replay(1, 2));
+    }
+
+    private RecentMessageCache.CachedReplay replay(final int beginSeqNo, final int endSeqNo)
+    {
+        return recentMessages.replay(SESSION_ID, SEQUENCE_INDEX, beginSeqNo, endSeqNo, messageTracker());
+    }
+
+    private FixMessageTracker messageTracker()
+    {
+        return new FixMessageTracker(LogTag.REPLAY, this::onReplayedFragment, SESSION_ID);
+    }
+
+    private Action onReplayedFragment(
+        final DirectBuffer buffer, final int offset, final int length, final Header header)
+    {
+        replayedSequenceNumbers.addInt(sequenceNumberExtractor.extract(
+            buffer, offset + PREFIX_LENGTH, length - PREFIX_LENGTH));
+        return replayAction;
+    }
+
+    private int fragmentLength(final int sequenceNumber)
+    {
+        bufferContainsExampleMessage(true, SESSION_ID, sequenceNumber, SEQUENCE_INDEX);
+        return fragmentLength();
+    }
+
+    private void sendMessages(final int firstSequenceNumber, final int lastSequenceNumber)
+    {
+        for (int sequenceNumber = firstSequenceNumber; sequenceNumber <= lastSequenceNumber; sequenceNumber++)
+        {
+            bufferContainsExampleMessage(true, SESSION_ID, sequenceNumber, SEQUENCE_INDEX);
+            recentMessages.onFragment(buffer, START, fragmentLength(), fragmentHeader);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.NoOpIdleStrategy;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.engine.ReplayerCommandQueue;
+
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.engine.logger.ReplayEvictionHandler.RESET_COMMAND_POOL_SIZE;
+
+public class ReplayEvictionHandlerTest
+{
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final ReplayQuery replayQuery = mock(ReplayQuery.class);
+    private final ReplayerCommandQueue replayerCommandQueue = new ReplayerCommandQueue(new NoOpIdleStrategy());
+    private final ReplayEvictionHandler handler = new ReplayEvictionHandler(errorHandler, replayerCommandQueue);
+
+    @Before
+    public void setUp()
+    {
+        handler.replayQuery(replayQuery);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldResetReplayQueryOnReplayerThread()
+    {
+        handler.onReset(1L);
+        verifyNoInteractions(replayQuery);
+
+        replayerCommandQueue.poll();
+
+        verify(replayQuery).onReset(1L);
+        verifyNoMoreInteractions(replayQuery);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldResetAllSessionsOnceCommandsRunOut()
+    {
+        final int resetCount = RESET_COMMAND_POOL_SIZE + 3;
+        for (int i = 0; i < resetCount; i++)
+        {
+            handler.onReset(i);
+        }
+
+        replayerCommandQueue.poll();
+
+        for (int i = 0; i < RESET_COMMAND_POOL_SIZE; i++)
+        {
+            verify(replayQuery).onReset(i);
+        }
+        verify(replayQuery).onResetAll();
+        verifyNoMoreInteractions(replayQuery);
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldReuseCommandsOnceExecuted()
+    {
+        for (int i = 0; i < RESET_COMMAND_POOL_SIZE; i++)
+        {
+            handler.onReset(i);
+        }
+        replayerCommandQueue.poll();
+
+        final long fixSessionId = RESET_COMMAND_POOL_SIZE;
+        handler.onReset(fixSessionId);
+        replayerCommandQueue.poll();
+
+        verify(replayQuery).onReset(fixSessionId);
+        verify(replayQuery, never()).onResetAll();
+    }
+}
@@ -19,9 +19,11 @@ import io.aeron.Aeron;
 import io.aeron.CommonContext;
 import io.aeron.ExclusivePublication;
 import io.aeron.Subscription;
+import io.aeron.archive.Archive;
 import io.aeron.archive.ArchivingMediaDriver;
 import io.aeron.archive.client.AeronArchive;
 import io.aeron.archive.codecs.SourceLocation;
+import io.aeron.archive.status.RecordingPos;
 import io.aeron.logbuffer.ControlledFragmentHandler;
 import io.aeron.logbuffer.Header;
 import org.agrona.DirectBuffer;
@@ -31,6 +33,7 @@ import org.agrona.collections.Long2LongHashMap;
 import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.*;
 import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersReader;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -52,7 +55,10 @@ import static io.aeron.Aeron.NULL_VALUE;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.aMapWithSize;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_INBOUND_MAX_CLAIM_ATTEMPTS;
 import static uk.co.real_logic.artio.LogTag.REPLAY;
@@ -64,6 +70,9 @@ import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
 
 public class ReplayIndexTest extends AbstractLogTest
 {
+    // The archive's segments are the same length as the terms of the test media driver
+    private static final int SEGMENT_FILE_LENGTH = TestFixtures.TERM_BUFFER_LENGTH;
+
     private static final String CHANNEL = CommonContext.IPC_CHANNEL;
 
     private final ExistingBufferFactory existingBufferFactory = spy(new ExistingBufferFactory()
@@ -97,6 +106,7 @@ public class ReplayIndexTest extends AbstractLogTest
     private ExclusivePublication publication;
     private Subscription subscription;
     private RecordingIdLookup recordingIdLookup;
+    private ReplayIndexLayout indexLayout = ReplayIndexLayout.PER_SESSION_FILES;
 
     private void newReplayIndex()
     {
@@ -115,7 +125,8 @@ public class ReplayIndexTest extends AbstractLogTest
             mock(SequenceNumberIndexReader.class),
             DEFAULT_TIME_INDEX_FLUSH_INTERVAL_IN_NS,
             DEFAULT_INDEX_CHECKSUM_ENABLED,
-            new ReplayEvictionHandler(errorHandler));
+            new ReplayEvictionHandler(errorHandler),
+            indexLayout);
     }
 
     private Aeron aeron()
@@ -143,7 +154,12 @@ public class ReplayIndexTest extends AbstractLogTest
         IoUtil.delete(logFileDir, false);
 
         newReplayIndex();
-        query = new ReplayQuery(
+        query = newReplayQuery(null);
+    }
+
+    private ReplayQuery newReplayQuery(final String archiveSegmentDir)
+    {
+        return new ReplayQuery(
             DEFAULT_LOG_FILE_DIR,
             DEFAULT_LOGGER_CACHE_NUM_SETS,
             DEFAULT_LOGGER_CACHE_SET_SIZE,
@@ -154,7 +170,9 @@ public class ReplayIndexTest extends AbstractLogTest
             errorHandler,
             DEFAULT_ARCHIVE_REPLAY_STREAM,
             DEFAULT_REPLAY_INDEX_RECORD_CAPACITY,
-            DEFAULT_REPLAY_INDEX_SEGMENT_CAPACITY);
+            DEFAULT_REPLAY_INDEX_SEGMENT_CAPACITY,
+            archiveSegmentDir,
+            indexLayout);
     }
 
     @After
@@ -192,6 +210,142 @@ public class ReplayIndexTest extends AbstractLogTest
         assertEquals(1, msgCount);
     }
 
+    @Test(timeout = 20_000L)
+    public void shouldReturnRecordsMatchingQueryFromArchiveSegments()
+    {
+        readFromArchiveSegments(mediaDriver.archive().context().archiveDir().getAbsolutePath());
+
+        indexExampleMessage();
+
+        final int msgCount = query();
+
+        verifyMessagesRead(1);
+        assertEquals(1, msgCount);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldReturnLongRecordsMatchingQueryFromArchiveSegments()
+    {
+        readFromArchiveSegments(mediaDriver.archive().context().archiveDir().getAbsolutePath());
+
+        final String testReqId = largeTestReqId();
+
+        bufferContainsExampleMessage(true, SESSION_ID, SEQUENCE_NUMBER, SEQUENCE_INDEX, testReqId);
+        publishBuffer(publication);
+        indexRecord(11);
+
+        final int msgCount = query();
+
+        verifyMessagesRead(1);
+        assertEquals(1, msgCount);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldReplayFromArchiveWhenSegmentFilesAreMissing()
+    {
+        readFromArchiveSegments(DEFAULT_LOG_FILE_DIR);
+
+        indexExampleMessage();
+
+        final int msgCount = query();
+
+        verifyMessagesRead(1);
+        assertEquals(1, msgCount);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldLeaveOutMessagesFromPrunedSegments()
+    {
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER, SEQUENCE_INDEX);
+        publishIntoNextSegment();
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+
+        captureRecordingId();
+        awaitRecordedPosition(publication.position());
+        aeronArchive.purgeSegments(recordingId, SEGMENT_FILE_LENGTH);
+
+        // Resend across the pruned range, the first message is missing so should be gap filled by the replayer.
+        final int msgCount = query(SEQUENCE_NUMBER, SEQUENCE_INDEX, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+
+        verifyMessagesRead(1);
+        assertEquals(1, msgCount);
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldFallBackToArchiveReplayWhenSegmentFileCanNotBeRead()
+    {
+        indexExampleMessage();
+        captureRecordingId();
+
+        // A directory in place of the segment file passes the existence check, but can't be mapped
+        final File segmentDir = new File(DEFAULT_LOG_FILE_DIR, "unreadable-segments");
+        assertTrue(new File(segmentDir, Archive.segmentFileName(recordingId, 0)).mkdirs());
+        readFromArchiveSegments(segmentDir.getAbsolutePath());
+
+        final int msgCount = query();
+
+        verifyMessagesRead(1);
+        assertEquals(1, msgCount);
+        verify(errorHandler).onError(any());
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldReturnRecordsMatchingQueryWithConsolidatedLayout()
+    {
+        useConsolidatedLayout();
+
+        indexExampleMessage();
+        indexExampleMessage(SESSION_ID_2, SEQUENCE_NUMBER, SEQUENCE_INDEX);
+
+        final int msgCount = query();
+
+        verifyMessagesRead(1);
+        assertEquals(1, msgCount);
+        assertFalse(logFile(SESSION_ID).exists());
+        assertTrue(ReplayIndexDescriptor.replayIndexDirectoryFile(DEFAULT_LOG_FILE_DIR, STREAM_ID).exists());
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldReadRecordsFromBeforeARestartWithConsolidatedLayout()
+    {
+        useConsolidatedLayout();
+
+        indexExampleMessage(SESSION_ID_2, SEQUENCE_NUMBER, SEQUENCE_INDEX);
+        indexExampleMessage();
+
+        replayIndex.close();
+
+        newReplayIndex();
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+
+        final int msgCount = query(SEQUENCE_NUMBER, SEQUENCE_INDEX, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+
+        verifyMessagesRead(2);
+        assertEquals(2, msgCount);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldNotReturnRecordsFromBeforeAResetWithConsolidatedLayout()
+    {
+        useConsolidatedLayout();
+
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER, SEQUENCE_INDEX);
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+
+        final GatewayPublication gatewayPublication = newGatewayPublication(publication);
+        assertThat(gatewayPublication.saveResetSequenceNumber(SESSION_ID), greaterThan(0L));
+        indexRecord();
+
+        final int newSequenceIndex = SEQUENCE_INDEX + 1;
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER, newSequenceIndex);
+
+        final int msgCount = query(SEQUENCE_NUMBER, SEQUENCE_INDEX, MOST_RECENT_MESSAGE, newSequenceIndex);
+
+        verifyMessagesRead(1);
+        assertEquals(1, msgCount);
+    }
+
     @Test(timeout = 20_000L)
     public void shouldReadSecondRecord()
     {
@@ -385,6 +539,37 @@ public class ReplayIndexTest extends AbstractLogTest
         assertEquals(position3, startPositions.get(recordingId));
     }
 
+    @Test(timeout = 20_000L)
+    public void shouldQueryLastMessagesStartPositions()
+    {
+        final int newSequenceIndex = SEQUENCE_INDEX + 1;
+
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER, SEQUENCE_INDEX);
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+        final long position = indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER + 2, SEQUENCE_INDEX);
+        final long lastPosition = indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER, newSequenceIndex);
+
+        final Long2LongHashMap startPositions = new Long2LongHashMap(NULL_VALUE);
+        final Long2LongHashMap lastIndexedPositions = new Long2LongHashMap(NULL_VALUE);
+        query.queryLastMessagesStartPositions(SESSION_ID, 2, startPositions, lastIndexedPositions);
+
+        captureRecordingId();
+
+        assertThat(startPositions, aMapWithSize(1));
+        assertEquals(position, startPositions.get(recordingId));
+        assertEquals(lastPosition, lastIndexedPositions.get(recordingId));
+
+        startPositions.clear();
+        query.queryLastMessagesStartPositions(SESSION_ID, 10, startPositions, lastIndexedPositions);
+        final Long2LongHashMap allStartPositions = new Long2LongHashMap(NULL_VALUE);
+        query.querySinceLastResetStartPositions(SESSION_ID, allStartPositions, lastIndexedPositions);
+        query.closeTemporarySessionQuery();
+
+        assertThat(startPositions.get(recordingId), lessThan(position));
+        assertThat(allStartPositions.get(recordingId), greaterThan(position));
+        assertEquals(lastPosition, lastIndexedPositions.get(recordingId));
+    }
+
     private void captureRecordingIds()
     {
         final int recordingCount = captureRecordingId();
@@ -502,6 +687,45 @@ public class ReplayIndexTest extends AbstractLogTest
         return position;
     }
 
+    private void publishIntoNextSegment()
+    {
+        final UnsafeBuffer filler = new UnsafeBuffer(new byte[publication.maxPayloadLength()]);
+        while (publication.position() <= SEGMENT_FILE_LENGTH)
+        {
+            if (publication.offer(filler) <= 0)
+            {
+                Thread.yield();
+            }
+
+            // The filler isn't a FIX message, so doesn't need indexing.
+            subscription.poll((buffer, offset, length, header) -> {}, Integer.MAX_VALUE);
+        }
+    }
+
+    private void awaitRecordedPosition(final long position)
+    {
+        final CountersReader counters = aeron().countersReader();
+        final int counterId = RecordingPos.findCounterIdByRecording(counters, recordingId);
+        while (counters.getCounterValue(counterId) < position)
+        {
+            Thread.yield();
+        }
+    }
+
+    private void useConsolidatedLayout()
+    {
+        Exceptions.closeAll(query, replayIndex);
+        indexLayout = ReplayIndexLayout.CONSOLIDATED;
+        newReplayIndex();
+        query = newReplayQuery(null);
+    }
+
+    private void readFromArchiveSegments(final String archiveSegmentDir)
+    {
+        query.close();
+        query = newReplayQuery(archiveSegmentDir);
+    }
+
     private int query()
     {
         return query(SEQUENCE_NUMBER, SEQUENCE_INDEX, SEQUENCE_NUMBER, SEQUENCE_INDEX);
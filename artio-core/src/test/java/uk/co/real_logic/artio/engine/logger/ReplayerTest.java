@@ -124,6 +124,7 @@ public class ReplayerTest extends AbstractLogTest
             errorHandler,
             MAX_CLAIM_ATTEMPTS,
             subscription,
+            null,
             DEFAULT_NAME_PREFIX,
             EngineConfiguration.DEFAULT_GAPFILL_ON_REPLAY_MESSAGE_TYPES,
             new IntHashSet(),
@@ -39,6 +39,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import uk.co.real_logic.artio.FileSystemCorruptionException;
 import uk.co.real_logic.artio.dictionary.SessionConstants;
+import uk.co.real_logic.artio.engine.ChecksumFramer;
 import uk.co.real_logic.artio.engine.MappedFile;
 import uk.co.real_logic.artio.engine.SequenceNumberExtractor;
 import uk.co.real_logic.artio.engine.framer.FakeEpochClock;
@@ -300,6 +301,26 @@ public class SequenceNumberIndexTest extends AbstractLogTest
         }
     }
 
+    @Test
+    public void shouldFlushIndexFileOnGroupCommit()
+    {
+        writer.close();
+        writer = newWriter(inMemoryBuffer, SequenceNumberIndexDurability.GROUP_COMMIT, 2);
+        try
+        {
+            indexFixMessage();
+            bufferContainsExampleMessage(true, SESSION_ID, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+            indexRecord();
+
+            final SequenceNumberIndexReader newReader = newInstanceAfterRestart();
+            assertLastKnownSequenceNumberIs(SESSION_ID, SEQUENCE_NUMBER + 1, newReader);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
     /**
      * Simulate scenario that you've crashed halfway through file flip.
      */
@@ -325,7 +346,9 @@ public class SequenceNumberIndexTest extends AbstractLogTest
 
         writer.close();
 
-        corruptIndexFile(SEQUENCE_NUMBER_OFFSET, SECTOR_SIZE / 2);
+        final int recordSlotCount = recordSlotCount(positionTableOffset(BUFFER_SIZE));
+        final int sessionRecordOffset = recordOffset(homeSlot(SESSION_ID, recordSlotCount));
+        corruptIndexFile(sessionRecordOffset + SEQUENCE_NUMBER_OFFSET, RECORD_SIZE - SEQUENCE_NUMBER_OFFSET);
 
         newInstanceAfterRestart();
 
@@ -352,6 +375,55 @@ public class SequenceNumberIndexTest extends AbstractLogTest
         verify(errorHandler, times(3), IllegalStateException.class);
     }
 
+    @Test
+    public void shouldRehashRecordsStoredContiguously()
+    {
+        final int sessionCount = 3;
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            bufferContainsExampleMessage(true, sessionId, SEQUENCE_NUMBER + sessionId, SEQUENCE_INDEX);
+            indexRecord();
+        }
+
+        writer.close();
+
+        storeRecordsContiguously();
+
+        final SequenceNumberIndexReader newReader = newInstanceAfterRestart();
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            assertLastKnownSequenceNumberIs(sessionId, SEQUENCE_NUMBER + sessionId, newReader);
+        }
+    }
+
+    // Lays the records out the way that they were stored before they were hashed by session id
+    private void storeRecordsContiguously()
+    {
+        try (MappedFile mappedFile = newIndexFile())
+        {
+            final AtomicBuffer fileBuffer = mappedFile.buffer();
+            final int positionTableOffset = positionTableOffset(BUFFER_SIZE);
+            final UnsafeBuffer records = new UnsafeBuffer(new byte[positionTableOffset]);
+            records.putBytes(0, fileBuffer, 0, positionTableOffset);
+            fileBuffer.setMemory(HEADER_SIZE, positionTableOffset - HEADER_SIZE, (byte)0);
+
+            int contiguousSlot = 0;
+            final int recordSlotCount = recordSlotCount(positionTableOffset);
+            for (int slot = 0; slot < recordSlotCount; slot++)
+            {
+                final int offset = recordOffset(slot);
+                if (records.getLong(offset + SESSION_ID_OFFSET) != EMPTY_SESSION_ID)
+                {
+                    fileBuffer.putBytes(recordOffset(contiguousSlot), records, offset, RECORD_SIZE);
+                    contiguousSlot++;
+                }
+            }
+
+            new ChecksumFramer(fileBuffer, positionTableOffset, errorHandler, 0, "SequenceNumberIndex", true)
+                .updateChecksums();
+        }
+    }
+
     private void corruptIndexFile(final int from, final int length)
     {
         try (MappedFile mappedFile = newIndexFile())
@@ -459,6 +531,20 @@ public class SequenceNumberIndexTest extends AbstractLogTest
             FixPProtocolType.ILINK_3, DEFAULT_INDEX_CHECKSUM_ENABLED, true);
     }
 
+    private SequenceNumberIndexWriter newWriter(
+        final AtomicBuffer inMemoryBuffer,
+        final SequenceNumberIndexDurability durability,
+        final int groupCommitMaxUpdates)
+    {
+        final MappedFile indexFile = newIndexFile();
+        return new SequenceNumberIndexWriter(new SequenceNumberExtractor(),
+            inMemoryBuffer, indexFile, errorHandler, STREAM_ID, recordingIdLookup,
+            DEFAULT_INDEX_FILE_STATE_FLUSH_TIMEOUT_IN_MS, clock, null,
+            new Long2LongHashMap(UNK_SESSION),
+            FixPProtocolType.ILINK_3, DEFAULT_INDEX_CHECKSUM_ENABLED, true,
+            durability, groupCommitMaxUpdates, null, null);
+    }
+
     private MappedFile newIndexFile()
     {
         return MappedFile.map(INDEX_FILE_PATH, BUFFER_SIZE);
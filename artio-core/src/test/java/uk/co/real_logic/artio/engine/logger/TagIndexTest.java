@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.Header;
+import io.aeron.protocol.DataHeaderFlyweight;
+import org.agrona.ErrorHandler;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanningAgent.ArchiveLocation;
+
+import java.io.File;
+import java.util.List;
+
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
+import static org.agrona.BitUtil.align;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_LOG_FILE_DIR;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_REPLAY_POSITION_BUFFER_SIZE;
+
+public class TagIndexTest extends AbstractLogTest
+{
+    private static final int TEST_REQ_ID = 112;
+    private static final int CL_ORD_ID = 11;
+    private static final long RECORDING_ID = 3;
+    private static final int AERON_SESSION_ID = 5;
+
+    private final Header fragmentHeader = mock(Header.class);
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final UnsafeBuffer positionBuffer = new UnsafeBuffer(new byte[DEFAULT_REPLAY_POSITION_BUFFER_SIZE]);
+    private final TagIndexReader reader = new TagIndexReader(DEFAULT_LOG_FILE_DIR, STREAM_ID);
+
+    private TagIndex tagIndex;
+    private long position;
+
+    @Before
+    public void setUp()
+    {
+        final File logFileDir = new File(DEFAULT_LOG_FILE_DIR);
+        if (logFileDir.exists())
+        {
+            IoUtil.delete(logFileDir, false);
+        }
+        assertTrue(logFileDir.mkdirs());
+
+        when(fragmentHeader.flags()).thenReturn((byte)DataHeaderFlyweight.BEGIN_AND_END_FLAGS);
+        when(fragmentHeader.sessionId()).thenReturn(AERON_SESSION_ID);
+        when(fragmentHeader.streamId()).thenReturn(STREAM_ID);
+
+        newTagIndex(16);
+    }
+
+    @After
+    public void tearDown()
+    {
+        Exceptions.closeAll(tagIndex);
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    public void shouldFindMessagesContainingTagValue()
+    {
+        final long firstPosition = indexMessage("first");
+        indexMessage("second");
+        final long thirdPosition = indexMessage("first");
+
+        final List<ArchiveLocation> locations = reader.find(TEST_REQ_ID, "first");
+
+        assertEquals(2, locations.size());
+        assertLocation(locations.get(0), firstPosition);
+        assertLocation(locations.get(1), thirdPosition);
+    }
+
+    @Test
+    public void shouldNotFindValuesThatWereNotIndexed()
+    {
+        indexMessage("first");
+
+        assertEquals(0, reader.find(TEST_REQ_ID, "firs").size());
+        assertEquals(0, reader.find(TEST_REQ_ID, "missing").size());
+        assertEquals(0, reader.find(CL_ORD_ID, "first").size());
+    }
+
+    @Test
+    public void shouldGrowWhenThreeQuartersFull()
+    {
+        final long[] positions = new long[100];
+        for (int i = 0; i < positions.length; i++)
+        {
+            positions[i] = indexMessage("value" + i);
+        }
+
+        for (int i = 0; i < positions.length; i++)
+        {
+            final List<ArchiveLocation> locations = reader.find(TEST_REQ_ID, "value" + i);
+            assertEquals(1, locations.size());
+            assertLocation(locations.get(0), positions[i]);
+        }
+    }
+
+    @Test
+    public void shouldContinueIndexingAfterRestart()
+    {
+        final long firstPosition = indexMessage("first");
+        tagIndex.close();
+
+        newTagIndex(16);
+        final long secondPosition = indexMessage("first");
+
+        final List<ArchiveLocation> locations = reader.find(TEST_REQ_ID, "first");
+        assertEquals(2, locations.size());
+        assertLocation(locations.get(0), firstPosition);
+        assertLocation(locations.get(1), secondPosition);
+    }
+
+    @Test
+    public void shouldSkipTokensThatAreNotFields()
+    {
+        final long firstPosition = indexMessage("first\u0001data=\u0001=\u00012x=y");
+        final List<ArchiveLocation> firstLocations = reader.find(TEST_REQ_ID, "first");
+        assertEquals(1, firstLocations.size());
+        assertLocation(firstLocations.get(0), firstPosition);
+
+        final long secondPosition = indexMessage("second");
+        final List<ArchiveLocation> secondLocations = reader.find(TEST_REQ_ID, "second");
+        assertEquals(1, secondLocations.size());
+        assertLocation(secondLocations.get(0), secondPosition);
+    }
+
+    @Test
+    public void shouldRecordIndexedPosition()
+    {
+        final long endPosition = indexMessage("first") + alignedFrameLength();
+
+        final IndexedPositionConsumer positionConsumer = mock(IndexedPositionConsumer.class);
+        tagIndex.readLastPosition(positionConsumer);
+
+        verify(positionConsumer).accept(AERON_SESSION_ID, RECORDING_ID, endPosition);
+    }
+
+    private void newTagIndex(final int initialCapacity)
+    {
+        tagIndex = new TagIndex(
+            DEFAULT_LOG_FILE_DIR,
+            STREAM_ID,
+            new int[]{ TEST_REQ_ID, CL_ORD_ID },
+            initialCapacity,
+            positionBuffer,
+            errorHandler,
+            mock(RecordingIdLookup.class),
+            true);
+    }
+
+    private long indexMessage(final String testReqId)
+    {
+        bufferContainsExampleMessage(false, SESSION_ID, SEQUENCE_NUMBER, SEQUENCE_INDEX, testReqId);
+
+        final long beginPosition = position;
+        position += alignedFrameLength();
+        when(fragmentHeader.position()).thenReturn(position);
+
+        tagIndex.onCatchup(buffer, START, fragmentLength(), fragmentHeader, RECORDING_ID);
+
+        return beginPosition;
+    }
+
+    private int alignedFrameLength()
+    {
+        return align(fragmentLength() + DataHeaderFlyweight.HEADER_LENGTH, FRAME_ALIGNMENT);
+    }
+
+    private void assertLocation(final ArchiveLocation location, final long beginPosition)
+    {
+        assertEquals(RECORDING_ID, location.recordingId);
+        assertEquals(beginPosition, location.startPosition);
+        assertEquals(beginPosition + alignedFrameLength(), location.stopPosition);
+    }
+}
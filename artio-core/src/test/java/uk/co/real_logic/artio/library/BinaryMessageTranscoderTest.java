@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.library;
+
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import uk.co.real_logic.artio.builder.BinaryTranscoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class BinaryMessageTranscoderTest
+{
+    private static final int OFFSET = 0;
+    private static final int LENGTH = 64;
+    private static final long MESSAGE_TYPE = 'D';
+    private static final long POSITION = 1024;
+    private static final int BINARY_LENGTH = 32;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[LENGTH]);
+    private final BinaryTranscoder transcoder = mock(BinaryTranscoder.class);
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final OnMessageInfo info = new OnMessageInfo();
+    private final BinaryMessageTranscoder binaryMessageTranscoder = new BinaryMessageTranscoder(
+        transcoder, BinaryTranscodingMode.INSTEAD, errorHandler);
+
+    @Test(timeout = 20_000L)
+    public void shouldNotTranscodeARedeliveredMessageAgain()
+    {
+        transcoderReturns(BINARY_LENGTH);
+
+        assertTrue(transcode(POSITION));
+        assertTrue(transcode(POSITION));
+
+        verifyTranscoded(1);
+        assertTrue(info.hasBinary());
+        assertEquals(BINARY_LENGTH, info.binaryLength());
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldTranscodeEachNewMessage()
+    {
+        transcoderReturns(BINARY_LENGTH);
+
+        transcode(POSITION);
+        transcode(POSITION + LENGTH);
+
+        verifyTranscoded(2);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldReportMalformedMessagesAndDeliverThemAsFix()
+    {
+        final IndexOutOfBoundsException exception = new IndexOutOfBoundsException("length out of bounds");
+        when(transcoder.fixToBinary(any(), anyInt(), anyInt(), anyLong(), any(), anyInt())).thenThrow(exception);
+
+        assertFalse(transcode(POSITION));
+
+        verify(errorHandler).onError(exception);
+        assertFalse(info.hasBinary());
+        assertNull(info.binaryBuffer());
+    }
+
+    private boolean transcode(final long position)
+    {
+        return binaryMessageTranscoder.transcode(buffer, OFFSET, LENGTH, MESSAGE_TYPE, position, info);
+    }
+
+    private void transcoderReturns(final int binaryLength)
+    {
+        when(transcoder.fixToBinary(any(), anyInt(), anyInt(), anyLong(), any(), anyInt())).thenReturn(binaryLength);
+    }
+
+    private void verifyTranscoded(final int count)
+    {
+        verify(transcoder, times(count)).fixToBinary(any(), eq(OFFSET), eq(LENGTH), eq(MESSAGE_TYPE), any(), eq(0));
+    }
+}
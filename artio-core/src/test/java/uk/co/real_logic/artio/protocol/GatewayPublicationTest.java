@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.protocol;
+
+import io.aeron.ExclusivePublication;
+import io.aeron.Subscription;
+import io.aeron.archive.ArchivingMediaDriver;
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.logbuffer.FragmentHandler;
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.OffsetEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.YieldingIdleStrategy;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.TestFixtures;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static uk.co.real_logic.artio.TestFixtures.aeronArchiveContext;
+import static uk.co.real_logic.artio.TestFixtures.cleanupMediaDriver;
+import static uk.co.real_logic.artio.messages.MessageStatus.OK;
+
+public class GatewayPublicationTest
+{
+    private static final int TERM_LENGTH = 64 * 1024;
+    private static final int STREAM_ID = 1;
+    private static final int FILLER_FRAME_LENGTH = 1024;
+    private static final int BATCHED_MESSAGES = 4;
+    private static final int MESSAGE_LENGTH = 300;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[FILLER_FRAME_LENGTH]);
+    private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
+    private final FragmentHandler countingHandler = this::onFragment;
+
+    private ArchivingMediaDriver mediaDriver;
+    private AeronArchive aeronArchive;
+    private ExclusivePublication publication;
+    private Subscription subscription;
+    private int receivedMessages = 0;
+
+    @Before
+    public void setUp()
+    {
+        mediaDriver = TestFixtures.launchMediaDriver(TERM_LENGTH);
+        aeronArchive = AeronArchive.connect(aeronArchiveContext());
+        subscription = aeronArchive.context().aeron().addSubscription(IPC_CHANNEL, STREAM_ID);
+        publication = aeronArchive.context().aeron().addExclusivePublication(IPC_CHANNEL, STREAM_ID);
+        while (!publication.isConnected())
+        {
+            Thread.yield();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        Exceptions.closeAll(publication, subscription, aeronArchive);
+        cleanupMediaDriver(mediaDriver);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldCommitMessageBatchThatStraddlesTermBoundaryOnFinalAttempt()
+    {
+        // Leave one filler frame's worth of space in the term, less than the batch needs.
+        fillTermUntil(TERM_LENGTH - FILLER_FRAME_LENGTH);
+
+        // A single attempt, so the padding can't consume the only attempt to offer the batch.
+        final GatewayPublication gatewayPublication = new GatewayPublication(
+            publication,
+            mock(AtomicCounter.class),
+            new YieldingIdleStrategy(),
+            new OffsetEpochNanoClock(),
+            0);
+        gatewayPublication.enableMessageBatching(TERM_LENGTH / 8);
+
+        final UnsafeBuffer message = new UnsafeBuffer(new byte[MESSAGE_LENGTH]);
+        for (int i = 0; i < BATCHED_MESSAGES; i++)
+        {
+            assertTrue(gatewayPublication.batchMessage(
+                message, 0, MESSAGE_LENGTH, 1, 'D', 2, 0, 3, OK, i + 1, 4));
+        }
+
+        final long position = gatewayPublication.commitMessageBatch();
+
+        assertThat(position, greaterThan((long)TERM_LENGTH));
+        assertEquals(publication.position(), position);
+
+        while (subscription.poll(countingHandler, 10) > 0)
+        {
+        }
+        assertEquals(BATCHED_MESSAGES, receivedMessages);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldRejectSecondClaimWhilstMessageClaimed()
+    {
+        final GatewayPublication gatewayPublication = newGatewayPublication();
+
+        assertThat(claimMessage(gatewayPublication, 1), greaterThan(0L));
+        assertTrue(gatewayPublication.hasClaimedMessage());
+
+        try
+        {
+            claimMessage(gatewayPublication, 2);
+            fail("Claimed a second message whilst one was outstanding");
+        }
+        catch (final IllegalStateException e)
+        {
+            // Deliberately blank
+        }
+
+        final UnsafeBuffer message = new UnsafeBuffer(new byte[MESSAGE_LENGTH]);
+        assertThat(gatewayPublication.saveMessage(
+            message, 0, MESSAGE_LENGTH, 1, 'D', 2, 0, 3, OK, 3), greaterThan(0L));
+
+        gatewayPublication.commitClaimedMessage();
+        assertFalse(gatewayPublication.hasClaimedMessage());
+
+        while (receivedMessages < 2)
+        {
+            subscription.poll(countingHandler, 10);
+        }
+        assertEquals(2, receivedMessages);
+    }
+
+    @Test(timeout = 20_000L, expected = IllegalStateException.class)
+    public void shouldRejectCommitWithoutClaimedMessage()
+    {
+        newGatewayPublication().commitClaimedMessage();
+    }
+
+    private GatewayPublication newGatewayPublication()
+    {
+        return new GatewayPublication(
+            publication,
+            mock(AtomicCounter.class),
+            new YieldingIdleStrategy(),
+            new OffsetEpochNanoClock(),
+            1);
+    }
+
+    private long claimMessage(final GatewayPublication gatewayPublication, final int sequenceNumber)
+    {
+        return gatewayPublication.claimMessage(MESSAGE_LENGTH, 1, 'D', 2, 0, 3, OK, sequenceNumber, null, 0);
+    }
+
+    private void onFragment(final DirectBuffer buffer, final int offset, final int length, final Header header)
+    {
+        messageHeader.wrap(buffer, offset);
+        if (messageHeader.templateId() == FixMessageDecoder.TEMPLATE_ID)
+        {
+            receivedMessages++;
+        }
+    }
+
+    private void fillTermUntil(final int termOffset)
+    {
+        final int fillerLength = FILLER_FRAME_LENGTH - HEADER_LENGTH;
+        while (publication.termOffset() < termOffset)
+        {
+            if (publication.offer(buffer, 0, fillerLength) < 0)
+            {
+                subscription.poll(countingHandler, 10);
+                Thread.yield();
+            }
+        }
+
+        while (subscription.poll(countingHandler, 10) > 0)
+        {
+        }
+    }
+}
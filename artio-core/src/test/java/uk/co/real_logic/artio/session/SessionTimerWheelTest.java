@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static uk.co.real_logic.artio.session.SessionTimerWheel.NOT_TRACKED;
+import static uk.co.real_logic.artio.session.SessionTimerWheel.NO_DEADLINE;
+
+public class SessionTimerWheelTest
+{
+    private static final long START_TIME_IN_NS = MILLISECONDS.toNanos(1_000_000);
+    private static final long DEADLINE_IN_NS = START_TIME_IN_NS + MILLISECONDS.toNanos(30);
+
+    private final SessionTimerWheel<FakeEntry> timerWheel = new SessionTimerWheel<>();
+    private final List<FakeEntry> polled = new ArrayList<>();
+    private final FakeEntry entry = new FakeEntry();
+
+    @Test
+    public void shouldPollAddedEntryOnNextCycle()
+    {
+        entry.nextPollTimeInNs = NO_DEADLINE;
+        timerWheel.add(entry);
+
+        poll(START_TIME_IN_NS);
+        assertPolled(entry);
+
+        poll(START_TIME_IN_NS + 1);
+        assertPolled();
+    }
+
+    @Test
+    public void shouldOnlyPollEntryOnceItsDeadlineExpires()
+    {
+        entry.nextPollTimeInNs = DEADLINE_IN_NS;
+        timerWheel.add(entry);
+        poll(START_TIME_IN_NS);
+        polled.clear();
+
+        poll(DEADLINE_IN_NS - MILLISECONDS.toNanos(10));
+        assertPolled();
+
+        entry.nextPollTimeInNs = NO_DEADLINE;
+        poll(DEADLINE_IN_NS + MILLISECONDS.toNanos(10));
+        assertPolled(entry);
+
+        poll(DEADLINE_IN_NS + MILLISECONDS.toNanos(20));
+        assertPolled();
+    }
+
+    @Test
+    public void shouldRepollEntryWhoseDeadlineHasAlreadyPassed()
+    {
+        entry.nextPollTimeInNs = 0;
+        timerWheel.add(entry);
+
+        poll(START_TIME_IN_NS);
+        assertPolled(entry);
+
+        poll(START_TIME_IN_NS + 1);
+        assertPolled(entry);
+    }
+
+    @Test
+    public void shouldPollEntryWhenWokenUp()
+    {
+        entry.nextPollTimeInNs = DEADLINE_IN_NS;
+        timerWheel.add(entry);
+        poll(START_TIME_IN_NS);
+        polled.clear();
+
+        timerWheel.wakeUp(entry);
+
+        poll(START_TIME_IN_NS + 1);
+        assertPolled(entry);
+    }
+
+    @Test
+    public void shouldNotPollRemovedEntry()
+    {
+        entry.nextPollTimeInNs = DEADLINE_IN_NS;
+        timerWheel.add(entry);
+        poll(START_TIME_IN_NS);
+        polled.clear();
+
+        timerWheel.remove(entry);
+        timerWheel.wakeUp(entry);
+
+        poll(DEADLINE_IN_NS + MILLISECONDS.toNanos(10));
+        assertPolled();
+        assertEquals(NOT_TRACKED, entry.pollTimerId());
+    }
+
+    @Test
+    public void shouldReportNextDeadline()
+    {
+        assertEquals(NO_DEADLINE, timerWheel.nextDeadlineInNs(START_TIME_IN_NS));
+
+        entry.nextPollTimeInNs = DEADLINE_IN_NS;
+        timerWheel.add(entry);
+        assertEquals(START_TIME_IN_NS, timerWheel.nextDeadlineInNs(START_TIME_IN_NS));
+
+        poll(START_TIME_IN_NS);
+        assertEquals(DEADLINE_IN_NS, timerWheel.nextDeadlineInNs(START_TIME_IN_NS + 1));
+
+        timerWheel.remove(entry);
+        assertEquals(NO_DEADLINE, timerWheel.nextDeadlineInNs(START_TIME_IN_NS + 1));
+    }
+
+    private void poll(final long timeInNs)
+    {
+        timerWheel.poll(timeInNs, (polledEntry, time) ->
+        {
+            polled.add(polledEntry);
+            return 1;
+        });
+    }
+
+    private void assertPolled()
+    {
+        assertEquals(emptyList(), polled);
+    }
+
+    private void assertPolled(final FakeEntry entry)
+    {
+        assertEquals(singletonList(entry), polled);
+        polled.clear();
+    }
+
+    static final class FakeEntry implements SessionTimerWheel.Entry
+    {
+        private long nextPollTimeInNs;
+        private long pollTimerId = NOT_TRACKED;
+
+        public long nextPollTimeInNs()
+        {
+            return nextPollTimeInNs;
+        }
+
+        public long pollTimerId()
+        {
+            return pollTimerId;
+        }
+
+        public void pollTimerId(final long pollTimerId)
+        {
+            this.pollTimerId = pollTimerId;
+        }
+    }
+}
@@ -45,7 +45,9 @@ public final class ReplayQueryChecker
             Throwable::printStackTrace,
             -1,
             DEFAULT_REPLAY_INDEX_RECORD_CAPACITY,
-            DEFAULT_REPLAY_INDEX_SEGMENT_CAPACITY);
+            DEFAULT_REPLAY_INDEX_SEGMENT_CAPACITY,
+            null,
+            DEFAULT_REPLAY_INDEX_LAYOUT);
 
         query.query(
             sessionId,
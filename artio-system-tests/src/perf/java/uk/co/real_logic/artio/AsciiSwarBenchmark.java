@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.co.real_logic.artio.util.AsciiSwar;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static uk.co.real_logic.artio.dictionary.SessionConstants.START_OF_HEADER;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+
+/**
+ * Compares the word at a time ASCII primitives against their byte at a time equivalents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AsciiSwarBenchmark
+{
+    private static final byte[] NUMBERS = "7|123456|2147483647|".getBytes(US_ASCII);
+
+    private final MutableAsciiBuffer message = new MutableAsciiBuffer(TestData.NEW_ORDER_SINGLE);
+    private final MutableAsciiBuffer numbers = new MutableAsciiBuffer(NUMBERS);
+    private final MutableAsciiBuffer output = new MutableAsciiBuffer(new byte[16]);
+
+    private int checksumEnd;
+
+    @Setup
+    public void setup()
+    {
+        checksumEnd = message.capacity() - "10=000\001".length();
+    }
+
+    @Benchmark
+    public void scanFieldsByteAtATime(final Blackhole bh)
+    {
+        final MutableAsciiBuffer message = this.message;
+        final int end = message.capacity();
+        int position = 0;
+        while (position < end)
+        {
+            position = scanByteAtATime(message, position, end, START_OF_HEADER);
+            bh.consume(position);
+            position++;
+        }
+    }
+
+    @Benchmark
+    public void scanFieldsSwar(final Blackhole bh)
+    {
+        final MutableAsciiBuffer message = this.message;
+        final int end = message.capacity();
+        int position = 0;
+        while (position < end)
+        {
+            position = AsciiSwar.indexOf(message, position, end, START_OF_HEADER);
+            if (position == UNKNOWN_INDEX)
+            {
+                break;
+            }
+            bh.consume(position);
+            position++;
+        }
+    }
+
+    @Benchmark
+    public int checksumByteAtATime()
+    {
+        int total = 0;
+        for (int index = 0; index < checksumEnd; index++)
+        {
+            total += message.getByte(index);
+        }
+
+        return total % 256;
+    }
+
+    @Benchmark
+    public int checksumSwar()
+    {
+        return AsciiSwar.checksum(message, 0, checksumEnd);
+    }
+
+    @Benchmark
+    public void parseNaturalIntAgrona(final Blackhole bh)
+    {
+        bh.consume(numbers.parseNaturalIntAscii(0, 1));
+        bh.consume(numbers.parseNaturalIntAscii(2, 6));
+        bh.consume(numbers.parseNaturalIntAscii(9, 10));
+    }
+
+    @Benchmark
+    public void parseNaturalIntSwar(final Blackhole bh)
+    {
+        bh.consume(AsciiSwar.parseNaturalInt(numbers, 0, 1));
+        bh.consume(AsciiSwar.parseNaturalInt(numbers, 2, 6));
+        bh.consume(AsciiSwar.parseNaturalInt(numbers, 9, 10));
+    }
+
+    @Benchmark
+    public MutableAsciiBuffer putChecksumAgrona()
+    {
+        output.putNaturalPaddedIntAscii(0, 3, 42);
+        return output;
+    }
+
+    @Benchmark
+    public MutableAsciiBuffer putChecksumSwar()
+    {
+        AsciiSwar.putNaturalPaddedInt(output, 0, 3, 42);
+        return output;
+    }
+
+    private static int scanByteAtATime(
+        final MutableAsciiBuffer buffer, final int startInclusive, final int endExclusive, final byte terminator)
+    {
+        for (int i = startInclusive; i < endExclusive; i++)
+        {
+            if (buffer.getByte(i) == terminator)
+            {
+                return i;
+            }
+        }
+
+        return endExclusive;
+    }
+}
@@ -21,12 +21,14 @@ import uk.co.real_logic.artio.builder.LogonEncoder;
 import uk.co.real_logic.artio.builder.TestRequestEncoder;
 import uk.co.real_logic.artio.decoder.LogonDecoder;
 import uk.co.real_logic.artio.engine.ByteBufferUtil;
+import uk.co.real_logic.artio.engine.framer.InMemoryTcpChannelSupplier;
 import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.locks.LockSupport;
 
@@ -65,12 +67,12 @@ public abstract class AbstractBenchmarkClient
         return testRequest;
     }
 
-    protected void logon(final SocketChannel socketChannel) throws IOException
+    protected void logon(final ByteChannel socketChannel) throws IOException
     {
         logon(socketChannel, INITIATOR_ID, 10);
     }
 
-    protected LogonDecoder logon(final SocketChannel socketChannel, final String initiatorId, final int heartBtInt)
+    protected LogonDecoder logon(final ByteChannel socketChannel, final String initiatorId, final int heartBtInt)
         throws IOException
     {
         final LogonEncoder logon = new LogonEncoder();
@@ -96,7 +98,7 @@ public abstract class AbstractBenchmarkClient
             .targetCompID(ACCEPTOR_ID);
     }
 
-    protected void write(final SocketChannel socketChannel, final long result) throws IOException
+    protected void write(final ByteChannel socketChannel, final long result) throws IOException
     {
         final int offset = Encoder.offset(result);
         final int length = Encoder.length(result);
@@ -112,7 +114,7 @@ public abstract class AbstractBenchmarkClient
         // System.out.println(writeFlyweight.getAscii(0, amount));
     }
 
-    protected int read(final SocketChannel socketChannel) throws IOException
+    protected int read(final ByteChannel socketChannel) throws IOException
     {
         readBuffer.clear();
         int length;
@@ -129,9 +131,15 @@ public abstract class AbstractBenchmarkClient
         LockSupport.parkNanos(SECONDS.toNanos(1));
     }
 
-    protected SocketChannel open() throws IOException
+    protected ByteChannel open() throws IOException
     {
-        final SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress(HOST, PORT));
+        final InetSocketAddress address = new InetSocketAddress(HOST, PORT);
+        if (IN_MEMORY)
+        {
+            return InMemoryTcpChannelSupplier.connect(address);
+        }
+
+        final SocketChannel socketChannel = SocketChannel.open(address);
         socketChannel.configureBlocking(false);
         socketChannel.setOption(TCP_NODELAY, true);
         socketChannel.setOption(SO_RCVBUF, 1024 * 1024);
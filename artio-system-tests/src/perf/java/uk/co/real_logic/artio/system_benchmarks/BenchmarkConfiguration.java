@@ -27,6 +27,7 @@ import static uk.co.real_logic.artio.CommonConfiguration.backoffIdleStrategy;
 public final class BenchmarkConfiguration
 {
     public static final int PORT = Integer.getInteger("fix.benchmark.port", 9999);
+    public static final boolean IN_MEMORY = Boolean.getBoolean("fix.benchmark.in_memory");
     public static final String AERON_CHANNEL = System.getProperty("fix.benchmark.aeron_channel", IPC_CHANNEL);
     public static final String ACCEPTOR_ID = "ACC";
     public static final String INITIATOR_ID = "INIT";
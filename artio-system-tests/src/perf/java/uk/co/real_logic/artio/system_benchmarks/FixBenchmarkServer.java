@@ -24,6 +24,7 @@ import uk.co.real_logic.artio.decoder.AbstractLogonDecoder;
 import uk.co.real_logic.artio.dictionary.generation.CodecUtil;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
 import uk.co.real_logic.artio.engine.FixEngine;
+import uk.co.real_logic.artio.engine.framer.InMemoryTcpChannelSupplier;
 import uk.co.real_logic.artio.library.AcquiringSessionExistsHandler;
 import uk.co.real_logic.artio.library.FixLibrary;
 import uk.co.real_logic.artio.library.LibraryConfiguration;
@@ -92,6 +93,11 @@ public final class FixBenchmarkServer
 
         configuration.authenticationStrategy(new BenchmarkAuthenticationStrategy());
 
+        if (IN_MEMORY)
+        {
+            configuration.channelSupplierFactory(InMemoryTcpChannelSupplier::new);
+        }
+
         return configuration
             .bindTo("localhost", BenchmarkConfiguration.PORT)
             .libraryAeronChannel(AERON_CHANNEL)
@@ -18,7 +18,7 @@ package uk.co.real_logic.artio.system_benchmarks;
 import uk.co.real_logic.artio.builder.HeartbeatEncoder;
 
 import java.io.IOException;
-import java.nio.channels.SocketChannel;
+import java.nio.channels.ByteChannel;
 
 import static uk.co.real_logic.artio.system_benchmarks.BenchmarkConfiguration.INITIATOR_ID;
 
@@ -34,7 +34,7 @@ public final class HeartbeatingSoakBenchmarkClient extends AbstractBenchmarkClie
         final String initiatorId = INITIATOR_ID;
         final HeartbeatEncoder heartbeat = new HeartbeatEncoder();
 
-        try (SocketChannel socketChannel = open())
+        try (ByteChannel socketChannel = open())
         {
             logon(socketChannel, initiatorId, 1);
 
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015-2023 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.system_benchmarks;
+
+import uk.co.real_logic.artio.engine.framer.InMemoryTcpChannelSupplier;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Runs the {@link FixBenchmarkServer} and {@link FixBenchmarkClient} in the same process, connected through an
+ * {@link InMemoryTcpChannelSupplier} rather than sockets, so that the engine can be measured and profiled without
+ * the kernel's network stack. Takes the same system properties as the server and client.
+ */
+public final class InMemoryBenchmark
+{
+    public static void main(final String[] args) throws Exception
+    {
+        // Must be set before BenchmarkConfiguration is initialised
+        System.setProperty("fix.benchmark.in_memory", "true");
+
+        final Thread server = new Thread(() -> FixBenchmarkServer.main(args), "benchmark-server");
+        server.setDaemon(true);
+        server.start();
+
+        final InetSocketAddress address = new InetSocketAddress("localhost", BenchmarkConfiguration.PORT);
+        while (!InMemoryTcpChannelSupplier.isBound(address))
+        {
+            if (!server.isAlive())
+            {
+                throw new IllegalStateException("Benchmark server failed to start");
+            }
+
+            LockSupport.parkNanos(MILLISECONDS.toNanos(10));
+        }
+
+        FixBenchmarkClient.main(args);
+
+        System.exit(0);
+    }
+}
@@ -21,7 +21,7 @@ import uk.co.real_logic.artio.builder.TestRequestEncoder;
 import uk.co.real_logic.artio.timing.HistogramLogReader;
 
 import java.io.IOException;
-import java.nio.channels.SocketChannel;
+import java.nio.channels.ByteChannel;
 
 import static uk.co.real_logic.artio.system_benchmarks.BenchmarkConfiguration.MESSAGES_EXCHANGED;
 import static uk.co.real_logic.artio.system_benchmarks.BenchmarkConfiguration.WARMUP_MESSAGES;
@@ -37,7 +37,7 @@ public final class LatencyBenchmarkClient extends AbstractBenchmarkClient
     {
         while (true)
         {
-            try (SocketChannel socketChannel = open())
+            try (ByteChannel socketChannel = open())
             {
                 logon(socketChannel);
 
@@ -55,7 +55,7 @@ public final class LatencyBenchmarkClient extends AbstractBenchmarkClient
     }
 
     private void runWarmup(
-        final SocketChannel socketChannel,
+        final ByteChannel socketChannel,
         final TestRequestEncoder testRequest,
         final HeaderEncoder header,
         final Histogram histogram) throws IOException
@@ -68,7 +68,7 @@ public final class LatencyBenchmarkClient extends AbstractBenchmarkClient
     }
 
     private void runTimedRuns(
-        final SocketChannel socketChannel,
+        final ByteChannel socketChannel,
         final TestRequestEncoder testRequest,
         final HeaderEncoder header,
         final Histogram histogram)
@@ -86,7 +86,7 @@ public final class LatencyBenchmarkClient extends AbstractBenchmarkClient
     }
 
     private void exchangeMessage(
-        final SocketChannel socketChannel,
+        final ByteChannel socketChannel,
         final TestRequestEncoder testRequest,
         final HeaderEncoder header,
         final int index,
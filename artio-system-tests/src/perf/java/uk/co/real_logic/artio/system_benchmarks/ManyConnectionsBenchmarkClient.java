@@ -18,6 +18,7 @@ package uk.co.real_logic.artio.system_benchmarks;
 import uk.co.real_logic.artio.builder.TestRequestEncoder;
 
 import java.io.IOException;
+import java.nio.channels.ByteChannel;
 import java.nio.channels.SocketChannel;
 
 import static uk.co.real_logic.artio.system_benchmarks.BenchmarkConfiguration.INITIATOR_ID;
@@ -37,7 +38,7 @@ public final class ManyConnectionsBenchmarkClient extends AbstractBenchmarkClien
         {
             final String initiatorId = INITIATOR_ID + i;
 
-            try (SocketChannel socketChannel = open())
+            try (ByteChannel socketChannel = open())
             {
                 logon(socketChannel, initiatorId, 10);
 
@@ -50,7 +51,10 @@ public final class ManyConnectionsBenchmarkClient extends AbstractBenchmarkClien
 
                 read(socketChannel);
 
-                socketChannel.configureBlocking(true);
+                if (socketChannel instanceof SocketChannel)
+                {
+                    ((SocketChannel)socketChannel).configureBlocking(true);
+                }
             }
 
             System.out.printf("Finished Client: %d%n", i + 1);
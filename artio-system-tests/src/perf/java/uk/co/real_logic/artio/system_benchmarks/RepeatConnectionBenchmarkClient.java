@@ -18,7 +18,7 @@ package uk.co.real_logic.artio.system_benchmarks;
 import uk.co.real_logic.artio.builder.TestRequestEncoder;
 
 import java.io.IOException;
-import java.nio.channels.SocketChannel;
+import java.nio.channels.ByteChannel;
 
 public final class RepeatConnectionBenchmarkClient extends AbstractBenchmarkClient
 {
@@ -33,7 +33,7 @@ public final class RepeatConnectionBenchmarkClient extends AbstractBenchmarkClie
     {
         for (int i = 0; i < NUMBER_OF_CONNECTIONS; i++)
         {
-            try (SocketChannel socketChannel = open())
+            try (ByteChannel socketChannel = open())
             {
                 logon(socketChannel);
 
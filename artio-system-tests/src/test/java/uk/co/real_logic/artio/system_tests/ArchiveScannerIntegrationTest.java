@@ -115,6 +115,36 @@ public class ArchiveScannerIntegrationTest extends AbstractGatewayToGatewaySyste
         assertArchiveContainsBothMessages("hi");
     }
 
+    @Test(timeout = TEST_TIMEOUT_IN_MS)
+    public void canScanArchiveInParallelInTheSameOrderAsSequentially()
+    {
+        setupAndExchangeMessages();
+
+        closeLibrariesAndEngines();
+
+        final EngineConfiguration configuration = acceptingEngine.configuration();
+        final IntHashSet queryStreamIds = new IntHashSet();
+        queryStreamIds.add(configuration.outboundLibraryStream());
+        queryStreamIds.add(configuration.inboundLibraryStream());
+
+        final List<String> messages = new ArrayList<>();
+        SystemTestUtil.getMessagesFromArchiveInParallel(
+            configuration,
+            mediaDriver.archive().context().archiveDir(),
+            queryStreamIds,
+            FixMessagePredicates::alwaysTrue,
+            (message, buffer, offset, length, header) ->
+            messages.add(validateFixMessageConsumer(message, buffer, offset, length)));
+
+        final List<String> sequentialMessages = getMessagesFromArchive(configuration, queryStreamIds);
+        assertThat(messages, containsInAnyOrder(sequentialMessages.toArray()));
+        assertThat(messages.toString(), messages.subList(0, 4), contains(
+            containsString("35=A\00149=initiator\00156=acceptor\00134=1"),
+            containsString("35=A\00149=acceptor\00156=initiator\00134=1"),
+            containsString("35=1\00149=initiator\00156=acceptor\00134=2"),
+            containsString("\001112=hi")));
+    }
+
     @Test(timeout = TEST_TIMEOUT_IN_MS)
     public void canIndexScanArchiveClosed()
     {
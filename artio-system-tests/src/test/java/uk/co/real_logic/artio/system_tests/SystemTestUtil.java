@@ -33,6 +33,7 @@ import uk.co.real_logic.artio.engine.LowResourceEngineScheduler;
 import uk.co.real_logic.artio.engine.framer.LibraryInfo;
 import uk.co.real_logic.artio.engine.logger.FixArchiveScanner;
 import uk.co.real_logic.artio.engine.logger.FixMessageConsumer;
+import uk.co.real_logic.artio.engine.logger.FixMessagePredicate;
 import uk.co.real_logic.artio.fixp.FixPMessageConsumer;
 import uk.co.real_logic.artio.library.FixLibrary;
 import uk.co.real_logic.artio.library.LibraryConfiguration;
@@ -47,6 +48,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import static io.aeron.CommonContext.IPC_CHANNEL;
 import static java.util.Collections.singletonList;
@@ -603,4 +605,30 @@ public final class SystemTestUtil
                 DEFAULT_ARCHIVE_SCANNER_STREAM);
         }
     }
+
+    public static void getMessagesFromArchiveInParallel(
+        final EngineConfiguration configuration,
+        final File archiveDir,
+        final IntHashSet queryStreamIds,
+        final Supplier<FixMessagePredicate> predicateFactory,
+        final FixMessageConsumer fixMessageConsumer)
+    {
+        final FixArchiveScanner.Configuration context = new FixArchiveScanner.Configuration()
+            .aeronDirectoryName(configuration.aeronContext().aeronDirectoryName())
+            .archiveContext(aeronArchiveContext())
+            .idleStrategy(CommonConfiguration.backoffIdleStrategy())
+            .archiveSegmentDir(archiveDir.getAbsolutePath())
+            .scanParallelism(2);
+
+        try (FixArchiveScanner scanner = new FixArchiveScanner(context))
+        {
+            scanner.scanInParallel(
+                configuration.libraryAeronChannel(),
+                queryStreamIds,
+                predicateFactory,
+                fixMessageConsumer,
+                null,
+                DEFAULT_ARCHIVE_SCANNER_STREAM);
+        }
+    }
 }